@@ -1,5 +1,7 @@
 package com.septima.application;
 
+import com.septima.Database;
+
 import javax.servlet.ServletContext;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -17,32 +19,66 @@ public class Config {
     private static final String FUTURES_EXECUTOR_CONF_PARAM = "futures.executor";
     private static final String MAIL_SESSION_CONF_PARAM = "mail.session";
     private static final String MAX_JDBC_THREADS_CONF_PARAM = "jdbc.max.threads";
+    private static final String JDBC_PERFORMER_CONF_PARAM = "jdbc.performer";
+    private static final String JDBC_PERFORMER_VIRTUAL = "virtual";
+    private static final String JDBC_PERFORMER_POOL = "pool";
+    private static final String JDBC_QUEUE_SIZE_CONF_PARAM = "jdbc.queue.size";
+    private static final String JDBC_QUEUE_REJECTION_CONF_PARAM = "jdbc.queue.rejection";
+    private static final String JDBC_QUEUE_REJECTION_ABORT = "abort";
+    private static final String JDBC_QUEUE_REJECTION_CALLER_RUNS = "caller-runs";
     private static final String MAX_BATCH_SIZE_CONF_PARAM = "max.batch.size";
+    private static final String STATEMENTS_CACHE_SIZE_CONF_PARAM = "jdbc.statements.cache.size";
     private static final String MAX_MAIL_THREADS_CONF_PARAM = "mail.max.threads";
     private static final String LPC_QUEUE_SIZE_CONF_PARAM = "scope.queue.size";
+    private static final String LPC_QUEUE_TIMEOUT_CONF_PARAM = "scope.queue.timeout";
+    private static final String LPC_GLOBAL_KEYED_CONF_PARAM = "scope.global.keyed";
     private static final String ENTITIES_PATH_CONF_PARAM = "entities.path";
     private static final String RESOURCES_ENTITIES_PATH_CONF_PARAM = "resources.entities.path";
+    private static final String METADATA_SNAPSHOTS_PATH_CONF_PARAM = "metadata.snapshots.path";
+    private static final String ENTITIES_WARM_UP_CONF_PARAM = "entities.warm.up";
+    private static final String COMPILED_ENTITIES_PATH_CONF_PARAM = "entities.compiled.path";
+    private static final String ENTITIES_HOT_RELOAD_CONF_PARAM = "entities.hot.reload";
 
     private final String defaultDataSourceName;
     private final String futuresExecutorName;
     private final boolean dataBatches;
     private final int maximumBatchSize;
     private final int maximumJdbcThreads;
+    private final boolean virtualJdbcThreads;
+    private final int maximumJdbcQueueSize;
+    private final boolean jdbcCallerRuns;
+    private final int statementsCacheSize;
     private final int maximumMailThreads;
     private final int maximumLpcQueueSize;
+    private final long lpcOfferTimeout;
+    private final boolean lpcGlobalKeyed;
     private final Path resourcesEntitiesPath;
     private final Path entitiesPath;
+    private final Path metadataSnapshotsPath;
+    private final boolean entitiesWarmUp;
+    private final Path compiledEntitiesPath;
+    private final boolean entitiesHotReload;
 
-    private Config(String aDefaultDataSourceName, String aFuturesExecutorName, Path anEntitiesResourcesPath, Path anEntitiesPath, boolean aDataBatches, int aMaximumBatchSize, int aMaximumJdbcThreads, int aMaximumMailTreads, int aMaximumLpcQueueSize) {
+    private Config(String aDefaultDataSourceName, String aFuturesExecutorName, Path anEntitiesResourcesPath, Path anEntitiesPath, Path aMetadataSnapshotsPath, boolean anEntitiesWarmUp, Path aCompiledEntitiesPath, boolean anEntitiesHotReload, boolean aDataBatches, int aMaximumBatchSize, int aMaximumJdbcThreads, boolean aVirtualJdbcThreads, int aMaximumJdbcQueueSize, boolean aJdbcCallerRuns, int aStatementsCacheSize, int aMaximumMailTreads, int aMaximumLpcQueueSize, long aLpcOfferTimeout, boolean aLpcGlobalKeyed) {
         defaultDataSourceName = aDefaultDataSourceName;
         futuresExecutorName = aFuturesExecutorName;
         resourcesEntitiesPath = anEntitiesResourcesPath;
         entitiesPath = anEntitiesPath;
+        metadataSnapshotsPath = aMetadataSnapshotsPath;
+        entitiesWarmUp = anEntitiesWarmUp;
+        compiledEntitiesPath = aCompiledEntitiesPath;
+        entitiesHotReload = anEntitiesHotReload;
         dataBatches = aDataBatches;
         maximumBatchSize = aMaximumBatchSize;
         maximumJdbcThreads = aMaximumJdbcThreads;
+        virtualJdbcThreads = aVirtualJdbcThreads;
+        maximumJdbcQueueSize = aMaximumJdbcQueueSize;
+        jdbcCallerRuns = aJdbcCallerRuns;
+        statementsCacheSize = aStatementsCacheSize;
         maximumMailThreads = aMaximumMailTreads;
         maximumLpcQueueSize = aMaximumLpcQueueSize;
+        lpcOfferTimeout = aLpcOfferTimeout;
+        lpcGlobalKeyed = aLpcGlobalKeyed;
     }
 
     public static Config parse(ServletContext aContext) {
@@ -52,10 +88,20 @@ public class Config {
         boolean dataBatches = true;
         int maximumBatchSize = 128;
         int maximumJdbcThreads = 16;
+        boolean virtualJdbcThreads = false;
+        int maximumJdbcQueueSize = 0;
+        boolean jdbcCallerRuns = false;
+        int statementsCacheSize = Database.DEFAULT_STATEMENTS_CACHE_SIZE;
         int maximumMailTreads = 16;
         int maximumLpcQueueSize = 1024;
+        long lpcOfferTimeout = 1000;
+        boolean lpcGlobalKeyed = false;
         Path entitiesPath = null;
         Path entitiesResourcesPath = null;
+        Path metadataSnapshotsPath = null;
+        boolean entitiesWarmUp = false;
+        Path compiledEntitiesPath = null;
+        boolean entitiesHotReload = false;
         Enumeration<String> paramNames = aContext.getInitParameterNames();
         if (paramNames != null) {
             while (paramNames.hasMoreElements()) {
@@ -64,6 +110,26 @@ public class Config {
                     String paramValue = aContext.getInitParameter(paramName);
                     if (MAX_JDBC_THREADS_CONF_PARAM.equals(paramName)) {
                         maximumJdbcThreads = Math.max(1, Integer.parseInt(paramValue));
+                    } else if (JDBC_PERFORMER_CONF_PARAM.equals(paramName)) {
+                        if (JDBC_PERFORMER_VIRTUAL.equalsIgnoreCase(paramValue)) {
+                            virtualJdbcThreads = true;
+                        } else if (JDBC_PERFORMER_POOL.equalsIgnoreCase(paramValue)) {
+                            virtualJdbcThreads = false;
+                        } else {
+                            throw new IllegalStateException("'" + JDBC_PERFORMER_CONF_PARAM + "' parameter should be one of ['" + JDBC_PERFORMER_POOL + "', '" + JDBC_PERFORMER_VIRTUAL + "'], but it is: '" + paramValue + "'");
+                        }
+                    } else if (JDBC_QUEUE_SIZE_CONF_PARAM.equals(paramName)) {
+                        maximumJdbcQueueSize = Math.max(0, Integer.parseInt(paramValue));
+                    } else if (JDBC_QUEUE_REJECTION_CONF_PARAM.equals(paramName)) {
+                        if (JDBC_QUEUE_REJECTION_CALLER_RUNS.equalsIgnoreCase(paramValue)) {
+                            jdbcCallerRuns = true;
+                        } else if (JDBC_QUEUE_REJECTION_ABORT.equalsIgnoreCase(paramValue)) {
+                            jdbcCallerRuns = false;
+                        } else {
+                            throw new IllegalStateException("'" + JDBC_QUEUE_REJECTION_CONF_PARAM + "' parameter should be one of ['" + JDBC_QUEUE_REJECTION_ABORT + "', '" + JDBC_QUEUE_REJECTION_CALLER_RUNS + "'], but it is: '" + paramValue + "'");
+                        }
+                    } else if (STATEMENTS_CACHE_SIZE_CONF_PARAM.equals(paramName)) {
+                        statementsCacheSize = Math.max(0, Integer.parseInt(paramValue));
                     } else if (MAX_BATCH_SIZE_CONF_PARAM.equals(paramName)) {
                         maximumBatchSize = Math.max(1, Integer.parseInt(paramValue));
                     } else if (DATA_BATCHES_CONF_PARAM.equalsIgnoreCase(paramName)) {
@@ -72,10 +138,22 @@ public class Config {
                         maximumMailTreads = Math.max(1, Integer.parseInt(paramValue));
                     } else if (LPC_QUEUE_SIZE_CONF_PARAM.equalsIgnoreCase(paramName)) {
                         maximumLpcQueueSize = Math.max(1, Integer.parseInt(paramValue));
+                    } else if (LPC_QUEUE_TIMEOUT_CONF_PARAM.equalsIgnoreCase(paramName)) {
+                        lpcOfferTimeout = Math.max(0, Long.parseLong(paramValue));
+                    } else if (LPC_GLOBAL_KEYED_CONF_PARAM.equalsIgnoreCase(paramName)) {
+                        lpcGlobalKeyed = Boolean.parseBoolean(paramValue);
                     } else if (ENTITIES_PATH_CONF_PARAM.equalsIgnoreCase(paramName)) {
                         entitiesPath = Paths.get(aContext.getRealPath(paramValue));
                     } else if (RESOURCES_ENTITIES_PATH_CONF_PARAM.equalsIgnoreCase(paramName)) {
                         entitiesResourcesPath = Paths.get(paramValue.startsWith("/") ? paramValue : "/" + paramValue);
+                    } else if (METADATA_SNAPSHOTS_PATH_CONF_PARAM.equalsIgnoreCase(paramName)) {
+                        metadataSnapshotsPath = Paths.get(paramValue);
+                    } else if (ENTITIES_WARM_UP_CONF_PARAM.equalsIgnoreCase(paramName)) {
+                        entitiesWarmUp = Boolean.parseBoolean(paramValue);
+                    } else if (COMPILED_ENTITIES_PATH_CONF_PARAM.equalsIgnoreCase(paramName)) {
+                        compiledEntitiesPath = Paths.get(paramValue);
+                    } else if (ENTITIES_HOT_RELOAD_CONF_PARAM.equalsIgnoreCase(paramName)) {
+                        entitiesHotReload = Boolean.parseBoolean(paramValue);
                     } else if (DATA_SOURCE_DEFAULT_CONF_PARAM.equalsIgnoreCase(paramName)) {
                         defaultDataSourceName = paramValue;
                     } else if (FUTURES_EXECUTOR_CONF_PARAM.equalsIgnoreCase(paramName)) {
@@ -92,11 +170,21 @@ public class Config {
                         futuresExecutorName,
                         entitiesResourcesPath,
                         entitiesPath,
+                        metadataSnapshotsPath,
+                        entitiesWarmUp,
+                        compiledEntitiesPath,
+                        entitiesHotReload,
                         dataBatches,
                         maximumBatchSize,
                         maximumJdbcThreads,
+                        virtualJdbcThreads,
+                        maximumJdbcQueueSize,
+                        jdbcCallerRuns,
+                        statementsCacheSize,
                         maximumMailTreads,
-                        maximumLpcQueueSize
+                        maximumLpcQueueSize,
+                        lpcOfferTimeout,
+                        lpcGlobalKeyed
                 );
             } else if (entitiesResourcesPath != null) {
                 throw new IllegalStateException("Only one of ['" + RESOURCES_ENTITIES_PATH_CONF_PARAM + "', '" + ENTITIES_PATH_CONF_PARAM + "'] parameters should to be specified");
@@ -128,6 +216,33 @@ public class Config {
         return maximumJdbcThreads;
     }
 
+    /**
+     * @return True if jdbc tasks are performed by a thread per task, limited per data source by {@link #getMaximumJdbcThreads()},
+     * and false if they are performed by a fixed threads pool.
+     */
+    public boolean isVirtualJdbcThreads() {
+        return virtualJdbcThreads;
+    }
+
+    /**
+     * @return Maximum number of jdbc tasks, waiting for execution. Zero means that waiting tasks are not bounded.
+     */
+    public int getMaximumJdbcQueueSize() {
+        return maximumJdbcQueueSize;
+    }
+
+    /**
+     * @return True if a jdbc task, exceeding {@link #getMaximumJdbcQueueSize()}, should be performed by a submitting thread
+     * and false if it should be rejected and answered with 503 status.
+     */
+    public boolean isJdbcCallerRuns() {
+        return jdbcCallerRuns;
+    }
+
+    public int getStatementsCacheSize() {
+        return statementsCacheSize;
+    }
+
     public int getMaximumMailThreads() {
         return maximumMailThreads;
     }
@@ -136,6 +251,21 @@ public class Config {
         return maximumLpcQueueSize;
     }
 
+    /**
+     * @return Maximum time in milliseconds a scope action waits for room in a full queue before it is rejected and answered with 503 status.
+     */
+    public long getLpcOfferTimeout() {
+        return lpcOfferTimeout;
+    }
+
+    /**
+     * @return True if global scope actions on different keys should be performed concurrently,
+     * keeping order of actions on the same key, and false if all global actions should be performed serially.
+     */
+    public boolean isLpcGlobalKeyed() {
+        return lpcGlobalKeyed;
+    }
+
     public Path getResourcesEntitiesPath() {
         return resourcesEntitiesPath;
     }
@@ -143,4 +273,33 @@ public class Config {
     public Path getEntitiesPath() {
         return entitiesPath;
     }
+
+    /**
+     * @return A directory of databases' metadata snapshots or null if snapshots are not used.
+     */
+    public Path getMetadataSnapshotsPath() {
+        return metadataSnapshotsPath;
+    }
+
+    /**
+     * @return True if all entities should be compiled at application start.
+     */
+    public boolean isEntitiesWarmUp() {
+        return entitiesWarmUp;
+    }
+
+    /**
+     * @return A directory of compiled entities, kept across restarts, or null if compiled entities are not kept.
+     */
+    public Path getCompiledEntitiesPath() {
+        return compiledEntitiesPath;
+    }
+
+    /**
+     * @return True if changed entities should be reloaded without restart of an application.
+     * Applicable only to entities from a file system directory.
+     */
+    public boolean isEntitiesHotReload() {
+        return entitiesHotReload;
+    }
 }
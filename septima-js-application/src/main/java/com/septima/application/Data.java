@@ -2,11 +2,16 @@ package com.septima.application;
 
 import com.septima.Database;
 import com.septima.entities.SqlEntities;
+import com.septima.entities.SqlEntitiesReloader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 public class Data {
 
     private static volatile Data instance;
     private final SqlEntities entities;
+    private volatile SqlEntitiesReloader reloader;
 
     private Data(SqlEntities aEntities) {
         entities = aEntities;
@@ -20,18 +25,40 @@ public class Data {
                 aConfig.getResourcesEntitiesPath(),
                 aConfig.getEntitiesPath(),
                 aConfig.getDefaultDataSourceName(),
-                Database.jdbcTasksPerformer(aConfig.getMaximumJdbcThreads()),
+                aConfig.isVirtualJdbcThreads() ?
+                        Database.jdbcVirtualTasksPerformer(aConfig.getMaximumJdbcThreads(), aConfig.getMaximumJdbcQueueSize(), aConfig.isJdbcCallerRuns()) :
+                        Database.jdbcTasksPerformer(aConfig.getMaximumJdbcThreads(), aConfig.getMaximumJdbcQueueSize(), aConfig.isJdbcCallerRuns()),
                 Futures.getExecutor(),
                 Boolean.getBoolean("com.septima.entities.compile"),
                 aConfig.isDataBatches(),
-                aConfig.getMaximumBatchSize()
+                aConfig.getMaximumBatchSize(),
+                aConfig.getStatementsCacheSize(),
+                aConfig.getMetadataSnapshotsPath(),
+                aConfig.getCompiledEntitiesPath()
         ));
+        if (aConfig.isEntitiesWarmUp()) {
+            instance.entities.warmUp();
+        }
+        if (aConfig.isEntitiesHotReload()) {
+            try {
+                instance.reloader = new SqlEntitiesReloader(instance.entities);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
     }
 
     public static void done() {
         if (instance == null) {
             throw new IllegalStateException("Extra data shutdown attempt detected.");
         }
+        if (instance.reloader != null) {
+            try {
+                instance.reloader.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
         instance = null;
     }
 
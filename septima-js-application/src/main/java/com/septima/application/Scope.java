@@ -7,33 +7,32 @@ import javax.servlet.http.HttpSessionEvent;
 import javax.servlet.http.HttpSessionListener;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 public class Scope {
 
     private static volatile Scope instance;
     private final ThreadLocal<Context> context = new ThreadLocal<>();
-    private final int maximumLpcQueueSize;
+    private final ThreadLocal<ScopeExecutor.Stripe> serial = new ThreadLocal<>();
+    private final ScopeExecutor executor;
     private final Context globalContext;
 
-    private Scope(int aMaximumLpcQueueSize) {
-        maximumLpcQueueSize = aMaximumLpcQueueSize;
-        SubmissionPublisher<Runnable> globalPublisher = new SubmissionPublisher<>(Futures.getExecutor(), maximumLpcQueueSize);
-        globalPublisher.subscribe(new Subscriber("Global"));
-        globalContext = new Context(globalPublisher);
+    private Scope(int aMaximumLpcQueueSize, long aLpcOfferTimeout, boolean aGlobalKeyed) {
+        executor = new ScopeExecutor(Runtime.getRuntime().availableProcessors() * 2, aMaximumLpcQueueSize, aLpcOfferTimeout, TimeUnit.MILLISECONDS, Futures.getExecutor());
+        globalContext = new Context(executor.reserveStripe(), aGlobalKeyed);
     }
 
     public static void init(Config aConfig) {
         if (instance != null) {
             throw new IllegalStateException("Scope can be initialized only once.");
         }
-        instance = new Scope(aConfig.getMaximumLpcQueueSize());
+        instance = new Scope(aConfig.getMaximumLpcQueueSize(), aConfig.getLpcOfferTimeout(), aConfig.isLpcGlobalKeyed());
     }
 
     public static void done() {
@@ -53,25 +52,59 @@ public class Scope {
     public static <R> CompletableFuture<R> bind(CompletableFuture<R> foreign) {
         Context presentContext = instance.present();
         Objects.requireNonNull(presentContext, "Scope context must present while future's bind");
-        return presentContext.bind(foreign);
+        return presentContext.bind(foreign, instance.serial.get());
     }
 
+    /**
+     * Performs an action on a global instance of a key.
+     * If global scope is keyed, actions on the same key are performed in order of their calls
+     * and actions on different keys are performed concurrently. Otherwise all global actions are performed serially.
+     * A returned future is completed in the same serial order as a calling action was performed in.
+     */
     public static <A, R> CompletableFuture<R> global(Supplier<A> factory, String key, Function<A, R> action) {
         return Scope.getInstance().globalContext.apply(action, key, factory, false);
     }
 
+    /**
+     * Performs an action on a session instance of a key.
+     * Actions of a session are performed serially. If there is no present context, e.g. while a call from a request's thread,
+     * the session's context is the calling context and a returned future is completed in the session's serial order.
+     */
     public static <A, R> CompletableFuture<R> session(Supplier<A> factory, String key, Function<A, R> action, Answer answer) {
-        return Context.of(answer.getRequest().getSession()).apply(action, key, factory, false);
+        return Context.of(answer.getRequest().getSession()).apply(action, key, factory, true);
+    }
+
+    /**
+     * @return Stripes of the scope with their queues' depths and numbers of rejected actions.
+     */
+    public static List<ScopeExecutor.Stripe> getStripes() {
+        return Scope.getInstance().executor.getStripes();
+    }
+
+    /**
+     * @return Number of global actions and completions of their callers' futures, waiting and being performed.
+     */
+    public static int getGlobalPending() {
+        return Scope.getInstance().globalContext.getPending();
     }
 
     private Context present() {
         return context.get();
     }
 
+    /**
+     * @return A stripe, an action of the present context is performed in or null if there is no present context.
+     */
+    static ScopeExecutor.Stripe presentStripe() {
+        return Scope.getInstance().serial.get();
+    }
+
+    static ScopeExecutor getExecutor() {
+        return Scope.getInstance().executor;
+    }
+
     private Context createContext() {
-        SubmissionPublisher<Runnable> publisher = new SubmissionPublisher<>(Futures.getExecutor(), maximumLpcQueueSize);
-        publisher.subscribe(new Subscriber("Septima scope"));
-        return new Context(publisher);
+        return new Context(executor.nextStripe());
     }
 
     public static class Context implements Serializable {
@@ -79,11 +112,26 @@ public class Scope {
         private static final long serialVersionUID = 1L;
 
         private static final String ATTRIBUTE = "septima.lpc.context";
-        private transient SubmissionPublisher<Runnable> publisher;
+        /**
+         * A stripe of the scope executor. Contexts share stripes, so actions of a context are performed
+         * in order of their submission, but the context takes neither a thread nor a queue of its own.
+         */
+        private transient ScopeExecutor.Stripe serial;
+        /**
+         * If true, actions of the context are performed in stripes of their instances' keys instead of its own stripe.
+         */
+        private transient boolean keyed;
+        private transient AtomicInteger pending;
         private Map<String, Object> instances = new ConcurrentHashMap<>();
 
-        Context(SubmissionPublisher<Runnable> aPublisher) {
-            publisher = aPublisher;
+        Context(ScopeExecutor.Stripe aSerial) {
+            this(aSerial, false);
+        }
+
+        Context(ScopeExecutor.Stripe aSerial, boolean aKeyed) {
+            serial = aSerial;
+            keyed = aKeyed;
+            pending = new AtomicInteger();
         }
 
         public static Context of(HttpSession aSession) {
@@ -100,54 +148,101 @@ public class Scope {
         private void readObject(java.io.ObjectInputStream in)
                 throws IOException, ClassNotFoundException {
             instances = (Map<String, Object>) in.readObject();
-            SubmissionPublisher<Runnable> readPublisher = new SubmissionPublisher<>(Futures.getExecutor(), Scope.getInstance().maximumLpcQueueSize);
-            readPublisher.subscribe(new Subscriber("Septima scope"));
-            publisher = readPublisher;
+            serial = Scope.getInstance().executor.nextStripe();
+            pending = new AtomicInteger();
+        }
+
+        /**
+         * @return Number of the context's actions and completions of its futures, waiting and being performed.
+         */
+        public int getPending() {
+            return pending.get();
         }
 
         private <A, R> Function<A, R> discover(String aKey) {
             return null;
         }
 
-        private void in(Runnable action) {
+        private ScopeExecutor.Stripe serialOf(String aKey) {
+            return keyed ? Scope.getInstance().executor.stripeOf(aKey) : serial;
+        }
+
+        /**
+         * Submits an action to a stripe, if it has room for the action.
+         *
+         * @throws RejectedExecutionException if the stripe is full.
+         */
+        private void in(ScopeExecutor.Stripe aSerial, Runnable action) {
+            pending.incrementAndGet();
+            try {
+                aSerial.execute(within(aSerial, action));
+            } catch (RejectedExecutionException ex) {
+                pending.decrementAndGet();
+                throw ex;
+            }
+        }
+
+        /**
+         * Submits a completion of a future to a stripe regardless of its queue size,
+         * because the completion continues an action, accepted earlier, and should not be lost.
+         */
+        private void resume(ScopeExecutor.Stripe aSerial, Runnable action) {
+            pending.incrementAndGet();
+            aSerial.enqueue(within(aSerial, action));
+        }
+
+        private Runnable within(ScopeExecutor.Stripe aSerial, Runnable action) {
             Scope scope = Scope.getInstance();
-            publisher.submit(() -> {
-                if (scope.context.get() != null) {
-                    throw new IllegalStateException("Foreign Scope context detected");
-                } else {
-                    scope.context.set(this);
-                    try {
-                        action.run();
-                    } finally {
-                        scope.context.set(null);
+            return () -> {
+                try {
+                    if (scope.context.get() != null) {
+                        throw new IllegalStateException("Foreign Scope context detected");
+                    } else {
+                        scope.context.set(this);
+                        scope.serial.set(aSerial);
+                        try {
+                            action.run();
+                        } finally {
+                            scope.serial.set(null);
+                            scope.context.set(null);
+                        }
                     }
+                } finally {
+                    pending.decrementAndGet();
                 }
-            });
+            };
         }
 
         private <A, R> CompletableFuture<R> apply(Function<A, R> action, String key, Supplier<A> factory, boolean sameContext) {
             Scope scope = Scope.getInstance();
-            Context wasContext = scope.context.get() != null ? scope.context.get() : sameContext ? this : null;
+            Context presentContext = scope.context.get();
+            Context wasContext = presentContext != null ? presentContext : sameContext ? this : null;
             Objects.requireNonNull(wasContext, "Scope context must present while Scope call");
+            ScopeExecutor.Stripe wasSerial = presentContext != null ? scope.serial.get() : serial;
             CompletableFuture<R> result = new CompletableFuture<>();
-            in(() -> {
-                try {
-                    A a = (A) instances.computeIfAbsent(key, k -> factory.get());
-                    R r = action.apply(a);
-                    wasContext.in(() -> result.complete(r));
-                } catch (Throwable t) {
-                    wasContext.in(() -> result.completeExceptionally(t));
-                }
-            });
+            try {
+                in(serialOf(key), () -> {
+                    try {
+                        A a = (A) instances.computeIfAbsent(key, k -> factory.get());
+                        R r = action.apply(a);
+                        wasContext.resume(wasSerial, () -> result.complete(r));
+                    } catch (Throwable t) {
+                        wasContext.resume(wasSerial, () -> result.completeExceptionally(t));
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                // The caller is still in its context, so the future can be completed here
+                result.completeExceptionally(ex);
+            }
             return result;
         }
 
-        private <R> CompletableFuture<R> bind(CompletableFuture<R> foreign) {
+        private <R> CompletableFuture<R> bind(CompletableFuture<R> foreign, ScopeExecutor.Stripe aSerial) {
             CompletableFuture<R> bound = new CompletableFuture<>();
             foreign
-                    .thenAccept(r -> in(() -> bound.complete(r)))
+                    .thenAccept(r -> resume(aSerial, () -> bound.complete(r)))
                     .exceptionally(ex -> {
-                        in(() -> bound.completeExceptionally(ex));
+                        resume(aSerial, () -> bound.completeExceptionally(ex));
                         return null;
                     });
             return bound;
@@ -168,36 +263,4 @@ public class Scope {
             anEvent.getSession().removeAttribute(Context.ATTRIBUTE);
         }
     }
-
-    private static class Subscriber implements Flow.Subscriber<Runnable> {
-
-        private final String name;
-        private volatile Flow.Subscription subscription;
-
-        private Subscriber(String aName) {
-            name = aName;
-        }
-
-        @Override
-        public void onSubscribe(Flow.Subscription aSubscription) {
-            subscription = aSubscription;
-            subscription.request(1);
-        }
-
-        @Override
-        public void onNext(Runnable item) {
-            subscription.request(1);
-            item.run();
-        }
-
-        @Override
-        public void onComplete() {
-            Logger.getLogger(Scope.class.getName()).log(Level.INFO, "'" + name + "' requests processing is terminated.");
-        }
-
-        @Override
-        public void onError(Throwable throwable) {
-            Logger.getLogger(Scope.class.getName()).log(Level.SEVERE, throwable.getMessage(), throwable);
-        }
-    }
 }
@@ -0,0 +1,282 @@
+package com.septima.application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Executes scope's actions serially per stripe and in parallel across stripes.
+ * A stripe is a lock-free multiple producers single consumer queue of actions. The single consumer is a drain task,
+ * scheduled on a backing executor only when the stripe has pending actions, so idle stripes take no threads.
+ * Actions, submitted to the same stripe, are performed in order of submission and never concurrently.
+ * A drain task performs a limited batch of actions and then is rescheduled, so a busy stripe doesn't hold a thread of the backing executor forever.
+ * If a stripe is full, a submitting thread waits for room no longer than an offer timeout and then the action is rejected
+ * with {@link RejectedExecutionException}, so a slow stripe doesn't stall submitting threads for unbounded time.
+ * Room is signalled by the drain task as soon as an action is performed. An action of a stripe, submitting
+ * to the same full stripe, is rejected at once, because the stripe can't be drained while its action waits.
+ *
+ * @author mg
+ */
+public class ScopeExecutor {
+
+    private static final int DRAIN_BATCH_SIZE = 64;
+
+    private final Stripe[] stripes;
+    private final List<Stripe> reserved = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Stripe> draining = new ThreadLocal<>();
+    private final Executor executor;
+    private final int queueSize;
+    private final long offerTimeout;
+    private final AtomicInteger stripesSequence = new AtomicInteger();
+
+    /**
+     * Creates an executor, that waits for room in a full stripe without a timeout.
+     *
+     * @param aStripes   Number of stripes. It is rounded up to a power of two.
+     * @param aQueueSize Maximum number of pending actions per stripe. A submitting thread waits while a stripe is full.
+     * @param anExecutor A backing executor, drain tasks are performed by.
+     */
+    public ScopeExecutor(int aStripes, int aQueueSize, Executor anExecutor) {
+        this(aStripes, aQueueSize, Long.MAX_VALUE, TimeUnit.NANOSECONDS, anExecutor);
+    }
+
+    /**
+     * @param aStripes       Number of stripes. It is rounded up to a power of two.
+     * @param aQueueSize     Maximum number of pending actions per stripe.
+     * @param anOfferTimeout Maximum time a submitting thread waits for room in a full stripe. Zero means that an action is rejected at once.
+     * @param aUnit          Unit of the offer timeout.
+     * @param anExecutor     A backing executor, drain tasks are performed by.
+     */
+    public ScopeExecutor(int aStripes, int aQueueSize, long anOfferTimeout, TimeUnit aUnit, Executor anExecutor) {
+        Objects.requireNonNull(aUnit, "aUnit is required argument");
+        Objects.requireNonNull(anExecutor, "anExecutor is required argument");
+        if (aStripes < 1) {
+            throw new IllegalArgumentException("aStripes should be positive");
+        }
+        if (aQueueSize < 1) {
+            throw new IllegalArgumentException("aQueueSize should be positive");
+        }
+        if (anOfferTimeout < 0) {
+            throw new IllegalArgumentException("anOfferTimeout should not be negative");
+        }
+        executor = anExecutor;
+        queueSize = aQueueSize;
+        offerTimeout = aUnit.toNanos(anOfferTimeout);
+        int stripesCount = 1;
+        while (stripesCount < aStripes) {
+            stripesCount <<= 1;
+        }
+        stripes = new Stripe[stripesCount];
+        for (int s = 0; s < stripes.length; s++) {
+            stripes[s] = new Stripe();
+        }
+    }
+
+    /**
+     * Takes a stripe for a new context. Stripes are taken in round robin manner, so contexts are spread evenly.
+     *
+     * @return {@link Stripe}, that performs actions serially.
+     */
+    public Stripe nextStripe() {
+        return stripes[stripesSequence.getAndIncrement() & (stripes.length - 1)];
+    }
+
+    /**
+     * Takes a stripe by a key. Equal keys lead to the same stripe.
+     *
+     * @param aKey A key of actions.
+     * @return {@link Stripe} of the key, that performs actions serially.
+     */
+    public Stripe stripeOf(Object aKey) {
+        int hash = aKey.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    /**
+     * Creates a stripe, that is never taken by {@link #nextStripe()} or {@link #stripeOf(Object)},
+     * so actions of its single owner don't wait behind actions of others.
+     *
+     * @return {@link Stripe}, dedicated to a caller.
+     */
+    public Stripe reserveStripe() {
+        Stripe stripe = new Stripe();
+        reserved.add(stripe);
+        return stripe;
+    }
+
+    public int getStripesCount() {
+        return stripes.length;
+    }
+
+    /**
+     * @return Shared stripes, followed by reserved ones.
+     */
+    public List<Stripe> getStripes() {
+        List<Stripe> all = new ArrayList<>(List.of(stripes));
+        all.addAll(reserved);
+        return all;
+    }
+
+    /**
+     * @return Number of actions, pending in all stripes.
+     */
+    public int getPending() {
+        int pending = 0;
+        for (Stripe stripe : getStripes()) {
+            pending += stripe.getPending();
+        }
+        return pending;
+    }
+
+    /**
+     * @return Number of actions, rejected by all stripes because of their full queues.
+     */
+    public long getRejected() {
+        long rejected = 0;
+        for (Stripe stripe : getStripes()) {
+            rejected += stripe.getRejected();
+        }
+        return rejected;
+    }
+
+    public class Stripe implements Executor {
+
+        private final Queue<Runnable> actions = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicLong rejected = new AtomicLong();
+        /**
+         * Permits of actions, accepted by {@link #execute(Runnable)}. A permit is released when an action is performed.
+         */
+        private final Semaphore room = new Semaphore(queueSize);
+
+        private Stripe() {
+        }
+
+        /**
+         * Enqueues an action if the stripe has room for it.
+         *
+         * @param anAction An action to be performed.
+         * @throws RejectedExecutionException if the stripe is still full after the offer timeout or
+         *                                    if it is full and the action is submitted by an action of the stripe.
+         */
+        @Override
+        public void execute(Runnable anAction) {
+            Objects.requireNonNull(anAction, "anAction is required argument");
+            if (!room.tryAcquire()) {
+                awaitRoom();
+            }
+            enqueue(() -> {
+                try {
+                    anAction.run();
+                } finally {
+                    room.release();
+                }
+            });
+        }
+
+        /**
+         * Enqueues an action regardless of the queue size.
+         * It is intended for continuations of actions, already accepted by {@link #execute(Runnable)},
+         * e.g. completion of a caller's future, that should not be lost.
+         *
+         * @param anAction An action to be performed.
+         */
+        void enqueue(Runnable anAction) {
+            actions.offer(anAction);
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        /**
+         * A producer waits for room as a managed blocker, so if it is an action of another stripe, performed by a {@link ForkJoinPool},
+         * the pool compensates the blocked thread and the stripe, the producer waits for, is still drained.
+         */
+        private void awaitRoom() {
+            RoomBlocker blocker = new RoomBlocker();
+            if (draining.get() != this) {
+                try {
+                    ForkJoinPool.managedBlock(blocker);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (!blocker.acquired) {
+                rejected.incrementAndGet();
+                throw new RejectedExecutionException("Scope action is rejected. Pending actions: " + pending.get() + ", maximum queue size: " + queueSize);
+            }
+        }
+
+        /**
+         * @return Number of actions, waiting in the stripe and being performed.
+         */
+        public int getPending() {
+            return pending.get();
+        }
+
+        /**
+         * @return Number of actions, rejected by the stripe because of its full queue.
+         */
+        public long getRejected() {
+            return rejected.get();
+        }
+
+        /**
+         * An action is offered to the queue before the pending counter is incremented,
+         * so the queue is never empty while the counter is positive.
+         */
+        private void drain() {
+            Stripe wasDraining = draining.get();
+            draining.set(this);
+            try {
+                for (int a = 0; a < DRAIN_BATCH_SIZE; a++) {
+                    Runnable action = actions.poll();
+                    try {
+                        action.run();
+                    } catch (Throwable th) {
+                        Logger.getLogger(ScopeExecutor.class.getName()).log(Level.SEVERE, th.getMessage(), th);
+                    }
+                    if (pending.decrementAndGet() == 0) {
+                        return;
+                    }
+                }
+                executor.execute(this::drain);
+            } finally {
+                draining.set(wasDraining);
+            }
+        }
+
+        private class RoomBlocker implements ForkJoinPool.ManagedBlocker {
+
+            private final long deadline = System.nanoTime() + offerTimeout;
+            private boolean acquired;
+
+            @Override
+            public boolean isReleasable() {
+                if (!acquired) {
+                    acquired = room.tryAcquire();
+                }
+                return acquired || deadline - System.nanoTime() <= 0;
+            }
+
+            @Override
+            public boolean block() throws InterruptedException {
+                long remaining = deadline - System.nanoTime();
+                acquired = remaining > 0 && room.tryAcquire(remaining, TimeUnit.NANOSECONDS);
+                return true;
+            }
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.septima.application.endpoint;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.septima.PartialCommitException;
 import com.septima.application.Futures;
 import com.septima.application.exceptions.EndPointException;
 import com.septima.application.exceptions.InvalidRequestException;
@@ -12,7 +14,9 @@ import com.septima.application.exceptions.NoCollectionException;
 import com.septima.application.exceptions.NoImplementationException;
 import com.septima.application.exceptions.NoInstanceException;
 import com.septima.application.io.RequestBodyReceiver;
+import com.septima.application.io.RequestJsonReceiver;
 import com.septima.application.io.ResponseBodySender;
+import com.septima.application.io.ResponseRowsSender;
 import com.septima.jdbc.UncheckedSQLException;
 
 import javax.servlet.AsyncContext;
@@ -24,12 +28,16 @@ import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -51,10 +59,6 @@ public class Answer {
             .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
             .reader()
             .forType(Map.class);
-    private static final ObjectReader JSON_ARRAY_READER = new ObjectMapper()
-            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
-            .reader()
-            .forType(List.class);
 
     private final HttpServletRequest request;
     private final HttpServletResponse response;
@@ -114,16 +118,27 @@ public class Answer {
 
     public Void exceptionally(Throwable aTh) {
         Objects.requireNonNull(aTh, "aTh is required argument");
-        Throwable th = unwrapException(aTh, t -> t instanceof EndPointException || t instanceof SQLException || t instanceof UncheckedSQLException || t instanceof IOException || t instanceof UncheckedIOException, 16);
+        Throwable th = unwrapException(aTh, t -> t instanceof EndPointException || t instanceof PartialCommitException || t instanceof SQLException || t instanceof UncheckedSQLException || t instanceof IOException || t instanceof UncheckedIOException, 16);
         Logger.getLogger(Answer.class.getName()).log(Level.SEVERE, th.getMessage(), th);
         response.setStatus(
                 th instanceof NoInstanceException || th instanceof NoCollectionException ? HttpServletResponse.SC_NOT_FOUND :
                         th instanceof NoAccessException ? HttpServletResponse.SC_FORBIDDEN :
                                 th instanceof NoImplementationException ? HttpServletResponse.SC_METHOD_NOT_ALLOWED :
                                         th instanceof InvalidRequestException || th instanceof IOException || th instanceof UncheckedIOException ? HttpServletResponse.SC_BAD_REQUEST :
-                                                th instanceof SQLException || th instanceof UncheckedSQLException ? HttpServletResponse.SC_CONFLICT :
-                                                        HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-        if (th instanceof EndPointException && th.getMessage() != null && !th.getMessage().isEmpty()) {
+                                                // Some databases are committed and others are not, so the request can't be simply retried
+                                                th instanceof PartialCommitException ? HttpServletResponse.SC_BAD_GATEWAY :
+                                                        th instanceof SQLException || th instanceof UncheckedSQLException ? HttpServletResponse.SC_CONFLICT :
+                                                                th instanceof RejectedExecutionException ? HttpServletResponse.SC_SERVICE_UNAVAILABLE :
+                                                                        HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        if (th instanceof PartialCommitException) {
+            withJsonObject(Map.of(
+                    "status", response.getStatus(),
+                    "description", th.getMessage(),
+                    "committed", ((PartialCommitException) th).getCommitted().stream()
+                            .map(Object::toString)
+                            .collect(Collectors.toList()))
+            );
+        } else if (th instanceof EndPointException && th.getMessage() != null && !th.getMessage().isEmpty()) {
             withJsonObject(Map.of(
                     "status", response.getStatus(),
                     "description", th.getMessage())
@@ -164,6 +179,19 @@ public class Answer {
         }
     }
 
+    /**
+     * Writes rows to the response body as a json array while they are published.
+     * Unlike {@link #withJsonArray(Collection)}, neither rows nor their json are held in memory as a whole.
+     * If the publisher fails before any row is written, the failure is answered with {@link #exceptionally(Throwable)}.
+     *
+     * @param aData {@link Flow.Publisher} of rows to be written.
+     */
+    public void withJsonArray(Flow.Publisher<Map<String, Object>> aData) {
+        Objects.requireNonNull(aData, "aData is required argument");
+        response.setContentType(JSON_CONTENT_TYPE_UTF8);
+        aData.subscribe(new ResponseRowsSender(JSON_WRITER, context, context::complete, this::exceptionally));
+    }
+
     public void withContent(String aContentType, byte[] aData) {
         try {
             response.setContentType(aContentType);
@@ -192,60 +220,81 @@ public class Answer {
     }
 
     public CompletableFuture<List<Map<String, Object>>> onJsonArray() {
-        if (request.getContentType() != null && request.getContentType().toLowerCase().startsWith(JSON_CONTENT_TYPE) && request.getContentLength() > 0) {
-            return input()
-                    .thenApply(data -> {
-                        try {
-                            return JSON_ARRAY_READER.readValue(new String(data, charsetOf(request)));
-                        } catch (IOException ex) {
-                            throw new UncheckedIOException(ex);
-                        }
-                    });
-        } else {
-            throw new InvalidRequestException(JSON_CONTENT_TYPE_REQUIRED);
-        }
+        List<Map<String, Object>> arrived = new ArrayList<>();
+        return onJsonArrayElements(arrived::add)
+                .thenApply(v -> arrived);
+    }
+
+    /**
+     * Receives a json array of objects from a request body and consumes its elements as soon as they are parsed,
+     * so processing of a long array may be started before the whole request body is received.
+     * Elements are consumed on a container's thread, so the consumer should not block.
+     *
+     * @param aOnElement A consumer of the array's elements.
+     * @return A future, that is completed when all elements are consumed.
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Void> onJsonArrayElements(Consumer<Map<String, Object>> aOnElement) {
+        return onJson(JSON_OBJECT_READER, true, element -> aOnElement.accept((Map<String, Object>) element));
     }
 
     public CompletableFuture<List<Object>> onPlainJsonArray() {
-        if (request.getContentType() != null && request.getContentType().toLowerCase().startsWith(JSON_CONTENT_TYPE) && request.getContentLength() > 0) {
-            return input()
-                    .thenApply(data -> {
-                        try {
-                            return JSON_ARRAY_READER.readValue(new String(data, charsetOf(request)));
-                        } catch (IOException ex) {
-                            throw new UncheckedIOException(ex);
-                        }
-                    });
-        } else {
-            throw new InvalidRequestException(JSON_CONTENT_TYPE_REQUIRED);
-        }
+        List<Object> arrived = new ArrayList<>();
+        return onJson(JSON_VALUE_READER, true, arrived::add)
+                .thenApply(v -> arrived);
     }
 
+    @SuppressWarnings("unchecked")
     public CompletableFuture<Map<String, Object>> onJsonObject() {
-        if (request.getContentType() != null && request.getContentType().toLowerCase().startsWith(JSON_CONTENT_TYPE) && request.getContentLength() > 0) {
-            return input()
-                    .thenApply(data -> {
-                        try {
-                            return JSON_OBJECT_READER.readValue(new String(data, charsetOf(request)));
-                        } catch (IOException ex) {
-                            throw new UncheckedIOException(ex);
-                        }
-                    });
-        } else {
-            throw new InvalidRequestException(JSON_CONTENT_TYPE_REQUIRED);
-        }
+        Object[] arrived = new Object[1];
+        return onJson(JSON_OBJECT_READER, false, value -> arrived[0] = value)
+                .thenApply(v -> (Map<String, Object>) arrived[0]);
     }
 
     public CompletableFuture<Object> onJsonValue() {
+        Object[] arrived = new Object[1];
+        return onJson(JSON_VALUE_READER, false, value -> arrived[0] = value)
+                .thenApply(v -> arrived[0]);
+    }
+
+    /**
+     * Parses a json request body.
+     * A body in UTF-8 is parsed incrementally while it arrives, without accumulation of its bytes.
+     * A body in another encoding is received as a whole and then is parsed.
+     */
+    private CompletableFuture<Void> onJson(ObjectReader aReader, boolean anElements, Consumer<Object> aOnValue) {
         if (request.getContentType() != null && request.getContentType().toLowerCase().startsWith(JSON_CONTENT_TYPE) && request.getContentLength() > 0) {
-            return input()
-                    .thenApply(data -> {
-                        try {
-                            return JSON_VALUE_READER.readValue(new String(data, charsetOf(request)));
-                        } catch (IOException ex) {
-                            throw new UncheckedIOException(ex);
-                        }
-                    });
+            Charset charset = charsetOf(request);
+            if (StandardCharsets.UTF_8.equals(charset)) {
+                Executor futuresExecutor = Futures.getExecutor();
+                try {
+                    CompletableFuture<Void> receiving = new CompletableFuture<>();
+                    ServletInputStream in = request.getInputStream();
+                    in.setReadListener(new RequestJsonReceiver(in, aReader, anElements, aOnValue,
+                            () -> receiving.completeAsync(() -> null, futuresExecutor),
+                            t -> futuresExecutor.execute(() ->
+                                    receiving.completeExceptionally(t)
+                            )));
+                    return receiving;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            } else {
+                return input()
+                        .thenAccept(data -> {
+                            try {
+                                if (anElements) {
+                                    try (MappingIterator<Object> arrived = aReader.readValues(new String(data, charset))) {
+                                        arrived.forEachRemaining(aOnValue);
+                                    }
+                                } else {
+                                    aOnValue.accept(aReader.readValue(new String(data, charset)));
+                                }
+                            } catch (IOException ex) {
+                                throw new UncheckedIOException(ex);
+                            }
+                        });
+            }
         } else {
             throw new InvalidRequestException(JSON_CONTENT_TYPE_REQUIRED);
         }
@@ -1,24 +1,36 @@
 package com.septima.application.endpoint;
 
+import com.septima.Database;
 import com.septima.GenericType;
 import com.septima.application.exceptions.EndPointException;
-import com.septima.application.exceptions.NoCollectionException;
 import com.septima.application.exceptions.NotPublicException;
 import com.septima.application.exceptions.WritesNotAllowedException;
 import com.septima.changes.*;
+import com.septima.dataflow.EntityActionsBinder;
 import com.septima.entities.SqlEntity;
 
 import javax.servlet.http.HttpServletRequest;
-import java.io.FileNotFoundException;
-import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 public class SqlEntitiesCommitEndPoint extends SqlEntitiesDataFlowEndPoint {
 
+    /**
+     * Statements of a commit log entry, bound to its entity's database.
+     */
+    private static class BoundAction {
+        private final Database database;
+        private final List<EntityActionsBinder.BoundStatement> statements;
+
+        private BoundAction(Database aDatabase, List<EntityActionsBinder.BoundStatement> aStatements) {
+            database = aDatabase;
+            statements = aStatements;
+        }
+    }
+
     protected Map<String, Object> handleInsertData(Answer answer, SqlEntity aEntity, Map<String, Object> aData) {
         return aData;
     }
@@ -39,83 +51,79 @@ public class SqlEntitiesCommitEndPoint extends SqlEntitiesDataFlowEndPoint {
         return aParameters;
     }
 
-    private List<EntityAction> toActions(Answer  answer, List<Map<String, Object>> aJsonActions) {
-        return aJsonActions.stream()
-                .map(entry -> {
-                    if (entry.containsKey("kind")) {
-                        if (entry.containsKey("entity")) {
-                            String entityName = (String) entry.get("entity");
-                            try {
-                                SqlEntity entity = entities.loadEntity(entityName);
-                                String kind = (String) entry.get("kind");
-                                if ("command".equalsIgnoreCase(kind)) {
-                                    Map<String, Object> parameters = (Map<String, Object>) entry.getOrDefault("parameters", Map.of());
-                                    reviveDates(handleParameters(answer, entity, parameters), parametersTypes(entity));
-                                    return new EntityCommand(entityName, parameters);
-                                } else if ("insert".equalsIgnoreCase(kind)) {
-                                    Map<String, Object> data = (Map<String, Object>) entry.getOrDefault("data", Map.of());
-                                    reviveDates(data, fieldsTypes(entity));
-                                    return new InstanceAdd(entityName, handleInsertData(answer, entity, data));
-                                } else if ("update".equalsIgnoreCase(kind)) {
-                                    Map<String, Object> keys = (Map<String, Object>) entry.getOrDefault("keys", Map.of());
-                                    Map<String, Object> data = (Map<String, Object>) entry.getOrDefault("data", Map.of());
-                                    Map<String, GenericType> types = fieldsTypes(entity);
-                                    reviveDates(keys, types);
-                                    reviveDates(data, types);
-                                    return new InstanceChange(entityName, handleUpdateKeys(answer, entity, keys), handleUpdateData(answer, entity, data));
-                                } else if ("delete".equalsIgnoreCase(kind)) {
-                                    Map<String, Object> keys = (Map<String, Object>) entry.getOrDefault("keys", Map.of());
-                                    reviveDates(keys, fieldsTypes(entity));
-                                    return new InstanceRemove(entityName, handleDeleteKeys(answer, entity, keys));
-                                } else {
-                                    throw new EndPointException("Unknown commit log entry kind: '" + kind + "'");
-                                }
-                            } catch (UncheckedIOException ex) {
-                                if (ex.getCause() instanceof FileNotFoundException) {
-                                    throw new NoCollectionException(entityName);
-                                } else {
-                                    throw ex;
-                                }
-                            }
-                        } else {
-                            throw new EndPointException("Commit log entry has to contain 'entity' property");
-                        }
-                    } else {
-                        throw new EndPointException("Commit log entry has to contain 'kind' property");
-                    }
-                }).collect(Collectors.toList());
+    private EntityAction toAction(Answer answer, SqlEntity entity, Map<String, Object> entry) {
+        String entityName = entity.getName();
+        String kind = (String) entry.get("kind");
+        if ("command".equalsIgnoreCase(kind)) {
+            Map<String, Object> parameters = (Map<String, Object>) entry.getOrDefault("parameters", Map.of());
+            reviveDates(handleParameters(answer, entity, parameters), parametersTypes(entity));
+            return new EntityCommand(entityName, parameters);
+        } else if ("insert".equalsIgnoreCase(kind)) {
+            Map<String, Object> data = (Map<String, Object>) entry.getOrDefault("data", Map.of());
+            reviveDates(data, fieldsTypes(entity));
+            return new InstanceAdd(entityName, handleInsertData(answer, entity, data));
+        } else if ("update".equalsIgnoreCase(kind)) {
+            Map<String, Object> keys = (Map<String, Object>) entry.getOrDefault("keys", Map.of());
+            Map<String, Object> data = (Map<String, Object>) entry.getOrDefault("data", Map.of());
+            Map<String, GenericType> types = fieldsTypes(entity);
+            reviveDates(keys, types);
+            reviveDates(data, types);
+            return new InstanceChange(entityName, handleUpdateKeys(answer, entity, keys), handleUpdateData(answer, entity, data));
+        } else if ("delete".equalsIgnoreCase(kind)) {
+            Map<String, Object> keys = (Map<String, Object>) entry.getOrDefault("keys", Map.of());
+            reviveDates(keys, fieldsTypes(entity));
+            return new InstanceRemove(entityName, handleDeleteKeys(answer, entity, keys));
+        } else {
+            throw new EndPointException("Unknown commit log entry kind: '" + kind + "'");
+        }
+    }
+
+    private static void checkAccess(SqlEntity entity, HttpServletRequest request) {
+        if (!entity.isPublicAccess()) {
+            throw new NotPublicException(entity.getName());
+        } else if (!entity.getWriteRoles().isEmpty() && entity.getWriteRoles().stream().noneMatch(request::isUserInRole)) {
+            throw new WritesNotAllowedException(entity.getName(), entity.getWriteRoles());
+        }
     }
 
-    private List<EntityAction> checkAccess(List<EntityAction> actions, HttpServletRequest request) {
-        actions.forEach(entry -> {
-            SqlEntity entity = entities.loadEntity(entry.getEntityName());
-            if (!entity.isPublicAccess()) {
-                throw new NotPublicException(entry.getEntityName());
-            } else if (!entity.getWriteRoles().isEmpty() && entity.getWriteRoles().stream().noneMatch(request::isUserInRole)) {
-                throw new WritesNotAllowedException(entry.getEntityName(), entity.getWriteRoles());
+    /**
+     * Binds a commit log entry to statements as soon as the entry is parsed and its entity is loaded,
+     * so entries are bound while the rest of the commit log is still being received.
+     */
+    private CompletableFuture<BoundAction> bind(Answer answer, Map<String, Object> entry) {
+        if (entry.containsKey("kind")) {
+            if (entry.containsKey("entity")) {
+                String entityName = (String) entry.get("entity");
+                return loadEntity(entityName, entityName)
+                        .thenApply(entity -> {
+                            EntityAction action = toAction(answer, entity, entry);
+                            checkAccess(entity, answer.getRequest());
+                            EntityActionsBinder binder = new EntityActionsBinder(entity);
+                            action.accept(binder);
+                            return new BoundAction(entity.getDatabase(), binder.getLogEntries());
+                        });
+            } else {
+                throw new EndPointException("Commit log entry has to contain 'entity' property");
             }
-        });
-        return actions;
+        } else {
+            throw new EndPointException("Commit log entry has to contain 'kind' property");
+        }
     }
 
-    private CompletableFuture<Integer> apply(List<EntityAction> actions) {
-        List<CompletableFuture<Integer>> futures = entities.bindChanges(actions).entrySet().stream()
-                .map(entry -> entry.getKey().commit(entry.getValue()))
-                .collect(Collectors.toList());
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[]{}))
-                .thenApply(v -> futures.stream()
-                        .map(f -> f.getNow(0))
-                        .reduce(Integer::sum).orElse(0)
-                );
+    private CompletableFuture<Integer> apply(List<CompletableFuture<BoundAction>> boundActions) {
+        Map<Database, List<EntityActionsBinder.BoundStatement>> bound = new LinkedHashMap<>();
+        boundActions.stream()
+                .map(CompletableFuture::join)
+                .forEach(action -> bound.computeIfAbsent(action.database, d -> new ArrayList<>()).addAll(action.statements));
+        return Database.commit(bound);
     }
 
     @Override
     public void post(Answer answer) {
-        answer.onJsonArray()
-                .thenApply(arrived -> toActions(answer, arrived))
-                .thenApply(actions -> checkAccess(actions, answer.getRequest()))
-                .thenApply(this::apply)
-                .thenCompose(Function.identity())
+        List<CompletableFuture<BoundAction>> boundActions = new ArrayList<>();
+        answer.onJsonArrayElements(entry -> boundActions.add(bind(answer, entry)))
+                .thenCompose(v -> CompletableFuture.allOf(boundActions.toArray(new CompletableFuture<?>[]{})))
+                .thenCompose(v -> apply(boundActions))
                 .thenAccept(affected -> answer.withJsonObject(Map.of("affected", affected)))
                 .exceptionally(answer::exceptionally);
     }
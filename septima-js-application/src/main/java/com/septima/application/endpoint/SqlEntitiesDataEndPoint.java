@@ -15,17 +15,66 @@ import com.septima.metadata.Parameter;
 import com.septima.model.Id;
 import com.septima.queries.SqlQuery;
 
-import java.io.FileNotFoundException;
-import java.io.UncheckedIOException;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.WeakHashMap;
 import java.util.function.Function;
 
 public class SqlEntitiesDataEndPoint extends SqlEntitiesDataFlowEndPoint {
 
+    /**
+     * A collection's query, that selects an instance by its key.
+     */
+    private static class KeyQuery {
+        private final SqlQuery query;
+        private final EntityField keyField;
+        private final String keyParameterName;
+
+        private KeyQuery(SqlQuery aQuery, EntityField aKeyField, String aKeyParameterName) {
+            query = aQuery;
+            keyField = aKeyField;
+            keyParameterName = aKeyParameterName;
+        }
+    }
+
+    /**
+     * Key queries are built once per collection's query and are held while the collection's query is in use.
+     */
+    private final Map<SqlQuery, KeyQuery> keyQueries = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static KeyQuery keyQueryOf(SqlEntity entity, SqlQuery query) {
+        EntityField pkField = query.getExpectedFields().values().stream()
+                .filter(EntityField::isPk)
+                .findAny()
+                .orElseThrow(() -> new IllegalStateException("Entity '" + query.getEntityName() + "' has no a key field"));
+        int paramSequence = 0;
+        String keyParamName = "p" + ++paramSequence;
+        while (entity.getParameters().containsKey(keyParamName)) {
+            keyParamName = "p" + ++paramSequence;
+        }
+        int aliasSequence = 0;
+        String outerAliasName = "a" + ++aliasSequence;
+        while (query.getSqlClause().contains(outerAliasName)) {
+            outerAliasName = "a" + ++aliasSequence;
+        }
+        Parameter keyParameter = new Parameter(keyParamName, null, pkField.getType());
+        List<Parameter> anotherParameters = new ArrayList<>(query.getParameters());
+        anotherParameters.add(keyParameter);
+        return new KeyQuery(new SqlQuery(query.getDatabase(),
+                query.getEntityName(),
+                "Select * from (" + query.getSqlClause() + ") " + outerAliasName + " where " + outerAliasName + "." + pkField.getName() + " = " + query.getDatabase().getSqlDriver().parameterPlaceholder(keyParameter),
+                Collections.unmodifiableList(anotherParameters),
+                false,
+                query.getPageSize(),
+                query.getExpectedFields()),
+                pkField,
+                keyParamName
+        );
+    }
+
     protected Map<String, Object> handleInsertData(Answer answer, SqlEntity entity, Map<String, Object> aData){
         return aData;
     }
@@ -49,72 +98,49 @@ public class SqlEntitiesDataEndPoint extends SqlEntitiesDataFlowEndPoint {
     @Override
     public void get(Answer answer) {
         onCollectionRef(collectionRef -> {
-            AtomicInteger paramSequence = new AtomicInteger();
-            AtomicInteger aliasSequence = new AtomicInteger();
             if (entities.exists(collectionRef)) {
-                onPublic(publicEntity -> onReadsAllowed(entity -> {
-                    if (entity.isCommand()) {
-                        throw new EndPointException("Entity '" + entity.getName() + "' is command entity. It can't be used as a collection");
-                    }
-                    SqlQuery query = entities.loadQuery(entity.getName());
-                    query.requestData(handleParameters(answer, entity, query.parseParameters(Answer.scalars(answer.getRequest().getParameterMap()))))
-                            .thenAccept(answer::withJsonArray)
-                            .exceptionally(answer::exceptionally);
-                }, answer, publicEntity), answer, entities.loadEntity(collectionRef));
+                loadEntity(collectionRef, collectionRef)
+                        .thenAccept(loaded -> onPublic(publicEntity -> onReadsAllowed(entity -> {
+                            if (entity.isCommand()) {
+                                throw new EndPointException("Entity '" + entity.getName() + "' is command entity. It can't be used as a collection");
+                            }
+                            entities.loadQueryAsync(entity.getName())
+                                    .thenAccept(query -> answer.withJsonArray(query.publishData(handleParameters(answer, entity, query.parseParameters(Answer.scalars(answer.getRequest().getParameterMap()))))))
+                                    .exceptionally(answer::exceptionally);
+                        }, answer, publicEntity), answer, loaded))
+                        .exceptionally(answer::exceptionally);
             } else {
                 int lastSlashAt = collectionRef.lastIndexOf('/');
                 if (lastSlashAt > 0 && lastSlashAt < collectionRef.length() - 1) {
                     String anotherCollectionRef = collectionRef.substring(0, lastSlashAt);
                     String instanceKey = collectionRef.substring(lastSlashAt + 1);
-                    try {
-                        onPublic(publicEntity -> onReadsAllowed(entity -> {
-                            if (entity.isCommand()) {
-                                throw new EndPointException("Entity '" + entity.getName() + "' is command entity. It can't be used as a collection");
-                            }
-                            SqlQuery query = entities.loadQuery(entity.getName());
-                            EntityField pkField = query.getExpectedFields().values().stream()
-                                    .filter(EntityField::isPk)
-                                    .findAny()
-                                    .orElseThrow(() -> new IllegalStateException("Entity '" + query.getEntityName() + "' has no a key field"));
-                            String keyParamName = "p" + paramSequence.incrementAndGet();
-                            while (entity.getParameters().containsKey(keyParamName)) {
-                                keyParamName = "p" + paramSequence.incrementAndGet();
-                            }
-                            String outerAliasName = "a" + aliasSequence.incrementAndGet();
-                            while (query.getSqlClause().contains(outerAliasName)) {
-                                outerAliasName = "a" + aliasSequence.incrementAndGet();
-                            }
-                            List<Parameter> anotherParameters = new ArrayList<>(query.getParameters());
-                            anotherParameters.add(new Parameter(keyParamName, null, pkField.getType()));
-                            SqlQuery anotherQuery = new SqlQuery(query.getDatabase(),
-                                    query.getEntityName(),
-                                    "Select * from (" + query.getSqlClause() + ") " + outerAliasName + " where " + outerAliasName + "." + pkField.getName() + " = ?",
-                                    anotherParameters,
-                                    false,
-                                    query.getPageSize(),
-                                    query.getExpectedFields());
-                            Map<String, Object> anotherParametersValues = anotherQuery.parseParameters(Answer.scalars(answer.getRequest().getParameterMap()));
-                            Object keyParamValue = GenericType.parseValue(instanceKey, pkField.getType());
-                            anotherParametersValues.put(keyParamName, keyParamValue);
-                            anotherQuery.requestData(handleParameters(answer, entity, anotherParametersValues))
-                                    .thenApply(data -> {
-                                        if (data.size() == 1)
-                                            return data.get(0);
-                                        else if (data.size() > 1)
-                                            throw new IllegalStateException("Collection '" + entity.getName() + "' has more than one instance with key: " + pkField.getName() + " = " + keyParamValue);
-                                        else
-                                            throw new NoInstanceException(entity.getName(), pkField.getName(), "" + keyParamValue);
-                                    })
-                                    .thenAccept(answer::withJsonObject)
-                                    .exceptionally(answer::exceptionally);
-                        }, answer, publicEntity), answer, entities.loadEntity(anotherCollectionRef));
-                    } catch (UncheckedIOException aex) {
-                        if (aex.getCause() instanceof FileNotFoundException) {
-                            throw new NoCollectionException(collectionRef + " or " + anotherCollectionRef);
-                        } else {
-                            throw aex;
-                        }
-                    }
+                    loadEntity(anotherCollectionRef, collectionRef + " or " + anotherCollectionRef)
+                            .thenAccept(loaded -> onPublic(publicEntity -> onReadsAllowed(entity -> {
+                                if (entity.isCommand()) {
+                                    throw new EndPointException("Entity '" + entity.getName() + "' is command entity. It can't be used as a collection");
+                                }
+                                entities.loadQueryAsync(entity.getName())
+                                        .thenCompose(query -> {
+                                            KeyQuery keyQuery = keyQueries.computeIfAbsent(query, q -> keyQueryOf(entity, q));
+                                            SqlQuery anotherQuery = keyQuery.query;
+                                            EntityField pkField = keyQuery.keyField;
+                                            Map<String, Object> anotherParametersValues = anotherQuery.parseParameters(Answer.scalars(answer.getRequest().getParameterMap()));
+                                            Object keyParamValue = GenericType.parseValue(instanceKey, pkField.getType());
+                                            anotherParametersValues.put(keyQuery.keyParameterName, keyParamValue);
+                                            return anotherQuery.requestData(handleParameters(answer, entity, anotherParametersValues))
+                                                    .thenApply(data -> {
+                                                        if (data.size() == 1)
+                                                            return data.get(0);
+                                                        else if (data.size() > 1)
+                                                            throw new IllegalStateException("Collection '" + entity.getName() + "' has more than one instance with key: " + pkField.getName() + " = " + keyParamValue);
+                                                        else
+                                                            throw new NoInstanceException(entity.getName(), pkField.getName(), "" + keyParamValue);
+                                                    });
+                                        })
+                                        .thenAccept(answer::withJsonObject)
+                                        .exceptionally(answer::exceptionally);
+                            }, answer, publicEntity), answer, loaded))
+                            .exceptionally(answer::exceptionally);
                 } else {
                     throw new NoCollectionException(collectionRef);
                 }
@@ -125,46 +151,40 @@ public class SqlEntitiesDataEndPoint extends SqlEntitiesDataFlowEndPoint {
     @Override
     public void post(Answer answer) {
         onCollectionRef(collectionRef -> {
-            try {
-                onPublic(publicEntity -> onWritesAllowed(entity -> {
-                    EntityActionsBinder binder = new EntityActionsBinder(entity);
-                    answer.onJsonObject()
-                            .thenApply(arrived -> {
-                                EntityField pkField = entity.getFields().values().stream()
-                                        .filter(EntityField::isPk)
-                                        .findAny()
-                                        .orElseThrow(() -> new IllegalStateException("Entity '" + entity.getName() + "' has no a key field"));
-                                Object key = arrived.get(pkField.getName());
-                                if (key == null) {
-                                    if (GenericType.LONG == pkField.getType()) {
-                                        arrived.put(pkField.getName(), Id.nextExtended());
-                                    } else if (GenericType.DOUBLE == pkField.getType()) {
-                                        arrived.put(pkField.getName(), Id.next());
-                                    } else if (GenericType.STRING == pkField.getType()) {
-                                        arrived.put(pkField.getName(), "" + Id.nextExtended());
-                                    } else if (GenericType.DATE == pkField.getType()) {
-                                        arrived.put(pkField.getName(), Id.nextExtended());
-                                    } else {
-                                        throw new EndPointException("Can't generate a key automatically for the type '" + pkField.getType().toString() + "' for instance of collection '" + entity.getName() + "'");
+            loadEntity(collectionRef, collectionRef)
+                    .thenAccept(loaded -> onPublic(publicEntity -> onWritesAllowed(entity -> {
+                        EntityActionsBinder binder = new EntityActionsBinder(entity);
+                        answer.onJsonObject()
+                                .thenApply(arrived -> {
+                                    EntityField pkField = entity.getFields().values().stream()
+                                            .filter(EntityField::isPk)
+                                            .findAny()
+                                            .orElseThrow(() -> new IllegalStateException("Entity '" + entity.getName() + "' has no a key field"));
+                                    Object key = arrived.get(pkField.getName());
+                                    if (key == null) {
+                                        if (GenericType.LONG == pkField.getType()) {
+                                            arrived.put(pkField.getName(), Id.nextExtended());
+                                        } else if (GenericType.DOUBLE == pkField.getType()) {
+                                            arrived.put(pkField.getName(), Id.next());
+                                        } else if (GenericType.STRING == pkField.getType()) {
+                                            arrived.put(pkField.getName(), "" + Id.nextExtended());
+                                        } else if (GenericType.DATE == pkField.getType()) {
+                                            arrived.put(pkField.getName(), Id.nextExtended());
+                                        } else {
+                                            throw new EndPointException("Can't generate a key automatically for the type '" + pkField.getType().toString() + "' for instance of collection '" + entity.getName() + "'");
+                                        }
                                     }
-                                }
-                                reviveDates(arrived, fieldsTypes(entity));
-                                InstanceAdd action = new InstanceAdd(entity.getName(), handleInsertData(answer, entity, arrived));
-                                action.accept(binder);
-                                return entity.getDatabase().commit(binder.getLogEntries())
-                                        .thenApply(affected -> arrived.get(pkField.getName()));
-                            })
-                            .thenCompose(Function.identity())
-                            .thenAccept(key -> answer.created("" + key))
-                            .exceptionally(answer::exceptionally);
-                }, answer, publicEntity), answer, entities.loadEntity(collectionRef));
-            } catch (UncheckedIOException ex) {
-                if (ex.getCause() instanceof FileNotFoundException) {
-                    throw new NoCollectionException(collectionRef);
-                } else {
-                    throw ex;
-                }
-            }
+                                    reviveDates(arrived, fieldsTypes(entity));
+                                    InstanceAdd action = new InstanceAdd(entity.getName(), handleInsertData(answer, entity, arrived));
+                                    action.accept(binder);
+                                    return entity.getDatabase().commit(binder.getLogEntries())
+                                            .thenApply(affected -> arrived.get(pkField.getName()));
+                                })
+                                .thenCompose(Function.identity())
+                                .thenAccept(key -> answer.created("" + key))
+                                .exceptionally(answer::exceptionally);
+                    }, answer, publicEntity), answer, loaded))
+                    .exceptionally(answer::exceptionally);
         }, answer);
     }
 
@@ -175,52 +195,46 @@ public class SqlEntitiesDataEndPoint extends SqlEntitiesDataFlowEndPoint {
             if (lastSlashAt > 0 && lastSlashAt < instanceRef.length() - 1) {
                 String collectionRef = instanceRef.substring(0, lastSlashAt);
                 String instanceKey = instanceRef.substring(lastSlashAt + 1);
-                try {
-                    onPublic(publicEntity -> onWritesAllowed(entity -> {
-                        EntityField pkField = entity.getFields().values().stream()
-                                .filter(EntityField::isPk)
-                                .findAny()
-                                .orElseThrow(() -> new IllegalStateException("Entity '" + entity.getName() + "' has no a key field"));
-                        EntityActionsBinder binder = new EntityActionsBinder(entity);
-                        answer.onJsonObject()
-                                .thenApply(arrived -> {
-                                    try {
-                                        Object parsedKey = GenericType.parseValue(instanceKey, pkField.getType());
-                                        reviveDates(arrived, fieldsTypes(entity));
-                                        InstanceChange action = new InstanceChange(
-                                                entity.getName(),
-                                                handleUpdateKeys(answer, entity, Map.of(pkField.getName(), parsedKey)),
-                                                handleUpdateData(answer, entity, arrived)
-                                        );
-                                        action.accept(binder);
-                                        return entity.getDatabase().commit(binder.getLogEntries());
-                                    } catch (IllegalStateException ex) {
-                                        if (ex.getCause() instanceof ParseException) {
+                loadEntity(collectionRef, collectionRef)
+                        .thenAccept(loaded -> onPublic(publicEntity -> onWritesAllowed(entity -> {
+                            EntityField pkField = entity.getFields().values().stream()
+                                    .filter(EntityField::isPk)
+                                    .findAny()
+                                    .orElseThrow(() -> new IllegalStateException("Entity '" + entity.getName() + "' has no a key field"));
+                            EntityActionsBinder binder = new EntityActionsBinder(entity);
+                            answer.onJsonObject()
+                                    .thenApply(arrived -> {
+                                        try {
+                                            Object parsedKey = GenericType.parseValue(instanceKey, pkField.getType());
+                                            reviveDates(arrived, fieldsTypes(entity));
+                                            InstanceChange action = new InstanceChange(
+                                                    entity.getName(),
+                                                    handleUpdateKeys(answer, entity, Map.of(pkField.getName(), parsedKey)),
+                                                    handleUpdateData(answer, entity, arrived)
+                                            );
+                                            action.accept(binder);
+                                            return entity.getDatabase().commit(binder.getLogEntries());
+                                        } catch (IllegalStateException ex) {
+                                            if (ex.getCause() instanceof ParseException) {
+                                                throw new NoInstanceException(entity.getName(), pkField.getName(), instanceKey);
+                                            } else {
+                                                throw ex;
+                                            }
+                                        } catch (NumberFormatException ex) {
                                             throw new NoInstanceException(entity.getName(), pkField.getName(), instanceKey);
+                                        }
+                                    })
+                                    .thenCompose(Function.identity())
+                                    .thenAccept(updated -> {
+                                        if (updated > 0) {
+                                            answer.ok();
                                         } else {
-                                            throw ex;
+                                            throw new NoInstanceException(entity.getName(), pkField.getName(), instanceKey);
                                         }
-                                    } catch (NumberFormatException ex) {
-                                        throw new NoInstanceException(entity.getName(), pkField.getName(), instanceKey);
-                                    }
-                                })
-                                .thenCompose(Function.identity())
-                                .thenAccept(updated -> {
-                                    if (updated > 0) {
-                                        answer.ok();
-                                    } else {
-                                        throw new NoInstanceException(entity.getName(), pkField.getName(), instanceKey);
-                                    }
-                                })
-                                .exceptionally(answer::exceptionally);
-                    }, answer, publicEntity), answer, entities.loadEntity(collectionRef));
-                } catch (UncheckedIOException aex) {
-                    if (aex.getCause() instanceof FileNotFoundException) {
-                        throw new NoCollectionException(collectionRef);
-                    } else {
-                        throw aex;
-                    }
-                }
+                                    })
+                                    .exceptionally(answer::exceptionally);
+                        }, answer, publicEntity), answer, loaded))
+                        .exceptionally(answer::exceptionally);
             } else {
                 throw new InvalidRequestException("Can't update whole collection: '" + instanceRef + "'. Update of a whole collection is not supported");
             }
@@ -234,43 +248,37 @@ public class SqlEntitiesDataEndPoint extends SqlEntitiesDataFlowEndPoint {
             if (lastSlashAt > 0 && lastSlashAt < instanceRef.length() - 1) {
                 String collectionRef = instanceRef.substring(0, lastSlashAt);
                 String instanceKey = instanceRef.substring(lastSlashAt + 1);
-                try {
-                    onPublic(publicEntity -> onWritesAllowed(entity -> {
-                        EntityActionsBinder binder = new EntityActionsBinder(entity);
-                        EntityField pkField = entity.getFields().values().stream()
-                                .filter(EntityField::isPk)
-                                .findAny()
-                                .orElseThrow(() -> new IllegalStateException("Entity '" + entity.getName() + "' has no a key field"));
-                        try {
-                            Object parsedKey = GenericType.parseValue(instanceKey, pkField.getType());
-                            InstanceRemove action = new InstanceRemove(entity.getName(), handleDeleteKeys(answer, entity, Map.of(pkField.getName(), parsedKey)));
-                            action.accept(binder);
-                            entity.getDatabase().commit(binder.getLogEntries())
-                                    .thenAccept(updated -> {
-                                        if (updated > 0) {
-                                            answer.ok();
-                                        } else {
-                                            throw new NoInstanceException(entity.getName(), pkField.getName(), instanceKey);
-                                        }
-                                    })
-                                    .exceptionally(answer::exceptionally);
-                        } catch (IllegalStateException ex) {
-                            if (ex.getCause() instanceof ParseException) {
+                loadEntity(collectionRef, collectionRef)
+                        .thenAccept(loaded -> onPublic(publicEntity -> onWritesAllowed(entity -> {
+                            EntityActionsBinder binder = new EntityActionsBinder(entity);
+                            EntityField pkField = entity.getFields().values().stream()
+                                    .filter(EntityField::isPk)
+                                    .findAny()
+                                    .orElseThrow(() -> new IllegalStateException("Entity '" + entity.getName() + "' has no a key field"));
+                            try {
+                                Object parsedKey = GenericType.parseValue(instanceKey, pkField.getType());
+                                InstanceRemove action = new InstanceRemove(entity.getName(), handleDeleteKeys(answer, entity, Map.of(pkField.getName(), parsedKey)));
+                                action.accept(binder);
+                                entity.getDatabase().commit(binder.getLogEntries())
+                                        .thenAccept(updated -> {
+                                            if (updated > 0) {
+                                                answer.ok();
+                                            } else {
+                                                throw new NoInstanceException(entity.getName(), pkField.getName(), instanceKey);
+                                            }
+                                        })
+                                        .exceptionally(answer::exceptionally);
+                            } catch (IllegalStateException ex) {
+                                if (ex.getCause() instanceof ParseException) {
+                                    throw new NoInstanceException(entity.getName(), pkField.getName(), instanceKey);
+                                } else {
+                                    throw ex;
+                                }
+                            } catch (NumberFormatException ex) {
                                 throw new NoInstanceException(entity.getName(), pkField.getName(), instanceKey);
-                            } else {
-                                throw ex;
                             }
-                        } catch (NumberFormatException ex) {
-                            throw new NoInstanceException(entity.getName(), pkField.getName(), instanceKey);
-                        }
-                    }, answer, publicEntity), answer, entities.loadEntity(collectionRef));
-                } catch (UncheckedIOException aex) {
-                    if (aex.getCause() instanceof FileNotFoundException) {
-                        throw new NoCollectionException(collectionRef);
-                    } else {
-                        throw aex;
-                    }
-                }
+                        }, answer, publicEntity), answer, loaded))
+                        .exceptionally(answer::exceptionally);
             } else {
                 throw new InvalidRequestException("Can't delete whole collection: '" + instanceRef + "'. Delete of a whole collection is not supported");
             }
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.util.StdDateFormat;
 import com.septima.GenericType;
 import com.septima.application.AsyncEndPoint;
 import com.septima.application.Data;
+import com.septima.application.exceptions.NoCollectionException;
 import com.septima.application.exceptions.NotPublicException;
 import com.septima.application.exceptions.ReadsNotAllowedException;
 import com.septima.application.exceptions.WritesNotAllowedException;
@@ -12,9 +13,13 @@ import com.septima.entities.SqlEntity;
 import com.septima.metadata.EntityField;
 import com.septima.metadata.Parameter;
 
+import java.io.FileNotFoundException;
+import java.io.UncheckedIOException;
 import java.text.ParseException;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -91,6 +96,30 @@ public class SqlEntitiesEndPoint extends AsyncEndPoint {
 
     protected transient volatile SqlEntities entities;
 
+    /**
+     * Loads an entity without blocking of a container's thread.
+     *
+     * @param anEntityRef    An entity name.
+     * @param aCollectionRef A collection reference to be reported if the entity is absent.
+     * @return A future of the entity, completed exceptionally with {@link NoCollectionException} if the entity is absent.
+     * @see SqlEntities#loadEntityAsync(String)
+     */
+    CompletableFuture<SqlEntity> loadEntity(String anEntityRef, String aCollectionRef) {
+        return entities.loadEntityAsync(anEntityRef)
+                .handle((entity, ex) -> {
+                    if (ex != null) {
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                        if (cause instanceof UncheckedIOException && cause.getCause() instanceof FileNotFoundException) {
+                            throw new NoCollectionException(aCollectionRef);
+                        } else {
+                            throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(ex);
+                        }
+                    } else {
+                        return entity;
+                    }
+                });
+    }
+
     @Override
     protected void prepare() throws Exception {
         entities = Data.getInstance().getEntities();
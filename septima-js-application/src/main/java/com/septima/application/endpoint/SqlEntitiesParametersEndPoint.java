@@ -6,8 +6,6 @@ import com.septima.application.exceptions.NoInstanceException;
 import com.septima.entities.SqlEntity;
 import com.septima.metadata.Parameter;
 
-import java.io.FileNotFoundException;
-import java.io.UncheckedIOException;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -31,33 +29,29 @@ public class SqlEntitiesParametersEndPoint extends SqlEntitiesEndPoint {
     public void get(Answer answer) {
         onCollectionRef(entityRef -> {
             if (entities.exists(entityRef)) {
-                onPublic(publicEntity -> onReadsAllowed(entity ->
-                        answer.withJsonObject(
-                                entity.getParameters().values().stream()
-                                        .sorted(Comparator.comparing(Parameter::getName))
-                                        .filter(p -> isParameterPublic(answer, entity, p))
-                                        .collect(Collectors.toMap(Parameter::getName, this::fromParameter))
-                        ), answer, publicEntity), answer, entities.loadEntity(entityRef));
+                loadEntity(entityRef, entityRef)
+                        .thenAccept(loaded -> onPublic(publicEntity -> onReadsAllowed(entity ->
+                                answer.withJsonObject(
+                                        entity.getParameters().values().stream()
+                                                .sorted(Comparator.comparing(Parameter::getName))
+                                                .filter(p -> isParameterPublic(answer, entity, p))
+                                                .collect(Collectors.toMap(Parameter::getName, this::fromParameter))
+                                ), answer, publicEntity), answer, loaded))
+                        .exceptionally(answer::exceptionally);
             } else {
                 int lastSlashAt = entityRef.lastIndexOf('/');
                 if (lastSlashAt > 0 && lastSlashAt < entityRef.length() - 1) {
                     String anotherEntityRef = entityRef.substring(0, lastSlashAt);
                     String fieldName = entityRef.substring(lastSlashAt + 1);
-                    try {
-                        onPublic(publicEntity -> onReadsAllowed(entity -> {
-                            if (entity.getParameters().containsKey(fieldName) && isParameterPublic(answer, entity, entity.getParameters().get(fieldName))) {
-                                answer.withJsonObject(fromParameter(entity.getParameters().get(fieldName)));
-                            } else {
-                                throw new NoInstanceException(anotherEntityRef, "parameter.name", fieldName);
-                            }
-                        }, answer, publicEntity), answer, entities.loadEntity(anotherEntityRef));
-                    } catch (UncheckedIOException aex) {
-                        if (aex.getCause() instanceof FileNotFoundException) {
-                            throw new NoCollectionException(entityRef + " or " + anotherEntityRef);
-                        } else {
-                            throw aex;
-                        }
-                    }
+                    loadEntity(anotherEntityRef, entityRef + " or " + anotherEntityRef)
+                            .thenAccept(loaded -> onPublic(publicEntity -> onReadsAllowed(entity -> {
+                                if (entity.getParameters().containsKey(fieldName) && isParameterPublic(answer, entity, entity.getParameters().get(fieldName))) {
+                                    answer.withJsonObject(fromParameter(entity.getParameters().get(fieldName)));
+                                } else {
+                                    throw new NoInstanceException(anotherEntityRef, "parameter.name", fieldName);
+                                }
+                            }, answer, publicEntity), answer, loaded))
+                            .exceptionally(answer::exceptionally);
                 } else {
                     throw new NoCollectionException(entityRef);
                 }
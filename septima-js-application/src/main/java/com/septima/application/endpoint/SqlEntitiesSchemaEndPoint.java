@@ -7,8 +7,6 @@ import com.septima.application.exceptions.NoInstanceException;
 import com.septima.metadata.EntityField;
 import com.septima.metadata.Field;
 
-import java.io.FileNotFoundException;
-import java.io.UncheckedIOException;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -29,39 +27,35 @@ public class SqlEntitiesSchemaEndPoint extends SqlEntitiesEndPoint {
     public void get(Answer answer) {
         onCollectionRef(entityRef -> {
             if (entities.exists(entityRef)) {
-                onPublic(publicEntity -> onReadsAllowed(entity -> {
-                    if(entity.isCommand()){
-                        throw new EndPointException("Entity '" + entity.getName() + "' is command entity. It can't be used as a collection");
-                    }
-                    answer.withJsonObject(
-                            entity.getFields().values().stream()
-                                    .sorted(Comparator.comparing(Field::getName))
-                                    .collect(Collectors.toMap(EntityField::getName, this::fromField))
-                    );
-                }, answer, publicEntity), answer, entities.loadEntity(entityRef));
+                loadEntity(entityRef, entityRef)
+                        .thenAccept(loaded -> onPublic(publicEntity -> onReadsAllowed(entity -> {
+                            if(entity.isCommand()){
+                                throw new EndPointException("Entity '" + entity.getName() + "' is command entity. It can't be used as a collection");
+                            }
+                            answer.withJsonObject(
+                                    entity.getFields().values().stream()
+                                            .sorted(Comparator.comparing(Field::getName))
+                                            .collect(Collectors.toMap(EntityField::getName, this::fromField))
+                            );
+                        }, answer, publicEntity), answer, loaded))
+                        .exceptionally(answer::exceptionally);
             } else {
                 int lastSlashAt = entityRef.lastIndexOf('/');
                 if (lastSlashAt > 0 && lastSlashAt < entityRef.length() - 1) {
                     String anotherEntityRef = entityRef.substring(0, lastSlashAt);
                     String fieldName = entityRef.substring(lastSlashAt + 1);
-                    try {
-                        onPublic(publicEntity -> onReadsAllowed(entity -> {
-                            if(entity.isCommand()){
-                                throw new EndPointException("Entity '" + entity.getName() + "' is command entity. It can't be used as a collection");
-                            }
-                            if (entity.getFields().containsKey(fieldName)) {
-                                answer.withJsonObject(fromField(entity.getFields().get(fieldName)));
-                            } else {
-                                throw new NoInstanceException(anotherEntityRef, "field.name", fieldName);
-                            }
-                        }, answer, publicEntity), answer, entities.loadEntity(anotherEntityRef));
-                    } catch (UncheckedIOException aex) {
-                        if (aex.getCause() instanceof FileNotFoundException) {
-                            throw new NoCollectionException(entityRef + " or " + anotherEntityRef);
-                        } else {
-                            throw aex;
-                        }
-                    }
+                    loadEntity(anotherEntityRef, entityRef + " or " + anotherEntityRef)
+                            .thenAccept(loaded -> onPublic(publicEntity -> onReadsAllowed(entity -> {
+                                if(entity.isCommand()){
+                                    throw new EndPointException("Entity '" + entity.getName() + "' is command entity. It can't be used as a collection");
+                                }
+                                if (entity.getFields().containsKey(fieldName)) {
+                                    answer.withJsonObject(fromField(entity.getFields().get(fieldName)));
+                                } else {
+                                    throw new NoInstanceException(anotherEntityRef, "field.name", fieldName);
+                                }
+                            }, answer, publicEntity), answer, loaded))
+                            .exceptionally(answer::exceptionally);
                 } else {
                     throw new NoCollectionException(entityRef);
                 }
@@ -0,0 +1,162 @@
+package com.septima.application.io;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Parses a json request body with a non-blocking parser, while chunks of the body arrive.
+ * Bytes of the body are not accumulated. Only tokens of a value being parsed are buffered.
+ * If elements of a json array are requested, every element is read and consumed as soon as it is parsed,
+ * so a consumer may start to process a long array before the whole body is received.
+ * The body is expected to be encoded in UTF-8.
+ * Values are consumed on a container's thread, so a consumer should not block.
+ */
+public class RequestJsonReceiver implements ReadListener {
+
+    private final byte[] buffer = new byte[1024 * 8]; // 8 Kb
+
+    private final ServletInputStream stream;
+    private final ObjectReader reader;
+    private final boolean elements;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Consumer<Object> onValue;
+    private final Runnable onComplete;
+    private final Consumer<Throwable> onError;
+
+    private TokenBuffer tokens;
+    private int depth;
+    private boolean started;
+    private boolean done;
+
+    /**
+     * @param aStream     A request body stream.
+     * @param aReader     A reader of the whole value or of elements of a json array.
+     * @param anElements  If true, the body is expected to be a json array and its elements are consumed one by one.
+     *                    Otherwise the whole body is consumed as a single value.
+     * @param aOnValue    A consumer of the whole value or of elements of a json array.
+     * @param aOnComplete An action to be performed after the last value is consumed.
+     * @param aOnError    A consumer of parse, read or consumer's errors. Nothing is consumed after an error.
+     */
+    public RequestJsonReceiver(ServletInputStream aStream, ObjectReader aReader, boolean anElements, Consumer<Object> aOnValue, Runnable aOnComplete, Consumer<Throwable> aOnError) {
+        stream = aStream;
+        reader = aReader;
+        elements = anElements;
+        onValue = aOnValue;
+        onComplete = aOnComplete;
+        onError = aOnError;
+        try {
+            parser = aReader.getFactory().createNonBlockingByteArrayParser();
+            feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void onDataAvailable() {
+        try {
+            int read;
+            while (!done && stream.isReady() && (read = stream.read(buffer)) != -1) {
+                feeder.feedInput(buffer, 0, read);
+                parse();
+            }
+        } catch (IOException | RuntimeException ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void onAllDataRead() {
+        if (!done) {
+            try {
+                feeder.endOfInput();
+                parse();
+                if (!done) {
+                    if (!started || depth > 0) {
+                        throw new JsonEOFException(parser, null, "Unexpected end of a json request body");
+                    }
+                    done = true;
+                    parser.close();
+                    onComplete.run();
+                }
+            } catch (IOException | RuntimeException ex) {
+                fail(ex);
+            }
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        fail(t);
+    }
+
+    /**
+     * Takes all tokens, available in chunks fed so far.
+     * The parser holds the fed chunk until all its tokens are taken, so the buffer is reused only after that.
+     */
+    private void parse() throws IOException {
+        JsonToken token = parser.nextToken();
+        while (!done && token != null && token != JsonToken.NOT_AVAILABLE) {
+            accept(token);
+            token = parser.nextToken();
+        }
+    }
+
+    private void accept(JsonToken token) throws IOException {
+        if (elements && !started) {
+            if (token != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "A json request body is expected to be an array");
+            }
+            started = true;
+            depth++;
+        } else if (elements && depth == 1 && token == JsonToken.END_ARRAY) {
+            depth--;
+        } else if (depth == 0 && started) {
+            // Tokens after the whole value are ignored as well as by ObjectReader.readValue()
+        } else {
+            started = true;
+            if (tokens == null) {
+                tokens = new TokenBuffer(parser);
+            }
+            tokens.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            if (depth == (elements ? 1 : 0)) {
+                Object value;
+                try (JsonParser valueParser = tokens.asParser()) {
+                    value = reader.readValue(valueParser);
+                }
+                tokens = null;
+                onValue.accept(value);
+            }
+        }
+    }
+
+    private void fail(Throwable t) {
+        if (!done) {
+            done = true;
+            tokens = null;
+            try {
+                parser.close();
+            } catch (IOException ex) {
+                t.addSuppressed(ex);
+            }
+            onError.accept(t);
+        }
+    }
+}
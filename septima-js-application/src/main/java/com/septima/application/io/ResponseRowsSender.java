@@ -0,0 +1,167 @@
+package com.septima.application.io;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes rows, published by a {@link Flow.Publisher}, to a response body as a json array.
+ * Rows are requested by batches. A next batch is requested only when the previous one is written
+ * and the {@link ServletOutputStream} is ready, so no more than a batch of rows and its json are held in memory.
+ * The response body is not touched until the first batch is received, so errors of a query can
+ * still be answered with an appropriate status.
+ */
+public class ResponseRowsSender implements Flow.Subscriber<Map<String, Object>> {
+
+    private static final int ROWS_BATCH_SIZE = 64;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024 * 8); // 8 Kb
+    private final ObjectWriter writer;
+    private final JsonGenerator generator;
+    private final AsyncContext context;
+    private final Runnable onComplete;
+    private final Consumer<Throwable> onError;
+
+    private Flow.Subscription subscription;
+    private ServletOutputStream stream;
+    private int awaited;
+    private boolean exhausted;
+    private boolean done;
+
+    public ResponseRowsSender(ObjectWriter aWriter, AsyncContext aContext, Runnable aOnComplete, Consumer<Throwable> aOnError) {
+        writer = aWriter;
+        context = aContext;
+        onComplete = aOnComplete;
+        onError = aOnError;
+        try {
+            generator = writer.getFactory().createGenerator(buffer, JsonEncoding.UTF8);
+            generator.writeStartArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public synchronized void onSubscribe(Flow.Subscription aSubscription) {
+        subscription = aSubscription;
+        awaited = ROWS_BATCH_SIZE;
+        subscription.request(ROWS_BATCH_SIZE);
+    }
+
+    @Override
+    public synchronized void onNext(Map<String, Object> aRow) {
+        if (!done) {
+            try {
+                writer.writeValue(generator, aRow);
+                awaited--;
+                if (awaited == 0) {
+                    generator.flush();
+                    send();
+                }
+            } catch (IOException ex) {
+                subscription.cancel();
+                fail(ex);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onComplete() {
+        if (!done) {
+            try {
+                generator.writeEndArray();
+                generator.close();
+                exhausted = true;
+                send();
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onError(Throwable t) {
+        if (!done) {
+            fail(t);
+        }
+    }
+
+    private void send() throws IOException {
+        if (stream == null) {
+            stream = context.getResponse().getOutputStream();
+            stream.setWriteListener(new BodyWriter());
+        } else {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        while (!done && stream.isReady()) {
+            if (buffer.size() > 0) {
+                byte[] chunk = buffer.toByteArray();
+                buffer.reset();
+                stream.write(chunk);
+            } else if (exhausted) {
+                done = true;
+                stream.close();
+                onComplete.run();
+            } else {
+                if (awaited == 0) {
+                    awaited = ROWS_BATCH_SIZE;
+                    subscription.request(ROWS_BATCH_SIZE);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * {@link WriteListener} of the response body.
+     * It shares the lock with the rows subscriber, because the container calls it on its own threads.
+     */
+    private class BodyWriter implements WriteListener {
+
+        @Override
+        public void onWritePossible() throws IOException {
+            synchronized (ResponseRowsSender.this) {
+                drain();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            synchronized (ResponseRowsSender.this) {
+                Logger.getLogger(ResponseRowsSender.class.getName()).log(Level.SEVERE, t.getMessage(), t);
+                if (!done) {
+                    done = true;
+                    subscription.cancel();
+                }
+                ((HttpServletResponse) context.getResponse()).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                context.complete();
+            }
+        }
+    }
+
+    private void fail(Throwable t) {
+        done = true;
+        if (stream == null) {
+            onError.accept(t);
+        } else {
+            Logger.getLogger(ResponseRowsSender.class.getName()).log(Level.SEVERE, t.getMessage(), t);
+            context.complete();
+        }
+    }
+}
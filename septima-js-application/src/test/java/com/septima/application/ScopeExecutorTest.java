@@ -0,0 +1,237 @@
+package com.septima.application;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Ordering of actions in stripes of {@link ScopeExecutor} and its throughput against a {@link SubmissionPublisher}
+ * with a single subscriber, requesting actions one by one, as scope's contexts were implemented before.
+ */
+public class ScopeExecutorTest {
+
+    private static final int PRODUCERS = 8;
+    private static final int KEYS = 64;
+    private static final int ACTIONS_PER_PRODUCER = 100000;
+    private static final int QUEUE_SIZE = 1024;
+
+    private static class Subscriber implements Flow.Subscriber<Runnable> {
+
+        private volatile Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription aSubscription) {
+            subscription = aSubscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(Runnable item) {
+            subscription.request(1);
+            item.run();
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+    }
+
+    private static Executor publisher() {
+        SubmissionPublisher<Runnable> publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), QUEUE_SIZE);
+        publisher.subscribe(new Subscriber());
+        return publisher::submit;
+    }
+
+    @Test
+    public void orderPerKey() throws InterruptedException {
+        ScopeExecutor executor = new ScopeExecutor(4, QUEUE_SIZE, ForkJoinPool.commonPool());
+        int[][] lastSeen = new int[PRODUCERS][KEYS];
+        boolean[] disordered = new boolean[1];
+        CountDownLatch done = new CountDownLatch(PRODUCERS * KEYS);
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            producers.execute(() -> {
+                for (int i = 1; i <= 1000; i++) {
+                    for (int k = 0; k < KEYS; k++) {
+                        int key = k;
+                        int sequence = i;
+                        executor.stripeOf("key-" + key).execute(() -> {
+                            if (lastSeen[producer][key] != sequence - 1) {
+                                disordered[0] = true;
+                            }
+                            lastSeen[producer][key] = sequence;
+                            if (sequence == 1000) {
+                                done.countDown();
+                            }
+                        });
+                    }
+                }
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        producers.shutdown();
+        assertFalse(disordered[0]);
+    }
+
+    @Test
+    public void rejectWhenFull() {
+        List<Runnable> drains = new ArrayList<>();
+        ScopeExecutor executor = new ScopeExecutor(1, 2, 10, TimeUnit.MILLISECONDS, drains::add);
+        ScopeExecutor.Stripe stripe = executor.nextStripe();
+        stripe.execute(() -> {
+        });
+        stripe.execute(() -> {
+        });
+        try {
+            stripe.execute(() -> {
+            });
+            fail("RejectedExecutionException is expected");
+        } catch (RejectedExecutionException ex) {
+            assertEquals(2, stripe.getPending());
+            assertEquals(1, executor.getRejected());
+        }
+        stripe.enqueue(() -> {
+        });
+        assertEquals(3, executor.getPending());
+        assertEquals(1, drains.size());
+        drains.get(0).run();
+        assertEquals(0, executor.getPending());
+        stripe.execute(() -> {
+        });
+        assertEquals(1, stripe.getPending());
+    }
+
+    @Test
+    public void rejectSelfSubmissionWhenFull() throws InterruptedException {
+        ScopeExecutor executor = new ScopeExecutor(1, 1, 1, TimeUnit.MINUTES, ForkJoinPool.commonPool());
+        ScopeExecutor.Stripe stripe = executor.nextStripe();
+        CountDownLatch done = new CountDownLatch(1);
+        Throwable[] failure = new Throwable[1];
+        stripe.execute(() -> {
+            try {
+                stripe.execute(() -> {
+                });
+            } catch (RejectedExecutionException ex) {
+                failure[0] = ex;
+            }
+            done.countDown();
+        });
+        // The offer timeout is a minute, so the action would wait for itself that long without rejection at once
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(failure[0] instanceof RejectedExecutionException);
+        assertEquals(1, executor.getRejected());
+    }
+
+    @Test
+    public void roomIsSignalled() throws Exception {
+        ScopeExecutor executor = new ScopeExecutor(1, 1, 1, TimeUnit.MINUTES, ForkJoinPool.commonPool());
+        ScopeExecutor.Stripe stripe = executor.nextStripe();
+        CountDownLatch release = new CountDownLatch(1);
+        stripe.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> waiting = producer.submit(() -> stripe.execute(() -> {
+            }));
+            Thread.sleep(100);
+            assertFalse(waiting.isDone());
+            release.countDown();
+            waiting.get(10, TimeUnit.SECONDS);
+            assertEquals(0, executor.getRejected());
+        } finally {
+            producer.shutdown();
+        }
+    }
+
+    @Test
+    public void reservedStripe() {
+        ScopeExecutor executor = new ScopeExecutor(1, 2, ForkJoinPool.commonPool());
+        ScopeExecutor.Stripe reserved = executor.reserveStripe();
+        assertNotSame(reserved, executor.nextStripe());
+        assertNotSame(reserved, executor.stripeOf("key"));
+        assertEquals(2, executor.getStripes().size());
+        assertSame(reserved, executor.getStripes().get(1));
+    }
+
+    @Test
+    public void throughput() throws InterruptedException {
+        Executor global = publisher();
+        measure("Single SubmissionPublisher for all keys", key -> global);
+        List<Executor> publishers = new ArrayList<>();
+        for (int k = 0; k < KEYS; k++) {
+            publishers.add(publisher());
+        }
+        measure("SubmissionPublisher per key", publishers::get);
+        Executor single = new ScopeExecutor(1, QUEUE_SIZE, ForkJoinPool.commonPool()).nextStripe();
+        measure("ScopeExecutor with a single stripe for all keys", key -> single);
+        ScopeExecutor executor = new ScopeExecutor(Runtime.getRuntime().availableProcessors() * 2, QUEUE_SIZE, ForkJoinPool.commonPool());
+        measure("ScopeExecutor with " + executor.getStripesCount() + " stripes, stripe per key", key -> executor.stripeOf("key-" + key));
+    }
+
+    private static void measure(String aTitle, IntFunction<Executor> aSerialOf) throws InterruptedException {
+        run(aSerialOf, ACTIONS_PER_PRODUCER / 10);
+        long started = System.nanoTime();
+        run(aSerialOf, ACTIONS_PER_PRODUCER);
+        long elapsed = System.nanoTime() - started;
+        long actions = (long) PRODUCERS * ACTIONS_PER_PRODUCER;
+        System.out.println(aTitle + ": " + actions + " actions in " + elapsed / 1000000 + " ms ("
+                + actions * 1000000000L / Math.max(elapsed, 1) + " actions per second)");
+    }
+
+    private static void run(IntFunction<Executor> aSerialOf, int anActionsPerProducer) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(PRODUCERS * anActionsPerProducer);
+        long[] sinks = new long[KEYS];
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < anActionsPerProducer; i++) {
+                    int key = (producer * 31 + i) % KEYS;
+                    aSerialOf.apply(key).execute(() -> {
+                        // A small piece of work, like an action on a scope's instance
+                        long sink = sinks[key];
+                        for (int w = 0; w < 200; w++) {
+                            sink = sink * 31 + w;
+                        }
+                        sinks[key] = sink;
+                        done.countDown();
+                    });
+                }
+            });
+            producers[p].start();
+        }
+        assertTrue(done.await(5, TimeUnit.MINUTES));
+        for (Thread producer : producers) {
+            producer.join();
+        }
+    }
+}
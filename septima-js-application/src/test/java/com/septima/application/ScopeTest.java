@@ -0,0 +1,170 @@
+package com.septima.application;
+
+import com.septima.application.endpoint.Answer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+/**
+ * Ordering, concurrency and completion stripes of {@link Scope}'s keyed global actions.
+ * Global actions are called from session actions, because a global call requires a present context.
+ */
+public class ScopeTest {
+
+    private static final int ACTIONS = 1000;
+    private static final long TIMEOUT = 10;
+
+    private static ServletContext servletContext;
+    private static ExecutorService futuresExecutor;
+
+    @BeforeClass
+    public static void setup() {
+        servletContext = Mockito.mock(ServletContext.class);
+        // Sessions' listener parses the configuration again, so each parse gets its own enumeration
+        Mockito.when(servletContext.getInitParameterNames()).thenAnswer(invocation -> Collections.enumeration(Set.of(
+                "data.source",
+                "resources.entities.path",
+                "scope.queue.size",
+                "scope.global.keyed"
+        )));
+        Mockito.when(servletContext.getInitParameter("data.source")).thenReturn(TestDataSource.DATA_SOURCE_NAME);
+        Mockito.when(servletContext.getInitParameter("resources.entities.path")).thenReturn("entities");
+        Mockito.when(servletContext.getInitParameter("scope.queue.size")).thenReturn("" + ACTIONS * 2);
+        Mockito.when(servletContext.getInitParameter("scope.global.keyed")).thenReturn("true");
+        // Stripes' actions are blocked while the concurrency test, so the pool should not be limited with the number of processors
+        futuresExecutor = Executors.newCachedThreadPool();
+        Futures.init(futuresExecutor);
+        Scope.init(Config.parse(servletContext));
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        Scope.done();
+        Futures.done();
+        futuresExecutor.shutdown();
+    }
+
+    private static Answer sessionAnswer() {
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        HttpSession session = Mockito.mock(HttpSession.class);
+        Mockito.when(session.getServletContext()).thenReturn(servletContext);
+        Mockito.when(session.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.<String>getArgument(0)));
+        Mockito.doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(session).setAttribute(anyString(), any());
+        new Scope.SessionInit().sessionCreated(new HttpSessionEvent(session));
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getSession()).thenReturn(session);
+        AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        Mockito.when(asyncContext.getRequest()).thenReturn(request);
+        return new Answer(asyncContext);
+    }
+
+    private static <R> R inSession(Supplier<CompletableFuture<R>> anAction) throws Exception {
+        return Scope.session(Object::new, "session", s -> anAction.get(), sessionAnswer())
+                .thenCompose(f -> f)
+                .get(TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    private static String keyOutOf(ScopeExecutor.Stripe aStripe) {
+        for (int i = 0; ; i++) {
+            String key = "key-" + i;
+            if (Scope.getExecutor().stripeOf(key) != aStripe) {
+                return key;
+            }
+        }
+    }
+
+    @Test
+    public void sameKeyOrder() throws Exception {
+        List<Integer> performed = Collections.synchronizedList(new ArrayList<>());
+        inSession(() -> CompletableFuture.allOf(IntStream.range(0, ACTIONS)
+                .mapToObj(i -> Scope.global(Object::new, "ordered", o -> performed.add(i)))
+                .toArray(CompletableFuture[]::new)));
+        assertEquals(IntStream.range(0, ACTIONS).boxed().collect(Collectors.toList()), performed);
+    }
+
+    @Test
+    public void differentKeysConcurrently() throws Exception {
+        String first = "first";
+        String second = keyOutOf(Scope.getExecutor().stripeOf(first));
+        // Each action waits for the other one, so both succeed only if they are performed at the same time
+        CountDownLatch both = new CountDownLatch(2);
+        List<Boolean> met = inSession(() -> {
+            CompletableFuture<Boolean> firstMet = Scope.global(Object::new, first, o -> meet(both));
+            CompletableFuture<Boolean> secondMet = Scope.global(Object::new, second, o -> meet(both));
+            return firstMet.thenCombine(secondMet, List::of);
+        });
+        assertEquals(List.of(true, true), met);
+    }
+
+    private static boolean meet(CountDownLatch aLatch) {
+        aLatch.countDown();
+        try {
+            return aLatch.await(TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Test
+    public void globalCompletesOnCallerStripe() throws Exception {
+        ScopeExecutor.Stripe[] stripes = inSession(() -> {
+            ScopeExecutor.Stripe caller = Scope.presentStripe();
+            String key = keyOutOf(caller);
+            return Scope.global(Object::new, key, o -> Scope.presentStripe())
+                    .thenApply(performer -> new ScopeExecutor.Stripe[]{caller, performer, Scope.getExecutor().stripeOf(key), Scope.presentStripe()});
+        });
+        assertNotNull(stripes[0]);
+        assertSame(stripes[2], stripes[1]);
+        assertNotSame(stripes[0], stripes[1]);
+        assertSame(stripes[0], stripes[3]);
+    }
+
+    @Test
+    public void boundCompletesOnCallerStripe() throws Exception {
+        ExecutorService foreignExecutor = Executors.newSingleThreadExecutor();
+        try {
+            ScopeExecutor.Stripe[] stripes = inSession(() -> {
+                ScopeExecutor.Stripe caller = Scope.presentStripe();
+                CompletableFuture<ScopeExecutor.Stripe> foreign = CompletableFuture.supplyAsync(Scope::presentStripe, foreignExecutor);
+                return Scope.bind(foreign)
+                        .thenApply(foreignStripe -> new ScopeExecutor.Stripe[]{caller, foreignStripe, Scope.presentStripe()});
+            });
+            assertNotNull(stripes[0]);
+            assertNull(stripes[1]);
+            assertSame(stripes[0], stripes[2]);
+        } finally {
+            foreignExecutor.shutdown();
+        }
+    }
+}
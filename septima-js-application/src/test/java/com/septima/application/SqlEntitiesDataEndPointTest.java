@@ -65,9 +65,9 @@ public class SqlEntitiesDataEndPointTest extends SqlEntitiesEndPointTest {
         assertEquals(HttpServletResponse.SC_OK, requestResult.getStatus());
         System.out.println("getPetsPublic: \n" + requestResult.getBody());
         assertEquals("[" +
-                "{\"birthdate\":null,\"owner_id\":1.42841788496711E14,\"type_id\":1.42841300122653E14,\"name\":\"Druzhok\",\"pets_id\":1.42841880961396E14}," +
-                "{\"birthdate\":\"2015-04-28T21:00:00.000+0000\",\"owner_id\":1.42841834950629E14,\"type_id\":1.42841300155478E14,\"name\":\"Vasya\",\"pets_id\":1.42841883974964E14}," +
-                "{\"birthdate\":null,\"owner_id\":1.42841788496711E14,\"type_id\":1.4285004671685E14,\"name\":\"Pik\",\"pets_id\":1.43059430815594E14}" +
+                "{\"pets_id\":1.42841880961396E14,\"owner_id\":1.42841788496711E14,\"type_id\":1.42841300122653E14,\"name\":\"Druzhok\",\"birthdate\":null}," +
+                "{\"pets_id\":1.42841883974964E14,\"owner_id\":1.42841834950629E14,\"type_id\":1.42841300155478E14,\"name\":\"Vasya\",\"birthdate\":\"2015-04-28T21:00:00.000+0000\"}," +
+                "{\"pets_id\":1.43059430815594E14,\"owner_id\":1.42841788496711E14,\"type_id\":1.4285004671685E14,\"name\":\"Pik\",\"birthdate\":null}" +
                 "]", requestResult.getBody());
     }
 
@@ -82,7 +82,7 @@ public class SqlEntitiesDataEndPointTest extends SqlEntitiesEndPointTest {
         RequestResult requestResult = response.get();
         assertEquals(HttpServletResponse.SC_OK, requestResult.getStatus());
         assertEquals("[" +
-                "{\"birthdate\":\"2015-04-28T21:00:00.000+0000\",\"owner_id\":1.42841834950629E14,\"type_id\":1.42841300155478E14,\"name\":\"Vasya\",\"pets_id\":1.42841883974964E14}" +
+                "{\"pets_id\":1.42841883974964E14,\"owner_id\":1.42841834950629E14,\"type_id\":1.42841300155478E14,\"name\":\"Vasya\",\"birthdate\":\"2015-04-28T21:00:00.000+0000\"}" +
                 "]", requestResult.getBody());
     }
 
@@ -92,7 +92,7 @@ public class SqlEntitiesDataEndPointTest extends SqlEntitiesEndPointTest {
         RequestResult requestResult = response.get();
         assertEquals(HttpServletResponse.SC_OK, requestResult.getStatus());
         assertEquals(
-                "{\"birthdate\":null,\"owner_id\":1.42841788496711E14,\"type_id\":1.42841300122653E14,\"name\":\"Druzhok\",\"pets_id\":1.42841880961396E14}",
+                "{\"pets_id\":1.42841880961396E14,\"owner_id\":1.42841788496711E14,\"type_id\":1.42841300122653E14,\"name\":\"Druzhok\",\"birthdate\":null}",
                 requestResult.getBody()
         );
     }
@@ -231,7 +231,7 @@ public class SqlEntitiesDataEndPointTest extends SqlEntitiesEndPointTest {
     public void putInPublicPets() throws ServletException, IOException, InterruptedException, ExecutionException {
         CompletableFuture<RequestResult> response = mockInOut(
                 "/pets-public/143059430815590",
-                "{\"birthdate\":\"2015-04-30T21:00:00.000+0000\",\"owner_id\":1.42841788496711E14,\"type_id\":1.42841300122653E14,\"name\":\"Kin\",\"pets_id\":21345}",
+                "{\"pets_id\":21345,\"owner_id\":1.42841788496711E14,\"type_id\":1.42841300122653E14,\"name\":\"Kin\",\"birthdate\":\"2015-04-30T21:00:00.000+0000\"}",
                 METHOD_PUT, SqlEntitiesDataEndPoint::new);
         RequestResult requestResult = response.get();
         assertEquals(HttpServletResponse.SC_OK, requestResult.getStatus());
@@ -242,7 +242,7 @@ public class SqlEntitiesDataEndPointTest extends SqlEntitiesEndPointTest {
     public void putInPublicPetsAbsentPet() throws ServletException, IOException, InterruptedException, ExecutionException {
         CompletableFuture<RequestResult> response = mockInOut(
                 "/pets-public/542842880961396",
-                "{\"birthdate\":\"2015-04-30T21:00:00.000+0000\",\"owner_id\":1.42841788496711E14,\"type_id\":1.42841300122653E14,\"name\":\"Kin\",\"pets_id\":21345}",
+                "{\"pets_id\":21345,\"owner_id\":1.42841788496711E14,\"type_id\":1.42841300122653E14,\"name\":\"Kin\",\"birthdate\":\"2015-04-30T21:00:00.000+0000\"}",
                 METHOD_PUT, SqlEntitiesDataEndPoint::new);
         RequestResult requestResult = response.get();
         assertEquals(HttpServletResponse.SC_NOT_FOUND, requestResult.getStatus());
@@ -0,0 +1,18 @@
+package com.septima.application;
+
+import org.junit.BeforeClass;
+
+import javax.naming.NamingException;
+import java.sql.SQLException;
+
+/**
+ * Runs data end point tests with the thread per task jdbc performer.
+ */
+public class SqlEntitiesDataEndPointVirtualTest extends SqlEntitiesDataEndPointTest {
+
+    @BeforeClass
+    public static void setup() throws SQLException, NamingException {
+        initData();
+        initServlets("virtual");
+    }
+}
@@ -50,12 +50,17 @@ public class SqlEntitiesEndPointTest {
     }
 
     static void initServlets() {
+        initServlets("pool");
+    }
+
+    static void initServlets(String aJdbcPerformer) {
         ServletContext servletContext = Mockito.mock(ServletContext.class);
         Mockito.when(servletContext.getServletContextName()).thenReturn(SEPTIMA_CONTEXT_NAME);
         Mockito.when(servletContext.getInitParameterNames()).thenReturn(Collections.enumeration(Set.of(
                 "data.source",
                 "futures.executor",
                 "jdbc.max.threads",
+                "jdbc.performer",
                 "mail.max.threads",
                 "scope.queue.size",
                 "resources.entities.path"
@@ -63,6 +68,7 @@ public class SqlEntitiesEndPointTest {
         Mockito.when(servletContext.getInitParameter("data.source")).thenReturn(TestDataSource.DATA_SOURCE_NAME);
         Mockito.when(servletContext.getInitParameter("futures.executor")).thenReturn("dummy-futures-executor");
         Mockito.when(servletContext.getInitParameter("jdbc.max.threads")).thenReturn("10");
+        Mockito.when(servletContext.getInitParameter("jdbc.performer")).thenReturn(aJdbcPerformer);
         Mockito.when(servletContext.getInitParameter("mail.max.threads")).thenReturn("12");
         Mockito.when(servletContext.getInitParameter("scope.queue.size")).thenReturn("512");
         Mockito.when(servletContext.getInitParameter("resources.entities.path")).thenReturn("entities");
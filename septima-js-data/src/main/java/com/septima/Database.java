@@ -2,10 +2,16 @@ package com.septima;
 
 import com.septima.dataflow.DynamicTypingDataProvider;
 import com.septima.dataflow.EntityActionsBinder;
+import com.septima.jdbc.AdaptiveBatchSize;
 import com.septima.jdbc.DataSources;
 import com.septima.jdbc.JdbcReaderAssigner;
+import com.septima.jdbc.MeasuredThreadPoolExecutor;
+import com.septima.jdbc.ResultSetReader;
+import com.septima.jdbc.StatementsCache;
 import com.septima.jdbc.UncheckedSQLException;
+import com.septima.jdbc.VirtualThreadsPerformer;
 import com.septima.metadata.EntityField;
+import com.septima.queries.ResultsCache;
 import com.septima.sqldrivers.SqlDriver;
 
 import javax.naming.InitialContext;
@@ -14,15 +20,32 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 public class Database {
 
+    public static final int DEFAULT_STATEMENTS_CACHE_SIZE = 64;
+
+    private static final AtomicLong ORDINALS = new AtomicLong();
+
+    private final String name;
+    /**
+     * Order of the database's creation. Connections of several databases are acquired in this order while coordinated commit.
+     */
+    private final long ordinal = ORDINALS.incrementAndGet();
     private final DataSource dataSource;
     private final Metadata metadata;
     private final SqlDriver sqlDriver;
@@ -32,12 +55,37 @@ public class Database {
     private final int maximumBatchSize;
     private final Executor jdbcPerformer;
     private final Executor futuresExecutor;
+    private final StatementsCache statementsCache;
+    private final AdaptiveBatchSize batchSize;
+    private final Set<ResultsCache> resultsCaches = Collections.newSetFromMap(new WeakHashMap<>());
 
     public Database(DataSource aDataSource, SqlDriver aSqlDriver, Metadata aMetadata, Executor aJdbcPerformer, Executor aFuturesExecutor, boolean aUseBatches, int aMaximumBatchSize) {
+        this(aDataSource, aSqlDriver, aMetadata, aJdbcPerformer, aFuturesExecutor, aUseBatches, aMaximumBatchSize, DEFAULT_STATEMENTS_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a database with statements cache of the specified size.
+     *
+     * @param aStatementsCacheSize Maximum number of prepared statements, cached per connection.
+     *                             Value less or equal to zero disables statements caching.
+     * @see StatementsCache
+     */
+    public Database(DataSource aDataSource, SqlDriver aSqlDriver, Metadata aMetadata, Executor aJdbcPerformer, Executor aFuturesExecutor, boolean aUseBatches, int aMaximumBatchSize, int aStatementsCacheSize) {
+        this(aDataSource, aSqlDriver, aMetadata, aJdbcPerformer, aFuturesExecutor, aUseBatches, aMaximumBatchSize, aStatementsCacheSize, null);
+    }
+
+    /**
+     * Creates a named database with statements cache of the specified size.
+     *
+     * @param aName A name of the database, e.g. a name of its data source. It is used in messages about the database.
+     */
+    public Database(DataSource aDataSource, SqlDriver aSqlDriver, Metadata aMetadata, Executor aJdbcPerformer, Executor aFuturesExecutor, boolean aUseBatches, int aMaximumBatchSize, int aStatementsCacheSize, String aName) {
         Objects.requireNonNull(aDataSource, "aDataSource is required argument");
         Objects.requireNonNull(aJdbcPerformer, "aJdbcPerformer is required argument");
         Objects.requireNonNull(aFuturesExecutor, "aFuturesExecutor is required argument");
+        name = aName;
         dataSource = aDataSource;
+        statementsCache = new StatementsCache(aStatementsCacheSize);
         metadata = aMetadata;
         sqlDriver = aSqlDriver;
         jdbcPerformer = aJdbcPerformer;
@@ -46,6 +94,7 @@ public class Database {
         nonProcedureAssigner = new JdbcReaderAssigner(sqlDriver, false);
         useBatches = aUseBatches;
         maximumBatchSize = aMaximumBatchSize;
+        batchSize = new AdaptiveBatchSize(aMaximumBatchSize);
     }
 
     private int applyStatements(List<EntityActionsBinder.BoundStatement> aStatements, Connection aConnection) throws SQLException {
@@ -59,19 +108,29 @@ public class Database {
     private int applyStatementsOneByOne(List<EntityActionsBinder.BoundStatement> aStatements, Connection aConnection) throws SQLException {
         int rowsAffected = 0;
         for (EntityActionsBinder.BoundStatement entry : aStatements) {
-            rowsAffected += entry.apply(aConnection);
+            PreparedStatement stmt = statementsCache.prepare(aConnection, entry.getClause(), false);
+            try {
+                entry.assignParameters(aConnection, stmt);
+                rowsAffected += stmt.executeUpdate();
+            } finally {
+                statementsCache.release(aConnection, entry.getClause(), stmt);
+            }
         }
         return rowsAffected;
     }
 
     private static class StatementsBatch {
+        private final AdaptiveBatchSize adaptiveBatchSize;
+        private final StatementsCache statementsCache;
         private final Connection connection;
         private final PreparedStatement stmt;
         private final String clause;
         private final int maximumBatchSize;
         private int batchSize;
 
-        private StatementsBatch(Connection aConnection, PreparedStatement aStmt, String aClause, int aMaximumBatchSize) {
+        private StatementsBatch(AdaptiveBatchSize aAdaptiveBatchSize, StatementsCache aStatementsCache, Connection aConnection, PreparedStatement aStmt, String aClause, int aMaximumBatchSize) {
+            adaptiveBatchSize = aAdaptiveBatchSize;
+            statementsCache = aStatementsCache;
             connection = aConnection;
             stmt = aStmt;
             clause = aClause;
@@ -89,27 +148,119 @@ public class Database {
         }
 
         public int flush() throws SQLException {
-            return Arrays.stream(stmt.executeBatch()).sum();
+            long started = System.nanoTime();
+            int affected = Arrays.stream(stmt.executeBatch()).sum();
+            adaptiveBatchSize.onExecuted(batchSize, System.nanoTime() - started);
+            return affected;
         }
 
         public void close() throws SQLException {
-            stmt.close();
+            statementsCache.release(connection, clause, stmt);
+        }
+
+        public static StatementsBatch of(AdaptiveBatchSize aAdaptiveBatchSize, StatementsCache aStatementsCache, Connection aConnection, String aClause) throws SQLException {
+            return new StatementsBatch(aAdaptiveBatchSize, aStatementsCache, aConnection, aStatementsCache.prepare(aConnection, aClause, false), aClause, aAdaptiveBatchSize.get());
+        }
+    }
+
+    /**
+     * Statements with the same clause, that can be executed as a batch.
+     */
+    private static class ClauseGroup {
+        private final String clause;
+        private final EntityActionsBinder.BoundStatement.Kind kind;
+        private final Optional<String> foreignKeysGroup;
+        private final Optional<Integer> foreignKeysRank;
+        private final List<EntityActionsBinder.BoundStatement> statements = new ArrayList<>();
+
+        private ClauseGroup(String aClause, EntityActionsBinder.BoundStatement.Kind aKind, Optional<String> aForeignKeysGroup, Optional<Integer> aForeignKeysRank) {
+            clause = aClause;
+            kind = aKind;
+            foreignKeysGroup = aForeignKeysGroup;
+            foreignKeysRank = aForeignKeysRank;
+        }
+
+        /**
+         * Checks if a statement can't be moved before statements of this group.
+         * Statements with the same clause are not reordered relatively each other.
+         * Statements of tables, unrelated via foreign keys, are independent. Commands and statements
+         * of unknown tables are dependent on any other statement.
+         * Within tables, related via foreign keys, an insert may be moved before inserts into child tables
+         * and a delete may be moved before deletes from parent tables. Other statements are dependent.
+         */
+        private boolean dependent(String aClause, EntityActionsBinder.BoundStatement.Kind aKind, Optional<String> aForeignKeysGroup, Optional<Integer> aForeignKeysRank) {
+            if (Objects.equals(clause, aClause)) {
+                return false;
+            } else if (aForeignKeysGroup.isEmpty() || foreignKeysGroup.isEmpty()) {
+                return true;
+            } else if (!foreignKeysGroup.equals(aForeignKeysGroup)) {
+                return false;
+            } else {
+                return kind != aKind || foreignKeysRank.isEmpty() || aForeignKeysRank.isEmpty() ||
+                        !(aKind == EntityActionsBinder.BoundStatement.Kind.INSERT && aForeignKeysRank.get() < foreignKeysRank.get() ||
+                                aKind == EntityActionsBinder.BoundStatement.Kind.DELETE && aForeignKeysRank.get() > foreignKeysRank.get());
+            }
         }
+    }
 
-        public static StatementsBatch of(Connection aConnection, String aClause, int aMaximumBatchSize) throws SQLException {
-            return new StatementsBatch(aConnection, aConnection.prepareStatement(aClause), aClause, aMaximumBatchSize);
+    /**
+     * Regroups statements by their clauses to make batches as large as possible.
+     * A statement is moved to an earlier statement with the same clause if it is independent from all statements between them.
+     * Ranks of tables in parent before child order of foreign keys allow to move inserts into parent tables before
+     * inserts into child tables and deletes from child tables before deletes from parent tables.
+     * Without metadata, statements are not reordered.
+     *
+     * @param aStatements Statements in the order of a change log.
+     * @return Statements, ordered by groups of the same clauses.
+     * @throws SQLException If tables metadata can't be read.
+     */
+    private List<EntityActionsBinder.BoundStatement> regroup(List<EntityActionsBinder.BoundStatement> aStatements) throws SQLException {
+        if (metadata != null && aStatements.size() > 1) {
+            Set<String> tablesNames = aStatements.stream()
+                    .map(EntityActionsBinder.BoundStatement::getTableName)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            Map<String, Optional<String>> foreignKeysGroups = metadata.getForeignKeysGroups(tablesNames);
+            Map<String, Optional<Integer>> foreignKeysRanks = metadata.getForeignKeysRanks(tablesNames);
+            List<ClauseGroup> groups = new ArrayList<>();
+            for (EntityActionsBinder.BoundStatement statement : aStatements) {
+                String tableName = statement.getTableName();
+                Optional<String> foreignKeysGroup = tableName != null ? foreignKeysGroups.get(tableName) : Optional.empty();
+                Optional<Integer> foreignKeysRank = tableName != null ? foreignKeysRanks.get(tableName) : Optional.empty();
+                int lastDependent = groups.size() - 1;
+                while (lastDependent >= 0 && !groups.get(lastDependent).dependent(statement.getClause(), statement.getKind(), foreignKeysGroup, foreignKeysRank)) {
+                    lastDependent--;
+                }
+                ClauseGroup target = null;
+                for (int g = lastDependent + 1; target == null && g < groups.size(); g++) {
+                    if (Objects.equals(groups.get(g).clause, statement.getClause())) {
+                        target = groups.get(g);
+                    }
+                }
+                if (target == null) {
+                    target = new ClauseGroup(statement.getClause(), statement.getKind(), foreignKeysGroup, foreignKeysRank);
+                    groups.add(target);
+                }
+                target.statements.add(statement);
+            }
+            return groups.stream()
+                    .flatMap(group -> group.statements.stream())
+                    .collect(Collectors.toList());
+        } else {
+            return aStatements;
         }
     }
 
     private int applyStatementsAsBatches(List<EntityActionsBinder.BoundStatement> aStatements, Connection aConnection) throws SQLException {
         int rowsAffected = 0;
         if (!aStatements.isEmpty()) {
-            EntityActionsBinder.BoundStatement firstStatement = aStatements.get(0);
-            StatementsBatch batch = StatementsBatch.of(aConnection, firstStatement.getClause(), maximumBatchSize);
+            List<EntityActionsBinder.BoundStatement> statements = regroup(aStatements);
+            EntityActionsBinder.BoundStatement firstStatement = statements.get(0);
+            StatementsBatch batch = StatementsBatch.of(batchSize, statementsCache, aConnection, firstStatement.getClause());
             try {
                 batch.add(firstStatement);
-                for (int i = 1; i < aStatements.size(); i++) {
-                    EntityActionsBinder.BoundStatement statement = aStatements.get(i);
+                for (int i = 1; i < statements.size(); i++) {
+                    EntityActionsBinder.BoundStatement statement = statements.get(i);
                     if (!batch.acceptable(statement.getClause())) {
                         rowsAffected += batch.flush();
                         try {
@@ -117,7 +268,7 @@ public class Database {
                         } finally { // Try .. finally here to avoid exception hiding by second attempt to call statement.close()
                             batch = null;
                         }
-                        batch = StatementsBatch.of(aConnection, statement.getClause(), maximumBatchSize);
+                        batch = StatementsBatch.of(batchSize, statementsCache, aConnection, statement.getClause());
                     }
                     batch.add(statement);
                 }
@@ -144,18 +295,61 @@ public class Database {
         }
     }
 
-    public static ExecutorService jdbcTasksPerformer(final int aMaxParallelQueries) {
+    /**
+     * Creates a classic jdbc tasks performer with a fixed number of platform threads and an unbounded queue of tasks.
+     *
+     * @param aMaxParallelQueries Number of threads.
+     * @return {@link MeasuredThreadPoolExecutor} instance.
+     */
+    public static MeasuredThreadPoolExecutor jdbcTasksPerformer(final int aMaxParallelQueries) {
+        return jdbcTasksPerformer(aMaxParallelQueries, 0, false);
+    }
+
+    /**
+     * Creates a classic jdbc tasks performer with a fixed number of platform threads and a queue of tasks.
+     *
+     * @param aMaxParallelQueries Number of threads.
+     * @param aMaxQueueSize       Maximum number of tasks in the queue. Value less or equal to zero means unbounded queue.
+     * @param aCallerRuns         If true, a task, that doesn't fit into the queue, is performed by a submitting thread.
+     *                            Otherwise it is rejected with {@link RejectedExecutionException}.
+     * @return {@link MeasuredThreadPoolExecutor} instance.
+     */
+    public static MeasuredThreadPoolExecutor jdbcTasksPerformer(final int aMaxParallelQueries, final int aMaxQueueSize, final boolean aCallerRuns) {
         AtomicLong threadNumber = new AtomicLong();
-        ThreadPoolExecutor jdbcProcessor = new ThreadPoolExecutor(aMaxParallelQueries, aMaxParallelQueries,
+        MeasuredThreadPoolExecutor jdbcProcessor = new MeasuredThreadPoolExecutor(aMaxParallelQueries, aMaxParallelQueries,
                 3L, TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>(),
-                r -> new Thread(r, "jdbc-" + threadNumber.incrementAndGet()));
+                aMaxQueueSize > 0 ? new ArrayBlockingQueue<>(aMaxQueueSize) : new LinkedBlockingQueue<>(),
+                r -> new Thread(r, "jdbc-" + threadNumber.incrementAndGet()),
+                aCallerRuns);
         jdbcProcessor.allowCoreThreadTimeOut(true);
         return jdbcProcessor;
 //        jdbc.shutdown();
 //        jdbc.awaitTermination(30L, TimeUnit.SECONDS);
     }
 
+    /**
+     * Creates a jdbc tasks performer with a thread per task and a limit of parallel tasks per data source.
+     *
+     * @param aMaxParallelQueries Maximum number of parallel tasks per data source.
+     * @return {@link VirtualThreadsPerformer} instance.
+     */
+    public static VirtualThreadsPerformer jdbcVirtualTasksPerformer(final int aMaxParallelQueries) {
+        return new VirtualThreadsPerformer(aMaxParallelQueries);
+    }
+
+    /**
+     * Creates a jdbc tasks performer with a thread per task and limits of parallel and waiting tasks per data source.
+     *
+     * @param aMaxParallelQueries Maximum number of parallel tasks per data source.
+     * @param aMaxQueueSize       Maximum number of waiting tasks per data source. Value less or equal to zero means unbounded waiting.
+     * @param aCallerRuns         If true, a task, that exceeds the bound, is performed by a submitting thread.
+     *                            Otherwise it is rejected with {@link RejectedExecutionException}.
+     * @return {@link VirtualThreadsPerformer} instance.
+     */
+    public static VirtualThreadsPerformer jdbcVirtualTasksPerformer(final int aMaxParallelQueries, final int aMaxQueueSize, final boolean aCallerRuns) {
+        return new VirtualThreadsPerformer(aMaxParallelQueries, aMaxQueueSize, aCallerRuns);
+    }
+
     public static Database of(String aDataSourceName, int aMaximumJdbcThreads, boolean useBatches, int aMaximumBatchSize) throws NamingException, SQLException {
         DataSource dataSource = obtainDataSource(aDataSourceName);
         Metadata metadata = Metadata.of(dataSource);
@@ -166,10 +360,21 @@ public class Database {
                 jdbcTasksPerformer(aMaximumJdbcThreads),
                 ForkJoinPool.commonPool(),
                 useBatches,
-                aMaximumBatchSize
+                aMaximumBatchSize,
+                DEFAULT_STATEMENTS_CACHE_SIZE,
+                aDataSourceName
         );
     }
 
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name != null ? name : super.toString();
+    }
+
     public DataSource getDataSource() {
         return dataSource;
     }
@@ -190,7 +395,52 @@ public class Database {
         return futuresExecutor;
     }
 
+    public StatementsCache getStatementsCache() {
+        return statementsCache;
+    }
+
+    public AdaptiveBatchSize getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Registers a results cache of a query to be invalidated by changes committed to this database.
+     * Caches are held weakly, so a cache of a discarded query doesn't need to be unregistered.
+     *
+     * @param aCache A {@link ResultsCache} instance to be registered.
+     */
+    public void registerResultsCache(ResultsCache aCache) {
+        Objects.requireNonNull(aCache, "aCache is required argument");
+        synchronized (resultsCaches) {
+            resultsCaches.add(aCache);
+        }
+    }
+
+    public List<ResultsCache> getResultsCaches() {
+        synchronized (resultsCaches) {
+            return List.copyOf(resultsCaches);
+        }
+    }
+
+    /**
+     * Invalidates results caches of queries, reading from the changed tables.
+     *
+     * @param aTables Names of changed tables. Null names mean that changed tables are unknown and
+     *                all caches should be invalidated.
+     */
+    public void invalidateResultsCaches(Collection<String> aTables) {
+        for (ResultsCache cache : getResultsCaches()) {
+            if (aTables.stream().anyMatch(cache::reads)) {
+                cache.invalidate();
+            }
+        }
+    }
+
     public DynamicTypingDataProvider createDataProvider(String aEntityName, String aSqlClause, boolean aProcedure, int aPageSize, Map<String, EntityField> aExpectedFields) {
+        return createDataProvider(aEntityName, aSqlClause, aProcedure, aPageSize, aExpectedFields, createResultSetReader(aProcedure, aExpectedFields));
+    }
+
+    public DynamicTypingDataProvider createDataProvider(String aEntityName, String aSqlClause, boolean aProcedure, int aPageSize, Map<String, EntityField> aExpectedFields, ResultSetReader aReader) {
         return new DynamicTypingDataProvider(
                 jdbcReaderAssigner(aProcedure),
                 aEntityName,
@@ -200,10 +450,16 @@ public class Database {
                 aSqlClause,
                 aProcedure,
                 aPageSize,
-                aExpectedFields
+                aExpectedFields,
+                aReader,
+                statementsCache
         );
     }
 
+    public ResultSetReader createResultSetReader(boolean aProcedure, Map<String, EntityField> aExpectedFields) {
+        return new ResultSetReader(aExpectedFields, jdbcReaderAssigner(aProcedure));
+    }
+
     public JdbcReaderAssigner jdbcReaderAssigner(boolean aProcedure) {
         return aProcedure ? procedureAssigner : nonProcedureAssigner;
     }
@@ -218,6 +474,9 @@ public class Database {
                 try {
                     int affected = applyStatements(statements, connection);
                     connection.commit();
+                    invalidateResultsCaches(statements.stream()
+                            .map(EntityActionsBinder.BoundStatement::getTableName)
+                            .collect(Collectors.toSet()));
                     committing.completeAsync(() -> affected, futuresExecutor);
                 } catch (SQLException | UncheckedSQLException ex) {
                     connection.rollback();
@@ -231,4 +490,304 @@ public class Database {
         });
         return committing;
     }
+
+    /**
+     * Applies statements to a connection of the database, but neither commits nor rolls them back.
+     * The connection is held by the returned {@link PreparedCommit} until it is committed or rolled back,
+     * but a thread of the jdbc performer is not held.
+     *
+     * @param statements Statements to be applied.
+     * @return A future of {@link PreparedCommit}. If statements can't be applied, they are rolled back and the future fails.
+     */
+    public CompletableFuture<PreparedCommit> prepareCommit(List<EntityActionsBinder.BoundStatement> statements) {
+        Objects.requireNonNull(statements);
+        CompletableFuture<PreparedCommit> preparing = new CompletableFuture<>();
+        jdbcPerformer.execute(() -> {
+            try {
+                prepare(dataSource.getConnection(), statements, preparing);
+            } catch (Throwable ex) {
+                futuresExecutor.execute(() -> preparing.completeExceptionally(ex));
+            }
+        });
+        return preparing;
+    }
+
+    /**
+     * Applies statements to an already acquired connection of the database, as {@link #prepareCommit(List)} does.
+     * The connection is closed if statements can't be applied, even if the jdbc performer rejects the task.
+     */
+    private CompletableFuture<PreparedCommit> prepareCommit(Connection aConnection, List<EntityActionsBinder.BoundStatement> statements) {
+        CompletableFuture<PreparedCommit> preparing = new CompletableFuture<>();
+        try {
+            jdbcPerformer.execute(() -> {
+                try {
+                    prepare(aConnection, statements, preparing);
+                } catch (Throwable ex) {
+                    futuresExecutor.execute(() -> preparing.completeExceptionally(ex));
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            close(List.of(aConnection), ex);
+            preparing.completeExceptionally(ex);
+        }
+        return preparing;
+    }
+
+    private void prepare(Connection aConnection, List<EntityActionsBinder.BoundStatement> statements, CompletableFuture<PreparedCommit> preparing) throws SQLException {
+        try {
+            boolean autoCommit = aConnection.getAutoCommit();
+            aConnection.setAutoCommit(false);
+            try {
+                int affected = applyStatements(statements, aConnection);
+                PreparedCommit prepared = new PreparedCommit(aConnection, autoCommit, statements.stream()
+                        .map(EntityActionsBinder.BoundStatement::getTableName)
+                        .collect(Collectors.toSet()), affected);
+                preparing.completeAsync(() -> prepared, futuresExecutor);
+            } catch (SQLException | UncheckedSQLException ex) {
+                try {
+                    aConnection.rollback();
+                } finally {
+                    aConnection.setAutoCommit(autoCommit);
+                }
+                throw ex;
+            }
+        } catch (Throwable ex) {
+            aConnection.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Acquires a connection of the database on a thread of the jdbc performer.
+     *
+     * @throws RejectedExecutionException if the jdbc performer rejects the task.
+     */
+    private CompletableFuture<Connection> connect() {
+        CompletableFuture<Connection> connecting = new CompletableFuture<>();
+        jdbcPerformer.execute(() -> {
+            try {
+                Connection connection = dataSource.getConnection();
+                futuresExecutor.execute(() -> connecting.complete(connection));
+            } catch (Throwable ex) {
+                futuresExecutor.execute(() -> connecting.completeExceptionally(ex));
+            }
+        });
+        return connecting;
+    }
+
+    private static void close(Collection<Connection> aConnections, Throwable aFailure) {
+        for (Connection connection : aConnections) {
+            try {
+                connection.close();
+            } catch (SQLException ex) {
+                aFailure.addSuppressed(ex);
+            }
+        }
+    }
+
+    /**
+     * Acquires connections of databases one by one in order of the databases' creation.
+     * So concurrent coordinated commits to the same databases don't hold connections of each other's pools crosswise.
+     * If a connection can't be acquired, e.g. the jdbc performer rejects the task, already acquired connections are closed.
+     *
+     * @return A future of connections, mapped to their databases.
+     */
+    private static CompletableFuture<Map<Database, Connection>> connect(Collection<Database> aDatabases) {
+        Map<Database, Connection> connections = new ConcurrentHashMap<>();
+        CompletableFuture<Map<Database, Connection>> connecting = CompletableFuture.completedFuture(connections);
+        for (Database database : aDatabases.stream()
+                .sorted(Comparator.comparingLong(d -> d.ordinal))
+                .collect(Collectors.toList())) {
+            connecting = connecting.thenCompose(acquired -> database.connect()
+                    .thenApply(connection -> {
+                        acquired.put(database, connection);
+                        return acquired;
+                    })
+            );
+        }
+        return connecting.whenComplete((acquired, failure) -> {
+            if (failure != null) {
+                close(connections.values(), failure);
+            }
+        });
+    }
+
+    /**
+     * Commits statements to several databases as a whole.
+     * Connections of the databases are acquired one by one in order of the databases' creation, so concurrent commits
+     * to the same databases can't exhaust their pools crosswise.
+     * Statements are applied to all databases in parallel and are committed, also in parallel, only if all of them
+     * are applied successfully. Otherwise statements, applied to the databases, are rolled back.
+     * So latency of the commit is latency of the slowest database rather than the sum of databases' latencies.
+     * Locks, taken by the statements in a database, are held until all databases are prepared. If concurrent commits
+     * wait for each other's locks in different databases, no database can detect the deadlock and it is broken
+     * only by databases' lock timeouts, failing the commits.
+     * It is not a distributed transaction. If a database fails in the middle of committing,
+     * other databases may be already committed. Only the commit calls are left to this window
+     * and such a failure is reported with {@link PartialCommitException}.
+     * Statements of a single database are committed with {@link #commit(List)}.
+     *
+     * @param aStatements Statements, grouped by databases.
+     * @return A future of the total number of affected rows.
+     */
+    public static CompletableFuture<Integer> commit(Map<Database, List<EntityActionsBinder.BoundStatement>> aStatements) {
+        Objects.requireNonNull(aStatements, "aStatements is required argument");
+        if (aStatements.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        } else if (aStatements.size() == 1) {
+            Map.Entry<Database, List<EntityActionsBinder.BoundStatement>> single = aStatements.entrySet().iterator().next();
+            return single.getKey().commit(single.getValue());
+        } else {
+            return connect(aStatements.keySet()).thenCompose(connections -> {
+                List<CompletableFuture<PreparedCommit>> preparing = aStatements.entrySet().stream()
+                        .map(entry -> entry.getKey().prepareCommit(connections.get(entry.getKey()), entry.getValue()))
+                        .collect(Collectors.toList());
+                return CompletableFuture.allOf(preparing.toArray(new CompletableFuture<?>[]{}))
+                        .handle((v, failure) -> failure)
+                        .thenCompose(failure -> {
+                            List<PreparedCommit> prepared = preparing.stream()
+                                    .filter(future -> !future.isCompletedExceptionally())
+                                    .map(CompletableFuture::join)
+                                    .collect(Collectors.toList());
+                            if (failure == null) {
+                                return commitPrepared(prepared);
+                            } else {
+                                List<CompletableFuture<Integer>> rollingBack = prepared.stream()
+                                        .map(PreparedCommit::rollback)
+                                        .collect(Collectors.toList());
+                                return CompletableFuture.allOf(rollingBack.toArray(new CompletableFuture<?>[]{}))
+                                        .handle((r, rollbackFailure) -> {
+                                            if (rollbackFailure != null) {
+                                                failure.addSuppressed(rollbackFailure);
+                                            }
+                                            return null;
+                                        })
+                                        .thenCompose(r -> CompletableFuture.<Integer>failedFuture(failure));
+                            }
+                        });
+            });
+        }
+    }
+
+    /**
+     * Commits prepared statements of several databases in parallel.
+     * If some databases are committed and others fail, the future fails with {@link PartialCommitException}.
+     * If all databases fail, nothing is committed and the future fails with a failure of a database.
+     */
+    private static CompletableFuture<Integer> commitPrepared(List<PreparedCommit> aPrepared) {
+        List<CompletableFuture<Integer>> committing = aPrepared.stream()
+                .map(PreparedCommit::commit)
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(committing.toArray(new CompletableFuture<?>[]{}))
+                .handle((c, failure) -> {
+                    if (failure == null) {
+                        return CompletableFuture.completedFuture(committing.stream()
+                                .map(f -> f.getNow(0))
+                                .reduce(Integer::sum).orElse(0));
+                    } else {
+                        List<Database> committed = new ArrayList<>();
+                        List<Database> failed = new ArrayList<>();
+                        List<Throwable> failures = new ArrayList<>();
+                        for (int i = 0; i < committing.size(); i++) {
+                            Database database = aPrepared.get(i).getDatabase();
+                            try {
+                                committing.get(i).join();
+                                committed.add(database);
+                            } catch (CompletionException ex) {
+                                failed.add(database);
+                                failures.add(ex.getCause());
+                            }
+                        }
+                        Throwable cause = failures.get(0);
+                        failures.stream().skip(1).forEach(cause::addSuppressed);
+                        return CompletableFuture.<Integer>failedFuture(committed.isEmpty() ? cause : new PartialCommitException(committed, failed, cause));
+                    }
+                })
+                .thenCompose(f -> f);
+    }
+
+    /**
+     * Statements, applied to a connection of the database, that are neither committed nor rolled back yet.
+     * Either {@link #commit()} or {@link #rollback()} should be called to release the connection.
+     */
+    public class PreparedCommit {
+
+        private final Connection connection;
+        private final boolean autoCommit;
+        private final Set<String> tables;
+        private final int affected;
+
+        private PreparedCommit(Connection aConnection, boolean anAutoCommit, Set<String> aTables, int anAffected) {
+            connection = aConnection;
+            autoCommit = anAutoCommit;
+            tables = aTables;
+            affected = anAffected;
+        }
+
+        public int getAffected() {
+            return affected;
+        }
+
+        public Database getDatabase() {
+            return Database.this;
+        }
+
+        /**
+         * Commits the applied statements and releases the connection.
+         *
+         * @return A future of the number of affected rows.
+         */
+        public CompletableFuture<Integer> commit() {
+            return complete(true);
+        }
+
+        /**
+         * Rolls the applied statements back and releases the connection.
+         *
+         * @return A future of zero.
+         */
+        public CompletableFuture<Integer> rollback() {
+            return complete(false);
+        }
+
+        /**
+         * A connection should be released even if the jdbc performer rejects the task,
+         * so in this case the task is performed by the calling thread.
+         */
+        private CompletableFuture<Integer> complete(boolean aCommit) {
+            CompletableFuture<Integer> completing = new CompletableFuture<>();
+            Runnable task = () -> {
+                try {
+                    try {
+                        if (aCommit) {
+                            try {
+                                connection.commit();
+                            } catch (SQLException ex) {
+                                connection.rollback();
+                                throw ex;
+                            }
+                            invalidateResultsCaches(tables);
+                        } else {
+                            connection.rollback();
+                        }
+                    } finally {
+                        try {
+                            connection.setAutoCommit(autoCommit);
+                        } finally {
+                            connection.close();
+                        }
+                    }
+                    completing.completeAsync(() -> aCommit ? affected : 0, futuresExecutor);
+                } catch (Throwable ex) {
+                    futuresExecutor.execute(() -> completing.completeExceptionally(ex));
+                }
+            };
+            try {
+                jdbcPerformer.execute(task);
+            } catch (RejectedExecutionException ex) {
+                task.run();
+            }
+            return completing;
+        }
+    }
 }
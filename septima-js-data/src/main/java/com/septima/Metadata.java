@@ -5,14 +5,23 @@ import com.septima.jdbc.UncheckedSQLException;
 import com.septima.metadata.ForeignKey;
 import com.septima.metadata.JdbcColumn;
 import com.septima.metadata.PrimaryKey;
+import com.septima.metadata.TablesSnapshot;
 import com.septima.queries.CaseInsensitiveMap;
 import com.septima.queries.CaseInsensitiveSet;
 import com.septima.sqldrivers.SqlDriver;
 
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * @author mg
@@ -45,18 +54,60 @@ public class Metadata {
     private final Set<String> schemas;
     // Schema, Table, EntityField
     private final Map<String, Map<String, Map<String, JdbcColumn>>> schemasTablesColumns = new CaseInsensitiveMap<>(new ConcurrentHashMap<>());
+    // Lower cased qualified names of tables, known to be absent
+    private final Set<String> absentTables = ConcurrentHashMap.newKeySet();
     private final String defaultSchema;
     private final SqlDriver sqlDriver;
+    private final Path snapshot;
+    private final Executor revalidator;
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+    private volatile boolean revalidating;
+    // Incremented on each change of resolved tables
+    private final AtomicLong tablesVersion = new AtomicLong();
+    // Lower cased qualified table name, Lower cased qualified name of a table, representing the foreign keys group
+    private Map<String, String> foreignKeysGroups;
+    // Lower cased qualified table name, Rank of the table in parent before child order of foreign keys
+    private Map<String, Integer> foreignKeysRanks;
+    private long foreignKeysGroupsVersion = -1;
 
-    private Metadata(DataSource aDataSource, Set<String> aSchemas, String aDefaultSchema, SqlDriver aSqlDriver) {
+    private Metadata(DataSource aDataSource, Set<String> aSchemas, String aDefaultSchema, SqlDriver aSqlDriver, Path aSnapshot, Executor aRevalidator) {
         schemas = aSchemas;
         dataSource = aDataSource;
         defaultSchema = aDefaultSchema;
         sqlDriver = aSqlDriver;
+        snapshot = aSnapshot;
+        revalidator = aRevalidator;
     }
 
+    /**
+     * Creates metadata of a data source. Tables' columns and keys are queried lazily, table by table.
+     *
+     * @param aDataSource A data source to read metadata from.
+     * @return {@link Metadata} instance.
+     * @throws SQLException If schemas of the data source can't be read.
+     */
     public static Metadata of(DataSource aDataSource) throws SQLException {
+        return of(aDataSource, null, null);
+    }
+
+    /**
+     * Creates metadata of a data source, backed by a snapshot file.
+     * If the snapshot file exists, tables are read from it and are revalidated against the database in background.
+     * Tables, resolved later, are written to the snapshot in background as well, so the snapshot is created on first run.
+     *
+     * @param aDataSource  A data source to read metadata from.
+     * @param aSnapshot    A path of a snapshot file. If it is null, no snapshot is used.
+     * @param aRevalidator An executor for background revalidation and snapshot writing.
+     *                     It is required if a snapshot is used.
+     * @return {@link Metadata} instance.
+     * @throws SQLException If schemas of the data source can't be read.
+     * @see TablesSnapshot
+     */
+    public static Metadata of(DataSource aDataSource, Path aSnapshot, Executor aRevalidator) throws SQLException {
         Objects.requireNonNull(aDataSource, "aDataSource is required argument");
+        if (aSnapshot != null) {
+            Objects.requireNonNull(aRevalidator, "aRevalidator is required argument if aSnapshot is specified");
+        }
         Set<String> schemas = new CaseInsensitiveSet(new HashSet<>());
         try (Connection conn = aDataSource.getConnection()) {
             try (ResultSet r = conn.getMetaData().getSchemas()) {
@@ -65,8 +116,16 @@ public class Metadata {
                 }
             }
         }
-        Metadata metadata = new Metadata(aDataSource, schemas, DataSources.getDataSourceSchema(aDataSource), DataSources.getDataSourceSqlDriver(aDataSource));
-        metadata.fillTablesByDefaultSchema();
+        Metadata metadata = new Metadata(aDataSource, schemas, DataSources.getDataSourceSchema(aDataSource), DataSources.getDataSourceSqlDriver(aDataSource), aSnapshot, aRevalidator);
+        if (aSnapshot != null && Files.exists(aSnapshot)) {
+            try {
+                metadata.schemasTablesColumns.putAll(TablesSnapshot.read(aSnapshot));
+                metadata.revalidating = true;
+                aRevalidator.execute(metadata::revalidate);
+            } catch (IOException ex) {
+                Logger.getLogger(Metadata.class.getName()).log(Level.WARNING, "Metadata snapshot '" + aSnapshot + "' is skipped due to an exception", ex);
+            }
+        }
         return metadata;
     }
 
@@ -78,6 +137,10 @@ public class Metadata {
         return sqlDriver;
     }
 
+    public Path getSnapshot() {
+        return snapshot;
+    }
+
     private String schemaName(String aQualifiedTableName) {
         int indexOfDot = aQualifiedTableName.indexOf(".");
         return indexOfDot != -1 ? aQualifiedTableName.substring(0, indexOfDot) : defaultSchema;
@@ -88,51 +151,319 @@ public class Metadata {
         return indexOfDot != -1 ? aQualifiedTableName.substring(indexOfDot + 1) : aQualifiedTableName;
     }
 
+    /**
+     * Tables of a data source without a default schema, e.g. MySql, are held with an empty schema name.
+     */
+    private static String schemaKey(String aSchema) {
+        return aSchema != null ? aSchema : "";
+    }
+
+    private Map<String, Map<String, JdbcColumn>> tablesOf(String aSchema) {
+        return schemasTablesColumns.computeIfAbsent(schemaKey(aSchema), sn -> new CaseInsensitiveMap<>(new ConcurrentHashMap<>()));
+    }
+
+    /**
+     * Checks if tables of a schema can be queried from the database.
+     * The default schema is always resolvable, even if it is not listed by the database, or it is null.
+     */
+    private boolean isResolvable(String aSchema) {
+        if (aSchema == null || aSchema.isEmpty()) {
+            return defaultSchema == null || defaultSchema.isEmpty();
+        } else {
+            return aSchema.equalsIgnoreCase(defaultSchema) || schemas.contains(aSchema);
+        }
+    }
+
+    /**
+     * Returns columns of a table. Only the requested table is queried from the database if it is not resolved yet.
+     *
+     * @param aQualifiedTableName A table name, possibly qualified with a schema name.
+     * @return Columns of the table or empty {@link Optional} if the table is absent.
+     * @throws SQLException If the table's metadata can't be read.
+     */
     public Optional<Map<String, JdbcColumn>> getTableColumns(String aQualifiedTableName) throws SQLException {
         String schema = schemaName(aQualifiedTableName);
-        if (schema != null && !schema.isEmpty() && schemas.contains(schema) && !schemasTablesColumns.containsKey(schema)) {
-            fillTablesBySchema(schema);
+        String table = tableName(aQualifiedTableName);
+        Map<String, Map<String, JdbcColumn>> tables = schemasTablesColumns.get(schemaKey(schema));
+        Map<String, JdbcColumn> columns = tables != null ? tables.get(table) : null;
+        if (columns == null && isResolvable(schema) && !absentTables.contains(qualifiedKey(schema, table))) {
+            columns = resolveTable(schema, table);
         }
         return Optional
-                .ofNullable(schemasTablesColumns.get(schema))
-                .map(tables -> tables.get(tableName(aQualifiedTableName)))
+                .ofNullable(columns)
                 .map(Collections::unmodifiableMap);
     }
 
+    private Map<String, JdbcColumn> resolveTable(String aSchema, String aTable) throws SQLException {
+        Map<String, JdbcColumn> columns = queryTablesColumns(aSchema != null && !aSchema.isEmpty() ? aSchema : null, aTable).get(aTable);
+        if (columns != null) {
+            tablesOf(aSchema).put(aTable, columns);
+            absentTables.remove(qualifiedKey(aSchema, aTable));
+        } else {
+            Map<String, Map<String, JdbcColumn>> tables = schemasTablesColumns.get(schemaKey(aSchema));
+            if (tables != null) {
+                tables.remove(aTable);
+            }
+            absentTables.add(qualifiedKey(aSchema, aTable));
+        }
+        tablesVersion.incrementAndGet();
+        scheduleSnapshotSave();
+        return columns;
+    }
+
     public void refreshTable(String aQualifiedTableName) throws SQLException {
-        String schema = schemaName(aQualifiedTableName);
-        String table = tableName(aQualifiedTableName);
-        Map<String, Map<String, JdbcColumn>> tables = schemasTablesColumns.computeIfAbsent(schema, sn -> new CaseInsensitiveMap<>(new LinkedHashMap<>()));
-        tables.put(table, queryTableColumns(schema, table));
+        resolveTable(schemaName(aQualifiedTableName), tableName(aQualifiedTableName));
     }
 
-    public boolean containsTable(final String aQualifiedTableName) {
-        return Optional
-                .ofNullable(schemasTablesColumns.get(schemaName(aQualifiedTableName)))
-                .map(tables -> tables.containsKey(tableName(aQualifiedTableName)))
-                .orElse(false);
+    /**
+     * Eagerly reads all tables of a schema.
+     * It is useful while preparing of a snapshot, when all tables are needed.
+     *
+     * @param aSchema A schema name.
+     * @throws SQLException If the schema's metadata can't be read.
+     */
+    public void fillTablesBySchema(String aSchema) throws SQLException {
+        tablesOf(aSchema).putAll(querySchemaColumns(aSchema));
+        tablesVersion.incrementAndGet();
+        scheduleSnapshotSave();
+    }
+
+    /**
+     * Writes all resolved tables to the snapshot file.
+     *
+     * @throws IOException If the snapshot can't be written.
+     */
+    public void saveSnapshot() throws IOException {
+        Objects.requireNonNull(snapshot, "Metadata snapshot path is not specified");
+        saveSnapshot(snapshot);
+    }
+
+    /**
+     * Writes all resolved tables to a snapshot file.
+     *
+     * @param aSnapshot A path of a snapshot file.
+     * @throws IOException If the snapshot can't be written.
+     */
+    public void saveSnapshot(Path aSnapshot) throws IOException {
+        TablesSnapshot.write(aSnapshot, schemasTablesColumns);
+    }
+
+    private void scheduleSnapshotSave() {
+        if (snapshot != null && !revalidating && saveScheduled.compareAndSet(false, true)) {
+            revalidator.execute(() -> {
+                saveScheduled.set(false);
+                try {
+                    saveSnapshot();
+                } catch (IOException ex) {
+                    Logger.getLogger(Metadata.class.getName()).log(Level.WARNING, "Metadata snapshot '" + snapshot + "' can't be written due to an exception", ex);
+                }
+            });
+        }
+    }
+
+    /**
+     * Requeries tables, read from a snapshot, and writes the actual snapshot.
+     */
+    private void revalidate() {
+        try {
+            List<Map.Entry<String, String>> tables = new ArrayList<>();
+            schemasTablesColumns.forEach((schema, schemaTables) -> schemaTables.keySet().forEach(table -> tables.add(Map.entry(schema, table))));
+            for (Map.Entry<String, String> table : tables) {
+                try {
+                    resolveTable(table.getKey(), table.getValue());
+                } catch (SQLException ex) {
+                    Logger.getLogger(Metadata.class.getName()).log(Level.WARNING, "Table '" + table.getKey() + "." + table.getValue() + "' revalidation failed", ex);
+                }
+            }
+        } finally {
+            revalidating = false;
+            scheduleSnapshotSave();
+        }
+    }
+
+    /**
+     * Returns a group of tables, related with the specified table via foreign keys directly or transitively.
+     * Changes of tables from different groups are independent and may be reordered.
+     * Only resolved tables are considered.
+     *
+     * @param aQualifiedTableName A table name, possibly qualified with a schema name.
+     * @return Qualified name of a table, representing the group or empty {@link Optional} if the table is unknown.
+     * @throws SQLException If the table's metadata can't be read.
+     * @see #getForeignKeysGroups(Collection)
+     */
+    public Optional<String> getForeignKeysGroup(String aQualifiedTableName) throws SQLException {
+        return getForeignKeysGroups(List.of(aQualifiedTableName)).get(aQualifiedTableName);
     }
 
     /**
-     * Fills tables metadata with fields, comments, keys (pk and fk) by connection
-     * default schema.
+     * Returns groups of tables, related with the specified tables via foreign keys directly or transitively.
+     * The specified tables are resolved first and then all groups are taken from the same state of resolved tables,
+     * so related tables always get the same group name.
+     *
+     * @param aQualifiedTableNames Tables names, possibly qualified with a schema name.
+     * @return Qualified names of tables, representing groups, or empty {@link Optional} for unknown tables by the specified names.
+     * @throws SQLException If the tables' metadata can't be read.
      */
-    private void fillTablesByDefaultSchema() throws SQLException {
-        fillTablesBySchema(defaultSchema);
+    public Map<String, Optional<String>> getForeignKeysGroups(Collection<String> aQualifiedTableNames) throws SQLException {
+        Set<String> known = knownTables(aQualifiedTableNames);
+        Map<String, String> groups;
+        synchronized (tablesVersion) {
+            refreshForeignKeys();
+            groups = foreignKeysGroups;
+        }
+        Map<String, Optional<String>> resolved = new HashMap<>();
+        for (String name : aQualifiedTableNames) {
+            if (known.contains(name)) {
+                String qualified = qualifiedKey(schemaName(name), tableName(name));
+                resolved.put(name, Optional.of(groups.getOrDefault(qualified, qualified)));
+            } else {
+                resolved.put(name, Optional.empty());
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Returns ranks of tables in parent before child order of foreign keys.
+     * A table, referenced by a foreign key, has lower rank than the table of the foreign key, so
+     * rows of tables may be inserted in ascending order of ranks and deleted in descending order of ranks.
+     * Self references are not considered.
+     *
+     * @param aQualifiedTableNames Tables names, possibly qualified with a schema name.
+     * @return Ranks of tables or empty {@link Optional} for unknown tables and tables of foreign keys cycles.
+     * @throws SQLException If the tables' metadata can't be read.
+     * @see #getForeignKeysGroups(Collection)
+     */
+    public Map<String, Optional<Integer>> getForeignKeysRanks(Collection<String> aQualifiedTableNames) throws SQLException {
+        Set<String> known = knownTables(aQualifiedTableNames);
+        Map<String, Integer> ranks;
+        synchronized (tablesVersion) {
+            refreshForeignKeys();
+            ranks = foreignKeysRanks;
+        }
+        Map<String, Optional<Integer>> resolved = new HashMap<>();
+        for (String name : aQualifiedTableNames) {
+            if (known.contains(name)) {
+                resolved.put(name, Optional.ofNullable(ranks.get(qualifiedKey(schemaName(name), tableName(name)))));
+            } else {
+                resolved.put(name, Optional.empty());
+            }
+        }
+        return resolved;
+    }
+
+    private Set<String> knownTables(Collection<String> aQualifiedTableNames) throws SQLException {
+        Set<String> known = new HashSet<>();
+        for (String name : aQualifiedTableNames) {
+            if (getTableColumns(name).isPresent()) {
+                known.add(name);
+            }
+        }
+        return known;
+    }
+
+    private void refreshForeignKeys() {
+        assert Thread.holdsLock(tablesVersion);
+        long version = tablesVersion.get();
+        if (foreignKeysGroupsVersion != version) {
+            Map<String, Set<String>> referees = resolveReferees();
+            foreignKeysGroups = resolveForeignKeysGroups(referees);
+            foreignKeysRanks = resolveForeignKeysRanks(referees);
+            foreignKeysGroupsVersion = version;
+        }
+    }
+
+    private static String qualifiedKey(String aSchema, String aTable) {
+        return (aSchema != null ? aSchema.toLowerCase() : "") + "." + aTable.toLowerCase();
     }
 
     /**
-     * Fills tables metadata with fields, comments, keys (pk and fk).
+     * Resolves tables, referenced by foreign keys of each resolved table.
      *
-     * @param aSchema A schema for witch we should achieve metadata information.
-     *                If it is null, connection default schema is used
+     * @return Lower cased qualified names of all resolved tables with lower cased qualified names of referenced tables.
+     */
+    private Map<String, Set<String>> resolveReferees() {
+        Map<String, Set<String>> referees = new HashMap<>();
+        schemasTablesColumns.forEach((schema, tables) -> tables.forEach((table, columns) -> {
+            Set<String> tableReferees = referees.computeIfAbsent(qualifiedKey(schema, table), key -> new HashSet<>());
+            columns.values().stream()
+                    .map(JdbcColumn::getFk)
+                    .filter(fk -> fk != null && fk.getReferee() != null && fk.getReferee().getTable() != null)
+                    .forEach(fk -> tableReferees.add(qualifiedKey(
+                            fk.getReferee().getSchema() != null ? fk.getReferee().getSchema() : schema,
+                            fk.getReferee().getTable()
+                    )));
+        }));
+        return referees;
+    }
+
+    private static Map<String, String> resolveForeignKeysGroups(Map<String, Set<String>> aReferees) {
+        Map<String, String> parents = new HashMap<>();
+        aReferees.forEach((table, tableReferees) -> tableReferees.forEach(referee -> union(parents, table, referee)));
+        Map<String, String> groups = new HashMap<>();
+        parents.keySet().forEach(table -> groups.put(table, rootOf(parents, table)));
+        return Collections.unmodifiableMap(groups);
+    }
+
+    /**
+     * Ranks tables with the longest path of foreign keys to a table without foreign keys.
+     * Tables of foreign keys cycles and tables, referencing them, are not ranked.
      */
-    private void fillTablesBySchema(String aSchema) throws SQLException {
-        schemasTablesColumns.put(aSchema, querySchemaColumns(aSchema));
+    private static Map<String, Integer> resolveForeignKeysRanks(Map<String, Set<String>> aReferees) {
+        Map<String, Integer> ranks = new HashMap<>();
+        boolean ranked;
+        do {
+            ranked = false;
+            for (Map.Entry<String, Set<String>> entry : aReferees.entrySet()) {
+                String table = entry.getKey();
+                if (!ranks.containsKey(table)) {
+                    int rank = 0;
+                    boolean rankable = true;
+                    for (String referee : entry.getValue()) {
+                        if (!referee.equals(table)) {
+                            Integer refereeRank = ranks.get(referee);
+                            if (refereeRank != null) {
+                                rank = Math.max(rank, refereeRank + 1);
+                            } else if (aReferees.containsKey(referee)) {
+                                rankable = false;
+                            }
+                        }
+                    }
+                    if (rankable) {
+                        ranks.put(table, rank);
+                        ranked = true;
+                    }
+                }
+            }
+        } while (ranked);
+        return Collections.unmodifiableMap(ranks);
     }
 
-    private Map<String, JdbcColumn> queryTableColumns(String aSchema, String aTable) throws SQLException {
-        return queryTablesColumns(aSchema, aTable).getOrDefault(aTable, new CaseInsensitiveMap<>(new LinkedHashMap<>()));
+    private static String rootOf(Map<String, String> aParents, String aTable) {
+        String root = aTable;
+        String parent;
+        while ((parent = aParents.get(root)) != null && !parent.equals(root)) {
+            root = parent;
+        }
+        return root;
+    }
+
+    private static void union(Map<String, String> aParents, String aTable1, String aTable2) {
+        aParents.putIfAbsent(aTable1, aTable1);
+        aParents.putIfAbsent(aTable2, aTable2);
+        String root1 = rootOf(aParents, aTable1);
+        String root2 = rootOf(aParents, aTable2);
+        if (!root1.equals(root2)) {
+            aParents.put(root2, root1);
+        }
+    }
+
+    public boolean containsTable(final String aQualifiedTableName) {
+        try {
+            return getTableColumns(aQualifiedTableName).isPresent();
+        } catch (SQLException ex) {
+            throw new UncheckedSQLException(ex);
+        }
     }
 
     private Map<String, Map<String, JdbcColumn>> querySchemaColumns(String aSchema) throws SQLException {
@@ -147,14 +478,17 @@ public class Metadata {
             try (ResultSet r = meta.getColumns(null, aSchema, aTableNamePattern, null)) {
                 columns = readTablesColumns(r, meta, aSchema, sqlDriver);
             }
-            if (aSchema != null && !aSchema.isEmpty() && columns.isEmpty()) {
-                try (ResultSet r = meta.getColumns(null, aSchema.toLowerCase(), aTableNamePattern != null ? aTableNamePattern.toLowerCase() : null, null)) {
-                    columns = readTablesColumns(r, meta, aSchema.toLowerCase(), sqlDriver);
+            boolean inOtherCases = aSchema != null && !aSchema.isEmpty() || aTableNamePattern != null;
+            if (inOtherCases && columns.isEmpty()) {
+                String schema = aSchema != null ? aSchema.toLowerCase() : null;
+                try (ResultSet r = meta.getColumns(null, schema, aTableNamePattern != null ? aTableNamePattern.toLowerCase() : null, null)) {
+                    columns = readTablesColumns(r, meta, schema, sqlDriver);
                 }
             }
-            if (aSchema != null && !aSchema.isEmpty() && columns.isEmpty()) {
-                try (ResultSet r = meta.getColumns(null, aSchema.toUpperCase(), aTableNamePattern != null ? aTableNamePattern.toUpperCase() : null, null)) {
-                    columns = readTablesColumns(r, meta, aSchema.toUpperCase(), sqlDriver);
+            if (inOtherCases && columns.isEmpty()) {
+                String schema = aSchema != null ? aSchema.toUpperCase() : null;
+                try (ResultSet r = meta.getColumns(null, schema, aTableNamePattern != null ? aTableNamePattern.toUpperCase() : null, null)) {
+                    columns = readTablesColumns(r, meta, schema, sqlDriver);
                 }
             }
             // columns.setTableDescription(aTablesDescriptions.get(tn));
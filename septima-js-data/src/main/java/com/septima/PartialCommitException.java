@@ -0,0 +1,36 @@
+package com.septima;
+
+import java.util.List;
+
+/**
+ * Signals that statements of a coordinated commit are committed to some databases, but are not committed to others.
+ * Committed changes can't be rolled back, so the databases are out of sync until the changes are reconciled.
+ *
+ * @see Database#commit(java.util.Map)
+ */
+public class PartialCommitException extends RuntimeException {
+
+    private static final long serialVersionUID = 6071580466431347164L;
+
+    private final transient List<Database> committed;
+    private final transient List<Database> failed;
+
+    /**
+     * @param aCommitted Databases, the statements are committed to.
+     * @param aFailed    Databases, the statements are failed to be committed to and are rolled back.
+     * @param aCause     A failure of the commit.
+     */
+    public PartialCommitException(List<Database> aCommitted, List<Database> aFailed, Throwable aCause) {
+        super("Statements are committed to databases " + aCommitted + ", but are not committed to databases " + aFailed, aCause);
+        committed = List.copyOf(aCommitted);
+        failed = List.copyOf(aFailed);
+    }
+
+    public List<Database> getCommitted() {
+        return committed;
+    }
+
+    public List<Database> getFailed() {
+        return failed;
+    }
+}
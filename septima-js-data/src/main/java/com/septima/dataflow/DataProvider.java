@@ -5,6 +5,7 @@ import com.septima.metadata.Parameter;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 /**
  * This interface is intended transform serve as base contract for data
@@ -38,6 +39,19 @@ public interface DataProvider extends AutoCloseable {
      */
     CompletableFuture<List<Map<String, Object>>> pull(List<Parameter> aParams);
 
+    /**
+     * Publishes data of some source, according transform the supplied parameters
+     * values. Data is read from the source only while there is a demand of a subscriber,
+     * so a large result is not held in memory as a whole.
+     * Each subscription queries the source again.
+     *
+     * @param aParams Parameters values, ordered with some unknown criteria.
+     * Values from this parameter collection are applied one by one in the straight order.
+     * @return {@link Flow.Publisher} of data, retrieved from the source.
+     * @see Parameter
+     */
+    Flow.Publisher<Map<String, Object>> publish(List<Parameter> aParams);
+
     /**
      * Fetches a next page of data from an abstract data source.
      *
@@ -3,6 +3,7 @@ package com.septima.dataflow;
 import com.septima.jdbc.JdbcDataProvider;
 import com.septima.jdbc.JdbcReaderAssigner;
 import com.septima.jdbc.ResultSetReader;
+import com.septima.jdbc.StatementsCache;
 import com.septima.jdbc.UncheckedSQLException;
 import com.septima.metadata.EntityField;
 import com.septima.metadata.Parameter;
@@ -12,18 +13,34 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 
 public class DynamicTypingDataProvider extends JdbcDataProvider {
 
     private static final String BAD_PULL_NEXT_PAGE_CHAIN_MSG = "The call indices nextPage() method is allowed only for paged data providers as the subsequent calls in the pull() -> nextPage() -> nextPage() -> ... calls chain";
 
     private final String entityName;
+    private final ResultSetReader reader;
 
     public DynamicTypingDataProvider(JdbcReaderAssigner aJdbcReaderAssigner, String aEntityName, DataSource aDataSource, Executor aDataPuller, Executor aFutureExecutor, String aClause, boolean aProcedure, int aPageSize, Map<String, EntityField> aExpectedFields) {
-        super(aDataSource, aJdbcReaderAssigner, aDataPuller, aFutureExecutor, aClause, aProcedure, aPageSize, aExpectedFields);
+        this(aJdbcReaderAssigner, aEntityName, aDataSource, aDataPuller, aFutureExecutor, aClause, aProcedure, aPageSize, aExpectedFields, new ResultSetReader(aExpectedFields, aJdbcReaderAssigner), new StatementsCache(0));
+    }
+
+    /**
+     * Creates a data provider, that reads results with the specified reader.
+     *
+     * @param aReader {@link ResultSetReader} instance, possibly shared between providers of the same query,
+     *                to avoid resolving of columns' readers for each page read.
+     * @param aStatementsCache {@link StatementsCache} instance, shared by providers of a database.
+     */
+    public DynamicTypingDataProvider(JdbcReaderAssigner aJdbcReaderAssigner, String aEntityName, DataSource aDataSource, Executor aDataPuller, Executor aFutureExecutor, String aClause, boolean aProcedure, int aPageSize, Map<String, EntityField> aExpectedFields, ResultSetReader aReader, StatementsCache aStatementsCache) {
+        super(aDataSource, aJdbcReaderAssigner, aDataPuller, aFutureExecutor, aClause, aProcedure, aPageSize, aExpectedFields, aStatementsCache);
+        Objects.requireNonNull(aReader, "aReader is required argument");
         entityName = aEntityName;
+        reader = aReader;
     }
 
     @Override
@@ -38,10 +55,6 @@ public class DynamicTypingDataProvider extends JdbcDataProvider {
     public CompletableFuture<List<Map<String, Object>>> pull(List<Parameter> aParams) {
         return select(aParams, (ResultSet rs) -> {
             if (rs != null) {
-                ResultSetReader reader = new ResultSetReader(
-                        expectedFields,
-                        jdbcReaderAssigner
-                );
                 return reader.readRowSet(rs, pageSize);
             } else {
                 return List.of();
@@ -49,6 +62,14 @@ public class DynamicTypingDataProvider extends JdbcDataProvider {
         });
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flow.Publisher<Map<String, Object>> publish(List<Parameter> aParams) {
+        return publish(aParams, reader::readRowSet);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -60,10 +81,6 @@ public class DynamicTypingDataProvider extends JdbcDataProvider {
             CompletableFuture<List<Map<String, Object>>> fetching = new CompletableFuture<>();
             asyncDataPuller.execute(() -> {
                 try {
-                    ResultSetReader reader = new ResultSetReader(
-                            expectedFields,
-                            jdbcReaderAssigner
-                    );
                     List<Map<String, Object>> processed = reader.readRowSet(lowLevelResults, pageSize);
                     fetching.completeAsync(() -> processed, futureExecutor);
                 } catch (Throwable ex) {
@@ -100,6 +100,8 @@ public class EntityActionsBinder implements EntityActionsVisitor {
                 )
                 .map(entry -> new BoundStatement(
                         aAdd.getEntityName(),
+                        entry.getKey(),
+                        BoundStatement.Kind.INSERT,
                         String.format(INSERT_CLAUSE,
                                 entry.getKey(),
                                 generateInsertColumnsClause(entry.getValue()),
@@ -128,6 +130,8 @@ public class EntityActionsBinder implements EntityActionsVisitor {
                 )
                 .map(entry -> new BoundStatement(
                         anUpdate.getEntityName(),
+                        entry.getKey(),
+                        BoundStatement.Kind.UPDATE,
                         String.format(UPDATE_CLAUSE,
                                 entry.getKey(),
                                 generateUpdateColumnsClause(entry.getValue()),
@@ -162,6 +166,8 @@ public class EntityActionsBinder implements EntityActionsVisitor {
                 )
                 .map(entry -> new BoundStatement(
                         aRemove.getEntityName(),
+                        entry.getKey(),
+                        BoundStatement.Kind.DELETE,
                         String.format(DELETE_CLAUSE,
                                 entry.getKey(),
                                 generateWhereClause(entry.getValue())
@@ -178,6 +184,8 @@ public class EntityActionsBinder implements EntityActionsVisitor {
         SqlQuery query = entity.toQuery();
         logEntries.add(new BoundStatement(
                 aCommand.getEntityName(),
+                null,
+                BoundStatement.Kind.COMMAND,
                 query.getSqlClause(),
                 Collections.unmodifiableList(query.getParameters().stream()
                         .map(queryParameter -> new Parameter(
@@ -219,14 +227,22 @@ public class EntityActionsBinder implements EntityActionsVisitor {
 
         private static final Logger QUERIES_LOGGER = Logger.getLogger(BoundStatement.class.getName());
 
+        public enum Kind {
+            INSERT, UPDATE, DELETE, COMMAND
+        }
+
         private final String entityName;
+        private final String tableName;
+        private final Kind kind;
         private final String clause;
         private final List<Parameter> parameters;
         private final JdbcReaderAssigner jdbcReaderAssigner;
 
-        BoundStatement(String aEntityName, String aClause, List<Parameter> aParameters, JdbcReaderAssigner aJdbcReaderAssigner) {
+        BoundStatement(String aEntityName, String aTableName, Kind aKind, String aClause, List<Parameter> aParameters, JdbcReaderAssigner aJdbcReaderAssigner) {
             super();
             entityName = aEntityName;
+            tableName = aTableName;
+            kind = aKind;
             clause = aClause;
             parameters = aParameters;
             jdbcReaderAssigner = aJdbcReaderAssigner;
@@ -236,6 +252,19 @@ public class EntityActionsBinder implements EntityActionsVisitor {
             return entityName;
         }
 
+        /**
+         * Returns a name of the table, changed by the statement.
+         *
+         * @return A name of the table or null if the statement is a command and changed tables are unknown.
+         */
+        public String getTableName() {
+            return tableName;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
         public String getClause() {
             return clause;
         }
@@ -0,0 +1,308 @@
+package com.septima.dataflow;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A row of data with a schema, shared by all rows of a result.
+ * The row holds only values of the fields in an array. Names of the fields and their
+ * indices are held by a {@link Schema} instance, created once per result.
+ * It is a {@link Map} and so it can be used anywhere a {@code Map<String, Object>} row is expected.
+ * Fields, absent in the schema, can be added to a row as well. They are stored separately.
+ *
+ * @author mg
+ */
+public class Row extends AbstractMap<String, Object> {
+
+    private static final Object ABSENT = new Object();
+
+    /**
+     * Immutable field name to index table, shared by rows of a result.
+     */
+    public static class Schema {
+
+        private final String[] names;
+        private final int[] slots;
+        private final Map<String, Integer> indices;
+
+        /**
+         * Creates a schema for the columns with specified names.
+         * If some name is met several times, then the last column with such name wins,
+         * in the same way as while putting the columns' values into a {@link HashMap}.
+         * Fields are iterated in the order of the columns. A field of several columns takes place of the first of them.
+         *
+         * @param aColumnsNames Names of the columns in the order of the columns.
+         */
+        public Schema(String[] aColumnsNames) {
+            Objects.requireNonNull(aColumnsNames, "aColumnsNames is required argument");
+            Map<String, Integer> byName = new LinkedHashMap<>();
+            slots = new int[aColumnsNames.length];
+            for (int i = 0; i < aColumnsNames.length; i++) {
+                slots[i] = byName.computeIfAbsent(aColumnsNames[i], n -> byName.size());
+            }
+            names = byName.keySet().toArray(new String[]{});
+            indices = Collections.unmodifiableMap(new HashMap<>(byName));
+        }
+
+        /**
+         * Returns index of a field with specified name.
+         *
+         * @param aName A name of the field.
+         * @return Index of the field or -1 if there is no such field in the schema.
+         */
+        public int indexOf(Object aName) {
+            Integer index = indices.get(aName);
+            return index != null ? index : -1;
+        }
+
+        /**
+         * Returns index of the field, that a column with specified index is read into.
+         *
+         * @param aColumnIndex Zero based index of a column.
+         * @return Index of the field.
+         */
+        public int slotOf(int aColumnIndex) {
+            return slots[aColumnIndex];
+        }
+
+        public int getFieldsCount() {
+            return names.length;
+        }
+
+        public String getName(int aIndex) {
+            return names[aIndex];
+        }
+
+        public Row newRow() {
+            return new Row(this, new Object[names.length]);
+        }
+    }
+
+    private final Schema schema;
+    private final Object[] values;
+    private int absent;
+    private Map<String, Object> extra;
+
+    private Row(Schema aSchema, Object[] aValues) {
+        schema = aSchema;
+        values = aValues;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Sets a value of a field by its index in the schema.
+     *
+     * @param aIndex Index of the field in the schema.
+     * @param aValue A value to be set.
+     */
+    public void set(int aIndex, Object aValue) {
+        if (values[aIndex] == ABSENT) {
+            absent--;
+        }
+        values[aIndex] = aValue;
+    }
+
+    @Override
+    public int size() {
+        return values.length - absent + (extra != null ? extra.size() : 0);
+    }
+
+    @Override
+    public boolean containsKey(Object aKey) {
+        int index = schema.indexOf(aKey);
+        if (index != -1) {
+            return values[index] != ABSENT;
+        } else {
+            return extra != null && extra.containsKey(aKey);
+        }
+    }
+
+    @Override
+    public Object get(Object aKey) {
+        int index = schema.indexOf(aKey);
+        if (index != -1) {
+            Object value = values[index];
+            return value != ABSENT ? value : null;
+        } else {
+            return extra != null ? extra.get(aKey) : null;
+        }
+    }
+
+    @Override
+    public Object put(String aKey, Object aValue) {
+        int index = schema.indexOf(aKey);
+        if (index != -1) {
+            Object old = values[index];
+            set(index, aValue);
+            return old != ABSENT ? old : null;
+        } else {
+            if (extra == null) {
+                extra = new LinkedHashMap<>();
+            }
+            return extra.put(aKey, aValue);
+        }
+    }
+
+    @Override
+    public Object remove(Object aKey) {
+        int index = schema.indexOf(aKey);
+        if (index != -1) {
+            Object old = values[index];
+            if (old != ABSENT) {
+                values[index] = ABSENT;
+                absent++;
+                return old;
+            } else {
+                return null;
+            }
+        } else {
+            return extra != null ? extra.remove(aKey) : null;
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ABSENT;
+        }
+        absent = values.length;
+        extra = null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntriesIterator();
+            }
+
+            @Override
+            public int size() {
+                return Row.this.size();
+            }
+        };
+    }
+
+    private class FieldEntry implements Entry<String, Object> {
+
+        private final int index;
+
+        private FieldEntry(int aIndex) {
+            index = aIndex;
+        }
+
+        @Override
+        public String getKey() {
+            return schema.getName(index);
+        }
+
+        @Override
+        public Object getValue() {
+            Object value = values[index];
+            return value != ABSENT ? value : null;
+        }
+
+        @Override
+        public Object setValue(Object aValue) {
+            Object old = getValue();
+            set(index, aValue);
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof Entry) {
+                Entry<?, ?> other = (Entry<?, ?>) o;
+                return Objects.equals(getKey(), other.getKey()) && Objects.equals(getValue(), other.getValue());
+            } else {
+                return false;
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private class EntriesIterator implements Iterator<Entry<String, Object>> {
+
+        private int next = skipAbsent(0);
+        private Iterator<Entry<String, Object>> extraEntries;
+        private String lastKey;
+        private boolean lastInExtra;
+        private boolean removable;
+
+        private int skipAbsent(int aFrom) {
+            int index = aFrom;
+            while (index < values.length && values[index] == ABSENT) {
+                index++;
+            }
+            return index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next < values.length) {
+                return true;
+            } else {
+                if (extraEntries == null) {
+                    extraEntries = extra != null ? extra.entrySet().iterator() : Collections.emptyIterator();
+                }
+                return extraEntries.hasNext();
+            }
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (hasNext()) {
+                if (next < values.length) {
+                    FieldEntry entry = new FieldEntry(next);
+                    next = skipAbsent(next + 1);
+                    lastKey = entry.getKey();
+                    lastInExtra = false;
+                    removable = true;
+                    return entry;
+                } else {
+                    Entry<String, Object> entry = extraEntries.next();
+                    lastKey = entry.getKey();
+                    lastInExtra = true;
+                    removable = true;
+                    return entry;
+                }
+            } else {
+                throw new NoSuchElementException();
+            }
+        }
+
+        @Override
+        public void remove() {
+            if (!removable) {
+                throw new IllegalStateException();
+            }
+            if (lastInExtra) {
+                extraEntries.remove();
+            } else {
+                Row.this.remove(lastKey);
+            }
+            removable = false;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.septima.entities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A directory with compiled sql entities, that allows to skip compilation of entities after restart of an application.
+ * A file per entity is used. A file contains an entity's snapshot along with keys of the content, the entity is compiled from.
+ * Validation of the keys is up to {@link SqlEntities}.
+ *
+ * @author mg
+ */
+public class CompiledEntitiesCache {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String FILE_SUFFIX = ".compiled.json";
+
+    private final Path directory;
+
+    public CompiledEntitiesCache(Path aDirectory) {
+        Objects.requireNonNull(aDirectory, "aDirectory is required argument");
+        directory = aDirectory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Reads a compiled entity.
+     *
+     * @param anEntityName An entity name.
+     * @return A document of the compiled entity or null if the entity is absent in the cache or its file is malformed.
+     */
+    public JsonNode read(String anEntityName) {
+        Path file = fileOf(anEntityName);
+        if (Files.exists(file)) {
+            try {
+                return JSON.readTree(file.toFile());
+            } catch (IOException ex) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a compiled entity.
+     * The file is replaced atomically if a file system supports it, so a reader never sees a partially written file.
+     *
+     * @param anEntityName An entity name.
+     * @param aDocument    A document of the compiled entity.
+     * @throws IOException If the file can't be written.
+     */
+    public void write(String anEntityName, Map<String, Object> aDocument) throws IOException {
+        Path file = fileOf(anEntityName);
+        Files.createDirectories(file.getParent());
+        Path written = file.resolveSibling(file.getFileName() + ".tmp");
+        JSON.writeValue(written.toFile(), aDocument);
+        try {
+            Files.move(written, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            Files.move(written, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Removes a compiled entity from the cache.
+     *
+     * @param anEntityName An entity name.
+     * @throws IOException If the file can't be deleted.
+     */
+    public void remove(String anEntityName) throws IOException {
+        Files.deleteIfExists(fileOf(anEntityName));
+    }
+
+    private Path fileOf(String anEntityName) {
+        return directory.resolve(anEntityName + FILE_SUFFIX).normalize();
+    }
+
+    /**
+     * Calculates a hash of texts.
+     * Null texts are distinguished from empty ones.
+     *
+     * @param aTexts Texts to be hashed.
+     * @return Hex representation of the texts' hash.
+     */
+    public static String hashOf(String... aTexts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String text : aTexts) {
+                if (text != null) {
+                    digest.update((byte) 1);
+                    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                    digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) ':');
+                    digest.update(bytes);
+                } else {
+                    digest.update((byte) 0);
+                }
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+                hex.append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.septima.dataflow.DataProvider;
 import com.septima.dataflow.EntityActionsBinder;
 import com.septima.jdbc.DataSources;
 import com.septima.jdbc.UncheckedSQLException;
+import com.septima.jdbc.VirtualThreadsPerformer;
 import com.septima.metadata.EntityField;
 import com.septima.metadata.ForeignKey;
 import com.septima.metadata.JdbcColumn;
@@ -18,6 +19,7 @@ import com.septima.queries.CaseInsensitiveMap;
 import com.septima.queries.CaseInsensitiveSet;
 import com.septima.queries.ExtractParameters;
 import com.septima.queries.InlineEntities;
+import com.septima.queries.ResultsCache;
 import com.septima.queries.SqlQuery;
 import com.septima.sqldrivers.SqlDriver;
 import net.sf.jsqlparser.JSqlParserException;
@@ -34,8 +36,11 @@ import net.sf.jsqlparser.statement.select.SelectBody;
 import net.sf.jsqlparser.statement.select.SelectExpressionItem;
 import net.sf.jsqlparser.statement.select.SelectItem;
 import net.sf.jsqlparser.statement.select.SubSelect;
+import net.sf.jsqlparser.statement.select.WithItem;
 import net.sf.jsqlparser.syntax.FromItems;
 import net.sf.jsqlparser.syntax.SelectItems;
+import net.sf.jsqlparser.syntax.SyntaxTreeCopy;
+import net.sf.jsqlparser.syntax.SyntaxTreeVisitor;
 import net.sf.jsqlparser.util.deparser.StatementDeParser;
 
 import javax.naming.NamingException;
@@ -47,27 +52,47 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
@@ -83,16 +108,67 @@ public class SqlEntities {
     private final boolean compileEntities;
     private final boolean useBatches;
     private final int maximumBatchSize;
+    private final int statementsCacheSize;
+    private final Path metadataSnapshots;
+    private final CompiledEntitiesCache compiledEntities;
     private final Path entitiesRoot;
     private final Path resourcesEntitiesRoot;
     private final String defaultDataSource;
-    private final Map<String, SqlEntity> entities = new ConcurrentHashMap<>();
-    private final Map<String, SqlQuery> queries = new ConcurrentHashMap<>();
+    private volatile Generation generation = new Generation();
+    /**
+     * Entities, that inline an entity, by the entity name.
+     * Reverse references are only added, so this index may be wider than actual references. It is harmless for reload.
+     */
+    private final Map<String, Set<String>> referrers;
+    private final Object reloadLock = new Object();
+    /**
+     * Names of available entities, scanned once while creating of sql entities and maintained by reload.
+     * It is null if entities can't be scanned. In this case existence of an entity is checked with file system or class loader.
+     */
+    private final Set<String> entitiesIndex;
+    /**
+     * True if changes of entities in the file system are reloaded by {@link SqlEntitiesReloader}, so absence of an entity
+     * in {@link #entitiesIndex} is reliable.
+     */
+    private volatile boolean entitiesIndexMaintained;
     private final Executor jdbcPerformer;
     private final Executor futuresExecutor;
+    private final Executor loadingPerformer;
+    /**
+     * Loadings of entities in flight by entities names. Concurrent asynchronous loadings of the same entity share a single future.
+     */
+    private final Map<String, CompletableFuture<SqlEntity>> loadings = new ConcurrentHashMap<>();
 
-    private final Map<String, Database> databases = new ConcurrentHashMap<>();
-    private final Map<Database, String> dataSources = new ConcurrentHashMap<>();
+    private final Map<String, Database> databases;
+    private final Map<Database, String> dataSources;
+
+    /**
+     * Compiled entities, their queries and syntax trees.
+     * A generation is replaced as a whole while reloading, so a reader sees either all old or all reloaded entities.
+     */
+    private static class Generation {
+        private final Map<String, SqlEntity> entities;
+        private final Map<String, SqlQuery> queries;
+        private final Map<String, Statement> syntaxes;
+
+        private Generation() {
+            this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+
+        private Generation(Map<String, SqlEntity> aEntities, Map<String, SqlQuery> aQueries, Map<String, Statement> aSyntaxes) {
+            entities = aEntities;
+            queries = aQueries;
+            syntaxes = aSyntaxes;
+        }
+
+        private Generation without(Set<String> aNames) {
+            Generation cut = new Generation(new ConcurrentHashMap<>(entities), new ConcurrentHashMap<>(queries), new ConcurrentHashMap<>(syntaxes));
+            cut.entities.keySet().removeAll(aNames);
+            cut.queries.keySet().removeAll(aNames);
+            cut.syntaxes.keySet().removeAll(aNames);
+            return cut;
+        }
+    }
 
     public SqlEntities(Path anEntitiesRoot, String aDefaultDataSource, boolean aCompileEntities, boolean aUseBatches, int aMaximumBatchSize) {
         this(anEntitiesRoot, aDefaultDataSource, Database.jdbcTasksPerformer(32), ForkJoinPool.commonPool(), aCompileEntities, aUseBatches, aMaximumBatchSize);
@@ -103,6 +179,44 @@ public class SqlEntities {
     }
 
     public SqlEntities(Path aResourcesEntitiesRoot, Path anEntitiesRoot, String aDefaultDataSource, Executor aJdbcPerformer, Executor aFuturesExecutor, boolean aCompileEntities, boolean aUseBatches, int aMaximumBatchSize) {
+        this(aResourcesEntitiesRoot, anEntitiesRoot, aDefaultDataSource, aJdbcPerformer, aFuturesExecutor, aCompileEntities, aUseBatches, aMaximumBatchSize, Database.DEFAULT_STATEMENTS_CACHE_SIZE);
+    }
+
+    public SqlEntities(Path aResourcesEntitiesRoot, Path anEntitiesRoot, String aDefaultDataSource, Executor aJdbcPerformer, Executor aFuturesExecutor, boolean aCompileEntities, boolean aUseBatches, int aMaximumBatchSize, int aStatementsCacheSize) {
+        this(aResourcesEntitiesRoot, anEntitiesRoot, aDefaultDataSource, aJdbcPerformer, aFuturesExecutor, aCompileEntities, aUseBatches, aMaximumBatchSize, aStatementsCacheSize, null);
+    }
+
+    /**
+     * Creates sql entities with databases' metadata, backed by snapshot files.
+     *
+     * @param aMetadataSnapshots A directory of metadata snapshots files. A file per data source is used.
+     *                           If it is null, metadata is not backed by snapshots.
+     * @see Metadata#of(DataSource, Path, Executor)
+     */
+    public SqlEntities(Path aResourcesEntitiesRoot, Path anEntitiesRoot, String aDefaultDataSource, Executor aJdbcPerformer, Executor aFuturesExecutor, boolean aCompileEntities, boolean aUseBatches, int aMaximumBatchSize, int aStatementsCacheSize, Path aMetadataSnapshots) {
+        this(aResourcesEntitiesRoot, anEntitiesRoot, aDefaultDataSource, aJdbcPerformer, aFuturesExecutor, aCompileEntities, aUseBatches, aMaximumBatchSize, aStatementsCacheSize, aMetadataSnapshots, null);
+    }
+
+    /**
+     * Creates sql entities, that keep compiled entities across restarts of an application.
+     *
+     * @param aCompiledEntities A directory of compiled entities. If it is null, compiled entities are not kept.
+     *                          It is used only if entities are compiled.
+     * @see CompiledEntitiesCache
+     */
+    public SqlEntities(Path aResourcesEntitiesRoot, Path anEntitiesRoot, String aDefaultDataSource, Executor aJdbcPerformer, Executor aFuturesExecutor, boolean aCompileEntities, boolean aUseBatches, int aMaximumBatchSize, int aStatementsCacheSize, Path aMetadataSnapshots, Path aCompiledEntities) {
+        this(aResourcesEntitiesRoot, anEntitiesRoot, aDefaultDataSource, aJdbcPerformer, aFuturesExecutor, loadingPerformer(Runtime.getRuntime().availableProcessors()), aCompileEntities, aUseBatches, aMaximumBatchSize, aStatementsCacheSize, aMetadataSnapshots, aCompiledEntities);
+    }
+
+    /**
+     * Creates sql entities with a dedicated executor for asynchronous loading of entities.
+     *
+     * @param aLoadingPerformer An executor, entities are loaded and compiled by with {@link #loadEntityAsync(String)} and {@link #loadQueryAsync(String)}.
+     *                          Loading of an entity involves file reading and database metadata requests, so the executor should not be
+     *                          a container's threads pool or {@code aFuturesExecutor}.
+     * @see #loadingPerformer(int)
+     */
+    public SqlEntities(Path aResourcesEntitiesRoot, Path anEntitiesRoot, String aDefaultDataSource, Executor aJdbcPerformer, Executor aFuturesExecutor, Executor aLoadingPerformer, boolean aCompileEntities, boolean aUseBatches, int aMaximumBatchSize, int aStatementsCacheSize, Path aMetadataSnapshots, Path aCompiledEntities) {
         super();
         Objects.requireNonNull(
                 Objects.requireNonNullElse(aResourcesEntitiesRoot, anEntitiesRoot),
@@ -111,14 +225,47 @@ public class SqlEntities {
         Objects.requireNonNull(aDefaultDataSource, "aDefaultDataSource is required argument");
         Objects.requireNonNull(aJdbcPerformer, "aJdbcPerformer is required argument");
         Objects.requireNonNull(aFuturesExecutor, "aFuturesExecutor is required argument");
+        Objects.requireNonNull(aLoadingPerformer, "aLoadingPerformer is required argument");
         entitiesRoot = anEntitiesRoot != null ? anEntitiesRoot.normalize() : null;
         resourcesEntitiesRoot = aResourcesEntitiesRoot != null ? aResourcesEntitiesRoot.normalize() : null;
         defaultDataSource = aDefaultDataSource;
         jdbcPerformer = aJdbcPerformer;
         futuresExecutor = aFuturesExecutor;
+        loadingPerformer = aLoadingPerformer;
         compileEntities = aCompileEntities;
         useBatches = aUseBatches;
         maximumBatchSize = aMaximumBatchSize;
+        statementsCacheSize = aStatementsCacheSize;
+        metadataSnapshots = aMetadataSnapshots;
+        compiledEntities = aCompiledEntities != null && aCompileEntities ? new CompiledEntitiesCache(aCompiledEntities) : null;
+        databases = new ConcurrentHashMap<>();
+        dataSources = new ConcurrentHashMap<>();
+        referrers = new ConcurrentHashMap<>();
+        entitiesIndex = indexEntities();
+    }
+
+    /**
+     * Creates staging sql entities for reload. Staging entities share configuration, databases and reverse references with live entities.
+     */
+    private SqlEntities(SqlEntities aLive, Generation aStaging) {
+        super();
+        entitiesRoot = aLive.entitiesRoot;
+        resourcesEntitiesRoot = aLive.resourcesEntitiesRoot;
+        defaultDataSource = aLive.defaultDataSource;
+        jdbcPerformer = aLive.jdbcPerformer;
+        futuresExecutor = aLive.futuresExecutor;
+        loadingPerformer = aLive.loadingPerformer;
+        compileEntities = aLive.compileEntities;
+        useBatches = aLive.useBatches;
+        maximumBatchSize = aLive.maximumBatchSize;
+        statementsCacheSize = aLive.statementsCacheSize;
+        metadataSnapshots = aLive.metadataSnapshots;
+        compiledEntities = aLive.compiledEntities;
+        databases = aLive.databases;
+        dataSources = aLive.dataSources;
+        referrers = aLive.referrers;
+        entitiesIndex = aLive.entitiesIndex;
+        generation = aStaging;
     }
 
     private static Map<String, EntityField> columnsToApplicationFields(Map<String, JdbcColumn> tableColumns, SqlDriver aDriver) {
@@ -263,6 +410,21 @@ public class SqlEntities {
         return read;
     }
 
+    private static ResultsCache.Policy resultsCachePolicyOf(String anEntityName, boolean aReadonly, JsonNode aCacheNode) {
+        if (aReadonly) {
+            JsonNode ttlNode = aCacheNode.get("ttl");
+            JsonNode maxEntriesNode = aCacheNode.get("maxEntries");
+            return new ResultsCache.Policy(
+                    ttlNode != null && ttlNode.canConvertToLong() ? ttlNode.asLong() : 0,
+                    maxEntriesNode != null && maxEntriesNode.isInt() ? maxEntriesNode.asInt() : ResultsCache.Policy.DEFAULT_MAXIMUM_ENTRIES,
+                    Collections.unmodifiableSet(jsonStringArrayToSet(aCacheNode.get("tables")))
+            );
+        } else {
+            Logger.getLogger(SqlEntities.class.getName()).log(Level.WARNING, "Entity ''{0}'' is not readonly. Its results cache settings are ignored.", anEntityName);
+            return null;
+        }
+    }
+
     private static JdbcColumn asAliasedColumn(JdbcColumn resolved, Column column, String alias) {
         return new JdbcColumn(
                 alias != null && !alias.isEmpty() ? alias : column.getColumnName(),
@@ -282,6 +444,27 @@ public class SqlEntities {
         );
     }
 
+    /**
+     * Creates an executor for asynchronous loading of entities with a fixed number of daemon threads and an unbounded queue of tasks.
+     * Idle threads are terminated.
+     *
+     * @param aMaxParallelLoadings Number of threads.
+     * @return {@link ThreadPoolExecutor} instance.
+     */
+    public static ThreadPoolExecutor loadingPerformer(int aMaxParallelLoadings) {
+        AtomicLong threadNumber = new AtomicLong();
+        ThreadPoolExecutor loader = new ThreadPoolExecutor(aMaxParallelLoadings, aMaxParallelLoadings,
+                3L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread thread = new Thread(r, "entities-loading-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        loader.allowCoreThreadTimeOut(true);
+        return loader;
+    }
+
     public Path getEntitiesRoot() {
         return entitiesRoot;
     }
@@ -321,13 +504,24 @@ public class SqlEntities {
             aIllegalReferences.add(anEntityName);
         }
         try {
+            Map<String, SqlEntity> entities = generation.entities;
             if (entities.containsKey(anEntityName)) {
                 return entities.get(anEntityName);
             } else {
                 try {
                     Logger.getLogger(SqlEntities.class.getName()).finer(String.format(LOADING_QUERY_MSG, anEntityName));
-                    Path startOfReferences = entitiesRoot != null ? entitiesRoot.resolve(anEntityName).getParent() : resourcesEntitiesRoot.resolve(anEntityName).getParent();
-                    SqlEntity entity = constructEntity(anEntityName, readEntitySql(anEntityName), readEntityJson(anEntityName), startOfReferences, aIllegalReferences);
+                    String entitySql = readEntitySql(anEntityName);
+                    String entityJson = readEntityJson(anEntityName);
+                    Set<String> references = new LinkedHashSet<>();
+                    SqlEntity entity = compiledEntities != null ? loadCompiledEntity(anEntityName, entitySql, entityJson, references) : null;
+                    if (entity == null) {
+                        references.clear();
+                        entity = constructEntity(anEntityName, entitySql, entityJson, startOfReferences(anEntityName), aIllegalReferences, references);
+                        if (compiledEntities != null) {
+                            saveCompiledEntity(anEntityName, entitySql, entityJson, references, entity);
+                        }
+                    }
+                    references.forEach(reference -> referrers.computeIfAbsent(reference, r -> ConcurrentHashMap.newKeySet()).add(anEntityName));
                     Logger.getLogger(SqlEntities.class.getName()).finer(String.format(LOADED_QUERY_MSG, anEntityName));
                     entities.put(anEntityName, entity);
                     return entity;
@@ -344,8 +538,309 @@ public class SqlEntities {
         }
     }
 
+    /**
+     * Loads an entity and returns a syntax tree of its sql text with inlined sub entities.
+     * Sql text of an entity is parsed only once and a copy of the parsed tree is returned for every call,
+     * so a caller is free to modify the tree, e.g. to rename parameters while inlining the entity.
+     * Races while caching are ignored in the same way as in {@link #loadEntity(String, Set)}.
+     *
+     * @param anEntityName       Entity name.
+     * @param aIllegalReferences A {@link Set} with already processed entities names. Used to avoid cyclic references.
+     * @return A copy of the syntax tree of the entity's sql text.
+     * @throws JSqlParserException If the entity's sql text can't be parsed.
+     * @see SyntaxTreeCopy
+     */
+    public Statement loadSyntax(String anEntityName, Set<String> aIllegalReferences) throws JSqlParserException {
+        SqlEntity entity = loadEntity(anEntityName, aIllegalReferences);
+        Map<String, Statement> syntaxes = generation.syntaxes;
+        Statement syntax = syntaxes.get(anEntityName);
+        if (syntax == null) {
+            syntax = new SeptimaSqlParser().parse(new StringReader(entity.getSqlText()));
+            syntaxes.put(anEntityName, syntax);
+        }
+        return SyntaxTreeCopy.of(syntax);
+    }
+
     public SqlQuery loadQuery(String anEntityName) {
-        return queries.computeIfAbsent(anEntityName, entityName -> loadEntity(entityName).toQuery());
+        return generation.queries.computeIfAbsent(anEntityName, entityName -> loadEntity(entityName).toQuery());
+    }
+
+    /**
+     * Loads an entity without blocking of a calling thread.
+     * An already loaded entity is returned as a completed future. Otherwise the entity is loaded with loading performer
+     * and concurrent calls for the same entity are coalesced into a single loading, so a burst of first requests
+     * for an entity leads to a single compilation.
+     * Dependent stages of the returned future are performed with futures executor.
+     *
+     * @param anEntityName Entity name.
+     * @return A future of {@link SqlEntity} instance. It is completed exceptionally as {@link #loadEntity(String)} throws.
+     * @see #loadEntity(String)
+     */
+    public CompletableFuture<SqlEntity> loadEntityAsync(String anEntityName) {
+        Objects.requireNonNull(anEntityName, ENTITY_NAME_MISSING_MSG);
+        SqlEntity loaded = generation.entities.get(anEntityName);
+        if (loaded != null) {
+            return CompletableFuture.completedFuture(loaded);
+        } else {
+            CompletableFuture<SqlEntity> loading = new CompletableFuture<>();
+            CompletableFuture<SqlEntity> inFlight = loadings.putIfAbsent(anEntityName, loading);
+            if (inFlight != null) {
+                return inFlight;
+            } else {
+                try {
+                    loadingPerformer.execute(() -> {
+                        try {
+                            SqlEntity entity = loadEntity(anEntityName);
+                            loadings.remove(anEntityName, loading);
+                            loading.completeAsync(() -> entity, futuresExecutor);
+                        } catch (Throwable ex) {
+                            loadings.remove(anEntityName, loading);
+                            futuresExecutor.execute(() -> loading.completeExceptionally(ex));
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    loadings.remove(anEntityName, loading);
+                    loading.completeExceptionally(ex);
+                }
+                return loading;
+            }
+        }
+    }
+
+    /**
+     * Loads an entity's query without blocking of a calling thread.
+     *
+     * @param anEntityName Entity name.
+     * @return A future of {@link SqlQuery} instance.
+     * @see #loadEntityAsync(String)
+     */
+    public CompletableFuture<SqlQuery> loadQueryAsync(String anEntityName) {
+        Objects.requireNonNull(anEntityName, ENTITY_NAME_MISSING_MSG);
+        SqlQuery loaded = generation.queries.get(anEntityName);
+        if (loaded != null) {
+            return CompletableFuture.completedFuture(loaded);
+        } else {
+            return loadEntityAsync(anEntityName).thenApply(entity -> loadQuery(anEntityName));
+        }
+    }
+
+    /**
+     * Reloads changed entities and entities, that inline them transitively.
+     * Only entities, that were loaded before, are compiled again. Other affected entities are just evicted and will be loaded on demand.
+     * Entities are compiled aside of live entities and are swapped with them at once, so concurrent requests
+     * use either previous or reloaded entities and never see partially reloaded state.
+     * If an entity can't be compiled, nothing is swapped and live entities remain intact.
+     *
+     * @param aChangedEntities Names of changed, added or removed entities.
+     * @return Names of affected entities.
+     * @throws SqlEntityCyclicReferenceException If a changed entity has a cyclic reference.
+     */
+    public Set<String> reload(Collection<String> aChangedEntities) {
+        Objects.requireNonNull(aChangedEntities, "aChangedEntities is required argument");
+        synchronized (reloadLock) {
+            long started = System.nanoTime();
+            if (entitiesIndex != null) {
+                aChangedEntities.forEach(changed -> {
+                    if (lookup(changed)) {
+                        entitiesIndex.add(changed);
+                    } else {
+                        entitiesIndex.remove(changed);
+                    }
+                });
+            }
+            Set<String> affected = new LinkedHashSet<>();
+            aChangedEntities.forEach(changed -> collectReferrers(changed, affected));
+            Generation live = generation;
+            SqlEntities staging = new SqlEntities(this, live.without(affected));
+            affected.stream()
+                    .filter(live.entities::containsKey)
+                    .filter(this::exists)
+                    .forEach(staging::loadQuery);
+            Generation reloaded = generation.without(affected);
+            reloaded.entities.putAll(staging.generation.entities);
+            reloaded.queries.putAll(staging.generation.queries);
+            reloaded.syntaxes.putAll(staging.generation.syntaxes);
+            generation = reloaded;
+            Logger.getLogger(SqlEntities.class.getName()).log(Level.INFO, "Entities {0} reloaded in {1} ms.", new Object[]{affected, (System.nanoTime() - started) / 1000000d});
+            return Collections.unmodifiableSet(affected);
+        }
+    }
+
+    private void collectReferrers(String anEntityName, Set<String> aCollected) {
+        if (aCollected.add(anEntityName)) {
+            referrers.getOrDefault(anEntityName, Set.of()).forEach(referrer -> collectReferrers(referrer, aCollected));
+        }
+    }
+
+    /**
+     * Compiles all entities in a dedicated {@link ForkJoinPool}.
+     *
+     * @return Compilation time of entities in nanoseconds by entities names.
+     * @see #warmUp(String, ForkJoinPool)
+     */
+    public Map<String, Long> warmUp() {
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            return warmUp("", pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Eagerly compiles entities and their queries, so that first requests of the entities don't pay for
+     * reading, parsing, inlining and metadata resolving.
+     * Entities are compiled in parallel and in order of {@code #entity/name} references.
+     * An entity is compiled after entities it references are compiled. So, referenced entities are taken from the cache while inlining.
+     * Entities are compiled with {@link #loadQuery(String)}, so cyclic references are detected as usual and
+     * entities are cached as described in {@link #loadEntity(String, Set)}.
+     * The first failed entity fails the warm up and entities, not started yet, are not compiled.
+     *
+     * @param aEntitiesDirectory A directory, relative to entities root, with entities to be compiled. Empty string means all entities.
+     * @param aPool              A {@link ForkJoinPool} to compile entities in.
+     * @return Compilation time of entities in nanoseconds by entities names.
+     * @throws SqlEntityCyclicReferenceException If an entity has a cyclic reference.
+     */
+    public Map<String, Long> warmUp(String aEntitiesDirectory, ForkJoinPool aPool) {
+        Objects.requireNonNull(aEntitiesDirectory, "aEntitiesDirectory is required argument");
+        Objects.requireNonNull(aPool, "aPool is required argument");
+        long started = System.nanoTime();
+        Set<String> names = entitiesNames(aEntitiesDirectory);
+        Map<String, Set<String>> references = aPool.submit(() -> names.parallelStream()
+                .collect(Collectors.toMap(name -> name, this::referencesOf))
+        ).join();
+        Map<String, Long> compiled = new ConcurrentHashMap<>();
+        CompletableFuture<Map<String, Long>> warmedUp = new CompletableFuture<>();
+        Map<String, CompletableFuture<Void>> scheduled = new HashMap<>();
+        names.forEach(name -> scheduleWarmUp(name, references, scheduled, new HashSet<>(), aPool, compiled, warmedUp));
+        CompletableFuture.allOf(scheduled.values().toArray(new CompletableFuture<?>[]{}))
+                .thenRun(() -> warmedUp.complete(Collections.unmodifiableMap(compiled)));
+        try {
+            Map<String, Long> report = warmedUp.join();
+            Logger.getLogger(SqlEntities.class.getName()).log(Level.INFO, "{0} entities warmed up in {1} ms.", new Object[]{report.size(), (System.nanoTime() - started) / 1000000});
+            return report;
+        } catch (CompletionException ex) {
+            Throwable cause = ex;
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Schedules compilation of an entity after compilation of entities it references.
+     * References, that form a cycle, are not awaited. Such entities fail while loading with {@link SqlEntityCyclicReferenceException}.
+     */
+    private CompletableFuture<Void> scheduleWarmUp(String anEntityName, Map<String, Set<String>> aReferences, Map<String, CompletableFuture<Void>> aScheduled, Set<String> aReferencesPath, ForkJoinPool aPool, Map<String, Long> aCompiled, CompletableFuture<Map<String, Long>> aWarmedUp) {
+        CompletableFuture<Void> alreadyScheduled = aScheduled.get(anEntityName);
+        if (alreadyScheduled != null) {
+            return alreadyScheduled;
+        } else {
+            aReferencesPath.add(anEntityName);
+            CompletableFuture<?>[] referenced = aReferences.get(anEntityName).stream()
+                    .filter(aReferences::containsKey)
+                    .filter(reference -> !aReferencesPath.contains(reference))
+                    .map(reference -> scheduleWarmUp(reference, aReferences, aScheduled, aReferencesPath, aPool, aCompiled, aWarmedUp))
+                    .toArray(CompletableFuture<?>[]::new);
+            aReferencesPath.remove(anEntityName);
+            CompletableFuture<Void> compilation = CompletableFuture.allOf(referenced).thenRunAsync(() -> {
+                if (!aWarmedUp.isDone()) {
+                    long started = System.nanoTime();
+                    loadQuery(anEntityName);
+                    long elapsed = System.nanoTime() - started;
+                    aCompiled.put(anEntityName, elapsed);
+                    Logger.getLogger(SqlEntities.class.getName()).log(Level.FINE, "Entity ''{0}'' compiled in {1} ms.", new Object[]{anEntityName, elapsed / 1000000d});
+                }
+            }, aPool);
+            compilation.whenComplete((v, ex) -> {
+                if (ex != null) {
+                    aWarmedUp.completeExceptionally(ex);
+                }
+            });
+            aScheduled.put(anEntityName, compilation);
+            return compilation;
+        }
+    }
+
+    private Set<String> referencesOf(String anEntityName) {
+        JsonNode compiled = compiledEntities != null ? compiledEntities.read(anEntityName) : null;
+        if (compiled != null) {
+            // References are used only to order compilation, so possibly stale compiled entity is ok here
+            return new LinkedHashSet<>(referencesOf(compiled));
+        } else if (compileEntities) {
+            try {
+                String sql = readEntitySql(anEntityName);
+                Statement syntax = sql.isBlank() ? null : new SeptimaSqlParser().parse(new StringReader(sql));
+                return syntax != null ? InlineEntities.referencesOf(syntax, this, startOfReferences(anEntityName)) : Set.of();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } catch (JSqlParserException ex) {
+                throw new UncheckedJSqlParserException("Can't parse sql entity: '" + anEntityName + "'", ex);
+            }
+        } else {
+            return Set.of();
+        }
+    }
+
+    private Path startOfReferences(String anEntityName) {
+        return entitiesRoot != null ? entitiesRoot.resolve(anEntityName).getParent() : resourcesEntitiesRoot.resolve(anEntityName).getParent();
+    }
+
+    /**
+     * Walks entities directory and collects entities names.
+     * Entities are recognized by '*.sql' files if entities are compiled and by '*.sql.json' files otherwise.
+     */
+    private Set<String> entitiesNames(String anEntitiesDirectory) {
+        return entitiesNames(anEntitiesDirectory, compileEntities ? ".sql" : ".sql.json");
+    }
+
+    private Set<String> entitiesNames(String anEntitiesDirectory, String suffix) {
+        try {
+            if (entitiesRoot != null) {
+                return walkEntities(entitiesRoot, entitiesRoot.resolve(anEntitiesDirectory), suffix);
+            } else {
+                URL rootUrl = SqlEntities.class.getResource(resolveResourceName(""));
+                if (rootUrl == null) {
+                    throw new FileNotFoundException("Can't find resource path: " + resourcesEntitiesRoot.toString().replace(File.separatorChar, '/'));
+                }
+                URI rootUri = rootUrl.toURI();
+                Path root;
+                if ("jar".equals(rootUri.getScheme())) {
+                    FileSystem jar;
+                    try {
+                        jar = FileSystems.newFileSystem(rootUri, Map.of());
+                    } catch (FileSystemAlreadyExistsException ex) {
+                        jar = FileSystems.getFileSystem(rootUri);
+                    }
+                    root = jar.provider().getPath(rootUri);
+                } else {
+                    root = Paths.get(rootUri);
+                }
+                return walkEntities(root, root.resolve(anEntitiesDirectory), suffix);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (URISyntaxException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Set<String> walkEntities(Path aRoot, Path aDirectory, String aSuffix) throws IOException {
+        try (Stream<Path> files = Files.walk(aDirectory)) {
+            return files
+                    .filter(Files::isRegularFile)
+                    .filter(file -> file.getFileName().toString().endsWith(aSuffix))
+                    .map(file -> {
+                        String relative = aRoot.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                        return relative.substring(0, relative.length() - aSuffix.length());
+                    })
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
     }
 
     public Map<Database, List<EntityActionsBinder.BoundStatement>> bindChanges(List<EntityAction> aChangeLog) {
@@ -360,6 +855,175 @@ public class SqlEntities {
         return Collections.unmodifiableMap(bound);
     }
 
+    /**
+     * Returns a snapshot of an entity, that can be used as the entity's document instead of its sql text.
+     * Sql text of the snapshot is the entity's custom sql text or its sql text with inlined sub entities.
+     *
+     * @param anEntity {@link SqlEntity} instance.
+     * @return A map with the entity's properties, suitable for serialization to json.
+     */
+    public Map<String, Object> snapshotOf(SqlEntity anEntity) {
+        Objects.requireNonNull(anEntity, "anEntity is required argument");
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("title", anEntity.getTitle());
+        snapshot.put("source", dataSourceOf(anEntity.getDatabase()));
+        snapshot.put("public", anEntity.isPublicAccess());
+        snapshot.put("sql", anEntity.getCustomSqlText() != null && !anEntity.getCustomSqlText().isBlank() ? anEntity.getCustomSqlText() : anEntity.getSqlText());
+        snapshot.put("procedure", anEntity.isProcedure());
+        snapshot.put("command", anEntity.isCommand());
+        snapshot.put("readonly", anEntity.isReadonly());
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        // Warning! Don't use keys of entity's parameters because keys are lower cased.
+        anEntity.getParameters().values().forEach(parameter -> {
+            Map<String, Object> parameterNode = new LinkedHashMap<>();
+            parameterNode.put("type", parameter.getType() != null ? parameter.getType().getText() : null);
+            parameterNode.put("subType", parameter.getSubType());
+            parameterNode.put("description", parameter.getDescription());
+            parameterNode.put("value", parameter.getValue());
+            parameterNode.put("out", parameter.getMode() == Parameter.Mode.InOut || parameter.getMode() == Parameter.Mode.Out);
+            parameters.put(parameter.getName(), parameterNode);
+        });
+        snapshot.put("parameters", parameters);
+        Map<String, Object> fields = new LinkedHashMap<>();
+        // Warning! Don't use keys of entity's fields because keys are lower cased.
+        anEntity.getFields().values().forEach(field -> {
+            Map<String, Object> fieldNode = new LinkedHashMap<>();
+            fieldNode.put("nullable", field.isNullable());
+            fieldNode.put("type", field.getType() != null ? field.getType().getText() : null);
+            fieldNode.put("subType", field.getSubType());
+            fieldNode.put("description", field.getDescription());
+            fieldNode.put("tableName", field.getTableName());
+            fieldNode.put("originalName", field.getOriginalName());
+            fieldNode.put("key", field.isPk());
+            fieldNode.put("reference", field.getFk() != null ? Map.of(
+                    "entity", field.getFk().getReferee().getTable(), "key", field.getFk().getReferee().getColumn()
+            ) : null);
+            fields.put(field.getName(), fieldNode);
+        });
+        snapshot.put("fields", fields);
+        snapshot.put("writable", anEntity.getWritable());
+        snapshot.put("roles", Map.of(
+                "read", anEntity.getReadRoles(), "write", anEntity.getWriteRoles()
+        ));
+        snapshot.put("pageSize", anEntity.getPageSize());
+        if (anEntity.getResultsCachePolicy() != null) {
+            snapshot.put("cache", Map.of(
+                    "ttl", anEntity.getResultsCachePolicy().getTtl(),
+                    "maxEntries", anEntity.getResultsCachePolicy().getMaximumEntries(),
+                    "tables", anEntity.getResultsCachePolicy().getTables()
+            ));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Loads an entity from compiled entities if content, the entity was compiled from, and metadata of tables, it reads from, are not changed.
+     *
+     * @return Compiled entity or null if it is absent or is stale.
+     */
+    private SqlEntity loadCompiledEntity(String anEntityName, String anEntitySql, String anEntityJson, Set<String> aReferences) {
+        JsonNode compiled = compiledEntities.read(anEntityName);
+        if (compiled != null) {
+            try {
+                String contentKey = contentKeyOf(anEntityName, anEntitySql, anEntityJson, referencesOf(compiled), new HashSet<>(Set.of(anEntityName)));
+                if (contentKey != null && contentKey.equals(compiled.path("contentKey").asText())) {
+                    JsonNode sqlTextNode = compiled.get("sqlText");
+                    Set<String> tables = new CaseInsensitiveSet(new HashSet<>());
+                    compiled.path("tables").forEach(table -> tables.add(table.asText()));
+                    SqlEntity entity = constructEntity(anEntityName, null, compiled.get("entity"), sqlTextNode != null && sqlTextNode.isTextual() ? sqlTextNode.asText() : null, Collections.unmodifiableSet(tables), null, Set.of(), new HashSet<>());
+                    if (metadataKeyOf(entity).equals(compiled.path("metadataKey").asText())) {
+                        Logger.getLogger(SqlEntities.class.getName()).log(Level.FINER, "Entity ''{0}'' is taken from compiled entities.", anEntityName);
+                        aReferences.addAll(referencesOf(compiled));
+                        return entity;
+                    }
+                }
+            } catch (IOException | JSqlParserException | SQLException ex) {
+                Logger.getLogger(SqlEntities.class.getName()).log(Level.FINE, "Compiled entity '" + anEntityName + "' can't be used", ex);
+            }
+        }
+        return null;
+    }
+
+    private void saveCompiledEntity(String anEntityName, String anEntitySql, String anEntityJson, Set<String> aReferences, SqlEntity anEntity) {
+        try {
+            String contentKey = contentKeyOf(anEntityName, anEntitySql, anEntityJson, aReferences, new HashSet<>(Set.of(anEntityName)));
+            if (contentKey != null) {
+                Map<String, Object> entitySnapshot = snapshotOf(anEntity);
+                entitySnapshot.put("sql", anEntity.getCustomSqlText());
+                Map<String, Object> compiled = new LinkedHashMap<>();
+                compiled.put("contentKey", contentKey);
+                compiled.put("metadataKey", metadataKeyOf(anEntity));
+                compiled.put("references", aReferences);
+                compiled.put("sqlText", anEntity.getSqlText());
+                compiled.put("tables", anEntity.getTables());
+                compiled.put("entity", entitySnapshot);
+                compiledEntities.write(anEntityName, compiled);
+            }
+        } catch (IOException | SQLException ex) {
+            Logger.getLogger(SqlEntities.class.getName()).log(Level.WARNING, "Compiled entity '" + anEntityName + "' can't be saved", ex);
+        }
+    }
+
+    private static List<String> referencesOf(JsonNode aCompiled) {
+        List<String> references = new ArrayList<>();
+        aCompiled.path("references").forEach(reference -> references.add(reference.asText()));
+        return references;
+    }
+
+    /**
+     * Calculates a key of content, an entity is compiled from. The key covers the entity's sql text, its document and
+     * content of entities, it references transitively.
+     * References of referenced entities are taken from compiled entities, so no sql text is parsed.
+     *
+     * @return The key or null if some of referenced entities are not compiled or references are cyclic.
+     */
+    private String contentKeyOf(String anEntityName, String anEntitySql, String anEntityJson, Collection<String> aReferences, Set<String> aReferencesPath) throws IOException {
+        List<String> hashed = new ArrayList<>();
+        hashed.add(anEntitySql);
+        hashed.add(anEntityJson);
+        for (String reference : aReferences) {
+            if (!aReferencesPath.add(reference)) {
+                return null;
+            }
+            try {
+                JsonNode compiled = compiledEntities.read(reference);
+                if (compiled == null) {
+                    return null;
+                }
+                String referenceKey = contentKeyOf(reference, readEntitySql(reference), readEntityJson(reference), referencesOf(compiled), aReferencesPath);
+                if (referenceKey == null) {
+                    return null;
+                }
+                hashed.add(reference);
+                hashed.add(referenceKey);
+            } finally {
+                aReferencesPath.remove(reference);
+            }
+        }
+        return CompiledEntitiesCache.hashOf(hashed.toArray(new String[]{}));
+    }
+
+    /**
+     * Calculates a key of metadata of tables, an entity reads from.
+     */
+    private static String metadataKeyOf(SqlEntity anEntity) throws SQLException {
+        Metadata metadata = anEntity.getDatabase().getMetadata();
+        List<String> hashed = new ArrayList<>();
+        for (String table : new TreeSet<>(anEntity.getReadTables())) {
+            hashed.add(table);
+            Optional<Map<String, JdbcColumn>> columns = metadata.getTableColumns(table);
+            if (columns.isPresent()) {
+                for (JdbcColumn column : columns.get().values()) {
+                    hashed.add(column.getName() + " " + column.getRdbmsType() + " " + column.getJdbcType() + " " + column.isNullable() + " " + column.isPk() + " " +
+                            (column.getFk() != null ? column.getFk().getReferee().getTable() + "." + column.getFk().getReferee().getColumn() : ""));
+                }
+            } else {
+                hashed.add(null);
+            }
+        }
+        return CompiledEntitiesCache.hashOf(hashed.toArray(new String[]{}));
+    }
+
     private Map<String, JdbcColumn> resolveTableColumns(Database database, Table aTable) throws SQLException {
         return database.getMetadata()
                 .getTableColumns(aTable.getWholeTableName())
@@ -370,8 +1034,56 @@ public class SqlEntities {
         return resourcesEntitiesRoot.resolve(relative).toString().replace(File.separatorChar, '/');
     }
 
+    private Set<String> indexEntities() {
+        try {
+            Set<String> index = ConcurrentHashMap.newKeySet();
+            index.addAll(entitiesNames("", ".sql"));
+            return index;
+        } catch (UncheckedIOException | IllegalStateException ex) {
+            Logger.getLogger(SqlEntities.class.getName()).log(Level.WARNING, "Entities can't be indexed. Existence of entities will be checked on every request", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Checks if an entity exists without file system or class loader requests if possible.
+     * Entities from resources can't change, so they are checked with the index only. So are entities from the file system,
+     * while {@link SqlEntitiesReloader} maintains the index. Otherwise an entity, absent in the index, is looked up in the file system
+     * and added to the index if it is found.
+     * Entities, removed after creation of sql entities, are recognized after {@link #reload(Collection)} of them.
+     *
+     * @param aEntityName Entity name.
+     * @return True if the entity exists.
+     */
     public boolean exists(String aEntityName) {
         Objects.requireNonNull(aEntityName, ENTITY_NAME_MISSING_MSG);
+        if (entitiesIndex != null) {
+            if (entitiesIndex.contains(aEntityName)) {
+                return true;
+            } else if (entitiesRoot == null || entitiesIndexMaintained) {
+                return false;
+            } else if (lookup(aEntityName)) {
+                entitiesIndex.add(aEntityName);
+                return true;
+            } else {
+                return false;
+            }
+        } else {
+            return lookup(aEntityName);
+        }
+    }
+
+    /**
+     * Marks the index of entities as maintained or not maintained by a reloader of changed entities.
+     *
+     * @param aMaintained True if a reloader reloads all changed entities.
+     * @see SqlEntitiesReloader
+     */
+    void setEntitiesIndexMaintained(boolean aMaintained) {
+        entitiesIndexMaintained = aMaintained;
+    }
+
+    private boolean lookup(String aEntityName) {
         String entitySqlFileName = aEntityName + ".sql";
         if (entitiesRoot != null) {
             File mainQueryFile = entitiesRoot.resolve(entitySqlFileName).toFile();
@@ -442,7 +1154,7 @@ public class SqlEntities {
         }
     }
 
-    private SqlEntity constructEntity(String anEntityName, String anEntitySql, String anEntityJson, Path aStartOfReferences, Set<String> aIllegalReferences) throws IOException, JSqlParserException, SQLException {
+    private SqlEntity constructEntity(String anEntityName, String anEntitySql, String anEntityJson, Path aStartOfReferences, Set<String> aIllegalReferences, Set<String> aReferences) throws IOException, JSqlParserException, SQLException {
         Objects.requireNonNull(anEntityName, ENTITY_NAME_MISSING_MSG);
         if (compileEntities) {
             Objects.requireNonNull(anEntitySql, "anEntitySql is required argument");
@@ -457,7 +1169,19 @@ public class SqlEntities {
         }
 
         JsonNode entityDocument = anEntityJson != null ? JSON.readTree(anEntityJson) : null;
+        return constructEntity(anEntityName, compileEntities ? anEntitySql : null, entityDocument, null, Set.of(), aStartOfReferences, aIllegalReferences, aReferences);
+    }
 
+    /**
+     * Constructs an entity from its sql text and document or from its document only.
+     *
+     * @param anEntitySql     Sql text of an entity to be compiled or null if the entity is constructed from its document only.
+     * @param entityDocument  A document of the entity with its settings or null.
+     * @param aCompiledSql    Sql text with inlined sub entities, used if no {@code anEntitySql} is provided.
+     * @param aCompiledTables Tables, found in the entity's sql text while its compilation, used if no {@code anEntitySql} is provided.
+     * @param aReferences     A {@link Set} to be filled with names of entities, referenced from the entity's sql text.
+     */
+    private SqlEntity constructEntity(String anEntityName, String anEntitySql, JsonNode entityDocument, String aCompiledSql, Set<String> aCompiledTables, Path aStartOfReferences, Set<String> aIllegalReferences, Set<String> aReferences) throws JSqlParserException, SQLException {
         JsonNode dataSourceNode = entityDocument != null ? entityDocument.get("source") : null;
         String dataSource = dataSourceNode != null && dataSourceNode.isTextual() ? dataSourceNode.asText() : defaultDataSource;
         Database database = databaseOf(dataSource);
@@ -474,10 +1198,12 @@ public class SqlEntities {
         boolean readonly = readonlyNode != null && readonlyNode.asBoolean();
         JsonNode publicNode = entityDocument != null ? entityDocument.get("public") : null;
         boolean publicAccess = publicNode != null && publicNode.asBoolean();
+        JsonNode cacheNode = entityDocument != null ? entityDocument.get("cache") : null;
+        ResultsCache.Policy resultsCachePolicy = cacheNode != null && cacheNode.isObject() ? resultsCachePolicyOf(anEntityName, readonly, cacheNode) : null;
         JsonNode pageSizeNode = entityDocument != null ? entityDocument.get("pageSize") : null;
         int pageSize = pageSizeNode != null && pageSizeNode.isInt() ? pageSizeNode.asInt(DataProvider.NO_PAGING_PAGE_SIZE) : DataProvider.NO_PAGING_PAGE_SIZE;
 
-        Statement querySyntax = compileEntities ? new SeptimaSqlParser().parse(new StringReader(anEntitySql)) : null;
+        Statement querySyntax = anEntitySql != null ? new SeptimaSqlParser().parse(new StringReader(anEntitySql)) : null;
 
         JsonNode commandNode = entityDocument != null ? entityDocument.get("command") : null;
         boolean command = commandNode != null && commandNode.isBoolean() ? commandNode.asBoolean() : querySyntax != null && !(querySyntax instanceof Select);
@@ -491,9 +1217,11 @@ public class SqlEntities {
         }
 
         if (querySyntax != null) {
+            aReferences.addAll(InlineEntities.referencesOf(querySyntax, this, aStartOfReferences));
             InlineEntities.to(querySyntax, this, parametersBinds, aStartOfReferences, aIllegalReferences);
         }
-        String sqlWithSubQueries = querySyntax != null ? StatementDeParser.assemble(querySyntax) : null;
+        // Inlined sql text is usually longer than the entity's own sql text, so the builder is presized to skip early growth steps
+        String sqlWithSubQueries = querySyntax != null ? StatementDeParser.assemble(querySyntax, new StringBuilder(anEntitySql.length() * 2)).toString() : aCompiledSql;
         Map<String, EntityField> fields = querySyntax != null ? columnsToApplicationFields(
                 resolveColumnsBySyntax(database, querySyntax), database.getSqlDriver()
         ) : new CaseInsensitiveMap<>(new LinkedHashMap<>());
@@ -532,129 +1260,185 @@ public class SqlEntities {
                 Collections.unmodifiableMap(fields),
                 Collections.unmodifiableSet(writable),
                 Collections.unmodifiableSet(readRoles),
-                Collections.unmodifiableSet(writeRoles)
+                Collections.unmodifiableSet(writeRoles),
+                resultsCachePolicy,
+                querySyntax != null ? Collections.unmodifiableSet(readTablesOf(querySyntax)) : aCompiledTables
         );
     }
 
+    /**
+     * Collects tables, a statement reads from. Tables of from items, joins and sub selects in any part of the statement,
+     * e.g. in where clause or in select items, are collected. Names of with items are not collected.
+     * Qualifiers of columns are aliases or names of tables, that are already collected from from items, so they are skipped.
+     */
+    private static Set<String> readTablesOf(Statement aSyntax) {
+        Set<String> tables = new CaseInsensitiveSet(new HashSet<>());
+        Set<String> withItems = new CaseInsensitiveSet(new HashSet<>());
+        aSyntax.accept(new SyntaxTreeVisitor() {
+            @Override
+            public void visit(Table table) {
+                super.visit(table);
+                if (table.getName() != null && !table.getName().isEmpty()) {
+                    tables.add(table.getWholeTableName());
+                }
+            }
+
+            @Override
+            public void visit(Column column) {
+            }
+
+            @Override
+            public void visit(AllTableColumns allTableColumns) {
+            }
+
+            @Override
+            public void visitWithItem(WithItem withItem) {
+                super.visitWithItem(withItem);
+                withItems.add(withItem.getName());
+            }
+        });
+        tables.removeAll(withItems);
+        return tables;
+    }
+
     private Map<String, JdbcColumn> resolveColumnsBySyntax(Database database, Statement parsedQuery) throws SQLException {
         if (parsedQuery instanceof Select) {
             Select select = (Select) parsedQuery;
-            return resolveOutputColumnsFromSources(database, select.getSelectBody());
+            return new ColumnsResolution(database).resolveOutputColumnsFromSources(select.getSelectBody());
         } else {
             return Map.of();
         }
     }
 
-    private Map<String, JdbcColumn> resolveOutputColumnsFromSources(Database database, SelectBody aSelectBody) throws SQLException {
-        Map<String, JdbcColumn> fields = new CaseInsensitiveMap<>(new LinkedHashMap<>());
-        Map<String, FromItem> sources = FromItems.find(FromItems.ToCase.LOWER, aSelectBody);
-        for (SelectItem selectItem : SelectItems.find(aSelectBody)) {
-            if (selectItem instanceof AllColumns) {// *
-                for (FromItem source : sources.values()) {
-                    if (source instanceof Table) {
-                        Map<String, JdbcColumn> tableColumns = resolveTableColumns(database, (Table) source);
-                        fields.putAll(tableColumns);
-                    } else if (source instanceof SubSelect) {
-                        Map<String, JdbcColumn> subSelectColumns = resolveOutputColumnsFromSources(database, ((SubSelect) source).getSelectBody());
-                        fields.putAll(subSelectColumns);
+    /**
+     * Resolution of output columns of a statement, performed once per compilation of an entity.
+     * Output columns of every select body, including sub selects, are resolved once and then are reused by all columns, referencing it.
+     * Columns without a table are resolved with an index of a select body's sources by columns names, instead of a scan of the sources.
+     */
+    private class ColumnsResolution {
+
+        private final Database database;
+        private final Map<SelectBody, Map<String, JdbcColumn>> outputColumns = new IdentityHashMap<>();
+        private final Map<SelectBody, Map<String, FromItem>> columnsSources = new IdentityHashMap<>();
+
+        private ColumnsResolution(Database aDatabase) {
+            database = aDatabase;
+        }
+
+        private Map<String, JdbcColumn> resolveOutputColumnsFromSources(SelectBody aSelectBody) throws SQLException {
+            Map<String, JdbcColumn> fields = outputColumns.get(aSelectBody);
+            if (fields == null) {
+                fields = resolveOutputColumns(aSelectBody);
+                outputColumns.put(aSelectBody, fields);
+            }
+            return fields;
+        }
+
+        private Map<String, JdbcColumn> resolveOutputColumns(SelectBody aSelectBody) throws SQLException {
+            Map<String, JdbcColumn> fields = new CaseInsensitiveMap<>(new LinkedHashMap<>());
+            Map<String, FromItem> sources = FromItems.find(FromItems.ToCase.LOWER, aSelectBody);
+            for (SelectItem selectItem : SelectItems.find(aSelectBody)) {
+                if (selectItem instanceof AllColumns) {// *
+                    for (FromItem source : sources.values()) {
+                        fields.putAll(columnsOf(source));
                     }
-                }
-            } else if (selectItem instanceof AllTableColumns) {// t.*
-                AllTableColumns cols = (AllTableColumns) selectItem;
-                assert cols.getTable() != null : "<table>.* syntax must lead to .getTable() != null";
-                FromItem source = sources.get(cols.getTable().getWholeTableName().toLowerCase());
-                if (source instanceof Table) {
-                    Map<String, JdbcColumn> tableColumns = resolveTableColumns(database, (Table) source);
-                    fields.putAll(tableColumns);
-                } else if (source instanceof SubSelect) {
+                } else if (selectItem instanceof AllTableColumns) {// t.*
+                    AllTableColumns cols = (AllTableColumns) selectItem;
+                    assert cols.getTable() != null : "<table>.* syntax must lead to .getTable() != null";
                     // In case of sub query, cols.getTable() returns surrogate table, containing only sub query's alias as table name.
-                    Map<String, JdbcColumn> subSelectColumns = resolveOutputColumnsFromSources(database, ((SubSelect) source).getSelectBody());
-                    fields.putAll(subSelectColumns);
-                }
-            } else {
-                assert selectItem instanceof SelectExpressionItem;
-                SelectExpressionItem selectExpressionItem = (SelectExpressionItem) selectItem;
-                if (selectExpressionItem.getExpression() instanceof Column) {
-                    JdbcColumn jdbcColumn = resolveJdbcColumnByColumnExpression(database, (Column) selectExpressionItem.getExpression(), selectExpressionItem.getAliasName(), sources);
-                    fields.put(jdbcColumn.getName(), jdbcColumn);
+                    FromItem source = sources.get(cols.getTable().getWholeTableName().toLowerCase());
+                    fields.putAll(columnsOf(source));
                 } else {
-                    /*
-                     * free expression like a ...,'text' as txt,...
-                     */
-                    if (!selectExpressionItem.getAliasName().isEmpty()) {
-                        JdbcColumn jdbcColumn = new JdbcColumn(selectExpressionItem.getAliasName());
+                    assert selectItem instanceof SelectExpressionItem;
+                    SelectExpressionItem selectExpressionItem = (SelectExpressionItem) selectItem;
+                    if (selectExpressionItem.getExpression() instanceof Column) {
+                        JdbcColumn jdbcColumn = resolveJdbcColumnByColumnExpression((Column) selectExpressionItem.getExpression(), selectExpressionItem.getAliasName(), aSelectBody, sources);
                         fields.put(jdbcColumn.getName(), jdbcColumn);
-                    } //else {
-                    // Unnamed expression columns will be replaced by fact fields during data receiving from a database
-                    //}
+                    } else {
+                        /*
+                         * free expression like a ...,'text' as txt,...
+                         */
+                        if (!selectExpressionItem.getAliasName().isEmpty()) {
+                            JdbcColumn jdbcColumn = new JdbcColumn(selectExpressionItem.getAliasName());
+                            fields.put(jdbcColumn.getName(), jdbcColumn);
+                        } //else {
+                        // Unnamed expression columns will be replaced by fact fields during data receiving from a database
+                        //}
+                    }
                 }
             }
+            return fields;
         }
-        return fields;
-    }
 
-    private JdbcColumn resolveColumnBySource(Database database, Column column, String alias, FromItem source) throws SQLException {
-        if (source instanceof Table) {
-            Map<String, JdbcColumn> tableFields = resolveTableColumns(database, (Table) source);
-            JdbcColumn resolved = tableFields.getOrDefault(column.getColumnName(), new JdbcColumn(column.getColumnName()));
-            return asAliasedColumn(resolved, column, alias);
-        } else if (source instanceof SubSelect) {
-            Map<String, JdbcColumn> subFields = resolveOutputColumnsFromSources(database, ((SubSelect) source).getSelectBody());
-            JdbcColumn resolved = subFields.getOrDefault(column.getColumnName(), new JdbcColumn(column.getColumnName()));
-            return asAliasedColumn(resolved, column, alias);
-        } else {
-            return new JdbcColumn(column.getColumnName());
+        private Map<String, JdbcColumn> columnsOf(FromItem source) throws SQLException {
+            if (source instanceof Table) {
+                return resolveTableColumns(database, (Table) source);
+            } else if (source instanceof SubSelect) {
+                return resolveOutputColumnsFromSources(((SubSelect) source).getSelectBody());
+            } else {
+                return Map.of();
+            }
         }
-    }
 
-    private boolean isFieldInSource(Database database, Column column, FromItem source) throws SQLException {
-        if (source instanceof Table) {
-            Map<String, JdbcColumn> tableFields = resolveTableColumns(database, (Table) source);
-            return tableFields.containsKey(column.getColumnName());
-        } else if (source instanceof SubSelect) {
-            Map<String, JdbcColumn> subFields = resolveOutputColumnsFromSources(database, ((SubSelect) source).getSelectBody());
-            return subFields.containsKey(column.getColumnName());
-        } else {
-            return false;
+        private JdbcColumn resolveColumnBySource(Column column, String alias, FromItem source) throws SQLException {
+            if (source instanceof Table || source instanceof SubSelect) {
+                JdbcColumn resolved = columnsOf(source).getOrDefault(column.getColumnName(), new JdbcColumn(column.getColumnName()));
+                return asAliasedColumn(resolved, column, alias);
+            } else {
+                return new JdbcColumn(column.getColumnName());
+            }
+        }
+
+        /**
+         * Index of a select body's sources by names of their columns.
+         * If several sources have a column with the same name, the first of them in order of {@code aSourcesByAlias} is indexed.
+         */
+        private Map<String, FromItem> columnsSourcesOf(SelectBody aSelectBody, Map<String, FromItem> aSourcesByAlias) throws SQLException {
+            Map<String, FromItem> index = columnsSources.get(aSelectBody);
+            if (index == null) {
+                index = new CaseInsensitiveMap<>(new HashMap<>());
+                for (FromItem source : aSourcesByAlias.values()) {
+                    for (String columnName : columnsOf(source).keySet()) {
+                        index.putIfAbsent(columnName, source);
+                    }
+                }
+                columnsSources.put(aSelectBody, index);
+            }
+            return index;
+        }
+
+        private JdbcColumn resolveJdbcColumnByColumnExpression(Column column, String alias, SelectBody aSelectBody, Map<String, FromItem> aSourcesByAlias) throws SQLException {
+            if (column.getTable() != null &&
+                    column.getTable().getWholeTableName() != null &&
+                    !column.getTable().getWholeTableName().isEmpty()) {
+                /*
+                 * Таблица поля, предоставляемая парсером никак не связана с
+                 * таблицей из списка from. Поэтому мы должны связать их
+                 * самостоятельно.
+                 */
+                FromItem source = aSourcesByAlias.get(column.getTable().getWholeTableName().toLowerCase());
+                return resolveColumnBySource(column, alias, source);
+            } else {
+                /*
+                 * Часто бывает, что таблица из которого берется поле не указана.
+                 * Поэтому парсер не предоставляет таблицу.
+                 * В этом случае поищем первую таблицу, содержащую поле с таким именем.
+                 * Замечание: Таблица и подзапрос для парсера это одно и то же.
+                 * Замечание: Таблица или подзапрос может быть указан как имя настоящей таблицы или как алиас таблицы или подзапроса.
+                 */
+                FromItem source = columnsSourcesOf(aSelectBody, aSourcesByAlias).get(column.getColumnName());
+                return source != null ?
+                        resolveColumnBySource(column, alias, source) :
+                        new JdbcColumn(alias != null && !alias.isEmpty() ? alias : column.getColumnName());
+            }
         }
     }
 
-    private JdbcColumn resolveJdbcColumnByColumnExpression(Database database, Column column, String alias, Map<String, FromItem> aSourcesByAlias) throws SQLException {
-        if (column.getTable() != null &&
-                column.getTable().getWholeTableName() != null &&
-                !column.getTable().getWholeTableName().isEmpty()) {
-            /*
-             * Таблица поля, предоставляемая парсером никак не связана с
-             * таблицей из списка from. Поэтому мы должны связать их
-             * самостоятельно.
-             */
-            FromItem source = aSourcesByAlias.get(column.getTable().getWholeTableName().toLowerCase());
-            return resolveColumnBySource(database, column, alias, source);
+    private Metadata metadataOf(String aDataSourceName, DataSource aDataSource) throws SQLException {
+        if (metadataSnapshots != null) {
+            return Metadata.of(aDataSource, metadataSnapshots.resolve(aDataSourceName.replaceAll("[^\\w.-]", "_") + ".metadata.json"), jdbcPerformer);
         } else {
-            /*
-             * Часто бывает, что таблица из которого берется поле не указана.
-             * Поэтому парсер не предоставляет таблицу.
-             * В этом случае поищем первую таблицу, содержащую поле с таким именем.
-             * Замечание: Таблица и подзапрос для парсера это одно и то же.
-             * Замечание: Таблица или подзапрос может быть указан как имя настоящей таблицы или как алиас таблицы или подзапроса.
-             */
-            return aSourcesByAlias.values().stream()
-                    .dropWhile(source -> {
-                        try {
-                            return !isFieldInSource(database, column, source);
-                        } catch (SQLException ex) {
-                            throw new UncheckedSQLException(ex);
-                        }
-                    })
-                    .findFirst()
-                    .map(source -> {
-                        try {
-                            return resolveColumnBySource(database, column, alias, source);
-                        } catch (SQLException ex) {
-                            throw new UncheckedSQLException(ex);
-                        }
-                    })
-                    .orElse(new JdbcColumn(alias != null && !alias.isEmpty() ? alias : column.getColumnName()));
+            return Metadata.of(aDataSource);
         }
     }
 
@@ -666,11 +1450,13 @@ public class SqlEntities {
                 return new Database(
                         dataSource,
                         DataSources.getDataSourceSqlDriver(dataSource),
-                        compileEntities ? Metadata.of(dataSource) : null,
-                        jdbcPerformer,
+                        compileEntities ? metadataOf(aDataSourceName, dataSource) : null,
+                        jdbcPerformer instanceof VirtualThreadsPerformer ? ((VirtualThreadsPerformer) jdbcPerformer).of(aDataSourceName) : jdbcPerformer,
                         futuresExecutor,
                         useBatches,
-                        maximumBatchSize
+                        maximumBatchSize,
+                        statementsCacheSize,
+                        aDataSourceName
                 );
             } catch (NamingException ex) {
                 throw new IllegalStateException(ex);
@@ -0,0 +1,144 @@
+package com.septima.entities;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Watches a directory of sql entities and reloads changed entities with {@link SqlEntities#reload(java.util.Collection)}.
+ * Events are collected until the directory settles down, so that an editor's several writes of a file lead to a single reload.
+ * If changed entities can't be reloaded, previous versions of the entities remain in use until next change.
+ *
+ * @author mg
+ */
+public class SqlEntitiesReloader implements AutoCloseable {
+
+    public static final long DEFAULT_SETTLE_MILLIS = 50;
+
+    private static final String SQL_SUFFIX = ".sql";
+    private static final String JSON_SUFFIX = ".sql.json";
+
+    private final SqlEntities entities;
+    private final Path root;
+    private final long settleMillis;
+    private final WatchService watcher;
+    private final Thread watching;
+
+    public SqlEntitiesReloader(SqlEntities anEntities) throws IOException {
+        this(anEntities, DEFAULT_SETTLE_MILLIS);
+    }
+
+    public SqlEntitiesReloader(SqlEntities anEntities, long aSettleMillis) throws IOException {
+        Objects.requireNonNull(anEntities, "anEntities is required argument");
+        if (anEntities.getEntitiesRoot() == null) {
+            throw new IllegalStateException("Only entities from a file system directory can be reloaded");
+        }
+        entities = anEntities;
+        root = anEntities.getEntitiesRoot();
+        settleMillis = aSettleMillis;
+        watcher = root.getFileSystem().newWatchService();
+        register(root);
+        watching = new Thread(this::watch, "Septima entities reloader");
+        watching.setDaemon(true);
+        watching.start();
+        entities.setEntitiesIndexMaintained(true);
+    }
+
+    private Set<String> register(Path aDirectory) throws IOException {
+        try (Stream<Path> files = Files.walk(aDirectory)) {
+            return files
+                    .filter(file -> {
+                        if (Files.isDirectory(file)) {
+                            try {
+                                file.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                            } catch (IOException ex) {
+                                Logger.getLogger(SqlEntitiesReloader.class.getName()).log(Level.WARNING, "Directory '" + file + "' can't be watched", ex);
+                            }
+                            return false;
+                        } else {
+                            return true;
+                        }
+                    })
+                    .map(this::entityNameOf)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<String> changed = new LinkedHashSet<>();
+                WatchKey key = watcher.take();
+                while (key != null) {
+                    collect(key, changed);
+                    key = watcher.poll(settleMillis, TimeUnit.MILLISECONDS);
+                }
+                if (!changed.isEmpty()) {
+                    try {
+                        entities.reload(changed);
+                    } catch (RuntimeException ex) {
+                        Logger.getLogger(SqlEntitiesReloader.class.getName()).log(Level.WARNING, "Entities " + changed + " can't be reloaded. Previous versions of the entities remain in use", ex);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            // The reloader is closed
+        }
+    }
+
+    private void collect(WatchKey aKey, Set<String> aChanged) {
+        Path directory = (Path) aKey.watchable();
+        for (WatchEvent<?> event : aKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                Logger.getLogger(SqlEntitiesReloader.class.getName()).log(Level.WARNING, "Some changes of entities in ''{0}'' are lost", directory);
+            } else {
+                Path file = directory.resolve((Path) event.context());
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(file)) {
+                    try {
+                        aChanged.addAll(register(file));
+                    } catch (IOException ex) {
+                        Logger.getLogger(SqlEntitiesReloader.class.getName()).log(Level.WARNING, "Directory '" + file + "' can't be watched", ex);
+                    }
+                } else {
+                    String entityName = entityNameOf(file);
+                    if (entityName != null) {
+                        aChanged.add(entityName);
+                    }
+                }
+            }
+        }
+        aKey.reset();
+    }
+
+    private String entityNameOf(Path aFile) {
+        String relative = root.relativize(aFile).toString().replace(aFile.getFileSystem().getSeparator(), "/");
+        if (relative.endsWith(JSON_SUFFIX)) {
+            return relative.substring(0, relative.length() - JSON_SUFFIX.length());
+        } else if (relative.endsWith(SQL_SUFFIX)) {
+            return relative.substring(0, relative.length() - SQL_SUFFIX.length());
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        entities.setEntitiesIndexMaintained(false);
+        watching.interrupt();
+        watcher.close();
+    }
+}
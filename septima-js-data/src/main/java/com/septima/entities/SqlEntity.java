@@ -5,14 +5,14 @@ import com.septima.Database;
 import com.septima.dataflow.DataProvider;
 import com.septima.metadata.EntityField;
 import com.septima.metadata.Parameter;
+import com.septima.queries.CaseInsensitiveSet;
+import com.septima.queries.ResultsCache;
 import com.septima.queries.SqlQuery;
+import com.septima.queries.SqlTemplate;
 
 import java.util.*;
-import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * A Sql based entity with named parameters.
@@ -28,11 +28,6 @@ import java.util.regex.Pattern;
  */
 public class SqlEntity {
 
-    private static final Pattern NAMED_PARAMETER = Pattern.compile("(?<=[^:]):[a-z]\\w*\\b", Pattern.CASE_INSENSITIVE);
-    private static final Pattern STRING_LITERAL = Pattern.compile("'[^']*'");
-    private static final Pattern MULTILINE_COMMENT = Pattern.compile("/\\*.*\\*/", Pattern.DOTALL);
-    private static final Pattern LINE_COMMENT = Pattern.compile("--.*$", Pattern.MULTILINE);
-
     private final Database database;
     private final String sqlText;
     private final String customSqlText;
@@ -46,8 +41,14 @@ public class SqlEntity {
     private final Map<String, Parameter> params;
     private final Map<String, EntityField> fields;
     private final Set<String> writable;
+    private final Set<String> tables;
     private final Set<String> readRoles;
     private final Set<String> writeRoles;
+    private final ResultsCache.Policy resultsCachePolicy;
+    /**
+     * Compiled sql text of the entity's query. Either custom sql text or the entity's sql text.
+     */
+    private final SqlTemplate sqlTemplate;
 
     /**
      * Creates an instance indices Query with given SQL query text. Leaves the
@@ -88,6 +89,57 @@ public class SqlEntity {
                      Set<String> aWritable,
                      Set<String> aReadRoles,
                      Set<String> aWriteRoles
+    ) {
+        this(aDatabase, aSql, aCustomSql, aName, aReadonly, aCommand, aProcedure, aPublicAccess, aTitle, aPageSize, aParams, aFields, aWritable, aReadRoles, aWriteRoles, null);
+    }
+
+    /**
+     * Creates an entity, which query caches its results.
+     *
+     * @param aResultsCachePolicy Settings of results cache of the entity's query or null if results should not be cached.
+     */
+    public SqlEntity(Database aDatabase,
+                     String aSql,
+                     String aCustomSql,
+                     String aName,
+                     boolean aReadonly,
+                     boolean aCommand,
+                     boolean aProcedure,
+                     boolean aPublicAccess,
+                     String aTitle,
+                     int aPageSize,
+                     Map<String, Parameter> aParams,
+                     Map<String, EntityField> aFields,
+                     Set<String> aWritable,
+                     Set<String> aReadRoles,
+                     Set<String> aWriteRoles,
+                     ResultsCache.Policy aResultsCachePolicy
+    ) {
+        this(aDatabase, aSql, aCustomSql, aName, aReadonly, aCommand, aProcedure, aPublicAccess, aTitle, aPageSize, aParams, aFields, aWritable, aReadRoles, aWriteRoles, aResultsCachePolicy, Set.of());
+    }
+
+    /**
+     * Creates an entity with tables, its query reads from.
+     *
+     * @param aTables Tables, found in the entity's query while compiling it. They include tables of joins and sub selects.
+     */
+    public SqlEntity(Database aDatabase,
+                     String aSql,
+                     String aCustomSql,
+                     String aName,
+                     boolean aReadonly,
+                     boolean aCommand,
+                     boolean aProcedure,
+                     boolean aPublicAccess,
+                     String aTitle,
+                     int aPageSize,
+                     Map<String, Parameter> aParams,
+                     Map<String, EntityField> aFields,
+                     Set<String> aWritable,
+                     Set<String> aReadRoles,
+                     Set<String> aWriteRoles,
+                     ResultsCache.Policy aResultsCachePolicy,
+                     Set<String> aTables
     ) {
         Objects.requireNonNull(aDatabase, "aDatabase is required argument");
         if (aCustomSql == null || aCustomSql.isBlank()) {
@@ -98,6 +150,7 @@ public class SqlEntity {
         Objects.requireNonNull(aWritable, "aWritable is required argument");
         Objects.requireNonNull(aReadRoles, "aReadRoles is required argument");
         Objects.requireNonNull(aWriteRoles, "aWriteRoles is required argument");
+        Objects.requireNonNull(aTables, "aTables is required argument");
         database = aDatabase;
         sqlText = aSql;
         customSqlText = aCustomSql;
@@ -111,8 +164,12 @@ public class SqlEntity {
         params = aParams;
         fields = aFields;
         writable = aWritable;
+        tables = aTables;
         readRoles = aReadRoles;
         writeRoles = aWriteRoles;
+        resultsCachePolicy = aResultsCachePolicy;
+        String sqlClause = customSqlText != null && !customSqlText.isBlank() ? customSqlText : sqlText;
+        sqlTemplate = sqlClause != null && !sqlClause.isBlank() ? SqlTemplate.compile(sqlClause) : null;
     }
 
     public Database getDatabase() {
@@ -175,21 +232,45 @@ public class SqlEntity {
         return name;
     }
 
+    public ResultsCache.Policy getResultsCachePolicy() {
+        return resultsCachePolicy;
+    }
+
+    /**
+     * Returns tables, found in the entity's query while compiling it.
+     *
+     * @return Set of tables' names.
+     */
+    public Set<String> getTables() {
+        return tables;
+    }
+
+    /**
+     * Returns tables, the entity reads from, according to its query, fields and writable tables.
+     *
+     * @return Set of tables' names.
+     */
+    public Set<String> getReadTables() {
+        Set<String> read = new CaseInsensitiveSet(new HashSet<>(tables));
+        read.addAll(writable);
+        fields.values().stream()
+                .map(EntityField::getTableName)
+                .filter(Objects::nonNull)
+                .forEach(read::add);
+        return read;
+    }
+
     public SqlQuery toQuery() {
-        String sqlClause;
         if (customSqlText != null && !customSqlText.isBlank()) {
-            sqlClause = customSqlText;
             Logger.getLogger(SqlEntity.class.getName()).log(Level.FINE, "Entity sql was substituted with custom sql while transforming entity {0} to query", name);
         } else {
             Objects.requireNonNull(sqlText, "Sql query text missing.");
             if (sqlText.isBlank()) {
                 throw new IllegalStateException("Empty sql query text is not supported");
             }
-            sqlClause = sqlText;
         }
-        List<Parameter> compiledParams = new ArrayList<>(params.size());
-        String jdbcSql = riddleParameters(
-                sqlClause,
+        List<Parameter> compiledParams = new ArrayList<>(sqlTemplate.getParameters().size());
+        String jdbcSql = sqlTemplate.render(
                 paramName -> {
                     Parameter p = params.getOrDefault(
                             paramName,
@@ -206,6 +287,11 @@ public class SqlEntity {
                     return database.getSqlDriver().parameterPlaceholder(p);
                 }
         );
+        ResultsCache resultsCache = null;
+        if (resultsCachePolicy != null) {
+            resultsCache = new ResultsCache(name, resultsCachePolicy, getReadTables());
+            database.registerResultsCache(resultsCache);
+        }
         return new SqlQuery(
                 database,
                 name,
@@ -213,54 +299,16 @@ public class SqlEntity {
                 Collections.unmodifiableList(compiledParams),
                 procedure,
                 pageSize,
-                Collections.unmodifiableMap(fields)
+                Collections.unmodifiableMap(fields),
+                resultsCache
         );
     }
 
-    private static String riddleParameters(String aSource, Function<String, String> parameterHandler) {
-        return reassemble(
-                aSource,
-                MULTILINE_COMMENT,
-                interMultilineCommentsSegment -> reassemble(
-                        interMultilineCommentsSegment,
-                        LINE_COMMENT,
-                        interLineCommentsSegment -> reassemble(
-                                interLineCommentsSegment,
-                                STRING_LITERAL,
-                                interStringSegment -> reassemble(
-                                        interStringSegment,
-                                        NAMED_PARAMETER,
-                                        Function.identity(),
-                                        paramName -> parameterHandler.apply(paramName.substring(1))).toString(),
-                                Function.identity()).toString(),
-                        Function.identity()).toString(),
-                Function.identity()).toString();
-    }
-
-    private static StringBuilder reassemble(String aText, Pattern pattern, Function<String, String> replaceInterSegment, Function<String, String> replaceSegment) {
-        Matcher matcher = pattern.matcher(aText);
-        StringBuilder assembly = new StringBuilder();
-        int lastPosition = 0;
-        String interSegment;
-        while (matcher.find()) {
-            interSegment = aText.substring(lastPosition, matcher.start());
-            String segment = aText.substring(matcher.start(), matcher.end());
-            lastPosition = matcher.end();
-            assembly.append(replaceInterSegment.apply((interSegment)));
-            assembly.append(replaceSegment.apply(segment));
-        }
-        interSegment = aText.substring(lastPosition);
-        assembly.append(replaceInterSegment.apply((interSegment)));
-        return assembly;
-    }
-
     private static Map<String, Parameter> extractParameters(String aSource) {
         Map<String, Parameter> params = new LinkedHashMap<>();
         if (aSource != null && !aSource.isEmpty()) {
-            riddleParameters(aSource, paramName -> {
-                params.put(paramName, new Parameter(paramName, null, GenericType.STRING));
-                return paramName;
-            });
+            SqlTemplate.compile(aSource).getParameters()
+                    .forEach(paramName -> params.put(paramName, new Parameter(paramName, null, GenericType.STRING)));
         }
         return params;
     }
@@ -0,0 +1,84 @@
+package com.septima.jdbc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Size of jdbc batches, adapted to measured latency of {@link java.sql.PreparedStatement#executeBatch()}.
+ * The size is doubled while full batches are executed faster than a half of the target latency
+ * and is halved when a batch is executed slower than the target latency.
+ * So large batches are used while a database handles them well and small batches are used
+ * when it is loaded or a batch causes locks contention.
+ * The size is kept between one and the maximum batch size.
+ *
+ * @author mg
+ */
+public class AdaptiveBatchSize {
+
+    public static final long DEFAULT_TARGET_LATENCY = 100; // 100 milliseconds
+
+    private final int maximum;
+    private final long targetLatency;
+    private final AtomicInteger size;
+
+    /**
+     * Creates an adaptive batch size with the default target latency.
+     *
+     * @param aMaximum Maximum size of a batch.
+     */
+    public AdaptiveBatchSize(int aMaximum) {
+        this(aMaximum, DEFAULT_TARGET_LATENCY);
+    }
+
+    /**
+     * Creates an adaptive batch size.
+     *
+     * @param aMaximum       Maximum size of a batch.
+     * @param aTargetLatency Desired latency of a batch execution in milliseconds.
+     */
+    public AdaptiveBatchSize(int aMaximum, long aTargetLatency) {
+        maximum = Math.max(1, aMaximum);
+        targetLatency = TimeUnit.MILLISECONDS.toNanos(Math.max(1, aTargetLatency));
+        size = new AtomicInteger(maximum);
+    }
+
+    public int getMaximum() {
+        return maximum;
+    }
+
+    public long getTargetLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(targetLatency);
+    }
+
+    /**
+     * Returns a size of a next batch.
+     *
+     * @return Current size of batches.
+     */
+    public int get() {
+        return size.get();
+    }
+
+    /**
+     * Adapts the size of batches to the latency of an executed batch.
+     *
+     * @param aExecuted Number of statements in the executed batch.
+     * @param aElapsed  Execution time of the batch in nanoseconds.
+     */
+    public void onExecuted(int aExecuted, long aElapsed) {
+        size.updateAndGet(current -> {
+            if (aElapsed > targetLatency) {
+                return Math.max(1, Math.min(current, aExecuted) / 2);
+            } else if (aExecuted >= current && aElapsed < targetLatency / 2) {
+                return (int) Math.min(maximum, current * 2L);
+            } else {
+                return current;
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveBatchSize{size=" + size.get() + ", maximum=" + maximum + ", targetLatency=" + getTargetLatency() + "}";
+    }
+}
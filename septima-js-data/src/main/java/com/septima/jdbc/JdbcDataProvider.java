@@ -19,6 +19,11 @@ import java.util.Objects;
 import java.util.TimeZone;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -38,6 +43,12 @@ public abstract class JdbcDataProvider implements DataProvider {
         T apply(ResultSet aData) throws SQLException;
     }
 
+    public interface RowsReader {
+        List<Map<String, Object>> read(ResultSet aData, int aCount) throws SQLException;
+    }
+
+    private static final int PUBLISHING_BATCH_SIZE = 128;
+
     private final String clause;
     private final DataSource dataSource;
     private final boolean procedure;
@@ -49,6 +60,7 @@ public abstract class JdbcDataProvider implements DataProvider {
 
     protected final Map<String, EntityField> expectedFields;
 
+    private final StatementsCache statementsCache;
     private Connection lowLevelConnection;
     private PreparedStatement lowLevelStatement;
 
@@ -71,11 +83,23 @@ public abstract class JdbcDataProvider implements DataProvider {
      * @see DataSource
      */
     public JdbcDataProvider(DataSource aDataSource, JdbcReaderAssigner aJdbcReaderAssigner, Executor aAsyncDataPuller, Executor aFutureExecutor, String aClause, boolean aProcedure, int aPageSize, Map<String, EntityField> aExpectedFields) {
+        this(aDataSource, aJdbcReaderAssigner, aAsyncDataPuller, aFutureExecutor, aClause, aProcedure, aPageSize, aExpectedFields, new StatementsCache(0));
+    }
+
+    /**
+     * A flow dataSource, that takes statements from a {@link StatementsCache} instead of preparing them on each query.
+     *
+     * @param aStatementsCache {@link StatementsCache} instance, usually shared by all providers of a database.
+     * @see #JdbcDataProvider(DataSource, JdbcReaderAssigner, Executor, Executor, String, boolean, int, Map)
+     */
+    public JdbcDataProvider(DataSource aDataSource, JdbcReaderAssigner aJdbcReaderAssigner, Executor aAsyncDataPuller, Executor aFutureExecutor, String aClause, boolean aProcedure, int aPageSize, Map<String, EntityField> aExpectedFields, StatementsCache aStatementsCache) {
         super();
         Objects.requireNonNull(aClause, "Flow provider cant't exist without a selecting sql clause");
         Objects.requireNonNull(aDataSource, "Flow provider can't exist without a data source");
         Objects.requireNonNull(aJdbcReaderAssigner, "aJdbcReaderAssigner is required argument");
+        Objects.requireNonNull(aStatementsCache, "aStatementsCache is required argument");
         dataSource = aDataSource;
+        statementsCache = aStatementsCache;
         jdbcReaderAssigner = aJdbcReaderAssigner;
         asyncDataPuller = aAsyncDataPuller;
         futureExecutor = aFutureExecutor;
@@ -104,35 +128,14 @@ public abstract class JdbcDataProvider implements DataProvider {
         if (isPaged()) {
             endPaging();
         }
-        asyncDataPuller.execute(() -> {
+        Runnable selecting = () -> {
             String sqlClause = clause;
             try {
                 Connection connection = dataSource.getConnection();
                 try {
                     PreparedStatement statement = getFlowStatement(connection, sqlClause);
                     try {
-                        Map<Integer, Integer> assignedJdbcTypes = new HashMap<>();
-                        for (int i = 1; i <= aParams.size(); i++) {
-                            Parameter param = aParams.get(i - 1);
-                            int assignedJdbcType = jdbcReaderAssigner.assignInParameter(param, statement, i, connection);
-                            assignedJdbcTypes.put(i, assignedJdbcType);
-                        }
-                        logQuery(sqlClause, aParams, assignedJdbcTypes);
-                        ResultSet results;
-                        if (procedure) {
-                            assert statement instanceof CallableStatement;
-                            CallableStatement cStmt = (CallableStatement) statement;
-                            cStmt.execute();
-                            // let's return parameters
-                            for (int i = 1; i <= aParams.size(); i++) {
-                                Parameter param = aParams.get(i - 1);
-                                jdbcReaderAssigner.acceptOutParameter(param, cStmt, i, connection);
-                            }
-                            // let's return ResultSet
-                            results = cStmt.getResultSet();
-                        } else {
-                            results = statement.executeQuery();
-                        }
+                        ResultSet results = execute(statement, aParams, connection);
                         try {
                             T processed = aProcessor.apply(results/* may be null*/);
                             fetching.completeAsync(() -> processed, futureExecutor);
@@ -151,7 +154,7 @@ public abstract class JdbcDataProvider implements DataProvider {
                             // Paged statements can't be closed, because of ResultSet existence.
                             lowLevelStatement = statement;
                         } else {
-                            statement.close();
+                            statementsCache.release(connection, sqlClause, statement);
                         }
                     }
                 } finally {
@@ -167,10 +170,67 @@ public abstract class JdbcDataProvider implements DataProvider {
             } catch (Throwable ex) {
                 futureExecutor.execute(() -> fetching.completeExceptionally(ex));
             }
-        });
+        };
+        try {
+            asyncDataPuller.execute(selecting);
+        } catch (RejectedExecutionException ex) {
+            fetching.completeExceptionally(ex);
+        }
         return fetching;
     }
 
+    /**
+     * Assigns parameters to a statement and executes it.
+     * If the statement is a stored procedure call, then out parameters are read back into {@code aParams}.
+     *
+     * @return {@link ResultSet} of the statement. May be null because of {@link CallableStatement}.
+     */
+    private ResultSet execute(PreparedStatement aStatement, List<Parameter> aParams, Connection aConnection) throws SQLException {
+        Map<Integer, Integer> assignedJdbcTypes = new HashMap<>();
+        for (int i = 1; i <= aParams.size(); i++) {
+            Parameter param = aParams.get(i - 1);
+            int assignedJdbcType = jdbcReaderAssigner.assignInParameter(param, aStatement, i, aConnection);
+            assignedJdbcTypes.put(i, assignedJdbcType);
+        }
+        logQuery(clause, aParams, assignedJdbcTypes);
+        if (procedure) {
+            assert aStatement instanceof CallableStatement;
+            CallableStatement cStmt = (CallableStatement) aStatement;
+            cStmt.execute();
+            // let's return parameters
+            for (int i = 1; i <= aParams.size(); i++) {
+                Parameter param = aParams.get(i - 1);
+                jdbcReaderAssigner.acceptOutParameter(param, cStmt, i, aConnection);
+            }
+            // let's return ResultSet
+            return cStmt.getResultSet();
+        } else {
+            return aStatement.executeQuery();
+        }
+    }
+
+    /**
+     * Creates a cold publisher of rows of this provider's sql clause.
+     * Each subscription executes the query with its own connection, reads rows from the open
+     * {@link ResultSet} on the jdbc executor only while there is a demand of the subscriber
+     * and delivers them on the futures executor. Resources are released when all rows are published,
+     * the subscription is cancelled or an error occurs.
+     * Paged provider publishes only the first page of rows.
+     *
+     * @param aParams Parameters values of the query.
+     * @param aReader A reader of a portion of rows from an open {@link ResultSet}.
+     * @return {@link Flow.Publisher} of the rows.
+     */
+    protected Flow.Publisher<Map<String, Object>> publish(List<Parameter> aParams, RowsReader aReader) {
+        Objects.requireNonNull(aParams, "aParams is required argument");
+        Objects.requireNonNull(aReader, "aReader is required argument");
+        return subscriber -> {
+            Objects.requireNonNull(subscriber, "subscriber is required argument");
+            RowsSubscription subscription = new RowsSubscription(subscriber, aParams, aReader);
+            futureExecutor.execute(() -> subscriber.onSubscribe(subscription));
+        };
+    }
+
     protected void endPaging() {
         assert isPaged();
         close();
@@ -185,8 +245,11 @@ public abstract class JdbcDataProvider implements DataProvider {
             }
             // See pull method, hacky statement closing.
             if (lowLevelStatement != null) {
-                lowLevelStatement.close();
-                lowLevelStatement = null;
+                try {
+                    statementsCache.release(lowLevelConnection, clause, lowLevelStatement);
+                } finally {
+                    lowLevelStatement = null;
+                }
             }
             // See pull method, hacky connection closing.
             if (lowLevelConnection != null) {
@@ -221,9 +284,8 @@ public abstract class JdbcDataProvider implements DataProvider {
     }
 
     /**
-     * Returns PreparedStatement instance. Let's consider some caching system.
-     * It will provide some prepared statement instance, according transform passed sql
-     * clause.
+     * Returns PreparedStatement instance, taken from the {@link StatementsCache}.
+     * It should be released back to the cache instead of closing.
      *
      * @param aConnection java.sql.Connection instance transform be used.
      * @param aClause     Sql clause transform process.
@@ -232,10 +294,172 @@ public abstract class JdbcDataProvider implements DataProvider {
      */
     private PreparedStatement getFlowStatement(Connection aConnection, String aClause) throws SQLException {
         assert aConnection != null;
-        if (procedure) {
-            return aConnection.prepareCall(aClause);
-        } else {
-            return aConnection.prepareStatement(aClause);
+        return statementsCache.prepare(aConnection, aClause, procedure);
+    }
+
+
+    /**
+     * Subscription to rows of an open {@link ResultSet}.
+     * Reading of rows is performed on the jdbc executor, and delivering of rows is performed on the futures executor.
+     * Only one portion of rows is read or delivered at a time, so rows are delivered in order and
+     * no more rows than requested are held in memory.
+     */
+    private class RowsSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super Map<String, Object>> subscriber;
+        private final List<Parameter> params;
+        private final RowsReader reader;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicBoolean pumping = new AtomicBoolean();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private volatile boolean cancelled;
+
+        private Connection connection;
+        private PreparedStatement statement;
+        private ResultSet results;
+        private boolean executed;
+        private long remaining = isPaged() ? pageSize : Long.MAX_VALUE;
+
+        private RowsSubscription(Flow.Subscriber<? super Map<String, Object>> aSubscriber, List<Parameter> aParams, RowsReader aReader) {
+            subscriber = aSubscriber;
+            params = aParams;
+            reader = aReader;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n > 0) {
+                demand.accumulateAndGet(n, (was, requested) -> was + requested < 0 ? Long.MAX_VALUE : was + requested);
+                pump();
+            } else {
+                // The failure is signalled by the pull in flight or by a new one, after resources are released
+                failure.compareAndSet(null, new IllegalArgumentException("Requested rows count should be positive, but it is: " + n));
+                cancel();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            pump();
+        }
+
+        private void pump() {
+            if (pumping.compareAndSet(false, true)) {
+                try {
+                    asyncDataPuller.execute(this::pull);
+                } catch (RejectedExecutionException ex) {
+                    // The pumping flag is held, so no pull is in flight and resources can be released here.
+                    // Rows are not read on the caller's thread, so the subscription fails.
+                    cancelled = true;
+                    failure.compareAndSet(null, ex);
+                    Throwable pending = failure.get();
+                    try {
+                        release();
+                    } catch (Throwable releaseEx) {
+                        pending.addSuppressed(releaseEx);
+                    }
+                    futureExecutor.execute(() -> subscriber.onError(pending));
+                }
+            }
+        }
+
+        private void pull() {
+            try {
+                if (cancelled) {
+                    release();
+                    Throwable pending = failure.get();
+                    if (pending != null) {
+                        futureExecutor.execute(() -> subscriber.onError(pending));
+                    }
+                } else {
+                    if (!executed) {
+                        executed = true;
+                        connection = dataSource.getConnection();
+                        statement = getFlowStatement(connection, clause);
+                        results = execute(statement, params, connection);
+                    }
+                    int count = (int) Math.min(Math.min(demand.get(), PUBLISHING_BATCH_SIZE), remaining);
+                    List<Map<String, Object>> rows = results != null && count > 0 ? reader.read(results, count) : List.of();
+                    remaining -= rows.size();
+                    boolean exhausted = rows.size() < count || remaining == 0;
+                    if (exhausted) {
+                        release();
+                    }
+                    futureExecutor.execute(() -> deliver(rows, exhausted));
+                }
+            } catch (Throwable ex) {
+                try {
+                    release();
+                } catch (Throwable releaseEx) {
+                    ex.addSuppressed(releaseEx);
+                }
+                Throwable failure = ex instanceof SQLException ?
+                        new SQLException("Entity '" + getEntityName() + "' sql clause \" " + clause + " \" execution failed with cause: " + ex.getMessage(), ex) :
+                        ex;
+                futureExecutor.execute(() -> subscriber.onError(failure));
+            }
+        }
+
+        private void deliver(List<Map<String, Object>> aRows, boolean aExhausted) {
+            // This delivery holds the pumping flag until it is cleared for the next pull
+            boolean holding = true;
+            try {
+                for (Map<String, Object> row : aRows) {
+                    if (cancelled) {
+                        break;
+                    }
+                    demand.decrementAndGet();
+                    subscriber.onNext(row);
+                }
+                if (aExhausted) {
+                    Throwable pending = failure.get();
+                    if (pending != null) {
+                        subscriber.onError(pending);
+                    } else if (!cancelled) {
+                        subscriber.onComplete();
+                    }
+                } else {
+                    holding = false;
+                    pumping.set(false);
+                    if (demand.get() > 0 || cancelled) {
+                        pump();
+                    }
+                }
+            } catch (Throwable ex) {
+                Logger.getLogger(JdbcDataProvider.class.getName()).log(Level.SEVERE, "Subscriber of entity '" + getEntityName() + "' rows failed. Subscription is cancelled.", ex);
+                cancelled = true;
+                if (holding) {
+                    // Otherwise the cancelling pump would be ignored and resources would not be released
+                    pumping.set(false);
+                }
+                pump();
+            }
+        }
+
+        private void release() {
+            try {
+                try {
+                    if (results != null) {
+                        results.close();
+                    }
+                } finally {
+                    results = null;
+                    try {
+                        if (statement != null) {
+                            statementsCache.release(connection, clause, statement);
+                        }
+                    } finally {
+                        statement = null;
+                        if (connection != null) {
+                            connection.close();
+                        }
+                        connection = null;
+                    }
+                }
+            } catch (SQLException ex) {
+                throw new UncheckedSQLException(ex);
+            }
         }
     }
 
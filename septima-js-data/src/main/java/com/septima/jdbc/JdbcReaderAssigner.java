@@ -88,124 +88,168 @@ public class JdbcReaderAssigner {
         }
     }
 
-    public Object readTypedValue(Wrapper aRs, int aColumnIndex) throws SQLException {
-        try {
-            int sqlType = aRs instanceof ResultSet ? ((ResultSet) aRs).getMetaData().getColumnType(aColumnIndex) : ((CallableStatement) aRs).getParameterMetaData().getParameterType(aColumnIndex);
-            Object value = null;
-            switch (sqlType) {
-                case Types.JAVA_OBJECT:
-                case Types.DATALINK:
-                case Types.DISTINCT:
-                case Types.NULL:
-                case Types.ROWID:
-                case Types.REF:
-                case Types.SQLXML:
-                case Types.ARRAY:
-                case Types.STRUCT:
-                case Types.OTHER:
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getString(aColumnIndex) : ((CallableStatement) aRs).getString(aColumnIndex);
-                    break;
-                case Types.BINARY:
-                case Types.VARBINARY:
-                case Types.LONGVARBINARY:
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getBytes(aColumnIndex) : ((CallableStatement) aRs).getBytes(aColumnIndex);
-                    break;
-                case Types.BLOB:
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getBlob(aColumnIndex) : ((CallableStatement) aRs).getBlob(aColumnIndex);
-                    if (value != null) {
-                        try (InputStream is = ((Blob) value).getBinaryStream()) {
-                            value = is.readAllBytes();
-                        }
-                    }
-                    break;
-                // clobs
-                case Types.CLOB:
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getClob(aColumnIndex) : ((CallableStatement) aRs).getClob(aColumnIndex);
-                    if (value != null) {
-                        try (Reader reader = ((Clob) value).getCharacterStream()) {
-                            value = readReader(reader, -1);
-                        }
-                    }
-                    break;
-                case Types.NCLOB:
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getNClob(aColumnIndex) : ((CallableStatement) aRs).getNClob(aColumnIndex);
-                    if (value != null) {
-                        try (Reader reader = ((NClob) value).getCharacterStream()) {
-                            value = readReader(reader, -1);
-                        }
-                    }
-                    break;
-                // numbers
-                case Types.DECIMAL:
-                case Types.NUMERIC:
-                    // target type - BigDecimal
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getBigDecimal(aColumnIndex) : ((CallableStatement) aRs).getBigDecimal(aColumnIndex);
-                    break;
-                case Types.BIGINT:
-                    // target type - BigInteger
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getBigDecimal(aColumnIndex) : ((CallableStatement) aRs).getBigDecimal(aColumnIndex);
-                    if (value != null) {
-                        value = ((BigDecimal) value).toBigInteger();
-                    }
-                    break;
-                case Types.SMALLINT:
-                    // target type - Short
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getShort(aColumnIndex) : ((CallableStatement) aRs).getShort(aColumnIndex);
-                    break;
-                case Types.TINYINT:
-                case Types.INTEGER:
-                    // target type - Int
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getInt(aColumnIndex) : ((CallableStatement) aRs).getInt(aColumnIndex);
-                    break;
-                case Types.REAL:
-                case Types.FLOAT:
-                    // target type - Float
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getFloat(aColumnIndex) : ((CallableStatement) aRs).getFloat(aColumnIndex);
-                    break;
-                case Types.DOUBLE:
-                    // target type - Double
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getDouble(aColumnIndex) : ((CallableStatement) aRs).getDouble(aColumnIndex);
-                    break;
-                // strings
-                case Types.CHAR:
-                case Types.NCHAR:
-                case Types.VARCHAR:
-                case Types.NVARCHAR:
-                case Types.LONGVARCHAR:
-                case Types.LONGNVARCHAR:
-                case NON_JDBC_LONG_STRING:
-                case NON_JDBC_MEDIUM_STRING:
-                case NON_JDBC_MEMO_STRING:
-                case NON_JDBC_SHORT_STRING:
-                    // target type - string
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getString(aColumnIndex) : ((CallableStatement) aRs).getString(aColumnIndex);
-                    break;
-                // booleans
-                case Types.BOOLEAN:
-                case Types.BIT:
-                    // target type - Boolean
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getBoolean(aColumnIndex) : ((CallableStatement) aRs).getBoolean(aColumnIndex);
-                    break;
-                // dates, times
-                case Types.DATE:
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getDate(aColumnIndex) : ((CallableStatement) aRs).getDate(aColumnIndex);
-                    break;
-                case Types.TIMESTAMP:
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getTimestamp(aColumnIndex) : ((CallableStatement) aRs).getTimestamp(aColumnIndex);
-                    break;
-                case Types.TIME:
-                    value = aRs instanceof ResultSet ? ((ResultSet) aRs).getTime(aColumnIndex) : ((CallableStatement) aRs).getTime(aColumnIndex);
-                    break;
+    /**
+     * Reader of a column's value from a {@link ResultSet}, resolved once for a particular jdbc type.
+     */
+    public interface ValueReader {
+        Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException;
+    }
+
+    /**
+     * Getter of a value from a result set's column or from a callable statement's out parameter.
+     */
+    private interface Getter<S> {
+        Object get(S aSource, int anIndex) throws SQLException;
+    }
+
+    /**
+     * Readers of values of a particular jdbc type from columns of result sets and from out parameters of callable statements.
+     * Both readers treat sql nulls as {@code null}.
+     */
+    private static class TypedReaders {
+        private final ValueReader columns;
+        private final Getter<CallableStatement> outParameters;
+
+        private TypedReaders(Getter<ResultSet> aColumns, Getter<CallableStatement> anOutParameters) {
+            columns = (aResultSet, aColumnIndex) -> {
+                Object value = aColumns.get(aResultSet, aColumnIndex);
+                return aResultSet.wasNull() ? null : value;
+            };
+            outParameters = (aStatement, aParameterIndex) -> {
+                Object value = anOutParameters.get(aStatement, aParameterIndex);
+                return aStatement.wasNull() ? null : value;
+            };
+        }
+    }
+
+    /**
+     * Resolves a reader of values of a column with the specified jdbc type.
+     * Resolved reader performs no metadata queries and no type dispatch while reading.
+     *
+     * @param aSqlType Jdbc type of a column as it is reported by {@link ResultSetMetaData#getColumnType(int)}.
+     * @return {@link ValueReader} instance, that reads values of the column and treats sql nulls as {@code null}.
+     */
+    public static ValueReader valueReaderOf(int aSqlType) {
+        return typedReadersOf(aSqlType).columns;
+    }
+
+    private static TypedReaders typedReadersOf(int aSqlType) {
+        switch (aSqlType) {
+            case Types.JAVA_OBJECT:
+            case Types.DATALINK:
+            case Types.DISTINCT:
+            case Types.NULL:
+            case Types.ROWID:
+            case Types.REF:
+            case Types.SQLXML:
+            case Types.ARRAY:
+            case Types.STRUCT:
+            case Types.OTHER:
+                return new TypedReaders(ResultSet::getString, CallableStatement::getString);
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return new TypedReaders(ResultSet::getBytes, CallableStatement::getBytes);
+            case Types.BLOB:
+                return new TypedReaders((s, i) -> bytesOf(s.getBlob(i)), (s, i) -> bytesOf(s.getBlob(i)));
+            // clobs
+            case Types.CLOB:
+                return new TypedReaders((s, i) -> stringOf(s.getClob(i)), (s, i) -> stringOf(s.getClob(i)));
+            case Types.NCLOB:
+                return new TypedReaders((s, i) -> stringOf(s.getNClob(i)), (s, i) -> stringOf(s.getNClob(i)));
+            // numbers
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                // target type - BigDecimal
+                return new TypedReaders(ResultSet::getBigDecimal, CallableStatement::getBigDecimal);
+            case Types.BIGINT:
+                // target type - BigInteger
+                return new TypedReaders((s, i) -> bigIntegerOf(s.getBigDecimal(i)), (s, i) -> bigIntegerOf(s.getBigDecimal(i)));
+            case Types.SMALLINT:
+                // target type - Short
+                return new TypedReaders(ResultSet::getShort, CallableStatement::getShort);
+            case Types.TINYINT:
+            case Types.INTEGER:
+                // target type - Int
+                return new TypedReaders(ResultSet::getInt, CallableStatement::getInt);
+            case Types.REAL:
+            case Types.FLOAT:
+                // target type - Float
+                return new TypedReaders(ResultSet::getFloat, CallableStatement::getFloat);
+            case Types.DOUBLE:
+                // target type - Double
+                return new TypedReaders(ResultSet::getDouble, CallableStatement::getDouble);
+            // strings
+            case Types.CHAR:
+            case Types.NCHAR:
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case NON_JDBC_LONG_STRING:
+            case NON_JDBC_MEDIUM_STRING:
+            case NON_JDBC_MEMO_STRING:
+            case NON_JDBC_SHORT_STRING:
+                // target type - string
+                return new TypedReaders(ResultSet::getString, CallableStatement::getString);
+            // booleans
+            case Types.BOOLEAN:
+            case Types.BIT:
+                // target type - Boolean
+                return new TypedReaders(ResultSet::getBoolean, CallableStatement::getBoolean);
+            // dates, times
+            case Types.DATE:
+                return new TypedReaders(ResultSet::getDate, CallableStatement::getDate);
+            case Types.TIMESTAMP:
+                return new TypedReaders(ResultSet::getTimestamp, CallableStatement::getTimestamp);
+            case Types.TIME:
+                return new TypedReaders(ResultSet::getTime, CallableStatement::getTime);
+            default:
+                return new TypedReaders((s, i) -> null, (s, i) -> null);
+        }
+    }
+
+    private static byte[] bytesOf(Blob aBlob) throws SQLException {
+        if (aBlob != null) {
+            try (InputStream is = aBlob.getBinaryStream()) {
+                return is.readAllBytes();
+            } catch (IOException | UncheckedIOException ex) {
+                throw new SQLException(ex);
             }
-            if (aRs instanceof ResultSet ? ((ResultSet) aRs).wasNull() : ((CallableStatement) aRs).wasNull()) {
-                value = null;
+        } else {
+            return null;
+        }
+    }
+
+    private static String stringOf(Clob aClob) throws SQLException {
+        if (aClob != null) {
+            try (Reader reader = aClob.getCharacterStream()) {
+                return readReader(reader, -1);
+            } catch (IOException | UncheckedIOException ex) {
+                throw new SQLException(ex);
             }
-            return value;
-        } catch (IOException | UncheckedIOException ex) {
-            throw new SQLException(ex);
+        } else {
+            return null;
+        }
+    }
+
+    private static BigInteger bigIntegerOf(BigDecimal aValue) {
+        return aValue != null ? aValue.toBigInteger() : null;
+    }
+
+    public Object readTypedValue(Wrapper aRs, int aColumnIndex) throws SQLException {
+        if (aRs instanceof ResultSet) {
+            ResultSet rs = (ResultSet) aRs;
+            return valueReaderOf(rs.getMetaData().getColumnType(aColumnIndex)).read(rs, aColumnIndex);
+        } else {
+            return readTypedValue((CallableStatement) aRs, aColumnIndex);
         }
     }
 
+    private static Object readTypedValue(CallableStatement aStatement, int aParameterIndex) throws SQLException {
+        return typedReadersOf(aStatement.getParameterMetaData().getParameterType(aParameterIndex)).outParameters.get(aStatement, aParameterIndex);
+    }
+
     private void checkOutParameter(Parameter param, PreparedStatement stmt, int aParameterIndex, int jdbcType) throws SQLException {
         if (procedure && (param.getMode() == Parameter.Mode.Out
                 || param.getMode() == Parameter.Mode.InOut)) {
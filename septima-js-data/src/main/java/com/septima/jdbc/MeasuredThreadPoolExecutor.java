@@ -0,0 +1,60 @@
+package com.septima.jdbc;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ThreadPoolExecutor}, measuring tasks' waiting in its queue and their execution.
+ * If its queue is bounded and full, a task is rejected with {@link RejectedExecutionException}
+ * or is performed by a submitting thread, depending on its configuration.
+ *
+ * @author mg
+ * @see TasksMetrics
+ */
+public class MeasuredThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private final TasksMetrics metrics = new TasksMetrics();
+    private final boolean callerRuns;
+
+    public MeasuredThreadPoolExecutor(int aCorePoolSize, int aMaximumPoolSize, long aKeepAliveTime, TimeUnit aUnit, BlockingQueue<Runnable> aWorkQueue, ThreadFactory aThreadFactory) {
+        this(aCorePoolSize, aMaximumPoolSize, aKeepAliveTime, aUnit, aWorkQueue, aThreadFactory, false);
+    }
+
+    /**
+     * Creates an executor with a rejection policy.
+     *
+     * @param aCallerRuns If true, a task, that doesn't fit into the queue, is performed by a submitting thread.
+     *                    Otherwise it is rejected with {@link RejectedExecutionException}.
+     */
+    public MeasuredThreadPoolExecutor(int aCorePoolSize, int aMaximumPoolSize, long aKeepAliveTime, TimeUnit aUnit, BlockingQueue<Runnable> aWorkQueue, ThreadFactory aThreadFactory, boolean aCallerRuns) {
+        super(aCorePoolSize, aMaximumPoolSize, aKeepAliveTime, aUnit, aWorkQueue, aThreadFactory);
+        callerRuns = aCallerRuns;
+        setRejectedExecutionHandler(this::rejected);
+    }
+
+    private void rejected(Runnable aTask, ThreadPoolExecutor aExecutor) {
+        if (callerRuns && !aExecutor.isShutdown()) {
+            metrics.onCallerRuns();
+            aTask.run();
+        } else {
+            metrics.onRejected();
+            throw new RejectedExecutionException("Jdbc task is rejected. Queue size: " + aExecutor.getQueue().size() + ", active tasks: " + aExecutor.getActiveCount());
+        }
+    }
+
+    @Override
+    public void execute(Runnable aTask) {
+        super.execute(metrics.measured(aTask));
+    }
+
+    public boolean isCallerRuns() {
+        return callerRuns;
+    }
+
+    public TasksMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -1,6 +1,7 @@
 package com.septima.jdbc;
 
 import com.septima.GenericType;
+import com.septima.dataflow.Row;
 import com.septima.metadata.EntityField;
 
 import java.sql.Connection;
@@ -15,6 +16,10 @@ import java.util.stream.Collectors;
  * Reader for jdbc result sets sources. Performs reading of a whole result set and
  * particular subset of rows for the result set. Reading utilizes converters transform
  * produce application-specific data while reading.
+ * Readers of columns are resolved once from {@link ResultSetMetaData} as a {@link ColumnsPlan} and
+ * the plan is reused while the driver reports the same metadata. So, a single instance of the reader
+ * can be shared by all the data providers of a query.
+ * Rows are read as {@link Row} instances, sharing a {@link Row.Schema} of the plan.
  *
  * @author mg
  */
@@ -22,6 +27,7 @@ public class ResultSetReader {
 
     private final Map<String, EntityField> expectedFields;
     private final JdbcReaderAssigner jdbcReaderAssigner;
+    private volatile ColumnsPlan plan;
 
     public ResultSetReader(Map<String, EntityField> aExpectedFields, JdbcReaderAssigner aJdbcReaderAssigner) {
         jdbcReaderAssigner = aJdbcReaderAssigner;
@@ -30,10 +36,44 @@ public class ResultSetReader {
 
     public List<Map<String, Object>> readRowSet(ResultSet aResultSet, int aPageSize) throws SQLException {
         Objects.requireNonNull(aResultSet, "aResultSet is required argument");
-        ResultSetMetaData lowLevelJdbcFields = aResultSet.getMetaData();
-        List<EntityField> jdbcFields = readFields(lowLevelJdbcFields);
+        return readRows(planOf(aResultSet.getMetaData()), aResultSet, aPageSize, aResultSet.getStatement().getConnection());
+    }
+
+    private ColumnsPlan planOf(ResultSetMetaData aJdbcFields) throws SQLException {
+        ColumnsPlan compiled = plan;
+        if (compiled == null || !compiled.matches(aJdbcFields)) {
+            compiled = compilePlan(aJdbcFields);
+            plan = compiled;
+        }
+        return compiled;
+    }
+
+    private ColumnsPlan compilePlan(ResultSetMetaData aJdbcFields) throws SQLException {
+        List<EntityField> jdbcFields = readFields(aJdbcFields);
         List<EntityField> entityFields = mapFields(expectedFields != null && !expectedFields.isEmpty() ? expectedFields : jdbcFields.stream().collect(Collectors.toMap(EntityField::getName, Function.identity())), jdbcFields);
-        return readRows(entityFields, aResultSet, aPageSize, aResultSet.getStatement().getConnection());
+        int[] jdbcTypes = new int[entityFields.size()];
+        String[] labels = new String[entityFields.size()];
+        ColumnReader[] readers = new ColumnReader[entityFields.size()];
+        for (int i = 0; i < entityFields.size(); i++) {
+            jdbcTypes[i] = aJdbcFields.getColumnType(i + 1);
+            labels[i] = aJdbcFields.getColumnLabel(i + 1);
+            readers[i] = columnReaderOf(entityFields.get(i), jdbcTypes[i]);
+        }
+        return new ColumnsPlan(new Row.Schema(entityFields.stream().map(EntityField::getName).toArray(String[]::new)), jdbcTypes, labels, readers);
+    }
+
+    private ColumnReader columnReaderOf(EntityField aEntityField, int aJdbcType) {
+        GenericType type = aEntityField.getType();
+        if (GenericType.GEOMETRY == type) {
+            return (aResultSet, aColumnIndex, aConnection) -> jdbcReaderAssigner.getSqlDriver().geometryToWkt(aResultSet, aColumnIndex, aConnection);
+        } else {
+            JdbcReaderAssigner.ValueReader valueReader = JdbcReaderAssigner.valueReaderOf(aJdbcType);
+            if (type != null) {
+                return (aResultSet, aColumnIndex, aConnection) -> type.narrow(valueReader.read(aResultSet, aColumnIndex));
+            } else {
+                return (aResultSet, aColumnIndex, aConnection) -> valueReader.read(aResultSet, aColumnIndex);
+            }
+        }
     }
 
     private List<EntityField> readFields(ResultSetMetaData jdbcFields) throws SQLException {
@@ -66,32 +106,57 @@ public class ResultSetReader {
         return fields;
     }
 
-    private List<Map<String, Object>> readRows(List<EntityField> aEntityFields, ResultSet aResultSet, int aPageSize, Connection aConnection) throws SQLException {
+    private List<Map<String, Object>> readRows(ColumnsPlan aPlan, ResultSet aResultSet, int aPageSize, Connection aConnection) throws SQLException {
         List<Map<String, Object>> oRows = new ArrayList<>();
         while ((aPageSize <= 0 || oRows.size() < aPageSize) && aResultSet.next()) {
-            Map<String, Object> jsRow = readRow(aEntityFields, aResultSet, aConnection);
+            Map<String, Object> jsRow = readRow(aPlan, aResultSet, aConnection);
             oRows.add(jsRow);
         }
         return oRows;
     }
 
-    private Map<String, Object> readRow(List<EntityField> aEntityFields, ResultSet aResultSet, Connection aConnection) throws SQLException {
+    private Map<String, Object> readRow(ColumnsPlan aPlan, ResultSet aResultSet, Connection aConnection) throws SQLException {
         if (aResultSet != null) {
-            assert aEntityFields != null;
-            Map<String, Object> row = new HashMap<>();
-            for (int i = 0; i < aEntityFields.size(); i++) {
-                EntityField entityField = aEntityFields.get(i);
-                Object value;
-                if (GenericType.GEOMETRY == entityField.getType()) {
-                    value = jdbcReaderAssigner.getSqlDriver().geometryToWkt(aResultSet, i + 1, aConnection);
-                } else {
-                    Object typedValue = jdbcReaderAssigner.readTypedValue(aResultSet, i + 1);
-                    value = entityField.getType() != null ? entityField.getType().narrow(typedValue) : typedValue;
-                }
-                row.put(entityField.getName(), value);
+            Row row = aPlan.schema.newRow();
+            for (int i = 0; i < aPlan.readers.length; i++) {
+                row.set(aPlan.schema.slotOf(i), aPlan.readers[i].read(aResultSet, i + 1, aConnection));
             }
             return row;
         }
         return null;
     }
+
+    private interface ColumnReader {
+        Object read(ResultSet aResultSet, int aColumnIndex, Connection aConnection) throws SQLException;
+    }
+
+    /**
+     * Compiled readers of a result set's columns along with metadata they are compiled for.
+     */
+    private static class ColumnsPlan {
+        private final Row.Schema schema;
+        private final int[] jdbcTypes;
+        private final String[] labels;
+        private final ColumnReader[] readers;
+
+        private ColumnsPlan(Row.Schema aSchema, int[] aJdbcTypes, String[] aLabels, ColumnReader[] aReaders) {
+            schema = aSchema;
+            jdbcTypes = aJdbcTypes;
+            labels = aLabels;
+            readers = aReaders;
+        }
+
+        private boolean matches(ResultSetMetaData aJdbcFields) throws SQLException {
+            if (aJdbcFields.getColumnCount() == readers.length) {
+                for (int i = 0; i < readers.length; i++) {
+                    if (jdbcTypes[i] != aJdbcFields.getColumnType(i + 1) || !Objects.equals(labels[i], aJdbcFields.getColumnLabel(i + 1))) {
+                        return false;
+                    }
+                }
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
 }
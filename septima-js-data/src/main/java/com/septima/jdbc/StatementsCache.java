@@ -0,0 +1,244 @@
+package com.septima.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded LRU cache of prepared statements, keyed by a connection and a sql clause.
+ * It works regardless of whether a connections pool performs statements caching or not.
+ * Statements are prepared on a physical connection, obtained via {@link Connection#unwrap(Class)}, and are cached per
+ * physical connection, so they are reused by all borrowers of the connection from a pool.
+ * A pool doesn't know about such statements and doesn't close them, when a borrower returns the connection.
+ * When a pool evicts a physical connection and closes it, its statements become closed. Closed statements are not reused
+ * and are evicted while looking up. Statements of closed connections are evicted, when a new physical connection is met.
+ * If a pool doesn't allow to unwrap its connections, statements are cached per logical connection.
+ * Statements, obtained with {@link #prepare(Connection, String, boolean)}, should be returned with
+ * {@link #release(Connection, String, PreparedStatement)} instead of closing them.
+ *
+ * @author mg
+ */
+public class StatementsCache {
+
+    private final int maximumStatements;
+    private final Map<Connection, Map<String, Cached>> statements = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a statements cache.
+     *
+     * @param aMaximumStatements Maximum number of cached statements per connection.
+     *                           Value less or equal to zero means that statements are not cached at all.
+     */
+    public StatementsCache(int aMaximumStatements) {
+        maximumStatements = aMaximumStatements;
+    }
+
+    public int getMaximumStatements() {
+        return maximumStatements;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns a cached statement for the clause or prepares a new one.
+     * A statement is given to only one caller at a time. If a statement for the same
+     * clause is in use, then a new not cached statement is prepared.
+     *
+     * @param aConnection A connection to prepare a statement with.
+     * @param aClause     A sql clause of the statement.
+     * @param aCall       If true, then {@link java.sql.CallableStatement} is prepared.
+     * @return {@link PreparedStatement} instance. It should be returned with {@link #release(Connection, String, PreparedStatement)}.
+     * @throws SQLException If statement preparation fails.
+     */
+    public PreparedStatement prepare(Connection aConnection, String aClause, boolean aCall) throws SQLException {
+        Objects.requireNonNull(aConnection, "aConnection is required argument");
+        Objects.requireNonNull(aClause, "aClause is required argument");
+        if (maximumStatements > 0) {
+            Connection physical = physicalOf(aConnection);
+            Map<String, Cached> ofConnection = ofConnection(physical);
+            Cached reused = null;
+            synchronized (ofConnection) {
+                Cached cached = ofConnection.get(aClause);
+                if (cached != null && !cached.inUse && cached.call == aCall) {
+                    cached.inUse = true;
+                    reused = cached;
+                }
+            }
+            if (reused != null) {
+                if (!reused.statement.isClosed()) {
+                    hits.incrementAndGet();
+                    return reused.statement;
+                } else {
+                    synchronized (ofConnection) {
+                        ofConnection.remove(aClause, reused);
+                    }
+                    evictions.incrementAndGet();
+                }
+            }
+            misses.incrementAndGet();
+            PreparedStatement prepared = aCall ? physical.prepareCall(aClause) : physical.prepareStatement(aClause);
+            List<PreparedStatement> evicted = new ArrayList<>();
+            synchronized (ofConnection) {
+                Cached cached = ofConnection.get(aClause);
+                if (cached == null || !cached.inUse) {
+                    if (cached != null) {
+                        evict(cached, evicted);
+                    }
+                    ofConnection.put(aClause, new Cached(prepared, aCall));
+                    evictEldest(ofConnection, evicted);
+                }
+            }
+            close(evicted);
+            return prepared;
+        } else {
+            misses.incrementAndGet();
+            return aCall ? aConnection.prepareCall(aClause) : aConnection.prepareStatement(aClause);
+        }
+    }
+
+    /**
+     * Returns a statement, obtained with {@link #prepare(Connection, String, boolean)}, back to the cache.
+     * Parameters and batch of the cached statement are cleared.
+     * If the statement is not cached, it is closed.
+     *
+     * @param aConnection A connection the statement was prepared with.
+     * @param aClause     A sql clause of the statement.
+     * @param aStatement  A statement to be released.
+     * @throws SQLException If statement cleanup fails.
+     */
+    public void release(Connection aConnection, String aClause, PreparedStatement aStatement) throws SQLException {
+        Objects.requireNonNull(aConnection, "aConnection is required argument");
+        Objects.requireNonNull(aStatement, "aStatement is required argument");
+        Map<String, Cached> ofConnection = maximumStatements > 0 ? statements.get(physicalOf(aConnection)) : null;
+        Cached cached = null;
+        if (ofConnection != null) {
+            synchronized (ofConnection) {
+                Cached candidate = ofConnection.get(aClause);
+                if (candidate != null && candidate.statement == aStatement && candidate.inUse) {
+                    cached = candidate;
+                }
+            }
+        }
+        if (cached != null) {
+            boolean reusable = false;
+            try {
+                if (!aStatement.isClosed()) {
+                    aStatement.clearParameters();
+                    aStatement.clearBatch();
+                    reusable = true;
+                }
+            } finally {
+                synchronized (ofConnection) {
+                    cached.inUse = false;
+                    if (!reusable && ofConnection.remove(aClause, cached)) {
+                        evictions.incrementAndGet();
+                    }
+                }
+            }
+        } else {
+            aStatement.close();
+        }
+    }
+
+    private static Connection physicalOf(Connection aConnection) throws SQLException {
+        if (aConnection.isWrapperFor(Connection.class)) {
+            Connection unwrapped = aConnection.unwrap(Connection.class);
+            return unwrapped != null ? unwrapped : aConnection;
+        } else {
+            return aConnection;
+        }
+    }
+
+    /**
+     * Returns statements of a physical connection.
+     * A new physical connection is met rarely, because a pool reuses its connections, so statements of closed connections
+     * are evicted only at this moment.
+     */
+    private Map<String, Cached> ofConnection(Connection aPhysical) throws SQLException {
+        Map<String, Cached> ofConnection = statements.get(aPhysical);
+        if (ofConnection == null) {
+            evictClosedConnections();
+            ofConnection = statements.computeIfAbsent(aPhysical, c -> new LinkedHashMap<>(16, 0.75f, true));
+        }
+        return ofConnection;
+    }
+
+    private void evictClosedConnections() throws SQLException {
+        for (Map.Entry<Connection, Map<String, Cached>> entry : statements.entrySet()) {
+            if (entry.getKey().isClosed() && statements.remove(entry.getKey(), entry.getValue())) {
+                Map<String, Cached> ofConnection = entry.getValue();
+                List<PreparedStatement> evicted = new ArrayList<>();
+                synchronized (ofConnection) {
+                    ofConnection.values().forEach(cached -> evict(cached, evicted));
+                    ofConnection.clear();
+                }
+                close(evicted);
+            }
+        }
+    }
+
+    private void evictEldest(Map<String, Cached> aOfConnection, List<PreparedStatement> aEvicted) {
+        Iterator<Cached> lru = aOfConnection.values().iterator();
+        while (aOfConnection.size() > maximumStatements && lru.hasNext()) {
+            Cached eldest = lru.next();
+            if (!eldest.inUse) {
+                lru.remove();
+                evict(eldest, aEvicted);
+            }
+        }
+    }
+
+    private void evict(Cached aCached, List<PreparedStatement> aEvicted) {
+        evictions.incrementAndGet();
+        aEvicted.add(aCached.statement);
+    }
+
+    private static void close(List<PreparedStatement> aStatements) {
+        for (PreparedStatement statement : aStatements) {
+            try {
+                statement.close();
+            } catch (SQLException ex) {
+                Logger.getLogger(StatementsCache.class.getName()).log(Level.WARNING, "Evicted statement close failed: " + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StatementsCache{maximumStatements=" + maximumStatements + ", hits=" + hits.get() + ", misses=" + misses.get() + ", evictions=" + evictions.get() + "}";
+    }
+
+    private static class Cached {
+        private final PreparedStatement statement;
+        private final boolean call;
+        private boolean inUse = true;
+
+        private Cached(PreparedStatement aStatement, boolean aCall) {
+            statement = aStatement;
+            call = aCall;
+        }
+    }
+}
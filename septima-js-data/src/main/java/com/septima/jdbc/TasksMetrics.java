@@ -0,0 +1,154 @@
+package com.septima.jdbc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings of tasks, performed by a jdbc tasks performer.
+ * Each task is measured while it waits in a queue (or for a permit) and while it is executed.
+ * Timings are accumulated in nanoseconds and reported in milliseconds.
+ * Tasks, rejected by a performer because of its full queue, and tasks, performed by a submitting thread, are counted as well.
+ *
+ * @author mg
+ */
+public class TasksMetrics {
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong callerRuns = new AtomicLong();
+    private final AtomicLong queueWait = new AtomicLong();
+    private final AtomicLong maximumQueueWait = new AtomicLong();
+    private final AtomicLong execution = new AtomicLong();
+
+    /**
+     * Registers a task, submitted to a performer.
+     *
+     * @return A moment the task is enqueued at in terms of {@link System#nanoTime()}.
+     */
+    public long onEnqueued() {
+        enqueued.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Registers a start of a task.
+     *
+     * @param aEnqueuedAt A moment the task was enqueued at, returned by {@link #onEnqueued()}.
+     * @return A moment the task is started at in terms of {@link System#nanoTime()}.
+     */
+    public long onStarted(long aEnqueuedAt) {
+        long startedAt = System.nanoTime();
+        long waited = startedAt - aEnqueuedAt;
+        queueWait.addAndGet(waited);
+        maximumQueueWait.accumulateAndGet(waited, Math::max);
+        started.incrementAndGet();
+        return startedAt;
+    }
+
+    /**
+     * Registers a finish of a task.
+     *
+     * @param aStartedAt A moment the task was started at, returned by {@link #onStarted(long)}.
+     */
+    public void onFinished(long aStartedAt) {
+        execution.addAndGet(System.nanoTime() - aStartedAt);
+        finished.incrementAndGet();
+    }
+
+    /**
+     * Registers a task, rejected by a performer. Such task will not be started.
+     */
+    public void onRejected() {
+        rejected.incrementAndGet();
+    }
+
+    /**
+     * Registers a task, performed by a submitting thread because of a performer's full queue.
+     */
+    public void onCallerRuns() {
+        callerRuns.incrementAndGet();
+    }
+
+    /**
+     * Wraps a task with timings registration.
+     * {@link #onEnqueued()} is called immediately and the other events are registered while the returned task runs.
+     *
+     * @param aTask A task to be measured.
+     * @return A measured task.
+     */
+    public Runnable measured(Runnable aTask) {
+        long enqueuedAt = onEnqueued();
+        return () -> {
+            long startedAt = onStarted(enqueuedAt);
+            try {
+                aTask.run();
+            } finally {
+                onFinished(startedAt);
+            }
+        };
+    }
+
+    public long getEnqueued() {
+        return enqueued.get();
+    }
+
+    public long getStarted() {
+        return started.get();
+    }
+
+    public long getFinished() {
+        return finished.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getCallerRuns() {
+        return callerRuns.get();
+    }
+
+    /**
+     * @return Number of tasks, waiting for execution.
+     */
+    public long getQueued() {
+        return enqueued.get() - started.get() - rejected.get();
+    }
+
+    /**
+     * @return Number of tasks, being executed.
+     */
+    public long getActive() {
+        return started.get() - finished.get();
+    }
+
+    /**
+     * @return Average time of tasks waiting in a queue in milliseconds.
+     */
+    public double getAverageQueueWait() {
+        long count = started.get();
+        return count > 0 ? (double) queueWait.get() / count / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+    }
+
+    /**
+     * @return Maximum time of a task waiting in a queue in milliseconds.
+     */
+    public double getMaximumQueueWait() {
+        return (double) maximumQueueWait.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return Average time of tasks execution in milliseconds.
+     */
+    public double getAverageExecution() {
+        long count = finished.get();
+        return count > 0 ? (double) execution.get() / count / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "TasksMetrics{enqueued=" + enqueued.get() + ", queued=" + getQueued() + ", active=" + getActive() + ", finished=" + finished.get() + ", rejected=" + rejected.get() + ", callerRuns=" + callerRuns.get() + ", averageQueueWait=" + getAverageQueueWait() + ", maximumQueueWait=" + getMaximumQueueWait() + ", averageExecution=" + getAverageExecution() + "}";
+    }
+}
@@ -0,0 +1,203 @@
+package com.septima.jdbc;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Jdbc tasks performer, that starts a thread per task and limits parallel tasks by a semaphore per data source.
+ * So parallelism of jdbc tasks is limited by a connections pool size rather than by a number of threads
+ * and tasks wait for a permit instead of waiting in a queue of a threads pool.
+ * Virtual threads are used when the runtime supports them. Otherwise, daemon platform threads are used.
+ * Number of tasks, waiting for a permit, may be bounded. A task, that exceeds the bound, is rejected
+ * with {@link RejectedExecutionException} or is performed by a submitting thread.
+ *
+ * @author mg
+ */
+public class VirtualThreadsPerformer implements Executor {
+
+    private static final String THREADS_NAMES_PREFIX = "jdbc-virtual-";
+    private static final ThreadFactory THREADS = threadsFactory();
+
+    /**
+     * Performer of a data source's tasks.
+     */
+    public static class Limited implements Executor {
+
+        private final Semaphore permits;
+        private final int maximumParallelTasks;
+        private final int maximumQueueSize;
+        private final boolean callerRuns;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final TasksMetrics metrics = new TasksMetrics();
+
+        private Limited(int aMaximumParallelTasks, int aMaximumQueueSize, boolean aCallerRuns) {
+            maximumParallelTasks = aMaximumParallelTasks;
+            maximumQueueSize = aMaximumQueueSize;
+            callerRuns = aCallerRuns;
+            permits = new Semaphore(aMaximumParallelTasks, true);
+        }
+
+        @Override
+        public void execute(Runnable aTask) {
+            Objects.requireNonNull(aTask, "aTask is required argument");
+            long enqueuedAt = metrics.onEnqueued();
+            int nowPending = pending.incrementAndGet();
+            Runnable limited = () -> {
+                try {
+                    permits.acquireUninterruptibly();
+                    try {
+                        long startedAt = metrics.onStarted(enqueuedAt);
+                        try {
+                            aTask.run();
+                        } finally {
+                            metrics.onFinished(startedAt);
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                } finally {
+                    pending.decrementAndGet();
+                }
+            };
+            if (maximumQueueSize > 0 && nowPending > maximumParallelTasks + maximumQueueSize) {
+                if (callerRuns) {
+                    metrics.onCallerRuns();
+                    limited.run();
+                } else {
+                    pending.decrementAndGet();
+                    metrics.onRejected();
+                    throw new RejectedExecutionException("Jdbc task is rejected. Pending tasks: " + (nowPending - 1) + ", maximum parallel tasks: " + maximumParallelTasks + ", maximum queue size: " + maximumQueueSize);
+                }
+            } else {
+                THREADS.newThread(limited).start();
+            }
+        }
+
+        public int getMaximumParallelTasks() {
+            return maximumParallelTasks;
+        }
+
+        public int getMaximumQueueSize() {
+            return maximumQueueSize;
+        }
+
+        public boolean isCallerRuns() {
+            return callerRuns;
+        }
+
+        public int getAvailablePermits() {
+            return permits.availablePermits();
+        }
+
+        public TasksMetrics getMetrics() {
+            return metrics;
+        }
+    }
+
+    private final int maximumParallelTasks;
+    private final int maximumQueueSize;
+    private final boolean callerRuns;
+    private final Limited common;
+    private final Map<String, Limited> dataSourcesPerformers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a performer.
+     *
+     * @param aMaximumParallelTasks Maximum number of tasks, performed in parallel against a data source.
+     *                              It should not exceed a size of the data source's connections pool.
+     */
+    public VirtualThreadsPerformer(int aMaximumParallelTasks) {
+        this(aMaximumParallelTasks, 0, false);
+    }
+
+    /**
+     * Creates a performer with bounded number of tasks, waiting for a permit.
+     *
+     * @param aMaximumParallelTasks Maximum number of tasks, performed in parallel against a data source.
+     * @param aMaximumQueueSize     Maximum number of tasks, waiting for a permit of a data source.
+     *                              Value less or equal to zero means that waiting tasks are not bounded.
+     * @param aCallerRuns           If true, a task, that exceeds the bound, is performed by a submitting thread.
+     *                              Otherwise it is rejected with {@link RejectedExecutionException}.
+     */
+    public VirtualThreadsPerformer(int aMaximumParallelTasks, int aMaximumQueueSize, boolean aCallerRuns) {
+        maximumParallelTasks = Math.max(1, aMaximumParallelTasks);
+        maximumQueueSize = aMaximumQueueSize;
+        callerRuns = aCallerRuns;
+        common = new Limited(maximumParallelTasks, maximumQueueSize, callerRuns);
+    }
+
+    /**
+     * Performs a task, not bound to a particular data source.
+     * Such tasks are limited by a separate semaphore.
+     *
+     * @param aTask A jdbc task to be performed.
+     */
+    @Override
+    public void execute(Runnable aTask) {
+        common.execute(aTask);
+    }
+
+    /**
+     * Returns a performer of a data source's tasks.
+     *
+     * @param aDataSourceName A data source name.
+     * @return {@link Limited} performer with its own semaphore and metrics.
+     */
+    public Limited of(String aDataSourceName) {
+        Objects.requireNonNull(aDataSourceName, "aDataSourceName is required argument");
+        return dataSourcesPerformers.computeIfAbsent(aDataSourceName, dsn -> new Limited(maximumParallelTasks, maximumQueueSize, callerRuns));
+    }
+
+    public Map<String, Limited> getDataSourcesPerformers() {
+        return Map.copyOf(dataSourcesPerformers);
+    }
+
+    public int getMaximumParallelTasks() {
+        return maximumParallelTasks;
+    }
+
+    public int getMaximumQueueSize() {
+        return maximumQueueSize;
+    }
+
+    public static boolean isVirtual() {
+        return !(THREADS instanceof PlatformThreads);
+    }
+
+    private static class PlatformThreads implements ThreadFactory {
+        private final AtomicLong threadNumber = new AtomicLong();
+
+        @Override
+        public Thread newThread(Runnable aTask) {
+            Thread thread = new Thread(aTask, THREADS_NAMES_PREFIX + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Creates a virtual threads factory via reflection, so the code can be compiled and run by older runtimes.
+     *
+     * @return Virtual threads factory or {@link PlatformThreads} if the runtime doesn't support virtual threads.
+     */
+    private static ThreadFactory threadsFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREADS_NAMES_PREFIX, 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException ex) {
+            Logger.getLogger(VirtualThreadsPerformer.class.getName()).log(Level.INFO, "Virtual threads are not supported by the runtime, platform threads will be used.");
+            return new PlatformThreads();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.septima.metadata;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.septima.queries.CaseInsensitiveMap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reads and writes tables' columns, primary and foreign keys as a json file.
+ * The file allows to start an application without querying of a database metadata.
+ *
+ * @author mg
+ */
+public class TablesSnapshot {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private TablesSnapshot() {
+        throw new IllegalStateException("Couldn't be instantiated");
+    }
+
+    /**
+     * Writes tables to a snapshot file.
+     * The file is replaced atomically if a file system supports it, so a reader never sees a partially written file.
+     *
+     * @param aSnapshot A path of a snapshot file.
+     * @param aTables   Columns of tables by schemas and tables names.
+     * @throws IOException If the file can't be written.
+     */
+    public static void write(Path aSnapshot, Map<String, Map<String, Map<String, JdbcColumn>>> aTables) throws IOException {
+        Objects.requireNonNull(aSnapshot, "aSnapshot is required argument");
+        Objects.requireNonNull(aTables, "aTables is required argument");
+        List<Map<String, Object>> tables = new ArrayList<>();
+        aTables.forEach((schema, schemaTables) -> schemaTables.forEach((table, columns) -> {
+            Map<String, Object> tableNode = new LinkedHashMap<>();
+            tableNode.put("schema", schema);
+            tableNode.put("table", table);
+            List<Map<String, Object>> columnsNodes = new ArrayList<>();
+            columns.values().forEach(column -> columnsNodes.add(columnNode(column)));
+            tableNode.put("columns", columnsNodes);
+            tables.add(tableNode);
+        }));
+        Path parent = aSnapshot.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path written = aSnapshot.resolveSibling(aSnapshot.getFileName() + ".tmp");
+        JSON.writeValue(written.toFile(), Map.of("tables", tables));
+        try {
+            Files.move(written, aSnapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            Files.move(written, aSnapshot, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads tables from a snapshot file.
+     *
+     * @param aSnapshot A path of a snapshot file.
+     * @return Columns of tables by schemas and tables names.
+     * @throws IOException If the file can't be read or parsed.
+     */
+    public static Map<String, Map<String, Map<String, JdbcColumn>>> read(Path aSnapshot) throws IOException {
+        Objects.requireNonNull(aSnapshot, "aSnapshot is required argument");
+        JsonNode root = JSON.readTree(aSnapshot.toFile());
+        Map<String, Map<String, Map<String, JdbcColumn>>> tables = new CaseInsensitiveMap<>(new HashMap<>());
+        for (JsonNode tableNode : root.path("tables")) {
+            String schema = text(tableNode, "schema");
+            String table = text(tableNode, "table");
+            if (table == null) {
+                throw new IOException("Malformed metadata snapshot '" + aSnapshot + "'. 'table' property is required");
+            }
+            Map<String, JdbcColumn> columns = new CaseInsensitiveMap<>(new LinkedHashMap<>());
+            for (JsonNode columnNode : tableNode.path("columns")) {
+                JdbcColumn column = columnOf(columnNode);
+                columns.put(column.getOriginalName(), column);
+            }
+            tables.computeIfAbsent(schema, sn -> new CaseInsensitiveMap<>(new HashMap<>()))
+                    .put(table, columns);
+        }
+        return tables;
+    }
+
+    private static Map<String, Object> columnNode(JdbcColumn aColumn) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("name", aColumn.getName());
+        node.put("description", aColumn.getDescription());
+        node.put("originalName", aColumn.getOriginalName());
+        node.put("tableName", aColumn.getTableName());
+        node.put("rdbmsType", aColumn.getRdbmsType());
+        node.put("nullable", aColumn.isNullable());
+        node.put("pk", aColumn.isPk());
+        if (aColumn.getFk() != null) {
+            ForeignKey fk = aColumn.getFk();
+            Map<String, Object> fkNode = new LinkedHashMap<>();
+            fkNode.put("schema", fk.getSchema());
+            fkNode.put("table", fk.getTable());
+            fkNode.put("column", fk.getColumn());
+            fkNode.put("name", fk.getCName());
+            fkNode.put("updateRule", fk.getUpdateRule() != null ? fk.getUpdateRule().name() : null);
+            fkNode.put("deleteRule", fk.getDeleteRule() != null ? fk.getDeleteRule().name() : null);
+            fkNode.put("deferrable", fk.isDeferrable());
+            PrimaryKey referee = fk.getReferee();
+            fkNode.put("refereeSchema", referee.getSchema());
+            fkNode.put("refereeTable", referee.getTable());
+            fkNode.put("refereeColumn", referee.getColumn());
+            fkNode.put("refereeName", referee.getCName());
+            node.put("fk", fkNode);
+        }
+        node.put("size", aColumn.getSize());
+        node.put("scale", aColumn.getScale());
+        node.put("precision", aColumn.getPrecision());
+        node.put("signed", aColumn.isSigned());
+        node.put("schema", aColumn.getSchema());
+        node.put("jdbcType", aColumn.getJdbcType());
+        return node;
+    }
+
+    private static JdbcColumn columnOf(JsonNode aNode) {
+        JsonNode fkNode = aNode.path("fk");
+        ForeignKey fk = fkNode.isObject() ? new ForeignKey(
+                text(fkNode, "schema"),
+                text(fkNode, "table"),
+                text(fkNode, "column"),
+                text(fkNode, "name"),
+                ruleOf(text(fkNode, "updateRule")),
+                ruleOf(text(fkNode, "deleteRule")),
+                fkNode.path("deferrable").asBoolean(),
+                text(fkNode, "refereeSchema"),
+                text(fkNode, "refereeTable"),
+                text(fkNode, "refereeColumn"),
+                text(fkNode, "refereeName")
+        ) : null;
+        return new JdbcColumn(
+                text(aNode, "name"),
+                text(aNode, "description"),
+                text(aNode, "originalName"),
+                text(aNode, "tableName"),
+                text(aNode, "rdbmsType"),
+                aNode.path("nullable").asBoolean(true),
+                aNode.path("pk").asBoolean(),
+                fk,
+                aNode.path("size").asInt(),
+                aNode.path("scale").asInt(),
+                aNode.path("precision").asInt(),
+                aNode.path("signed").asBoolean(),
+                text(aNode, "schema"),
+                aNode.path("jdbcType").asInt()
+        );
+    }
+
+    private static ForeignKey.ForeignKeyRule ruleOf(String aName) {
+        return aName != null ? ForeignKey.ForeignKeyRule.valueOf(aName) : null;
+    }
+
+    private static String text(JsonNode aNode, String aField) {
+        JsonNode value = aNode.get(aField);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+}
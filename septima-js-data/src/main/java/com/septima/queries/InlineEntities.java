@@ -1,18 +1,15 @@
 package com.septima.queries;
 
 import com.septima.entities.SqlEntities;
-import com.septima.entities.SqlEntity;
-import net.sf.jsqlparser.JSqlParser;
 import net.sf.jsqlparser.JSqlParserException;
-import net.sf.jsqlparser.SeptimaSqlParser;
 import net.sf.jsqlparser.UncheckedJSqlParserException;
 import net.sf.jsqlparser.schema.Table;
 import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.statement.select.*;
 import net.sf.jsqlparser.syntax.SyntaxTreeVisitor;
 
-import java.io.StringReader;
 import java.nio.file.Path;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -25,6 +22,61 @@ public class InlineEntities extends SyntaxTreeVisitor {
         syntax.accept(inline);
     }
 
+    /**
+     * Collects names of entities, referenced by {@code #entity/name} syntax without loading of them.
+     * Names are resolved the same way as while inlining.
+     *
+     * @param syntax             A syntax tree of an entity's sql text.
+     * @param aEntities          {@link SqlEntities} instance, used to resolve relative references.
+     * @param aStartOfReferences A directory relative references start from.
+     * @return Names of referenced entities in order of occurrence.
+     */
+    public static Set<String> referencesOf(Statement syntax, SqlEntities aEntities, Path aStartOfReferences) {
+        Set<String> references = new LinkedHashSet<>();
+        syntax.accept(new SyntaxTreeVisitor() {
+            @Override
+            public void visit(PlainSelect plainSelect) {
+                super.visit(plainSelect);
+                addReference(plainSelect.getFromItem());
+            }
+
+            @Override
+            protected void visitJoin(Join join) {
+                super.visitJoin(join);
+                addReference(join.getRightItem());
+            }
+
+            private void addReference(FromItem aFromItem) {
+                String referenced = referencedEntityName(aFromItem, aEntities, aStartOfReferences);
+                if (referenced != null) {
+                    references.add(referenced);
+                }
+            }
+        });
+        return references;
+    }
+
+    private static String referencedEntityName(FromItem fromItem, SqlEntities aEntities, Path aStartOfReferences) {
+        if (fromItem instanceof Table) {
+            Table table = (Table) fromItem;
+            if ((table.getSchemaName() == null || table.getSchemaName().isEmpty()) &&
+                    (table.getName() != null && table.getName().length() > 1 && table.getName().startsWith(HASH))) {
+                String inlinedEntityRef = table.getName().substring(1);
+                if (inlinedEntityRef.startsWith("../") || inlinedEntityRef.startsWith("./")) {
+                    Path absoluteRef = aStartOfReferences.resolve(inlinedEntityRef);
+                    Path entityRef = (aEntities.getEntitiesRoot() != null  ? aEntities.getEntitiesRoot() : aEntities.getResourcesEntitiesRoot()).relativize(absoluteRef);
+                    return entityRef.normalize().toString().replace('\\', '/');
+                } else {
+                    return inlinedEntityRef;
+                }
+            } else {
+                return null;
+            }
+        } else {
+            return null;
+        }
+    }
+
     private final SqlEntities entities;
     private final Map<String, Map<String, String>> parametersBinds;
     private final Path startOfReferences;
@@ -38,43 +90,27 @@ public class InlineEntities extends SyntaxTreeVisitor {
     }
 
     private FromItem fromItemToSubEntity(FromItem fromItem) {
-        if (fromItem instanceof Table) {
+        String inlinedEntityName = referencedEntityName(fromItem, entities, startOfReferences);
+        if (inlinedEntityName != null) {
             Table table = (Table) fromItem;
-            if ((table.getSchemaName() == null || table.getSchemaName().isEmpty()) &&
-                    (table.getName() != null && table.getName().length() > 1 && table.getName().startsWith(HASH))) {
-                String inlinedEntityRef = table.getName().substring(1);
-                String inlinedEntityName;
-                if (inlinedEntityRef.startsWith("../") || inlinedEntityRef.startsWith("./")) {
-                    Path absoluteRef = startOfReferences.resolve(inlinedEntityRef);
-                    Path entityRef = (entities.getEntitiesRoot() != null  ? entities.getEntitiesRoot() : entities.getResourcesEntitiesRoot()).relativize(absoluteRef);
-                    inlinedEntityName = entityRef.normalize().toString().replace('\\', '/');
+            try {
+                Statement querySyntax = entities.loadSyntax(inlinedEntityName, illegalReferences);
+                if (querySyntax instanceof Select) {
+                    String sourceName = table.getAlias() != null && table.getAlias().getName() != null ? table.getAlias().getName() : inlinedEntityName.replaceAll("[/\\-\\.]+", "_");
+                    RenameParameters rename = new RenameParameters(parametersBinds.getOrDefault(sourceName, Map.of()));
+                    querySyntax.accept(rename);
+                    SubSelect subSelect = new SubSelect();
+                    subSelect.setSelectBody(((Select) querySyntax).getSelectBody());
+                    Alias alias = new Alias();
+                    alias.setName(sourceName);
+                    subSelect.setAlias(alias);
+                    subSelect.setCommentBeginBracket(table.getComment());
+                    return subSelect;
                 } else {
-                    inlinedEntityName = inlinedEntityRef;
-                }
-                SqlEntity inlinedEntity = entities.loadEntity(inlinedEntityName, illegalReferences);
-                String inlinedEntitySql = inlinedEntity.getSqlText();
-                JSqlParser sqlParser = new SeptimaSqlParser();
-                try {
-                    Statement querySyntax = sqlParser.parse(new StringReader(inlinedEntitySql));
-                    if (querySyntax instanceof Select) {
-                        String sourceName = table.getAlias() != null && table.getAlias().getName() != null ? table.getAlias().getName() : inlinedEntityName.replaceAll("[/\\-\\.]+", "_");
-                        RenameParameters rename = new RenameParameters(parametersBinds.getOrDefault(sourceName, Map.of()));
-                        querySyntax.accept(rename);
-                        SubSelect subSelect = new SubSelect();
-                        subSelect.setSelectBody(((Select) querySyntax).getSelectBody());
-                        Alias alias = new Alias();
-                        alias.setName(sourceName);
-                        subSelect.setAlias(alias);
-                        subSelect.setCommentBeginBracket(table.getComment());
-                        return subSelect;
-                    } else {
-                        throw new IllegalStateException("Entity '" + inlinedEntityName + " can't be inlined, due to its Sql is not a 'Select' query.");
-                    }
-                } catch (JSqlParserException ex) {
-                    throw new UncheckedJSqlParserException(ex);
+                    throw new IllegalStateException("Entity '" + inlinedEntityName + " can't be inlined, due to its Sql is not a 'Select' query.");
                 }
-            } else {
-                return fromItem;
+            } catch (JSqlParserException ex) {
+                throw new UncheckedJSqlParserException(ex);
             }
         } else {
             return fromItem;
@@ -0,0 +1,208 @@
+package com.septima.queries;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Size bounded cache of a query's results with time to live of entries.
+ * Results are keyed by parameters' values of the query.
+ * Entries are evicted in least recently used order when the cache is full.
+ * The cache is invalidated as a whole when tables, the query reads from, are changed.
+ * Results are cached as unmodifiable lists and their rows should not be modified by a client code.
+ *
+ * @author mg
+ */
+public class ResultsCache {
+
+    /**
+     * Settings of a query's results cache. Read from {@code "cache"} section of an entity's json.
+     */
+    public static class Policy {
+
+        public static final int DEFAULT_MAXIMUM_ENTRIES = 256;
+
+        private final long ttl;
+        private final int maximumEntries;
+        private final Set<String> tables;
+
+        /**
+         * @param aTtl            Time to live of an entry in milliseconds. Value less or equal to zero means
+         *                        that entries are evicted only because of tables changes or cache size.
+         * @param aMaximumEntries Maximum number of cached results.
+         * @param aTables         Tables, read by a query in addition to tables of its fields.
+         */
+        public Policy(long aTtl, int aMaximumEntries, Set<String> aTables) {
+            Objects.requireNonNull(aTables, "aTables is required argument");
+            ttl = aTtl;
+            maximumEntries = aMaximumEntries;
+            tables = aTables;
+        }
+
+        public long getTtl() {
+            return ttl;
+        }
+
+        public int getMaximumEntries() {
+            return maximumEntries;
+        }
+
+        public Set<String> getTables() {
+            return tables;
+        }
+    }
+
+    private final String entityName;
+    private final long ttl;
+    private final int maximumEntries;
+    private final Set<String> tables;
+    private final Map<List<Object>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private long generation;
+
+    /**
+     * Creates a results cache of a query.
+     *
+     * @param aEntityName     A name of the query's entity.
+     * @param aPolicy         Settings of the cache.
+     * @param aTables         Tables, the query reads from. If it is empty, the cache is invalidated
+     *                        by changes of any table.
+     */
+    public ResultsCache(String aEntityName, Policy aPolicy, Collection<String> aTables) {
+        Objects.requireNonNull(aPolicy, "aPolicy is required argument");
+        Objects.requireNonNull(aTables, "aTables is required argument");
+        entityName = aEntityName;
+        ttl = aPolicy.getTtl();
+        maximumEntries = Math.max(1, aPolicy.getMaximumEntries());
+        Set<String> read = new CaseInsensitiveSet(new HashSet<>());
+        read.addAll(aTables);
+        read.addAll(aPolicy.getTables());
+        tables = read;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Set<String> getTables() {
+        return tables;
+    }
+
+    /**
+     * Checks if the cache depends on a table.
+     *
+     * @param aTableName A name of a changed table.
+     * @return True if the cached results should be invalidated because of the table change.
+     */
+    public boolean reads(String aTableName) {
+        return tables.isEmpty() || aTableName == null || tables.contains(aTableName);
+    }
+
+    /**
+     * Returns cached results or loads them.
+     * Results, loaded while the cache is invalidated, are not cached.
+     *
+     * @param aKey    Parameters' values of the query.
+     * @param aLoader A loader of results in case of cache miss.
+     * @return {@link CompletableFuture} of results.
+     */
+    public CompletableFuture<List<Map<String, Object>>> get(List<Object> aKey, Supplier<CompletableFuture<List<Map<String, Object>>>> aLoader) {
+        long loadedGeneration;
+        synchronized (entries) {
+            Entry cached = entries.get(aKey);
+            if (cached != null) {
+                if (ttl <= 0 || System.currentTimeMillis() - cached.created < ttl) {
+                    hits.incrementAndGet();
+                    return CompletableFuture.completedFuture(cached.rows);
+                } else {
+                    entries.remove(aKey);
+                    evictions.incrementAndGet();
+                }
+            }
+            loadedGeneration = generation;
+        }
+        misses.incrementAndGet();
+        return aLoader.get().thenApply(rows -> {
+            List<Map<String, Object>> unmodifiable = Collections.unmodifiableList(rows);
+            synchronized (entries) {
+                if (loadedGeneration == generation) {
+                    entries.put(aKey, new Entry(unmodifiable));
+                    while (entries.size() > maximumEntries) {
+                        entries.remove(entries.keySet().iterator().next());
+                        evictions.incrementAndGet();
+                    }
+                }
+            }
+            return unmodifiable;
+        });
+    }
+
+    /**
+     * Evicts all cached results.
+     */
+    public void invalidate() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * Returns ratio of requests, served from the cache.
+     *
+     * @return Hits to all requests ratio or zero if there were no requests.
+     */
+    public double getHitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total > 0 ? (double) h / total : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultsCache{entityName=" + entityName + ", size=" + size() + ", hits=" + hits.get() + ", misses=" + misses.get() + ", hitRatio=" + getHitRatio() + ", evictions=" + evictions.get() + ", invalidations=" + invalidations.get() + "}";
+    }
+
+    private static class Entry {
+        private final List<Map<String, Object>> rows;
+        private final long created = System.currentTimeMillis();
+
+        private Entry(List<Map<String, Object>> aRows) {
+            rows = aRows;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.septima.Database;
 import com.septima.GenericType;
 import com.septima.dataflow.DynamicTypingDataProvider;
 import com.septima.jdbc.JdbcReaderAssigner;
+import com.septima.jdbc.ResultSetReader;
+import com.septima.jdbc.StatementsCache;
 import com.septima.jdbc.UncheckedSQLException;
 import com.septima.metadata.EntityField;
 import com.septima.metadata.Parameter;
@@ -12,11 +14,13 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 import java.util.stream.Collectors;
 
 /**
@@ -36,8 +40,23 @@ public class SqlQuery {
     private final boolean procedure;
     private final int pageSize;
     private final Map<String, EntityField> expectedFields;
+    /**
+     * Reader of results, shared by all requests of this query.
+     * It holds readers of columns, resolved once from result set's metadata.
+     */
+    private volatile ResultSetReader reader;
+    private final ResultsCache resultsCache;
 
     public SqlQuery(Database aDatabase, String aEntityName, String aSqlClause, List<Parameter> aParams, boolean aProcedure, int aPageSize, Map<String, EntityField> aExpectedFields) {
+        this(aDatabase, aEntityName, aSqlClause, aParams, aProcedure, aPageSize, aExpectedFields, null);
+    }
+
+    /**
+     * Creates a query, which results are cached.
+     *
+     * @param aResultsCache {@link ResultsCache} instance or null if results should not be cached.
+     */
+    public SqlQuery(Database aDatabase, String aEntityName, String aSqlClause, List<Parameter> aParams, boolean aProcedure, int aPageSize, Map<String, EntityField> aExpectedFields, ResultsCache aResultsCache) {
         super();
         database = aDatabase;
         entityName = aEntityName;
@@ -46,6 +65,7 @@ public class SqlQuery {
         procedure = aProcedure;
         pageSize = aPageSize;
         expectedFields = aExpectedFields;
+        resultsCache = aResultsCache;
     }
 
     public Database getDatabase() {
@@ -64,6 +84,10 @@ public class SqlQuery {
         return expectedFields;
     }
 
+    public ResultsCache getResultsCache() {
+        return resultsCache;
+    }
+
     private List<Parameter> mergeParametersValues(Map<String, Object> aParametersValues) {
         return parameters.stream()
                 .map(own -> new Parameter(
@@ -94,12 +118,69 @@ public class SqlQuery {
      * @param aParametersValues Used as parameters' values source. If some parameter's value is not found is this map,
      *                          value of own parameter is used as the default.
      * @return {@link CompletableFuture} The future of requested data.
+     * If the query has a {@link ResultsCache}, the data may be taken from the cache and should not be modified.
      */
     public CompletableFuture<List<Map<String, Object>>> requestData(Map<String, Object> aParametersValues) {
         Objects.requireNonNull(aParametersValues, "aParametersValues is required argument");
         Objects.requireNonNull(database);
-        DynamicTypingDataProvider dataProvider = database.createDataProvider(entityName, sqlClause, procedure, pageSize, expectedFields);
-        return dataProvider.pull(mergeParametersValues(aParametersValues));
+        List<Parameter> linearParameters = mergeParametersValues(aParametersValues);
+        if (resultsCache != null) {
+            return resultsCache.get(
+                    linearParameters.stream()
+                            .map(Parameter::getValue)
+                            .collect(Collectors.toList()),
+                    () -> pull(linearParameters)
+            );
+        } else {
+            return pull(linearParameters);
+        }
+    }
+
+    private CompletableFuture<List<Map<String, Object>>> pull(List<Parameter> aLinearParameters) {
+        DynamicTypingDataProvider dataProvider = database.createDataProvider(entityName, sqlClause, procedure, pageSize, expectedFields, reader());
+        return dataProvider.pull(aLinearParameters);
+    }
+
+    /**
+     * Executes query and publishes its rows while there is a demand of a subscriber.
+     * It uses query's own parameters.
+     *
+     * @return {@link Flow.Publisher} of the query's rows.
+     */
+    public Flow.Publisher<Map<String, Object>> publishData() {
+        return publishData(Map.of());
+    }
+
+    /**
+     * Executes query and publishes its rows while there is a demand of a subscriber.
+     * Unlike {@link #requestData(Map)}, rows are not collected into a list. Rows are read from
+     * an open result set as subscriber requests them. As with {@link #requestData(Map)}, only the first page is published by a paged query.
+     *
+     * @param aParametersValues Used as parameters' values source. If some parameter's value is not found is this map,
+     *                          value of own parameter is used as the default.
+     * @return {@link Flow.Publisher} of the query's rows.
+     */
+    public Flow.Publisher<Map<String, Object>> publishData(Map<String, Object> aParametersValues) {
+        Objects.requireNonNull(aParametersValues, "aParametersValues is required argument");
+        Objects.requireNonNull(database);
+        if (resultsCache != null) {
+            return subscriber -> {
+                Objects.requireNonNull(subscriber, "subscriber is required argument");
+                requestData(aParametersValues)
+                        .whenComplete((rows, ex) -> subscriber.onSubscribe(new RowsSubscription(subscriber, rows, ex)));
+            };
+        }
+        DynamicTypingDataProvider dataProvider = database.createDataProvider(entityName, sqlClause, procedure, pageSize, expectedFields, reader());
+        return dataProvider.publish(mergeParametersValues(aParametersValues));
+    }
+
+    private ResultSetReader reader() {
+        ResultSetReader shared = reader;
+        if (shared == null) {
+            shared = database.createResultSetReader(procedure, expectedFields);
+            reader = shared;
+        }
+        return shared;
     }
 
     public Map<String, Object> parseParameters(Map<String, String> aParametersValues) {
@@ -143,18 +224,23 @@ public class SqlQuery {
                     boolean autoCommit = connection.getAutoCommit();
                     connection.setAutoCommit(false);
                     try {
-                        try (PreparedStatement stmt = connection.prepareStatement(sqlClause)) {
+                        StatementsCache statementsCache = database.getStatementsCache();
+                        PreparedStatement stmt = statementsCache.prepare(connection, sqlClause, false);
+                        try {
                             for (int i = 0; i < linearParameters.size(); i++) {
                                 jdbcReaderAssigner.assignInParameter(linearParameters.get(i), stmt, i + 1, connection);
                             }
                             try {
                                 int rowsAffected = stmt.executeUpdate();
                                 connection.commit();
+                                database.invalidateResultsCaches(Collections.singleton(null));
                                 updating.completeAsync(() -> rowsAffected, database.getFuturesExecutor());
                             } catch (SQLException | UncheckedSQLException ex) {
                                 connection.rollback();
                                 throw ex;
                             }
+                        } finally {
+                            statementsCache.release(connection, sqlClause, stmt);
                         }
                     } finally {
                         connection.setAutoCommit(autoCommit);
@@ -205,4 +291,70 @@ public class SqlQuery {
         return sb.toString();
     }
 
+
+    /**
+     * Subscription to already fetched rows, e.g. taken from the {@link ResultsCache}.
+     */
+    private static class RowsSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super Map<String, Object>> subscriber;
+        private final List<Map<String, Object>> rows;
+        private Throwable failure;
+        private int next;
+        private long demand;
+        private boolean delivering;
+        private boolean done;
+
+        private RowsSubscription(Flow.Subscriber<? super Map<String, Object>> aSubscriber, List<Map<String, Object>> aRows, Throwable aFailure) {
+            subscriber = aSubscriber;
+            rows = aRows != null ? aRows : List.of();
+            failure = aFailure;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                if (n <= 0) {
+                    failure = new IllegalArgumentException("Requested rows count should be positive, but it is: " + n);
+                }
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                if (delivering) {
+                    // An outer call of request() will deliver rows
+                    return;
+                }
+                delivering = true;
+            }
+            deliver();
+        }
+
+        private void deliver() {
+            boolean completed;
+            synchronized (this) {
+                while (!done && failure == null && next < rows.size() && demand > 0) {
+                    demand--;
+                    subscriber.onNext(rows.get(next++));
+                }
+                delivering = false;
+                completed = !done && (failure != null || next >= rows.size());
+                if (completed) {
+                    done = true;
+                }
+            }
+            if (completed) {
+                if (failure != null) {
+                    subscriber.onError(failure);
+                } else {
+                    subscriber.onComplete();
+                }
+            }
+        }
+
+        @Override
+        public synchronized void cancel() {
+            done = true;
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package com.septima.queries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Sql text with named parameters, compiled into literal segments and parameters slots.
+ * Sql text is scanned once. Parameters are recognized as {@code :name} outside of comments and string literals.
+ * Unterminated comments and string literals are considered as ordinary sql text.
+ * Double colon, e.g. PostgreSQL's cast {@code value::timestamp}, is not a parameter.
+ * A compiled template is rendered with placeholders, provided by a caller, e.g. with a sql driver's placeholders for jdbc.
+ *
+ * @author mg
+ */
+public class SqlTemplate {
+
+    private final String source;
+    private final String[] segments;
+    private final List<String> parameters;
+    private final int segmentsLength;
+
+    private SqlTemplate(String aSource, String[] aSegments, List<String> aParameters) {
+        source = aSource;
+        segments = aSegments;
+        parameters = aParameters;
+        int length = 0;
+        for (String segment : aSegments) {
+            length += segment.length();
+        }
+        segmentsLength = length;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return Names of parameters in order of their slots. A name is repeated if a parameter is used several times.
+     */
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Renders the template, substituting parameters with placeholders.
+     *
+     * @param aPlaceholder A function, called for every parameter's slot in order of slots, with parameter's name as an argument.
+     * @return Sql text with placeholders instead of parameters.
+     */
+    public String render(Function<String, String> aPlaceholder) {
+        StringBuilder rendered = new StringBuilder(segmentsLength + parameters.size() * 2);
+        rendered.append(segments[0]);
+        for (int i = 0; i < parameters.size(); i++) {
+            rendered.append(aPlaceholder.apply(parameters.get(i)));
+            rendered.append(segments[i + 1]);
+        }
+        return rendered.toString();
+    }
+
+    /**
+     * Compiles sql text into a template.
+     *
+     * @param aSql Sql text with named parameters.
+     * @return {@link SqlTemplate} instance.
+     */
+    public static SqlTemplate compile(String aSql) {
+        Objects.requireNonNull(aSql, "aSql is required argument");
+        List<String> segments = new ArrayList<>();
+        List<String> parameters = new ArrayList<>();
+        int length = aSql.length();
+        int segmentStart = 0;
+        int i = 0;
+        while (i < length) {
+            char c = aSql.charAt(i);
+            if (c == '/' && i + 1 < length && aSql.charAt(i + 1) == '*') {
+                int commentEnd = aSql.indexOf("*/", i + 2);
+                i = commentEnd > -1 ? commentEnd + 2 : i + 1;
+            } else if (c == '-' && i + 1 < length && aSql.charAt(i + 1) == '-') {
+                i += 2;
+                while (i < length && aSql.charAt(i) != '\n' && aSql.charAt(i) != '\r') {
+                    i++;
+                }
+            } else if (c == '\'') {
+                int literalEnd = aSql.indexOf('\'', i + 1);
+                i = literalEnd > -1 ? literalEnd + 1 : i + 1;
+            } else if (c == ':' && i > 0 && aSql.charAt(i - 1) != ':' && i + 1 < length && isNameStart(aSql.charAt(i + 1))) {
+                int nameEnd = i + 2;
+                while (nameEnd < length && isNamePart(aSql.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                segments.add(aSql.substring(segmentStart, i));
+                parameters.add(aSql.substring(i + 1, nameEnd));
+                segmentStart = nameEnd;
+                i = nameEnd;
+            } else {
+                i++;
+            }
+        }
+        segments.add(aSql.substring(segmentStart));
+        return new SqlTemplate(aSql, segments.toArray(new String[]{}), List.copyOf(parameters));
+    }
+
+    private static boolean isNameStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isNamePart(char c) {
+        return isNameStart(c) || (c >= '0' && c <= '9') || c == '_';
+    }
+}
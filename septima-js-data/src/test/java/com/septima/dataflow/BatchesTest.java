@@ -0,0 +1,175 @@
+package com.septima.dataflow;
+
+import com.septima.Database;
+import com.septima.TestDataSource;
+import com.septima.changes.EntityAction;
+import com.septima.changes.InstanceAdd;
+import com.septima.changes.InstanceRemove;
+import com.septima.entities.SqlEntities;
+import com.septima.entities.SqlEntity;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares throughput of commits of mixed change logs with and without regrouping of statements by clauses.
+ *
+ * @author mg
+ */
+public class BatchesTest {
+
+    private static final int PAIRS_COUNT = 5_000;
+    private static final int MAXIMUM_BATCH_SIZE = 64;
+    private static final int PARENTS_COUNT = 10;
+
+    @BeforeClass
+    public static void setupDataSource() throws NamingException {
+        TestDataSource.bind();
+    }
+
+    private static List<EntityAction> interleaved(SqlEntity aTable1, SqlEntity aTable2, long aFirstId, boolean aRemove) {
+        List<EntityAction> changeLog = new ArrayList<>(PAIRS_COUNT * 2);
+        for (long i = aFirstId; i < aFirstId + PAIRS_COUNT; i++) {
+            BigDecimal id = BigDecimal.valueOf(i);
+            if (aRemove) {
+                changeLog.add(new InstanceRemove(aTable1.getName(), Map.of("id", id)));
+                changeLog.add(new InstanceRemove(aTable2.getName(), Map.of("id", id)));
+            } else {
+                changeLog.add(new InstanceAdd(aTable1.getName(), Map.of("id", id, "f1", id, "f2", id, "f3", id)));
+                changeLog.add(new InstanceAdd(aTable2.getName(), Map.of("id", id, "fielda", id, "fieldb", id, "fieldc", id)));
+            }
+        }
+        return changeLog;
+    }
+
+    private static void measure(String aTitle, SqlEntities aEntities, Database aDatabase, SqlEntity aTable1, SqlEntity aTable2, long aFirstId) throws ExecutionException, InterruptedException {
+        List<EntityAction> inserts = interleaved(aTable1, aTable2, aFirstId, false);
+        List<EntityAction> removes = interleaved(aTable1, aTable2, aFirstId, true);
+        long started = System.nanoTime();
+        int inserted = aDatabase.commit(aEntities.bindChanges(inserts).values().iterator().next()).get();
+        int removed = aDatabase.commit(aEntities.bindChanges(removes).values().iterator().next()).get();
+        long elapsed = Math.max(1, System.nanoTime() - started);
+        assertEquals(PAIRS_COUNT * 2, inserted);
+        assertEquals(PAIRS_COUNT * 2, removed);
+        System.out.println(aTitle + ": " + (inserted + removed) + " rows changed in " + elapsed / 1_000_000 + " milliseconds"
+                + " (" + (inserted + removed) * 1_000_000_000L / elapsed + " rows per second, batch size: " + aDatabase.getBatchSize().get() + ")");
+    }
+
+    private static SqlEntities entities() {
+        return new SqlEntities(
+                new File(System.getProperty(TestDataSource.TEST_APP_PATH_PROP)).toPath(),
+                System.getProperty(TestDataSource.DATA_SOURCE_PROP_NAME),
+                true,
+                true,
+                MAXIMUM_BATCH_SIZE
+        );
+    }
+
+    private static Object invoke(Object aTarget, Method aMethod, Object[] aArgs) throws Throwable {
+        try {
+            return aMethod.invoke(aTarget, aArgs);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Wraps a data source to count executed batches. Connections are not unwrapped by statements cache,
+     * so all statements are prepared via the counting connections.
+     */
+    private static DataSource countingBatches(DataSource aDataSource, AtomicInteger aBatches) {
+        ClassLoader loader = BatchesTest.class.getClassLoader();
+        return (DataSource) Proxy.newProxyInstance(loader, new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+            Object result = invoke(aDataSource, method, args);
+            if ("getConnection".equals(method.getName())) {
+                Connection connection = (Connection) result;
+                return Proxy.newProxyInstance(loader, new Class<?>[]{Connection.class}, (connProxy, connMethod, connArgs) -> {
+                    if ("isWrapperFor".equals(connMethod.getName())) {
+                        return false;
+                    } else if ("prepareStatement".equals(connMethod.getName())) {
+                        PreparedStatement statement = (PreparedStatement) invoke(connection, connMethod, connArgs);
+                        return Proxy.newProxyInstance(loader, new Class<?>[]{PreparedStatement.class}, (stmtProxy, stmtMethod, stmtArgs) -> {
+                            if ("executeBatch".equals(stmtMethod.getName())) {
+                                aBatches.incrementAndGet();
+                            }
+                            return invoke(statement, stmtMethod, stmtArgs);
+                        });
+                    } else {
+                        return invoke(connection, connMethod, connArgs);
+                    }
+                });
+            } else {
+                return result;
+            }
+        });
+    }
+
+    @Test
+    public void parentsBeforeChildren() throws Exception {
+        SqlEntities entities = entities();
+        SqlEntity customer = entities.loadEntity("changes/customer");
+        SqlEntity goodOrder = entities.loadEntity("changes/goodorder");
+        Database regrouping = customer.getDatabase();
+        AtomicInteger batches = new AtomicInteger();
+        Database counting = new Database(
+                countingBatches(regrouping.getDataSource(), batches),
+                regrouping.getSqlDriver(),
+                regrouping.getMetadata(),
+                regrouping.getJdbcPerformer(),
+                regrouping.getFuturesExecutor(),
+                true,
+                MAXIMUM_BATCH_SIZE
+        );
+        List<EntityAction> inserts = new ArrayList<>();
+        List<EntityAction> removes = new ArrayList<>();
+        for (long i = 10_000; i < 10_000 + PARENTS_COUNT; i++) {
+            BigDecimal id = BigDecimal.valueOf(i);
+            inserts.add(new InstanceAdd(customer.getName(), Map.of("customer_id", id, "customer_name", "Customer " + i)));
+            inserts.add(new InstanceAdd(goodOrder.getName(), Map.of("order_id", id, "amount", id, "customer", id)));
+            removes.add(new InstanceRemove(goodOrder.getName(), Map.of("order_id", id)));
+            removes.add(new InstanceRemove(customer.getName(), Map.of("customer_id", id)));
+        }
+        // Customers are inserted before orders and orders are deleted before customers
+        assertEquals(PARENTS_COUNT * 2, (int) counting.commit(entities.bindChanges(inserts).values().iterator().next()).get());
+        assertEquals(2, batches.get());
+        assertEquals(PARENTS_COUNT * 2, (int) counting.commit(entities.bindChanges(removes).values().iterator().next()).get());
+        assertEquals(4, batches.get());
+    }
+
+    @Test
+    public void mixedChangeLogThroughput() throws Exception {
+        SqlEntities entities = entities();
+        SqlEntity table1 = entities.loadEntity("changes/table1");
+        SqlEntity table2 = entities.loadEntity("changes/table2");
+        Database regrouping = table1.getDatabase();
+        Database consecutive = new Database(
+                regrouping.getDataSource(),
+                regrouping.getSqlDriver(),
+                null,
+                regrouping.getJdbcPerformer(),
+                regrouping.getFuturesExecutor(),
+                true,
+                MAXIMUM_BATCH_SIZE
+        );
+        // warm up
+        measure("Warm up", entities, regrouping, table1, table2, 1_000_000);
+        measure("Consecutive batches", entities, consecutive, table1, table2, 2_000_000);
+        measure("Regrouped batches", entities, regrouping, table1, table2, 3_000_000);
+    }
+}
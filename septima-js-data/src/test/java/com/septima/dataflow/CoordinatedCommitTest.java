@@ -0,0 +1,170 @@
+package com.septima.dataflow;
+
+import com.septima.Database;
+import com.septima.PartialCommitException;
+import com.septima.TestDataSource;
+import com.septima.changes.EntityAction;
+import com.septima.changes.InstanceAdd;
+import com.septima.changes.InstanceRemove;
+import com.septima.entities.SqlEntities;
+import com.septima.entities.SqlEntity;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Commit of statements to several databases as a whole.
+ * Two databases are emulated with two {@link Database} instances over the same data source, so they use different connections.
+ *
+ * @author mg
+ */
+public class CoordinatedCommitTest {
+
+    @BeforeClass
+    public static void setupDataSource() throws NamingException {
+        TestDataSource.bind();
+    }
+
+    private static List<EntityActionsBinder.BoundStatement> bind(SqlEntities aEntities, EntityAction... aChangeLog) {
+        return aEntities.bindChanges(List.of(aChangeLog)).values().iterator().next();
+    }
+
+    private static int count(Database aDatabase, String aTable, BigDecimal anId) throws SQLException {
+        try (Connection connection = aDatabase.getDataSource().getConnection();
+             PreparedStatement stmt = connection.prepareStatement("Select count(*) From " + aTable + " Where id = ?")) {
+            stmt.setBigDecimal(1, anId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static SqlEntities entities() {
+        return new SqlEntities(
+                new File(System.getProperty(TestDataSource.TEST_APP_PATH_PROP)).toPath(),
+                System.getProperty(TestDataSource.DATA_SOURCE_PROP_NAME),
+                true,
+                true,
+                1
+        );
+    }
+
+    /**
+     * @return A data source with connections, refusing to commit.
+     */
+    private static DataSource refusingCommits(DataSource aDataSource) {
+        return (DataSource) Proxy.newProxyInstance(CoordinatedCommitTest.class.getClassLoader(), new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+            if ("getConnection".equals(method.getName())) {
+                Connection connection = aDataSource.getConnection();
+                return Proxy.newProxyInstance(CoordinatedCommitTest.class.getClassLoader(), new Class<?>[]{Connection.class}, (cProxy, cMethod, cArgs) -> {
+                    if ("commit".equals(cMethod.getName())) {
+                        throw new SQLException("Commit is refused");
+                    } else {
+                        try {
+                            return cMethod.invoke(connection, cArgs);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                    }
+                });
+            } else {
+                try {
+                    return method.invoke(aDataSource, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void allOrNothing() throws Exception {
+        SqlEntities entities = entities();
+        SqlEntity table1 = entities.loadEntity("changes/table1");
+        SqlEntity table2 = entities.loadEntity("changes/table2");
+        Database first = table1.getDatabase();
+        Database second = new Database(
+                first.getDataSource(),
+                first.getSqlDriver(),
+                null,
+                first.getJdbcPerformer(),
+                first.getFuturesExecutor(),
+                true,
+                1
+        );
+        BigDecimal id = BigDecimal.valueOf(7_000_000);
+        InstanceAdd add1 = new InstanceAdd(table1.getName(), Map.of("id", id, "f1", id, "f2", id, "f3", id));
+        InstanceAdd add2 = new InstanceAdd(table2.getName(), Map.of("id", id, "fielda", id, "fieldb", id, "fieldc", id));
+        try {
+            Database.commit(Map.of(first, bind(entities, add1), second, bind(entities, add2, add2))).get();
+            fail("Primary key violation is expected");
+        } catch (ExecutionException ex) {
+            assertEquals(0, count(first, "table1", id));
+            assertEquals(0, count(first, "table2", id));
+        }
+        assertEquals(2, (int) Database.commit(Map.of(first, bind(entities, add1), second, bind(entities, add2))).get());
+        assertEquals(1, count(first, "table1", id));
+        assertEquals(1, count(first, "table2", id));
+        assertEquals(2, (int) Database.commit(Map.of(
+                first, bind(entities, new InstanceRemove(table1.getName(), Map.of("id", id))),
+                second, bind(entities, new InstanceRemove(table2.getName(), Map.of("id", id)))
+        )).get());
+        assertEquals(0, count(first, "table1", id));
+        assertEquals(0, count(first, "table2", id));
+    }
+
+    @Test
+    public void partialCommit() throws Exception {
+        SqlEntities entities = entities();
+        SqlEntity table1 = entities.loadEntity("changes/table1");
+        SqlEntity table2 = entities.loadEntity("changes/table2");
+        Database first = table1.getDatabase();
+        Database refusing = new Database(
+                refusingCommits(Database.obtainDataSource(System.getProperty(TestDataSource.DATA_SOURCE_PROP_NAME))),
+                first.getSqlDriver(),
+                null,
+                first.getJdbcPerformer(),
+                first.getFuturesExecutor(),
+                true,
+                1,
+                Database.DEFAULT_STATEMENTS_CACHE_SIZE,
+                "refusing"
+        );
+        BigDecimal id = BigDecimal.valueOf(7_000_001);
+        InstanceAdd add1 = new InstanceAdd(table1.getName(), Map.of("id", id, "f1", id, "f2", id, "f3", id));
+        InstanceAdd add2 = new InstanceAdd(table2.getName(), Map.of("id", id, "fielda", id, "fieldb", id, "fieldc", id));
+        try {
+            Database.commit(Map.of(first, bind(entities, add1), refusing, bind(entities, add2))).get();
+            fail("Partial commit is expected");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof PartialCommitException);
+            PartialCommitException partial = (PartialCommitException) ex.getCause();
+            assertEquals(List.of(first), partial.getCommitted());
+            assertEquals(List.of(refusing), partial.getFailed());
+            assertTrue(partial.getMessage().contains(System.getProperty(TestDataSource.DATA_SOURCE_PROP_NAME)));
+            assertTrue(partial.getMessage().contains("refusing"));
+            assertEquals(1, count(first, "table1", id));
+            assertEquals(0, count(first, "table2", id));
+        }
+        assertEquals(1, (int) first.commit(bind(entities, new InstanceRemove(table1.getName(), Map.of("id", id)))).get());
+        assertEquals(0, count(first, "table1", id));
+    }
+}
@@ -0,0 +1,106 @@
+package com.septima.dataflow;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author mg
+ */
+public class RowTest {
+
+    private static final int ROWS_COUNT = 200_000;
+    private static final int FIELDS_COUNT = 24;
+
+    @Test
+    public void mapContract() {
+        Row.Schema schema = new Row.Schema(new String[]{"id", "name", "id", "moment"});
+        assertEquals(3, schema.getFieldsCount());
+        assertEquals(0, schema.slotOf(2));
+        Row row = schema.newRow();
+        row.set(schema.slotOf(0), 1L);
+        row.set(schema.slotOf(1), "first");
+        row.set(schema.slotOf(2), 2L);
+        row.set(schema.slotOf(3), null);
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("id", 2L);
+        expected.put("name", "first");
+        expected.put("moment", null);
+        assertEquals(expected, row);
+        assertEquals(List.of("id", "name", "moment"), new ArrayList<>(row.keySet()));
+        assertEquals(expected.hashCode(), row.hashCode());
+        assertEquals(row, expected);
+        assertTrue(row.containsKey("moment"));
+        assertNull(row.get("absent"));
+
+        assertEquals("first", row.remove("name"));
+        assertFalse(row.containsKey("name"));
+        assertEquals(2, row.size());
+        assertNull(row.put("name", "second"));
+        assertEquals("second", row.get("name"));
+
+        assertNull(row.put("extra", 3.0));
+        assertEquals(3.0, row.get("extra"));
+        assertEquals(4, row.size());
+        row.entrySet().removeIf(e -> e.getKey().equals("extra") || e.getKey().equals("id"));
+        assertEquals(2, row.size());
+        assertFalse(row.containsKey("id"));
+        assertFalse(row.containsKey("extra"));
+
+        row.clear();
+        assertTrue(row.isEmpty());
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void measure(String aTitle, IntFunction<Map<String, Object>> aRowFactory) {
+        // warm up
+        for (int i = 0; i < ROWS_COUNT / 10; i++) {
+            aRowFactory.apply(i);
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(ROWS_COUNT);
+        long allocatedBefore = allocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < ROWS_COUNT; i++) {
+            rows.add(aRowFactory.apply(i));
+        }
+        long elapsed = Math.max(1, System.nanoTime() - started);
+        long allocated = allocatedBytes() - allocatedBefore;
+        System.out.println(aTitle + ": " + ROWS_COUNT + " rows of " + FIELDS_COUNT + " fields read in " + elapsed / 1_000_000 + " milliseconds"
+                + " (" + ROWS_COUNT * 1_000_000_000L / elapsed + " rows per second, " + allocated / ROWS_COUNT + " bytes allocated per row)");
+        assertEquals(ROWS_COUNT, rows.size());
+    }
+
+    @Test
+    public void compareWithHashMapRows() {
+        String[] names = new String[FIELDS_COUNT];
+        for (int f = 0; f < FIELDS_COUNT; f++) {
+            names[f] = "field_" + f;
+        }
+        Long value = 42L;
+        measure("HashMap rows", i -> {
+            Map<String, Object> row = new HashMap<>();
+            for (int f = 0; f < FIELDS_COUNT; f++) {
+                row.put(names[f], value);
+            }
+            return row;
+        });
+        Row.Schema schema = new Row.Schema(names);
+        measure("Compact rows", i -> {
+            Row row = schema.newRow();
+            for (int f = 0; f < FIELDS_COUNT; f++) {
+                row.set(schema.slotOf(f), value);
+            }
+            return row;
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package com.septima.jdbc;
+
+import com.septima.Database;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author mg
+ */
+public class JdbcPerformersTest {
+
+    private static void overload(Executor aPerformer, CountDownLatch aRelease, CountDownLatch aFinished) {
+        // One task is performed and one task waits
+        aPerformer.execute(() -> {
+            try {
+                aRelease.await();
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+            aFinished.countDown();
+        });
+        aPerformer.execute(aFinished::countDown);
+    }
+
+    @Test
+    public void poolRejection() throws InterruptedException {
+        MeasuredThreadPoolExecutor performer = Database.jdbcTasksPerformer(1, 1, false);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+        overload(performer, release, finished);
+        try {
+            performer.execute(() -> fail("Rejected task should not be performed"));
+            fail("RejectedExecutionException is expected");
+        } catch (RejectedExecutionException ex) {
+            assertEquals(1, performer.getMetrics().getRejected());
+        }
+        release.countDown();
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        performer.shutdown();
+        assertTrue(performer.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(3, performer.getMetrics().getEnqueued());
+        assertEquals(2, performer.getMetrics().getFinished());
+        assertEquals(0, performer.getMetrics().getQueued());
+    }
+
+    @Test
+    public void virtualCallerRuns() throws InterruptedException {
+        VirtualThreadsPerformer.Limited performer = Database.jdbcVirtualTasksPerformer(1, 1, true).of("test-data-source");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(3);
+        overload(performer, release, finished);
+        Thread caller = Thread.currentThread();
+        new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ex) {
+                // no op
+            }
+            release.countDown();
+        }).start();
+        performer.execute(() -> {
+            assertSame(caller, Thread.currentThread());
+            finished.countDown();
+        });
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertEquals(1, performer.getMetrics().getCallerRuns());
+        assertEquals(0, performer.getMetrics().getRejected());
+    }
+}
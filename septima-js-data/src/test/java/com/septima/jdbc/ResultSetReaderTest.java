@@ -0,0 +1,50 @@
+package com.septima.jdbc;
+
+import com.septima.sqldrivers.SqlDriver;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author mg
+ */
+public class ResultSetReaderTest {
+
+    private static List<Map<String, Object>> read(ResultSetReader aReader, Connection aConnection, String aSql) throws SQLException {
+        try (PreparedStatement stmt = aConnection.prepareStatement(aSql);
+             ResultSet rs = stmt.executeQuery()) {
+            return aReader.readRowSet(rs, -1);
+        }
+    }
+
+    @Test
+    public void planIsRebuiltWhenColumnsChange() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:readerPlan");
+        ResultSetReader reader = new ResultSetReader(Map.of(), new JdbcReaderAssigner(new SqlDriver(), false));
+        try (Connection connection = dataSource.getConnection()) {
+            List<Map<String, Object>> numbers = read(reader, connection, "select 1 as \"a\"");
+            assertEquals(1, numbers.size());
+            assertEquals(1, ((Number) numbers.get(0).get("a")).intValue());
+
+            List<Map<String, Object>> texts = read(reader, connection, "select 'x' as \"a\", 2 as \"b\"");
+            assertEquals(1, texts.size());
+            assertEquals("x", texts.get(0).get("a"));
+            assertEquals(2, ((Number) texts.get(0).get("b")).intValue());
+
+            List<Map<String, Object>> renamed = read(reader, connection, "select cast(null as varchar) as \"c\"");
+            assertEquals(1, renamed.size());
+            assertEquals(1, renamed.get(0).size());
+            assertNull(renamed.get(0).get("c"));
+        }
+    }
+}
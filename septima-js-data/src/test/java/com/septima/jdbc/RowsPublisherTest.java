@@ -0,0 +1,241 @@
+package com.septima.jdbc;
+
+import com.septima.dataflow.DynamicTypingDataProvider;
+import com.septima.sqldrivers.SqlDriver;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Rows publishing with executors, driven by a test, so each step of a subscription is deterministic.
+ *
+ * @author mg
+ */
+public class RowsPublisherTest {
+
+    private static final String CLAUSE = "select x as \"x\" from system_range(1, 300)";
+
+    private static class ManualExecutor implements Executor {
+        private final Queue<Runnable> tasks = new LinkedList<>();
+        private boolean rejecting;
+
+        @Override
+        public void execute(Runnable aTask) {
+            if (rejecting) {
+                throw new RejectedExecutionException("Executor is shut down");
+            }
+            tasks.add(aTask);
+        }
+
+        private boolean runOne() {
+            Runnable task = tasks.poll();
+            if (task != null) {
+                task.run();
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+
+    private static class Subscriber implements Flow.Subscriber<Map<String, Object>> {
+        private final List<Map<String, Object>> rows = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private boolean completed;
+        private Throwable failure;
+
+        @Override
+        public void onSubscribe(Flow.Subscription aSubscription) {
+            subscription = aSubscription;
+        }
+
+        @Override
+        public void onNext(Map<String, Object> aRow) {
+            rows.add(aRow);
+        }
+
+        @Override
+        public void onError(Throwable aFailure) {
+            failure = aFailure;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final ManualExecutor puller = new ManualExecutor();
+    private final ManualExecutor futures = new ManualExecutor();
+
+    private DataSource countingDataSource() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:rowsPublisher");
+        return (DataSource) Proxy.newProxyInstance(RowsPublisherTest.class.getClassLoader(), new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+            try {
+                if ("getConnection".equals(method.getName())) {
+                    Connection connection = (Connection) method.invoke(h2, args);
+                    openConnections.incrementAndGet();
+                    return Proxy.newProxyInstance(RowsPublisherTest.class.getClassLoader(), new Class<?>[]{Connection.class}, (connProxy, connMethod, connArgs) -> {
+                        if ("close".equals(connMethod.getName())) {
+                            openConnections.decrementAndGet();
+                        }
+                        try {
+                            return connMethod.invoke(connection, connArgs);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                    });
+                } else {
+                    return method.invoke(h2, args);
+                }
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        });
+    }
+
+    private Subscriber subscribe(int aPageSize) {
+        return subscribe(aPageSize, new Subscriber());
+    }
+
+    private DynamicTypingDataProvider provider(int aPageSize) {
+        JdbcReaderAssigner assigner = new JdbcReaderAssigner(new SqlDriver(), false);
+        return new DynamicTypingDataProvider(assigner, "rows", countingDataSource(), puller, futures, CLAUSE, false, aPageSize, Map.of());
+    }
+
+    private Subscriber subscribe(int aPageSize, Subscriber aSubscriber) {
+        provider(aPageSize).publish(List.of()).subscribe(aSubscriber);
+        runAll();
+        assertNotNull(aSubscriber.subscription);
+        return aSubscriber;
+    }
+
+    private void runAll() {
+        while (puller.runOne() | futures.runOne()) {
+        }
+    }
+
+    @Test
+    public void demandLimited() {
+        Subscriber subscriber = subscribe(0);
+        subscriber.subscription.request(5);
+        runAll();
+        assertEquals(5, subscriber.rows.size());
+        assertFalse(subscriber.completed);
+        assertEquals(1, openConnections.get());
+        subscriber.subscription.request(10);
+        runAll();
+        assertEquals(15, subscriber.rows.size());
+        assertEquals(15L, subscriber.rows.get(14).get("x"));
+        subscriber.subscription.request(Long.MAX_VALUE);
+        runAll();
+        assertEquals(300, subscriber.rows.size());
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.failure);
+        assertEquals(0, openConnections.get());
+    }
+
+    @Test
+    public void cancelMidStreamReleasesConnection() {
+        Subscriber subscriber = subscribe(0);
+        subscriber.subscription.request(5);
+        runAll();
+        assertEquals(5, subscriber.rows.size());
+        assertEquals(1, openConnections.get());
+        subscriber.subscription.cancel();
+        runAll();
+        assertEquals(0, openConnections.get());
+        assertEquals(5, subscriber.rows.size());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.failure);
+    }
+
+    @Test
+    public void failedSubscriberReleasesConnection() {
+        Subscriber subscriber = subscribe(0, new Subscriber() {
+            private int delivered;
+
+            @Override
+            public void onNext(Map<String, Object> aRow) {
+                super.onNext(aRow);
+                if (++delivered == 3) {
+                    throw new IllegalStateException("Subscriber failure");
+                }
+            }
+        });
+        subscriber.subscription.request(5);
+        runAll();
+        assertEquals(3, subscriber.rows.size());
+        assertEquals(0, openConnections.get());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.failure);
+    }
+
+    @Test
+    public void rejectedPullReleasesConnection() {
+        Subscriber subscriber = subscribe(0);
+        subscriber.subscription.request(5);
+        runAll();
+        assertEquals(1, openConnections.get());
+        puller.rejecting = true;
+        subscriber.subscription.request(5);
+        runAll();
+        assertEquals(0, openConnections.get());
+        assertEquals(5, subscriber.rows.size());
+        assertTrue(subscriber.failure instanceof RejectedExecutionException);
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void rejectedSelect() {
+        puller.rejecting = true;
+        CompletableFuture<List<Map<String, Object>>> pulled = provider(0).pull(List.of());
+        assertTrue(pulled.isCompletedExceptionally());
+        assertEquals(0, openConnections.get());
+    }
+
+    @Test
+    public void pagedRemaining() {
+        Subscriber subscriber = subscribe(7);
+        subscriber.subscription.request(5);
+        runAll();
+        assertEquals(5, subscriber.rows.size());
+        assertFalse(subscriber.completed);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        runAll();
+        assertEquals(7, subscriber.rows.size());
+        assertTrue(subscriber.completed);
+        assertEquals(0, openConnections.get());
+    }
+
+    @Test
+    public void nonPositiveRequestWhilePulling() {
+        Subscriber subscriber = subscribe(0);
+        subscriber.subscription.request(5);
+        assertTrue(puller.runOne());
+        assertEquals(1, openConnections.get());
+        subscriber.subscription.request(0);
+        runAll();
+        assertTrue(subscriber.failure instanceof IllegalArgumentException);
+        assertFalse(subscriber.completed);
+        assertEquals(0, openConnections.get());
+    }
+}
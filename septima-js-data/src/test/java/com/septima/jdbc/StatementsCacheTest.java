@@ -0,0 +1,239 @@
+package com.septima.jdbc;
+
+import com.septima.Database;
+import com.septima.dataflow.DataProvider;
+import com.septima.queries.SqlQuery;
+import com.septima.sqldrivers.SqlDriver;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author mg
+ */
+public class StatementsCacheTest {
+
+    private static class Physical {
+        private final AtomicInteger prepared = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final List<PreparedStatement> statements = new ArrayList<>();
+        private final Connection connection = (Connection) Proxy.newProxyInstance(StatementsCacheTest.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                case "prepareCall":
+                    prepared.incrementAndGet();
+                    PreparedStatement statement = statement();
+                    statements.add(statement);
+                    return statement;
+                case "close":
+                    // Statements of a physical connection are closed with it
+                    closed.set(true);
+                    for (PreparedStatement opened : statements) {
+                        opened.close();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed.get();
+                case "isWrapperFor":
+                    return false;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return null;
+            }
+        });
+
+        private static PreparedStatement statement() {
+            AtomicBoolean closed = new AtomicBoolean();
+            return (PreparedStatement) Proxy.newProxyInstance(StatementsCacheTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        closed.set(true);
+                        return null;
+                    case "isClosed":
+                        return closed.get();
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                }
+            });
+        }
+    }
+
+    /**
+     * Emulates a connection, borrowed from a pool. It is unwrapped to the physical connection and
+     * its closing returns the physical connection to the pool, without closing it.
+     */
+    private static Connection borrow(Connection aPhysical) {
+        AtomicBoolean returned = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(StatementsCacheTest.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "isWrapperFor":
+                    return Connection.class.equals(args[0]);
+                case "unwrap":
+                    return aPhysical;
+                case "close":
+                    returned.set(true);
+                    return null;
+                case "isClosed":
+                    return returned.get();
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    try {
+                        return method.invoke(aPhysical, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+            }
+        });
+    }
+
+    /**
+     * Emulates a pool of a single physical connection.
+     */
+    private static DataSource pool(Connection aPhysical) {
+        return (DataSource) Proxy.newProxyInstance(StatementsCacheTest.class.getClassLoader(), new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+            if ("getConnection".equals(method.getName())) {
+                return borrow(aPhysical);
+            } else {
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    @Test
+    public void reuseOfReleased() throws SQLException {
+        StatementsCache cache = new StatementsCache(2);
+        Physical physical = new Physical();
+        Connection connection = physical.connection;
+        PreparedStatement first = cache.prepare(connection, "select 1", false);
+        cache.release(connection, "select 1", first);
+        PreparedStatement second = cache.prepare(connection, "select 1", false);
+        assertSame(first, second);
+        assertEquals(1, physical.prepared.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        cache.release(connection, "select 1", second);
+        assertFalse(second.isClosed());
+    }
+
+    @Test
+    public void inUseIsNotShared() throws SQLException {
+        StatementsCache cache = new StatementsCache(2);
+        Physical physical = new Physical();
+        Connection connection = physical.connection;
+        PreparedStatement first = cache.prepare(connection, "select 1", false);
+        PreparedStatement second = cache.prepare(connection, "select 1", false);
+        assertNotSame(first, second);
+        cache.release(connection, "select 1", second);
+        assertTrue(second.isClosed());
+        cache.release(connection, "select 1", first);
+        assertFalse(first.isClosed());
+    }
+
+    @Test
+    public void leastRecentlyUsedEviction() throws SQLException {
+        StatementsCache cache = new StatementsCache(2);
+        Physical physical = new Physical();
+        Connection connection = physical.connection;
+        PreparedStatement first = cache.prepare(connection, "select 1", false);
+        cache.release(connection, "select 1", first);
+        PreparedStatement second = cache.prepare(connection, "select 2", false);
+        cache.release(connection, "select 2", second);
+        PreparedStatement third = cache.prepare(connection, "select 3", false);
+        cache.release(connection, "select 3", third);
+        assertTrue(first.isClosed());
+        assertFalse(second.isClosed());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void reuseByNextBorrower() throws SQLException {
+        StatementsCache cache = new StatementsCache(2);
+        Physical physical = new Physical();
+        Connection borrowed = borrow(physical.connection);
+        PreparedStatement first = cache.prepare(borrowed, "select 1", false);
+        cache.release(borrowed, "select 1", first);
+        borrowed.close();
+        assertFalse(first.isClosed());
+        // The pool gives the same physical connection to the next borrower
+        Connection borrowedAgain = borrow(physical.connection);
+        PreparedStatement second = cache.prepare(borrowedAgain, "select 1", false);
+        assertSame(first, second);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, physical.prepared.get());
+    }
+
+    @Test
+    public void evictedConnectionInvalidation() throws SQLException {
+        StatementsCache cache = new StatementsCache(2);
+        Physical physical = new Physical();
+        PreparedStatement first = cache.prepare(borrow(physical.connection), "select 1", false);
+        cache.release(borrow(physical.connection), "select 1", first);
+        // The pool evicts the physical connection
+        physical.connection.close();
+        PreparedStatement second = cache.prepare(borrow(physical.connection), "select 1", false);
+        assertNotSame(first, second);
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getEvictions());
+        cache.release(borrow(physical.connection), "select 1", second);
+        // Statements of the closed connection are evicted, when a new physical connection is met
+        Physical next = new Physical();
+        cache.prepare(borrow(next.connection), "select 1", false);
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    public void hitAcrossRequests() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:statementsCache");
+        // A single jdbc thread releases a statement of a request before the next request takes it
+        ExecutorService jdbcPerformer = Executors.newSingleThreadExecutor();
+        try (Connection physical = h2.getConnection()) {
+            Database database = new Database(pool(physical), new SqlDriver(), null, jdbcPerformer, ForkJoinPool.commonPool(), true, 1);
+            SqlQuery query = new SqlQuery(database, "statements-cache", "select x as \"x\" from system_range(1, 3)", List.of(), false, DataProvider.NO_PAGING_PAGE_SIZE, Map.of());
+            assertEquals(3, query.requestData().get().size());
+            assertEquals(3, query.requestData().get().size());
+            assertEquals(1, database.getStatementsCache().getMisses());
+            assertEquals(1, database.getStatementsCache().getHits());
+        } finally {
+            jdbcPerformer.shutdown();
+        }
+    }
+
+    @Test
+    public void disabled() throws SQLException {
+        StatementsCache cache = new StatementsCache(0);
+        Physical physical = new Physical();
+        Connection connection = physical.connection;
+        PreparedStatement first = cache.prepare(connection, "select 1", false);
+        cache.release(connection, "select 1", first);
+        assertTrue(first.isClosed());
+        cache.prepare(connection, "select 1", false);
+        assertEquals(2, physical.prepared.get());
+    }
+}
@@ -0,0 +1,47 @@
+package com.septima.metadata;
+
+import com.septima.queries.CaseInsensitiveMap;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TablesSnapshotTest {
+
+    @Test
+    public void writeRead() throws IOException {
+        Map<String, JdbcColumn> columns = new CaseInsensitiveMap<>(new LinkedHashMap<>());
+        columns.put("ID", new JdbcColumn("id", null, "ID", "ASSET_GROUPS", "DECIMAL", false, true, null, 38, 19, 10, true, "PUBLIC", Types.DECIMAL));
+        columns.put("P_ID", new JdbcColumn("p_id", "Parent group", "P_ID", "ASSET_GROUPS", "DECIMAL", true, false,
+                new ForeignKey("PUBLIC", "ASSET_GROUPS", "P_ID", "FK_PARENT", ForeignKey.ForeignKeyRule.NO_ACTION, ForeignKey.ForeignKeyRule.CASCADE, false,
+                        "PUBLIC", "ASSET_GROUPS", "ID", "PK_ASSET_GROUPS"),
+                38, 19, 10, true, "PUBLIC", Types.DECIMAL));
+        Map<String, Map<String, Map<String, JdbcColumn>>> tables = new CaseInsensitiveMap<>(new LinkedHashMap<>());
+        tables.put("PUBLIC", new CaseInsensitiveMap<>(new LinkedHashMap<>()));
+        tables.get("PUBLIC").put("ASSET_GROUPS", columns);
+
+        Path snapshot = Files.createTempDirectory("septima-metadata").resolve("test.metadata.json");
+        TablesSnapshot.write(snapshot, tables);
+        Map<String, Map<String, Map<String, JdbcColumn>>> read = TablesSnapshot.read(snapshot);
+
+        Map<String, JdbcColumn> readColumns = read.get("public").get("asset_groups");
+        assertArrayEquals(new String[]{"id", "p_id"}, readColumns.keySet().toArray(new String[]{}));
+        JdbcColumn id = readColumns.get("Id");
+        assertTrue(id.isPk());
+        assertFalse(id.isNullable());
+        assertEquals(Types.DECIMAL, id.getJdbcType());
+        assertEquals(38, id.getSize());
+        JdbcColumn pId = readColumns.get("p_id");
+        assertEquals("Parent group", pId.getDescription());
+        assertTrue(pId.isFk());
+        assertSame(ForeignKey.ForeignKeyRule.CASCADE, pId.getFk().getDeleteRule());
+        assertEquals("ID", pId.getFk().getReferee().getColumn());
+        assertEquals("ASSET_GROUPS", pId.getFk().getReferee().getTable());
+    }
+}
@@ -6,7 +6,13 @@ import com.septima.TestDataSource;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import javax.naming.InitialContext;
 import javax.naming.NamingException;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.Types;
 import java.util.Map;
@@ -163,4 +169,67 @@ public class TablesTest {
                 ForeignKey.ForeignKeyRule.CASCADE
         }, ForeignKey.ForeignKeyRule.values());
     }
+
+    private static Object invoke(Object aTarget, Method aMethod, Object[] aArgs) throws Throwable {
+        try {
+            return aMethod.invoke(aTarget, aArgs);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Wraps the test data source, so that no schemas are listed by its metadata, like MySql does.
+     *
+     * @param aUrl Jdbc url, reported by metadata, or null if the original url should be reported.
+     */
+    private static DataSource withoutSchemas(String aUrl) throws NamingException {
+        DataSource dataSource = (DataSource) new InitialContext().lookup(System.getProperty(TestDataSource.DATA_SOURCE_PROP_NAME));
+        return (DataSource) Proxy.newProxyInstance(TablesTest.class.getClassLoader(), new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+            Object result = invoke(dataSource, method, args);
+            if ("getConnection".equals(method.getName())) {
+                Connection connection = (Connection) result;
+                return Proxy.newProxyInstance(TablesTest.class.getClassLoader(), new Class<?>[]{Connection.class}, (connProxy, connMethod, connArgs) -> {
+                    Object connResult = invoke(connection, connMethod, connArgs);
+                    if ("getMetaData".equals(connMethod.getName())) {
+                        DatabaseMetaData meta = (DatabaseMetaData) connResult;
+                        return Proxy.newProxyInstance(TablesTest.class.getClassLoader(), new Class<?>[]{DatabaseMetaData.class}, (metaProxy, metaMethod, metaArgs) -> {
+                            if ("getSchemas".equals(metaMethod.getName()) && metaArgs == null) {
+                                return meta.getSchemas(null, "ABSENT_SCHEMA");
+                            } else if ("getURL".equals(metaMethod.getName()) && aUrl != null) {
+                                return aUrl;
+                            } else {
+                                return invoke(meta, metaMethod, metaArgs);
+                            }
+                        });
+                    } else {
+                        return connResult;
+                    }
+                });
+            } else {
+                return result;
+            }
+        });
+    }
+
+    @Test
+    public void unlistedDefaultSchema() throws Exception {
+        Metadata metadata = Metadata.of(withoutSchemas(null));
+        assertNotNull(metadata.getDefaultSchema());
+        Optional<Map<String, JdbcColumn>> ifColumns = metadata.getTableColumns("table1");
+        assertTrue(ifColumns.isPresent());
+        assertEquals(4, ifColumns.get().size());
+        assertFalse(metadata.getTableColumns("absent_table").isPresent());
+    }
+
+    @Test
+    public void nullDefaultSchema() throws Exception {
+        Metadata metadata = Metadata.of(withoutSchemas("jdbc:unknown:septima"));
+        assertNull(metadata.getDefaultSchema());
+        Optional<Map<String, JdbcColumn>> ifColumns = metadata.getTableColumns("table1");
+        assertTrue(ifColumns.isPresent());
+        assertEquals(4, ifColumns.get().size());
+        assertTrue(ifColumns.get().containsKey("f3"));
+        assertFalse(metadata.getTableColumns("absent_table").isPresent());
+    }
 }
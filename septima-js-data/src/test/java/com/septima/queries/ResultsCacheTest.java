@@ -0,0 +1,82 @@
+package com.septima.queries;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author mg
+ */
+public class ResultsCacheTest {
+
+    private static CompletableFuture<List<Map<String, Object>>> load(AtomicInteger aLoads) {
+        aLoads.incrementAndGet();
+        return CompletableFuture.completedFuture(List.of(Map.of("id", aLoads.get())));
+    }
+
+    @Test
+    public void hitsAndMisses() throws ExecutionException, InterruptedException {
+        ResultsCache cache = new ResultsCache("lookup", new ResultsCache.Policy(0, 2, Set.of()), Set.of("lookup_table"));
+        AtomicInteger loads = new AtomicInteger();
+        List<Map<String, Object>> first = cache.get(List.of(1), () -> load(loads)).get();
+        List<Map<String, Object>> second = cache.get(List.of(1), () -> load(loads)).get();
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    public void sizeBound() throws ExecutionException, InterruptedException {
+        ResultsCache cache = new ResultsCache("lookup", new ResultsCache.Policy(0, 2, Set.of()), Set.of("lookup_table"));
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(List.of(1), () -> load(loads)).get();
+        cache.get(List.of(2), () -> load(loads)).get();
+        cache.get(List.of(3), () -> load(loads)).get();
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        cache.get(List.of(1), () -> load(loads)).get();
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void tablesInvalidation() throws ExecutionException, InterruptedException {
+        ResultsCache cache = new ResultsCache("lookup", new ResultsCache.Policy(0, 2, Set.of("joined_table")), Set.of("LOOKUP_TABLE"));
+        assertTrue(cache.reads("lookup_table"));
+        assertTrue(cache.reads("joined_table"));
+        assertTrue(cache.reads(null));
+        assertFalse(cache.reads("another_table"));
+
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<List<Map<String, Object>>> loading = new CompletableFuture<>();
+        CompletableFuture<List<Map<String, Object>>> loaded = cache.get(List.of(1), () -> loading);
+        cache.invalidate();
+        loading.complete(List.of(Map.of("id", 0)));
+        loaded.get();
+        assertEquals(0, cache.size());
+        cache.get(List.of(1), () -> load(loads)).get();
+        assertEquals(1, cache.size());
+        cache.invalidate();
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getInvalidations());
+    }
+
+    @Test
+    public void ttl() throws ExecutionException, InterruptedException {
+        ResultsCache cache = new ResultsCache("lookup", new ResultsCache.Policy(1, 2, Set.of()), Set.of());
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(List.of(1), () -> load(loads)).get();
+        Thread.sleep(5);
+        cache.get(List.of(1), () -> load(loads)).get();
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getHits());
+    }
+}
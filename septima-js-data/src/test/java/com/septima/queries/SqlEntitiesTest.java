@@ -13,8 +13,26 @@ import org.junit.Test;
 
 import javax.naming.NamingException;
 import java.io.File;
+import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 
@@ -309,6 +327,206 @@ public class SqlEntitiesTest {
                 " Where asts.id = :a_id) c) entities_inline_simple_b) absB", rn2n(entity.getSqlText()));
     }
 
+    @Test
+    public void warmUp() {
+        SqlEntities entities = new SqlEntities(
+                new File(System.getProperty(TestDataSource.TEST_APP_PATH_PROP)).toPath(),
+                System.getProperty(TestDataSource.DATA_SOURCE_PROP_NAME),
+                true,
+                true,
+                1
+        );
+        Map<String, Long> compiled = entities.warmUp("entities/inline/simple", ForkJoinPool.commonPool());
+        assertEquals(Set.of("entities/inline/simple/a", "entities/inline/simple/b", "entities/inline/simple/c"), compiled.keySet());
+        assertSame(entities.loadQuery("entities/inline/simple/a"), entities.loadQuery("entities/inline/simple/a"));
+        assertEquals("Select * \n" +
+                "From (Select * \n" +
+                "From assets asts\n" +
+                " Where asts.id = :b_id) c", rn2n(entities.loadEntity("entities/inline/simple/b").getSqlText()));
+    }
+
+    @Test
+    public void loadEntityAsyncCoalesced() {
+        List<Runnable> loadings = new ArrayList<>();
+        SqlEntities entities = new SqlEntities(
+                null,
+                new File(System.getProperty(TestDataSource.TEST_APP_PATH_PROP)).toPath(),
+                System.getProperty(TestDataSource.DATA_SOURCE_PROP_NAME),
+                Executors.newSingleThreadExecutor(),
+                ForkJoinPool.commonPool(),
+                loadings::add,
+                true,
+                true,
+                1,
+                1,
+                null,
+                null
+        );
+        List<CompletableFuture<SqlEntity>> loaded = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            loaded.add(entities.loadEntityAsync("entities/inline/simple/b"));
+        }
+        assertEquals(1, loadings.size());
+        loadings.forEach(Runnable::run);
+        SqlEntity entity = loaded.get(0).join();
+        assertNotNull(entity);
+        loaded.forEach(loading -> assertSame(entity, loading.join()));
+        assertSame(entity, entities.loadEntityAsync("entities/inline/simple/b").getNow(null));
+        assertEquals(1, loadings.size());
+        assertEquals(entity.toQuery().getSqlClause(), entities.loadQueryAsync("entities/inline/simple/b").join().getSqlClause());
+    }
+
+    private static SqlEntities compiledEntities(Path aCompiled, Executor aJdbcPerformer) {
+        return new SqlEntities(
+                null,
+                new File(System.getProperty(TestDataSource.TEST_APP_PATH_PROP)).toPath(),
+                System.getProperty(TestDataSource.DATA_SOURCE_PROP_NAME),
+                aJdbcPerformer,
+                ForkJoinPool.commonPool(),
+                true,
+                true,
+                1,
+                1,
+                null,
+                aCompiled
+        );
+    }
+
+    private static List<Path> filesOf(Path aDirectory) throws IOException {
+        try (Stream<Path> files = Files.walk(aDirectory)) {
+            return files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    private static void delete(Path aDirectory) throws IOException {
+        try (Stream<Path> files = Files.walk(aDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void compiledEntities() throws IOException {
+        Path compiled = Files.createTempDirectory("septima-compiled-entities");
+        ExecutorService jdbcPerformer = Executors.newSingleThreadExecutor();
+        try {
+            List<String> names = List.of("entities/inline/simple/b", "entities/tables/from-joins-and-sub-selects");
+            SqlEntities entities = compiledEntities(compiled, jdbcPerformer);
+            Map<String, SqlEntity> compiledEntities = new HashMap<>();
+            for (String name : names) {
+                compiledEntities.put(name, entities.loadEntity(name));
+                assertTrue(Files.exists(compiled.resolve(name + ".compiled.json")));
+            }
+            // A compiled entity is written again only if it is compiled again, so an old time of a file means a hit of the cache
+            FileTime compiledTime = FileTime.fromMillis(Instant.parse("2000-01-01T00:00:00Z").toEpochMilli());
+            List<Path> files = filesOf(compiled);
+            for (Path file : files) {
+                Files.setLastModifiedTime(file, compiledTime);
+            }
+            SqlEntities restarted = compiledEntities(compiled, jdbcPerformer);
+            for (String name : names) {
+                SqlEntity compiledEntity = compiledEntities.get(name);
+                SqlEntity restoredEntity = restarted.loadEntity(name);
+                assertEquals(compiledEntity.getSqlText(), restoredEntity.getSqlText());
+                assertEquals(compiledEntity.getFields().keySet(), restoredEntity.getFields().keySet());
+                assertEquals(compiledEntity.getParameters().keySet(), restoredEntity.getParameters().keySet());
+                assertEquals(compiledEntity.getReadTables(), restoredEntity.getReadTables());
+            }
+            assertEquals(files, filesOf(compiled));
+            for (Path file : files) {
+                assertEquals(file.toString(), compiledTime, Files.getLastModifiedTime(file));
+            }
+        } finally {
+            jdbcPerformer.shutdown();
+            delete(compiled);
+        }
+    }
+
+    @Test
+    public void readTablesOfJoinsAndSubSelects() {
+        SqlEntities entities = new SqlEntities(
+                new File(System.getProperty(TestDataSource.TEST_APP_PATH_PROP)).toPath(),
+                System.getProperty(TestDataSource.DATA_SOURCE_PROP_NAME),
+                true,
+                true,
+                1
+        );
+        SqlEntity entity = entities.loadEntity("entities/tables/from-joins-and-sub-selects");
+        Set<String> readTables = entity.getReadTables();
+        assertEquals(Set.of("table1", "table2", "good", "customer"), readTables.stream()
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet()));
+        ResultsCache resultsCache = new ResultsCache(entity.getName(), entity.getResultsCachePolicy(), readTables);
+        assertTrue(resultsCache.reads("customer"));
+        assertTrue(resultsCache.reads("asset_kinds"));
+        assertFalse(resultsCache.reads("asset_types"));
+    }
+
+    @Test
+    public void reload() throws IOException {
+        Path root = Files.createTempDirectory("septima-reload");
+        Path simple = root.resolve("entities/inline/simple");
+        Files.createDirectories(simple);
+        Path source = new File(System.getProperty(TestDataSource.TEST_APP_PATH_PROP)).toPath().resolve("entities/inline/simple");
+        for (String file : List.of("a.sql", "a.sql.json", "b.sql", "b.sql.json", "c.sql", "c.sql.json")) {
+            Files.copy(source.resolve(file), simple.resolve(file));
+        }
+        SqlEntities entities = new SqlEntities(
+                root,
+                System.getProperty(TestDataSource.DATA_SOURCE_PROP_NAME),
+                true,
+                true,
+                1
+        );
+        SqlQuery a = entities.loadQuery("entities/inline/simple/a");
+        SqlEntity b = entities.loadEntity("entities/inline/simple/b");
+        Files.write(simple.resolve("c.sql"), " or asts.id is null".getBytes(), StandardOpenOption.APPEND);
+        Set<String> reloaded = entities.reload(List.of("entities/inline/simple/c"));
+        assertEquals(Set.of("entities/inline/simple/a", "entities/inline/simple/b", "entities/inline/simple/c"), reloaded);
+        assertNotSame(a, entities.loadQuery("entities/inline/simple/a"));
+        assertNotSame(b, entities.loadEntity("entities/inline/simple/b"));
+        assertTrue(entities.loadEntity("entities/inline/simple/b").getSqlText().toLowerCase().contains("or asts.id is null"));
+        assertTrue(entities.loadQuery("entities/inline/simple/a").getSqlClause().toLowerCase().contains("or asts.id is null"));
+    }
+
+    @Test
+    public void existsIndex() throws IOException {
+        Path root = Files.createTempDirectory("septima-exists");
+        Path simple = root.resolve("entities/inline/simple");
+        Files.createDirectories(simple);
+        Path source = new File(System.getProperty(TestDataSource.TEST_APP_PATH_PROP)).toPath().resolve("entities/inline/simple");
+        Files.copy(source.resolve("c.sql"), simple.resolve("c.sql"));
+        SqlEntities entities = new SqlEntities(
+                root,
+                System.getProperty(TestDataSource.DATA_SOURCE_PROP_NAME),
+                true,
+                true,
+                1
+        );
+        assertTrue(entities.exists("entities/inline/simple/c"));
+        assertFalse(entities.exists("entities/inline/simple/c/1"));
+        // Without a reloader, an entity, absent in the index, is looked up
+        Files.copy(source.resolve("c.sql"), simple.resolve("d.sql"));
+        assertTrue(entities.exists("entities/inline/simple/d"));
+        Files.delete(simple.resolve("c.sql"));
+        assertTrue(entities.exists("entities/inline/simple/c"));
+        entities.reload(List.of("entities/inline/simple/c"));
+        assertFalse(entities.exists("entities/inline/simple/c"));
+    }
+
+    @Test(expected = SqlEntityCyclicReferenceException.class)
+    public void warmUpCyclicHashRefs() {
+        SqlEntities entities = new SqlEntities(
+                new File(System.getProperty(TestDataSource.TEST_APP_PATH_PROP)).toPath(),
+                System.getProperty(TestDataSource.DATA_SOURCE_PROP_NAME),
+                true,
+                true,
+                1
+        );
+        entities.warmUp("entities/inline/cyclic", ForkJoinPool.commonPool());
+    }
+
     @Test
     public void variousCase() {
         SqlEntities entities = new SqlEntities(
@@ -0,0 +1,58 @@
+package com.septima.queries;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author mg
+ */
+public class SqlTemplateTest {
+
+    @Test
+    public void parameters() {
+        SqlTemplate template = SqlTemplate.compile("Select * From goods g Where g.id = :id and g.name like :name or g.id = :id");
+        assertEquals(List.of("id", "name", "id"), template.getParameters());
+        assertEquals("Select * From goods g Where g.id = ? and g.name like ? or g.id = ?", template.render(name -> "?"));
+    }
+
+    @Test
+    public void commentsAndLiterals() {
+        SqlTemplate template = SqlTemplate.compile(
+                "/* :a */ Select :b, ':c' -- :d\n" +
+                        "From goods /* :e */ Where '--' = :f and name = 'it''s :g' and id = :h"
+        );
+        assertEquals(List.of("b", "f", "h"), template.getParameters());
+        assertEquals(
+                "/* :a */ Select ?1, ':c' -- :d\n" +
+                        "From goods /* :e */ Where '--' = ?2 and name = 'it''s :g' and id = ?3",
+                template.render(new Function<>() {
+                    private int slot;
+
+                    @Override
+                    public String apply(String name) {
+                        return "?" + ++slot;
+                    }
+                })
+        );
+    }
+
+    @Test
+    public void casts() {
+        SqlTemplate template = SqlTemplate.compile("Select created::timestamp, :p1::varchar From goods Where id=:id_2");
+        assertEquals(List.of("p1", "id_2"), template.getParameters());
+        assertEquals("Select created::timestamp, ?::timestamp::varchar From goods Where id=?::timestamp", template.render(name -> "?::timestamp"));
+    }
+
+    @Test
+    public void noParameters() {
+        SqlTemplate template = SqlTemplate.compile("Select * From goods");
+        assertTrue(template.getParameters().isEmpty());
+        assertEquals("Select * From goods", template.render(name -> {
+            throw new IllegalStateException("No parameters expected");
+        }));
+    }
+}
@@ -0,0 +1 @@
+Select * from customer
\ No newline at end of file
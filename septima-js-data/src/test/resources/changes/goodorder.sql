@@ -0,0 +1 @@
+Select * from goodorder
\ No newline at end of file
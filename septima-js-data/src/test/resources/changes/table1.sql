@@ -0,0 +1 @@
+Select * from table1
\ No newline at end of file
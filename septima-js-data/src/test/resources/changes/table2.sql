@@ -0,0 +1 @@
+Select * from table2
\ No newline at end of file
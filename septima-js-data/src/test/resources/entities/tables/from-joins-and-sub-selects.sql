@@ -0,0 +1,3 @@
+Select t1.f1, (Select Max(g.good_name) From GOOD g) As goodName
+From table1 t1 Inner Join table2 t2 On t1.f1 = t2.fielda
+Where Exists (Select * From customer c Where c.customer_id = t1.id)
\ No newline at end of file
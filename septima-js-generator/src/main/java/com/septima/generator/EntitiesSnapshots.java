@@ -6,7 +6,6 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.septima.entities.SqlEntities;
 import com.septima.entities.SqlEntity;
 import com.septima.jdbc.UncheckedSQLException;
-import com.septima.metadata.Parameter;
 import net.sf.jsqlparser.UncheckedJSqlParserException;
 
 import java.io.IOException;
@@ -21,7 +20,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 public class EntitiesSnapshots extends EntitiesProcessor {
 
@@ -90,41 +88,7 @@ public class EntitiesSnapshots extends EntitiesProcessor {
         if (!jsonFile.getParent().toFile().exists()) {
             jsonFile.getParent().toFile().mkdirs();
         }
-        JSON_WRITER.writeValue(jsonFile.toFile(), map(
-                entry("title", entity.getTitle()),
-                entry("source", entities.dataSourceOf(entity.getDatabase())),
-                entry("public", entity.isPublicAccess()),
-                entry("sql", entity.getCustomSqlText() != null && !entity.getCustomSqlText().isBlank() ? entity.getCustomSqlText() : entity.getSqlText()),
-                entry("procedure", entity.isProcedure()),
-                entry("command", entity.isCommand()),
-                entry("readonly", entity.isReadonly()),
-                // Warning! Don't refactor entry -> entry.getValue().getName() as Entry::getKey because keys are lower cased.
-                entry("parameters", entity.getParameters().entrySet().stream().collect(Collectors.toMap(entry -> entry.getValue().getName(), e -> map(
-                        entry("type", e.getValue().getType() != null ? e.getValue().getType().getText() : null),
-                        entry("subType", e.getValue().getSubType()),
-                        entry("description", e.getValue().getDescription()),
-                        entry("value", e.getValue().getValue()),
-                        entry("out", e.getValue().getMode() == Parameter.Mode.InOut || e.getValue().getMode() == Parameter.Mode.Out)
-                )))),
-                // Warning! Don't refactor entry -> entry.getValue().getName() as Entry::getKey because keys are lower cased.
-                entry("fields", entity.getFields().entrySet().stream().collect(Collectors.toMap(entry -> entry.getValue().getName(), e -> map(
-                        entry("nullable", e.getValue().isNullable()),
-                        entry("type", e.getValue().getType() != null ? e.getValue().getType().getText() : null),
-                        entry("subType", e.getValue().getSubType()),
-                        entry("description", e.getValue().getDescription()),
-                        entry("tableName", e.getValue().getTableName()),
-                        entry("originalName", e.getValue().getOriginalName()),
-                        entry("key", e.getValue().isPk()),
-                        entry("reference", e.getValue().getFk() != null ? Map.of(
-                                "entity", e.getValue().getFk().getReferee().getTable(), "key", e.getValue().getFk().getReferee().getColumn()
-                        ) : null)
-                )))),
-                entry("writable", entity.getWritable()),
-                entry("roles", Map.of(
-                        "read", entity.getReadRoles(), "write", entity.getWriteRoles()
-                )),
-                entry("pageSize", entity.getPageSize())
-        ));
+        JSON_WRITER.writeValue(jsonFile.toFile(), entities.snapshotOf(entity));
         return jsonFile;
     }
 
@@ -0,0 +1,70 @@
+package com.septima.gradle;
+
+import com.septima.Database;
+import com.septima.Metadata;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Writes a snapshot of a database metadata, that can be used by an application to avoid metadata queries at startup.
+ */
+public class GenerateMetadataSnapshot extends DefaultTask {
+
+    private String dataSourceName;
+    private List<String> schemas = List.of();
+
+    @OutputFile
+    private File targetFile;
+
+    public String getDataSourceName() {
+        return dataSourceName;
+    }
+
+    public void setDataSourceName(String dataSourceName) {
+        this.dataSourceName = dataSourceName;
+    }
+
+    public List<String> getSchemas() {
+        return schemas;
+    }
+
+    public void setSchemas(List<String> schemas) {
+        this.schemas = schemas;
+    }
+
+    public File getTargetFile() {
+        return targetFile;
+    }
+
+    public void setTargetFile(File targetFile) {
+        this.targetFile = targetFile;
+    }
+
+    @TaskAction
+    public void generate() throws NamingException, SQLException, IOException {
+        if (dataSourceName == null) {
+            throw new GradleException("'dataSourceName' property is required for the task");
+        }
+        if (targetFile == null) {
+            throw new GradleException("'targetFile' property is required for the task");
+        }
+        DataSource dataSource = Database.obtainDataSource(dataSourceName);
+        Metadata metadata = Metadata.of(dataSource);
+        List<String> filled = schemas.isEmpty() ? List.of(metadata.getDefaultSchema()) : schemas;
+        for (String schema : filled) {
+            metadata.fillTablesBySchema(schema);
+            System.out.println("Metadata of schema '" + schema + "' has been read");
+        }
+        metadata.saveSnapshot(targetFile.toPath());
+        System.out.println("Metadata snapshot is written to '" + targetFile + "'");
+    }
+}
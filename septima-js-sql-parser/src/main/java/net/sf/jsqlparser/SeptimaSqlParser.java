@@ -25,19 +25,33 @@ import net.sf.jsqlparser.parser.CCJSqlParser;
 import net.sf.jsqlparser.statement.Statement;
 
 import java.io.Reader;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
 
 /**
- * A JSqlParser implementation that uses a parser generated by JavaCC
+ * A JSqlParser implementation that uses a parser generated by JavaCC.
+ * Generated parsers, along with their char streams and token managers, are reused through {@code ReInit()},
+ * because they allocate sizeable buffers. Idle parsers are kept in a bounded pool, shared by all instances of this class,
+ * so that it works the same way with platform and virtual threads. If the pool is empty, a new parser is created.
  */
 public class SeptimaSqlParser implements JSqlParser {
 
+    private static final Queue<CCJSqlParser> PARSERS = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+
     @Override
     public Statement parse(Reader statementReader) throws JSqlParserException {
-        CCJSqlParser parser = new CCJSqlParser(statementReader);
+        CCJSqlParser parser = PARSERS.poll();
+        if (parser != null) {
+            parser.ReInit(statementReader);
+        } else {
+            parser = new CCJSqlParser(statementReader);
+        }
         try {
             return parser.Statement();
         } catch (Throwable e) {
             throw new JSqlParserException(e);
+        } finally {
+            PARSERS.offer(parser);
         }
     }
 }
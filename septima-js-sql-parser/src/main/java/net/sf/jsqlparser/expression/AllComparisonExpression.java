@@ -7,6 +7,12 @@ public class AllComparisonExpression implements Expression {
     private SubSelect subSelect;
     private String comment;
 
+    /**
+     * Used by {@link net.sf.jsqlparser.syntax.SyntaxTreeCopy}.
+     */
+    private AllComparisonExpression() {
+    }
+
     public AllComparisonExpression(SubSelect subSelect) {
         this.subSelect = subSelect;
     }
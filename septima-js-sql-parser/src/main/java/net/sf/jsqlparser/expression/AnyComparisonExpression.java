@@ -7,6 +7,12 @@ public class AnyComparisonExpression implements Expression {
     private SubSelect subSelect;
     private String comment;
 
+    /**
+     * Used by {@link net.sf.jsqlparser.syntax.SyntaxTreeCopy}.
+     */
+    private AnyComparisonExpression() {
+    }
+
     public AnyComparisonExpression(SubSelect subSelect) {
         this.subSelect = subSelect;
     }
@@ -31,6 +31,12 @@ public class DateValue implements Expression {
     private Date value;
     private String comment;
 
+    /**
+     * Used by {@link net.sf.jsqlparser.syntax.SyntaxTreeCopy}.
+     */
+    private DateValue() {
+    }
+
     public DateValue(String value) {
         this.value = Date.valueOf(value.substring(1, value.length() - 1));
     }
@@ -30,6 +30,12 @@ public class DoubleValue implements Expression {
     private String stringValue;
     private String comment;
 
+    /**
+     * Used by {@link net.sf.jsqlparser.syntax.SyntaxTreeCopy}.
+     */
+    private DoubleValue() {
+    }
+
     public DoubleValue(String value) {
         if (value.charAt(0) == '+') {
             value = value.substring(1);
@@ -30,6 +30,12 @@ public class LongValue implements Expression {
     private String stringValue;
     private String comment;
 
+    /**
+     * Used by {@link net.sf.jsqlparser.syntax.SyntaxTreeCopy}.
+     */
+    private LongValue() {
+    }
+
     public LongValue(String aValue) {
         if (aValue.charAt(0) == '+') {
             aValue = aValue.substring(1);
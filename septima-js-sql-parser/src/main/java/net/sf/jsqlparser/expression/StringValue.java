@@ -29,6 +29,12 @@ public class StringValue implements Expression {
     private String value = "";
     private String comment;
 
+    /**
+     * Used by {@link net.sf.jsqlparser.syntax.SyntaxTreeCopy}.
+     */
+    private StringValue() {
+    }
+
     public StringValue(String escapedValue) {
         // romoving "'" at the start and at the end
         value = escapedValue.substring(1, escapedValue.length() - 1);
@@ -31,6 +31,12 @@ public class TimeValue implements Expression {
     private Time value;
     private String comment;
 
+    /**
+     * Used by {@link net.sf.jsqlparser.syntax.SyntaxTreeCopy}.
+     */
+    private TimeValue() {
+    }
+
     public TimeValue(String value) {
         this.value = Time.valueOf(value.substring(1, value.length() - 1));
     }
@@ -31,6 +31,12 @@ public class TimestampValue implements Expression {
     private Timestamp value;
     private String comment;
 
+    /**
+     * Used by {@link net.sf.jsqlparser.syntax.SyntaxTreeCopy}.
+     */
+    private TimestampValue() {
+    }
+
     public TimestampValue(String value) {
         this.value = Timestamp.valueOf(value.substring(1, value.length() - 1));
     }
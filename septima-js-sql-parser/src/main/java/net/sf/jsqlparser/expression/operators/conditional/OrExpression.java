@@ -29,6 +29,12 @@ public class OrExpression extends BinaryExpression {
     
     private String comment;
 
+    /**
+     * Used by {@link net.sf.jsqlparser.syntax.SyntaxTreeCopy}.
+     */
+    private OrExpression() {
+    }
+
     public OrExpression(Expression leftExpression, Expression rightExpression) {
         setLeftExpression(leftExpression);
         setRightExpression(rightExpression);
@@ -0,0 +1,98 @@
+package net.sf.jsqlparser.syntax;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deep copy of a syntax tree.
+ * Allows to parse a sql text once and to use copies of the parsed tree with visitors, that modify the tree.
+ * Syntax tree nodes are copied field by field. Nodes are created with their no arguments constructors, including private ones.
+ * Strings, numbers, enums and other immutable values are shared between a tree and its copy.
+ *
+ * @author mg
+ */
+public class SyntaxTreeCopy {
+
+    private static final String SYNTAX_PACKAGE = "net.sf.jsqlparser.";
+    private static final Map<Class<?>, Constructor<?>> CONSTRUCTORS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, List<Field>> FIELDS = new ConcurrentHashMap<>();
+
+    private final Map<Object, Object> copied = new IdentityHashMap<>();
+
+    private SyntaxTreeCopy() {
+    }
+
+    /**
+     * Copies a syntax tree or its part.
+     *
+     * @param aNode A {@link net.sf.jsqlparser.statement.Statement}, {@link net.sf.jsqlparser.statement.select.SelectBody}
+     *              or any other node of a syntax tree.
+     * @param <T>   Type of the node.
+     * @return Deep copy of the node.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T of(T aNode) {
+        return (T) new SyntaxTreeCopy().copy(aNode);
+    }
+
+    private Object copy(Object aNode) {
+        if (aNode == null) {
+            return null;
+        } else if (copied.containsKey(aNode)) {
+            return copied.get(aNode);
+        } else if (aNode instanceof List) {
+            List<?> list = (List<?>) aNode;
+            List<Object> copy = new ArrayList<>(list.size());
+            copied.put(aNode, copy);
+            for (Object item : list) {
+                copy.add(copy(item));
+            }
+            return copy;
+        } else if (aNode instanceof Date) {
+            return ((Date) aNode).clone();
+        } else if (aNode.getClass().getName().startsWith(SYNTAX_PACKAGE) && !aNode.getClass().isEnum()) {
+            try {
+                Object copy = CONSTRUCTORS.computeIfAbsent(aNode.getClass(), SyntaxTreeCopy::constructorOf).newInstance();
+                copied.put(aNode, copy);
+                for (Field field : FIELDS.computeIfAbsent(aNode.getClass(), SyntaxTreeCopy::fieldsOf)) {
+                    field.set(copy, copy(field.get(aNode)));
+                }
+                return copy;
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException("Can't copy a syntax tree node of class: " + aNode.getClass().getName(), ex);
+            }
+        } else {
+            return aNode;
+        }
+    }
+
+    private static Constructor<?> constructorOf(Class<?> aClass) {
+        try {
+            Constructor<?> constructor = aClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException("Syntax tree node of class: " + aClass.getName() + " should have a no arguments constructor", ex);
+        }
+    }
+
+    private static List<Field> fieldsOf(Class<?> aClass) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = aClass; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+}
@@ -57,6 +57,7 @@ import net.sf.jsqlparser.statement.select.SubSelect;
 public class ExpressionDeParser implements ExpressionVisitor, ItemsListVisitor {
 
     public static final String LINE_SEPARATOR = System.getProperty("line.separator");
+    private static final String AND_OPERATOR = LINE_SEPARATOR + " and ";
     protected StringBuilder buffer;
     protected SelectVisitor selectVisitor;
     protected boolean useBracketsInExprList = true;
@@ -91,12 +92,11 @@ public class ExpressionDeParser implements ExpressionVisitor, ItemsListVisitor {
     }
 
     public void visit(Addition addition) {
-        visitBinaryExpression(addition, (addition.getComment() != null ? " " + addition.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " + ");
+        visitBinaryExpression(addition, addition.getComment() != null ? " " + addition.getComment() + ExpressionDeParser.LINE_SEPARATOR + " + " : " + ");
     }
 
     public void visit(AndExpression andExpression) {
-        visitBinaryExpression(andExpression, (andExpression.getComment() != null ? " " + andExpression.getComment() : "")
-                + ExpressionDeParser.LINE_SEPARATOR + " and ");
+        visitBinaryExpression(andExpression, andExpression.getComment() != null ? " " + andExpression.getComment() + AND_OPERATOR : AND_OPERATOR);
     }
 
     public void visit(Between between) {
@@ -113,7 +113,7 @@ public class ExpressionDeParser implements ExpressionVisitor, ItemsListVisitor {
     }
 
     public void visit(Division division) {
-        visitBinaryExpression(division, (division.getComment() != null ? " " + division.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " / ");
+        visitBinaryExpression(division, division.getComment() != null ? " " + division.getComment() + ExpressionDeParser.LINE_SEPARATOR + " / " : " / ");
 
     }
 
@@ -123,15 +123,15 @@ public class ExpressionDeParser implements ExpressionVisitor, ItemsListVisitor {
     }
 
     public void visit(EqualsTo equalsTo) {
-        visitBinaryExpression(equalsTo, (equalsTo.getComment() != null ? " " + equalsTo.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " = ");
+        visitBinaryExpression(equalsTo, equalsTo.getComment() != null ? " " + equalsTo.getComment() + ExpressionDeParser.LINE_SEPARATOR + " = " : " = ");
     }
 
     public void visit(GreaterThan greaterThan) {
-        visitBinaryExpression(greaterThan, (greaterThan.getComment() != null ? " " + greaterThan.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " > ");
+        visitBinaryExpression(greaterThan, greaterThan.getComment() != null ? " " + greaterThan.getComment() + ExpressionDeParser.LINE_SEPARATOR + " > " : " > ");
     }
 
     public void visit(GreaterThanEquals greaterThanEquals) {
-        visitBinaryExpression(greaterThanEquals, (greaterThanEquals.getComment() != null ? " " + greaterThanEquals.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " >= ");
+        visitBinaryExpression(greaterThanEquals, greaterThanEquals.getComment() != null ? " " + greaterThanEquals.getComment() + ExpressionDeParser.LINE_SEPARATOR + " >= " : " >= ");
 
     }
 
@@ -168,7 +168,7 @@ public class ExpressionDeParser implements ExpressionVisitor, ItemsListVisitor {
     }
 
     public void visit(LikeExpression likeExpression) {
-        visitBinaryExpression(likeExpression, (likeExpression.getCommentLike() != null ? " " + likeExpression.getCommentLike() + ExpressionDeParser.LINE_SEPARATOR : "") + " Like ");
+        visitBinaryExpression(likeExpression, likeExpression.getCommentLike() != null ? " " + likeExpression.getCommentLike() + ExpressionDeParser.LINE_SEPARATOR + " Like " : " Like ");
     }
 
     public void visit(ExistsExpression existsExpression) {
@@ -186,22 +186,22 @@ public class ExpressionDeParser implements ExpressionVisitor, ItemsListVisitor {
     }
 
     public void visit(MinorThan minorThan) {
-        visitBinaryExpression(minorThan, (minorThan.getComment() != null ? " " + minorThan.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " < ");
+        visitBinaryExpression(minorThan, minorThan.getComment() != null ? " " + minorThan.getComment() + ExpressionDeParser.LINE_SEPARATOR + " < " : " < ");
 
     }
 
     public void visit(MinorThanEquals minorThanEquals) {
-        visitBinaryExpression(minorThanEquals, (minorThanEquals.getComment() != null ? " " + minorThanEquals.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " <= ");
+        visitBinaryExpression(minorThanEquals, minorThanEquals.getComment() != null ? " " + minorThanEquals.getComment() + ExpressionDeParser.LINE_SEPARATOR + " <= " : " <= ");
 
     }
 
     public void visit(Multiplication multiplication) {
-        visitBinaryExpression(multiplication, (multiplication.getComment() != null ? " " + multiplication.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " * ");
+        visitBinaryExpression(multiplication, multiplication.getComment() != null ? " " + multiplication.getComment() + ExpressionDeParser.LINE_SEPARATOR + " * " : " * ");
 
     }
 
     public void visit(NotEqualsTo notEqualsTo) {
-        visitBinaryExpression(notEqualsTo, (notEqualsTo.getComment() != null ? " " + notEqualsTo.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " <> ");
+        visitBinaryExpression(notEqualsTo, notEqualsTo.getComment() != null ? " " + notEqualsTo.getComment() + ExpressionDeParser.LINE_SEPARATOR + " <> " : " <> ");
 
     }
 
@@ -210,7 +210,7 @@ public class ExpressionDeParser implements ExpressionVisitor, ItemsListVisitor {
     }
 
     public void visit(OrExpression orExpression) {
-        visitBinaryExpression(orExpression, (orExpression.getComment() != null ? " " + orExpression.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " or ");
+        visitBinaryExpression(orExpression, orExpression.getComment() != null ? " " + orExpression.getComment() + ExpressionDeParser.LINE_SEPARATOR + " or " : " or ");
     }
 
     public void visit(Parenthesis parenthesis) {
@@ -228,7 +228,7 @@ public class ExpressionDeParser implements ExpressionVisitor, ItemsListVisitor {
     }
 
     public void visit(Subtraction subtraction) {
-        visitBinaryExpression(subtraction, (subtraction.getComment() != null ? subtraction.getComment() + " " + ExpressionDeParser.LINE_SEPARATOR : "") + "-");
+        visitBinaryExpression(subtraction, subtraction.getComment() != null ? subtraction.getComment() + " " + ExpressionDeParser.LINE_SEPARATOR + "-" : "-");
     }
 
     private void visitBinaryExpression(BinaryExpression binaryExpression, String operator) {
@@ -288,8 +288,10 @@ public class ExpressionDeParser implements ExpressionVisitor, ItemsListVisitor {
         for (int i = 0; i < expressionList.getExpressions().size(); i++) {
             Expression expression = (Expression) expressionList.getExpressions().get(i);
             expression.accept(this);
-            buffer.append((i < expressionList.getExpressions().size() - 1) ? (!"".equals(expressionList.getCommentsComma().get(i)) ? " "
-                    + expressionList.getCommentsComma().get(i) + ExpressionDeParser.LINE_SEPARATOR : "") + ", " : "");
+            if (i < expressionList.getExpressions().size() - 1) {
+                buffer.append(!"".equals(expressionList.getCommentsComma().get(i)) ? " "
+                        + expressionList.getCommentsComma().get(i) + ExpressionDeParser.LINE_SEPARATOR : "").append(", ");
+            }
         }
         if (useBracketsInExprList) {
             buffer.append(expressionList.getCommentEndBracket() != null ? expressionList.getCommentEndBracket() + " " + ExpressionDeParser.LINE_SEPARATOR : "").append(")");
@@ -352,23 +354,23 @@ public class ExpressionDeParser implements ExpressionVisitor, ItemsListVisitor {
     }
 
     public void visit(Concat concat) {
-        visitBinaryExpression(concat, (concat.getComment() != null ? " " + concat.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " || ");
+        visitBinaryExpression(concat, concat.getComment() != null ? " " + concat.getComment() + ExpressionDeParser.LINE_SEPARATOR + " || " : " || ");
     }
 
     public void visit(Matches matches) {
-        visitBinaryExpression(matches, (matches.getComment() != null ? " " + matches.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " @@ ");
+        visitBinaryExpression(matches, matches.getComment() != null ? " " + matches.getComment() + ExpressionDeParser.LINE_SEPARATOR + " @@ " : " @@ ");
     }
 
     public void visit(BitwiseAnd bitwiseAnd) {
-        visitBinaryExpression(bitwiseAnd, (bitwiseAnd.getComment() != null ? " " + bitwiseAnd.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " & ");
+        visitBinaryExpression(bitwiseAnd, bitwiseAnd.getComment() != null ? " " + bitwiseAnd.getComment() + ExpressionDeParser.LINE_SEPARATOR + " & " : " & ");
     }
 
     public void visit(BitwiseOr bitwiseOr) {
-        visitBinaryExpression(bitwiseOr, (bitwiseOr.getComment() != null ? " " + bitwiseOr.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " | ");
+        visitBinaryExpression(bitwiseOr, bitwiseOr.getComment() != null ? " " + bitwiseOr.getComment() + ExpressionDeParser.LINE_SEPARATOR + " | " : " | ");
     }
 
     public void visit(BitwiseXor bitwiseXor) {
-        visitBinaryExpression(bitwiseXor, (bitwiseXor.getComment() != null ? " " + bitwiseXor.getComment() + ExpressionDeParser.LINE_SEPARATOR : "") + " ^ ");
+        visitBinaryExpression(bitwiseXor, bitwiseXor.getComment() != null ? " " + bitwiseXor.getComment() + ExpressionDeParser.LINE_SEPARATOR + " ^ " : " ^ ");
     }
 
     public void visit(Connect aConnect) {
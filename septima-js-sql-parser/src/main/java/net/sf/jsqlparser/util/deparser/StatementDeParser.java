@@ -7,23 +7,45 @@ import net.sf.jsqlparser.statement.delete.Delete;
 import net.sf.jsqlparser.statement.drop.Drop;
 import net.sf.jsqlparser.statement.insert.Insert;
 import net.sf.jsqlparser.statement.replace.Replace;
+import net.sf.jsqlparser.statement.select.PlainSelect;
 import net.sf.jsqlparser.statement.select.Select;
 import net.sf.jsqlparser.statement.select.WithItem;
 import net.sf.jsqlparser.statement.truncate.Truncate;
 import net.sf.jsqlparser.statement.update.Update;
 
+/**
+ * Assembles sql text of a statement.
+ * Sql text of the whole statement, including sub selects and with items, is appended to a single builder in place.
+ * Select and expression de-parsers are created once per statement de-parser and are shared by all nested nodes.
+ */
 public class StatementDeParser implements StatementVisitor {
 
-    public static String assemble(Statement syntax){
-        StatementDeParser deParser = new StatementDeParser(new StringBuilder());
-        syntax.accept(deParser);
-        return deParser.getBuilder().toString();
+    public static String assemble(Statement syntax) {
+        return assemble(syntax, new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends sql text of a statement to a caller's builder, e.g. to reuse a builder or to presize it for a large statement.
+     *
+     * @param syntax   A statement to be assembled.
+     * @param aBuilder A builder to append sql text to.
+     * @return The builder.
+     */
+    public static StringBuilder assemble(Statement syntax, StringBuilder aBuilder) {
+        syntax.accept(new StatementDeParser(aBuilder));
+        return aBuilder;
     }
 
     protected final StringBuilder builder;
+    protected final SelectDeParser selectDeParser;
+    protected final ExpressionDeParser expressionDeParser;
 
     public StatementDeParser(StringBuilder builder) {
         this.builder = builder;
+        selectDeParser = new SelectDeParser();
+        selectDeParser.setBuilder(builder);
+        expressionDeParser = new ExpressionDeParser(selectDeParser, builder);
+        selectDeParser.setExpressionVisitor(expressionDeParser);
     }
 
     public void visit(CreateTable createTable) {
@@ -32,52 +54,32 @@ public class StatementDeParser implements StatementVisitor {
     }
 
     public void visit(Delete delete) {
-        SelectDeParser selectDeParser = new SelectDeParser();
-        selectDeParser.setBuilder(builder);
-        ExpressionDeParser expressionDeParser = new ExpressionDeParser(selectDeParser, builder);
-        selectDeParser.setExpressionVisitor(expressionDeParser);
         DeleteDeParser deleteDeParser = new DeleteDeParser(expressionDeParser, builder);
         deleteDeParser.deParse(delete);
     }
 
     public void visit(Drop drop) {
-        SelectDeParser selectDeParser = new SelectDeParser();
-        selectDeParser.setBuilder(builder);
-        ExpressionDeParser expressionDeParser = new ExpressionDeParser(selectDeParser, builder);
-        selectDeParser.setExpressionVisitor(expressionDeParser);
         DropDeParser dropDeParser = new DropDeParser(expressionDeParser, builder);
         dropDeParser.deParse(drop);
     }
 
     public void visit(Insert insert) {
-        SelectDeParser selectDeParser = new SelectDeParser();
-        selectDeParser.setBuilder(builder);
-        ExpressionDeParser expressionDeParser = new ExpressionDeParser(selectDeParser, builder);
-        selectDeParser.setExpressionVisitor(expressionDeParser);
         InsertDeParser insertDeParser = new InsertDeParser(expressionDeParser, selectDeParser, builder);
         insertDeParser.deParse(insert);
     }
 
     public void visit(Replace replace) {
-        SelectDeParser selectDeParser = new SelectDeParser();
-        selectDeParser.setBuilder(builder);
-        ExpressionDeParser expressionDeParser = new ExpressionDeParser(selectDeParser, builder);
-        selectDeParser.setExpressionVisitor(expressionDeParser);
         ReplaceDeParser replaceDeParser = new ReplaceDeParser(expressionDeParser, selectDeParser, builder);
         replaceDeParser.deParse(replace);
     }
 
     public void visit(Select select) {
-        SelectDeParser selectDeParser = new SelectDeParser();
-        selectDeParser.setBuilder(builder);
-        ExpressionDeParser expressionDeParser = new ExpressionDeParser(selectDeParser, builder);
-        selectDeParser.setExpressionVisitor(expressionDeParser);
         if (select.getWithItemsList() != null && !select.getWithItemsList().isEmpty()) {
             builder.append(select.getCommentWith() != null ? select.getCommentWith() + " " : "").append(ExpressionDeParser.LINE_SEPARATOR).append("With ");
 
             for (int i = 0; i < select.getWithItemsList().size(); i++) {
                 WithItem withItem = select.getWithItemsList().get(i);
-                builder.append(withItem);
+                deparseWithItem(withItem);
                 builder.append((i < select.getWithItemsList().size() - 1) ? (!"".equals(select.getCommentsComma().get(i)) ? " " + select.getCommentsComma().get(i) + ExpressionDeParser.LINE_SEPARATOR : "") + "," : "")
                         .append(ExpressionDeParser.LINE_SEPARATOR).append(" ");
             }
@@ -86,21 +88,39 @@ public class StatementDeParser implements StatementVisitor {
         builder.append(!"".equals(select.getEndComment()) ? " " + select.getEndComment() : "");
     }
 
+    public void deparseWithItem(WithItem withItem) {
+        if (withItem.getCommentName() != null) {
+            builder.append(withItem.getCommentName()).append(" ");
+        }
+        builder.append(withItem.getName());
+        if (withItem.getCommentBeginBracketWith() != null) {
+            builder.append(" ").append(withItem.getCommentBeginBracketWith());
+        }
+        if (withItem.getWithItemList() != null) {
+            builder.append(" ").append(PlainSelect.getStringListWithCommaComment(withItem.getWithItemList(), withItem.getCommentsCommaWith(), true, true, withItem.getCommentEndBracketWith()));
+        }
+        if (withItem.getCommentAs() != null) {
+            builder.append(" ").append(withItem.getCommentAs());
+        }
+        builder.append(" AS ");
+        if (withItem.getCommentBeginBracketAs() != null) {
+            builder.append(withItem.getCommentBeginBracketAs()).append(" ");
+        }
+        builder.append("(");
+        withItem.getSelectBody().accept(selectDeParser);
+        if (withItem.getCommentEndBracketAs() != null) {
+            builder.append(" ").append(withItem.getCommentEndBracketAs());
+        }
+        builder.append(")");
+    }
+
     public void visit(Truncate truncate) {
-        SelectDeParser selectDeParser = new SelectDeParser();
-        selectDeParser.setBuilder(builder);
-        ExpressionDeParser expressionDeParser = new ExpressionDeParser(selectDeParser, builder);
-        selectDeParser.setExpressionVisitor(expressionDeParser);
         TruncateDeParser truncateDeParser = new TruncateDeParser(expressionDeParser, builder);
         truncateDeParser.deParse(truncate);
     }
 
     public void visit(Update update) {
-        SelectDeParser selectDeParser = new SelectDeParser();
-        selectDeParser.setBuilder(builder);
-        ExpressionDeParser expressionDeParser = new ExpressionDeParser(selectDeParser, builder);
         UpdateDeParser updateDeParser = new UpdateDeParser(expressionDeParser, builder);
-        selectDeParser.setExpressionVisitor(expressionDeParser);
         updateDeParser.deParse(update);
     }
 
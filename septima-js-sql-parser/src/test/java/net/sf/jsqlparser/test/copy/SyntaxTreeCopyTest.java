@@ -0,0 +1,56 @@
+package net.sf.jsqlparser.test.copy;
+
+import net.sf.jsqlparser.SeptimaSqlParser;
+import net.sf.jsqlparser.expression.NamedParameter;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.syntax.SyntaxTreeCopy;
+import net.sf.jsqlparser.syntax.SyntaxTreeVisitor;
+import net.sf.jsqlparser.test.simpleparsing.SeptimaSqlParserTest;
+import net.sf.jsqlparser.util.deparser.StatementDeParser;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.net.URL;
+
+import static org.junit.Assert.*;
+
+public class SyntaxTreeCopyTest {
+
+    @Test
+    public void copiesAreEqual() throws Exception {
+        SeptimaSqlParser parser = new SeptimaSqlParser();
+        URL simpleParsing = Thread.currentThread().getContextClassLoader().getResource("simple_parsing.txt");
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(simpleParsing.openStream()))) {
+            String statement = SeptimaSqlParserTest.getStatement(in);
+            while (statement != null) {
+                Statement parsed = parser.parse(new StringReader(statement));
+                if (parsed instanceof Select) {
+                    Statement copy = SyntaxTreeCopy.of(parsed);
+                    assertNotSame(parsed, copy);
+                    assertEquals(StatementDeParser.assemble(parsed), StatementDeParser.assemble(copy));
+                }
+                statement = SeptimaSqlParserTest.getStatement(in);
+            }
+        }
+    }
+
+    @Test
+    public void copyIsIndependent() throws Exception {
+        Statement parsed = new SeptimaSqlParser().parse(new StringReader(
+                "Select * From goods g Where g.id = :id and g.name like :name or g.price > 10.5 and g.created < {ts '2018-01-01 00:00:00'}"
+        ));
+        String parsedSql = StatementDeParser.assemble(parsed);
+        Statement copy = SyntaxTreeCopy.of(parsed);
+        copy.accept(new SyntaxTreeVisitor() {
+            @Override
+            public void visit(NamedParameter parameter) {
+                parameter.setName("outer_" + parameter.getName());
+            }
+        });
+        assertEquals(parsedSql, StatementDeParser.assemble(parsed));
+        assertEquals(parsedSql.replace(":id", ":outer_id").replace(":name", ":outer_name"), StatementDeParser.assemble(copy));
+    }
+}
@@ -0,0 +1,96 @@
+package net.sf.jsqlparser.test.select;
+
+import net.sf.jsqlparser.SeptimaSqlParser;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SubSelect;
+import net.sf.jsqlparser.util.deparser.StatementDeParser;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Assembling of a deep chain of sub selects, like the one, an entity with several levels of inlined entities is compiled into.
+ * Prints time and allocated bytes of sql text assembling with the de-parser against {@code toString()} of syntax tree nodes.
+ */
+public class DeepInlineAssembleTest {
+
+    private static final int DEPTH = 64;
+    private static final int WARM_UP_REPS = 200;
+    private static final int REPS = 2000;
+
+    /**
+     * Builds a chain of sub selects the same way as entities are inlined, i.e. by substitution of a table with a sub select.
+     * Deeply nested sub selects are not parsed as a whole, because the parser's lookahead makes it too slow.
+     */
+    private static Statement chain(int aDepth) throws Exception {
+        SeptimaSqlParser parser = new SeptimaSqlParser();
+        Select chain = (Select) parser.parse(new StringReader("Select t0.id, t0.name From goods t0 Where t0.id = :id0 and t0.name like :name0"));
+        for (int i = 1; i <= aDepth; i++) {
+            Select level = (Select) parser.parse(new StringReader("Select t" + i + ".id, t" + i + ".name From inlined t" + i +
+                    " Where t" + i + ".id > :id" + i + " or t" + i + ".id in (Select g.id From goods g Where g.price < " + i + ")"));
+            PlainSelect body = (PlainSelect) level.getSelectBody();
+            SubSelect inlined = new SubSelect();
+            inlined.setSelectBody(chain.getSelectBody());
+            inlined.setAlias(((Table) body.getFromItem()).getAlias());
+            body.setFromItem(inlined);
+            chain = level;
+        }
+        return chain;
+    }
+
+    @Test
+    public void sameText() throws Exception {
+        Statement chain = chain(DEPTH);
+        String assembled = StatementDeParser.assemble(chain);
+        assertEquals(assembled, StatementDeParser.assemble(chain, new StringBuilder("-- reused\n")).substring("-- reused\n".length()));
+        Statement shallowChain = chain(3);
+        String shallowAssembled = StatementDeParser.assemble(shallowChain);
+        assertEquals(shallowAssembled, StatementDeParser.assemble(new SeptimaSqlParser().parse(new StringReader(shallowAssembled))));
+    }
+
+    @Test
+    public void throughput() throws Exception {
+        Statement chain = chain(DEPTH);
+        measure("Nodes' toString()", chain::toString);
+        measure("StatementDeParser.assemble()", () -> StatementDeParser.assemble(chain));
+        StringBuilder reused = new StringBuilder();
+        measure("StatementDeParser.assemble() into a reused builder", () -> {
+            reused.setLength(0);
+            return StatementDeParser.assemble(chain, reused);
+        });
+    }
+
+    private static void measure(String aTitle, Supplier<CharSequence> anAssemble) {
+        for (int i = 0; i < WARM_UP_REPS; i++) {
+            anAssemble.get();
+        }
+        long allocatedBefore = allocatedBytes();
+        long started = System.nanoTime();
+        long length = 0;
+        for (int i = 0; i < REPS; i++) {
+            length += anAssemble.get().length();
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = allocatedBytes() - allocatedBefore;
+        System.out.println(aTitle + ": " + REPS + " assemblies of " + length / REPS + " chars in " + elapsed / 1000000 + " ms ("
+                + elapsed / REPS / 1000 + " us per assembly, "
+                + (allocatedBefore >= 0 ? allocated / REPS + " bytes allocated per assembly)" : "allocation is not measured)"));
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        } else {
+            return -1;
+        }
+    }
+}
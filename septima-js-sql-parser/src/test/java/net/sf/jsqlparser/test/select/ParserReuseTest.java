@@ -0,0 +1,135 @@
+package net.sf.jsqlparser.test.select;
+
+import net.sf.jsqlparser.JSqlParserException;
+import net.sf.jsqlparser.SeptimaSqlParser;
+import net.sf.jsqlparser.parser.CCJSqlParser;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.test.simpleparsing.SeptimaSqlParserTest;
+import net.sf.jsqlparser.util.deparser.StatementDeParser;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Parse throughput and allocation of reused parsers against a new parser per statement.
+ * The corpus consists of statements of simple_parsing.txt and valid requests of RUBiS-select-requests.txt
+ * and RUBiS-create-requests.txt, used by {@link SelectTest} and {@link net.sf.jsqlparser.test.create.CreateTableTest}.
+ */
+public class ParserReuseTest {
+
+    private static final int WARM_UP_REPS = 50;
+    private static final int REPS = 200;
+
+    private interface Parse {
+        Statement parse(String aStatement) throws Exception;
+    }
+
+    @Test
+    public void sameStatements() throws Exception {
+        SeptimaSqlParser parser = new SeptimaSqlParser();
+        for (String statement : corpus()) {
+            Statement fresh = new CCJSqlParser(new StringReader(statement)).Statement();
+            try {
+                parser.parse(new StringReader("Select * From Where"));
+                fail("Malformed statement should not be parsed");
+            } catch (JSqlParserException ex) {
+                // A parser, failed with malformed statement, should be reused with no side effects
+            }
+            Statement reused = parser.parse(new StringReader(statement));
+            assertSame(fresh.getClass(), reused.getClass());
+            if (fresh instanceof Select) {
+                assertEquals(StatementDeParser.assemble(fresh), StatementDeParser.assemble(reused));
+            }
+        }
+    }
+
+    @Test
+    public void throughput() throws Exception {
+        List<String> corpus = corpus();
+        assertFalse(corpus.isEmpty());
+        SeptimaSqlParser parser = new SeptimaSqlParser();
+        measure("New parser per statement", corpus, statement -> new CCJSqlParser(new StringReader(statement)).Statement());
+        measure("Reused parsers", corpus, statement -> parser.parse(new StringReader(statement)));
+    }
+
+    private static void measure(String aTitle, List<String> aCorpus, Parse aParse) throws Exception {
+        for (int i = 0; i < WARM_UP_REPS; i++) {
+            for (String statement : aCorpus) {
+                aParse.parse(statement);
+            }
+        }
+        long allocatedBefore = allocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < REPS; i++) {
+            for (String statement : aCorpus) {
+                aParse.parse(statement);
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = allocatedBytes() - allocatedBefore;
+        long parsed = (long) REPS * aCorpus.size();
+        System.out.println(aTitle + ": " + parsed + " statements parsed in " + elapsed / 1000000 + " ms ("
+                + parsed * 1000000000L / Math.max(elapsed, 1) + " statements per second, "
+                + (allocatedBefore >= 0 ? allocated / parsed + " bytes allocated per statement)" : "allocation is not measured)"));
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        } else {
+            return -1;
+        }
+    }
+
+    private static List<String> corpus() throws Exception {
+        List<String> corpus = new ArrayList<>();
+        URL simpleParsing = Thread.currentThread().getContextClassLoader().getResource("simple_parsing.txt");
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(simpleParsing.openStream()))) {
+            String statement = SeptimaSqlParserTest.getStatement(in);
+            while (statement != null) {
+                corpus.add(statement);
+                statement = SeptimaSqlParserTest.getStatement(in);
+            }
+        }
+        corpus.addAll(rubisRequests("RUBiS-select-requests.txt"));
+        corpus.addAll(rubisRequests("RUBiS-create-requests.txt"));
+        return corpus;
+    }
+
+    private static List<String> rubisRequests(String aResourceName) throws Exception {
+        List<String> requests = new ArrayList<>();
+        URL rubis = Thread.currentThread().getContextClassLoader().getResource(aResourceName);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(rubis.openStream()))) {
+            String line = SeptimaSqlParserTest.getLine(in);
+            while (line != null) {
+                if (line.equals("#begin")) {
+                    StringBuilder request = new StringBuilder(SeptimaSqlParserTest.getLine(in));
+                    line = SeptimaSqlParserTest.getLine(in);
+                    while (!line.equals("#end")) {
+                        request.append("\n").append(line);
+                        line = SeptimaSqlParserTest.getLine(in);
+                    }
+                    if (SeptimaSqlParserTest.getLine(in).equals("true")) {
+                        requests.add(request.toString());
+                    }
+                }
+                line = SeptimaSqlParserTest.getLine(in);
+            }
+        }
+        return requests;
+    }
+}